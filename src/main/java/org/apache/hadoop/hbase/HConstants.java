@@ -157,6 +157,10 @@ public final class HConstants {
   /** Used to construct the name of the compaction directory during compaction */
   public static final String HREGION_COMPACTIONDIR_NAME = "compaction.dir";
 
+  /** Used to construct the name of the directory, under a table's directory,
+   * that holds pins asking regionservers not to compact the table's files */
+  public static final String COMPACTION_PIN_DIR_NAME = ".pins";
+
   /** Default maximum file size */
   public static final long DEFAULT_MAX_FILE_SIZE = 256 * 1024 * 1024;
 
@@ -65,6 +65,8 @@ public class HServerLoad implements WritableComparable<HServerLoad> {
     private int memstoreSizeMB;
     /** the current total size of storefile indexes for the region, in MB */
     private int storefileIndexSizeMB;
+    /** the number of requests served since the region was opened */
+    private long requestsCount;
 
     /**
      * Constructor, for Writable
@@ -84,12 +86,30 @@ public class HServerLoad implements WritableComparable<HServerLoad> {
     public RegionLoad(final byte[] name, final int stores,
         final int storefiles, final int storefileSizeMB,
         final int memstoreSizeMB, final int storefileIndexSizeMB) {
+      this(name, stores, storefiles, storefileSizeMB, memstoreSizeMB,
+        storefileIndexSizeMB, 0);
+    }
+
+    /**
+     * @param name
+     * @param stores
+     * @param storefiles
+     * @param storefileSizeMB
+     * @param memstoreSizeMB
+     * @param storefileIndexSizeMB
+     * @param requestsCount
+     */
+    public RegionLoad(final byte[] name, final int stores,
+        final int storefiles, final int storefileSizeMB,
+        final int memstoreSizeMB, final int storefileIndexSizeMB,
+        final long requestsCount) {
       this.name = name;
       this.stores = stores;
       this.storefiles = storefiles;
       this.storefileSizeMB = storefileSizeMB;
       this.memstoreSizeMB = memstoreSizeMB;
       this.storefileIndexSizeMB = storefileIndexSizeMB;
+      this.requestsCount = requestsCount;
     }
 
     // Getters
@@ -143,6 +163,13 @@ public class HServerLoad implements WritableComparable<HServerLoad> {
       return storefileIndexSizeMB;
     }
 
+    /**
+     * @return the number of requests served since the region was opened
+     */
+    public long getRequestsCount() {
+      return requestsCount;
+    }
+
     // Setters
 
     /**
@@ -181,6 +208,14 @@ public class HServerLoad implements WritableComparable<HServerLoad> {
       this.storefileIndexSizeMB = storefileIndexSizeMB;
     }
 
+    /**
+     * @param requestsCount the number of requests served since the region
+     *  was opened
+     */
+    public void setRequestsCount(long requestsCount) {
+      this.requestsCount = requestsCount;
+    }
+
     // Writable
     public void readFields(DataInput in) throws IOException {
       int namelen = in.readInt();
@@ -191,6 +226,7 @@ public class HServerLoad implements WritableComparable<HServerLoad> {
       this.storefileSizeMB = in.readInt();
       this.memstoreSizeMB = in.readInt();
       this.storefileIndexSizeMB = in.readInt();
+      this.requestsCount = in.readLong();
     }
 
     public void write(DataOutput out) throws IOException {
@@ -201,6 +237,7 @@ public class HServerLoad implements WritableComparable<HServerLoad> {
       out.writeInt(storefileSizeMB);
       out.writeInt(memstoreSizeMB);
       out.writeInt(storefileIndexSizeMB);
+      out.writeLong(requestsCount);
     }
 
     /**
@@ -218,6 +255,8 @@ public class HServerLoad implements WritableComparable<HServerLoad> {
         Integer.valueOf(this.memstoreSizeMB));
       sb = Strings.appendKeyValue(sb, "storefileIndexSizeMB",
         Integer.valueOf(this.storefileIndexSizeMB));
+      sb = Strings.appendKeyValue(sb, "requestsCount",
+        Long.valueOf(this.requestsCount));
       return sb.toString();
     }
   }
@@ -229,7 +268,6 @@ public class HServerLoad implements WritableComparable<HServerLoad> {
    * <ul>
    *   <li># of CPUs, heap size (to determine the "class" of machine). For
    *       now, we consider them to be homogeneous.</li>
-   *   <li>#requests per region (Map<{String|HRegionInfo}, Integer>)</li>
    *   <li>#compactions and/or #splits (churn)</li>
    *   <li>server death rate (maybe there is something wrong with this server)</li>
    * </ul>
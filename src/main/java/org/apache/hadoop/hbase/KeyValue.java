@@ -423,6 +423,97 @@ public class KeyValue implements Writable, HeapSize {
       final byte [] qualifier, final int qoffset, int qlength,
       final long timestamp, final Type type,
       final byte [] value, final int voffset, int vlength) {
+    // Allocate right-sized byte array.
+    byte [] bytes = new byte[checkLengths(row, rlength, family, flength,
+      qualifier, qlength, value, vlength)];
+    writeByteArray(bytes, 0, row, roffset, rlength, family, foffset, flength,
+      qualifier, qoffset, qlength, timestamp, type, value, voffset, vlength);
+    return bytes;
+  }
+
+  /**
+   * Write KeyValue format into the passed buffer.  Lets callers that make
+   * many short-lived KeyValues, such as bulk import mappers, build them all
+   * in one reused buffer.
+   *
+   * @param buffer buffer to write into
+   * @param boffset offset in <code>buffer</code> to write at
+   * @param row row key
+   * @param roffset row offset
+   * @param rlength row length
+   * @param family family name
+   * @param foffset family offset
+   * @param flength family length
+   * @param qualifier column qualifier
+   * @param qoffset qualifier offset
+   * @param qlength qualifier length
+   * @param timestamp version timestamp
+   * @param type key type
+   * @param value column value
+   * @param voffset value offset
+   * @param vlength value length
+   * @return Length of the KeyValue written.
+   * @throws IllegalArgumentException if a part is too long or
+   * <code>buffer</code> is too short
+   */
+  public static int writeByteArray(final byte [] buffer, final int boffset,
+      final byte [] row, final int roffset, final int rlength,
+      final byte [] family, final int foffset, int flength,
+      final byte [] qualifier, final int qoffset, int qlength,
+      final long timestamp, final Type type,
+      final byte [] value, final int voffset, int vlength) {
+    int length = checkLengths(row, rlength, family, flength, qualifier,
+      qlength, value, vlength);
+    if (buffer.length - boffset < length) {
+      throw new IllegalArgumentException("Buffer size " +
+        (buffer.length - boffset) + " < " + length);
+    }
+    flength = family == null ? 0 : flength;
+    qlength = qualifier == null ? 0 : qlength;
+    vlength = value == null? 0 : vlength;
+    int keylength = KEY_INFRASTRUCTURE_SIZE + rlength + flength + qlength;
+
+    // Write key, value and key row length.
+    int pos = boffset;
+    pos = Bytes.putInt(buffer, pos, keylength);
+    pos = Bytes.putInt(buffer, pos, vlength);
+    pos = Bytes.putShort(buffer, pos, (short)(rlength & 0x0000ffff));
+    pos = Bytes.putBytes(buffer, pos, row, roffset, rlength);
+    pos = Bytes.putByte(buffer, pos, (byte)(flength & 0x0000ff));
+    if(flength != 0) {
+      pos = Bytes.putBytes(buffer, pos, family, foffset, flength);
+    }
+    if(qlength != 0) {
+      pos = Bytes.putBytes(buffer, pos, qualifier, qoffset, qlength);
+    }
+    pos = Bytes.putLong(buffer, pos, timestamp);
+    pos = Bytes.putByte(buffer, pos, type.getCode());
+    if (value != null && value.length > 0) {
+      pos = Bytes.putBytes(buffer, pos, value, voffset, vlength);
+    }
+    return length;
+  }
+
+  /**
+   * @param rlength row length
+   * @param flength family length
+   * @param qlength qualifier length
+   * @param vlength value length
+   * @return Length of a KeyValue made of parts of the passed lengths.
+   */
+  public static long getKeyValueDataStructureSize(final int rlength,
+      final int flength, final int qlength, final int vlength) {
+    return (long)KEYVALUE_INFRASTRUCTURE_SIZE + KEY_INFRASTRUCTURE_SIZE +
+      rlength + flength + qlength + vlength;
+  }
+
+  /*
+   * Checks the parts of a KeyValue are within bounds.
+   * @return Length of the KeyValue the parts make.
+   */
+  private static int checkLengths(final byte [] row, final int rlength,
+      final byte [] family, int flength, final byte [] qualifier, int qlength,
+      final byte [] value, int vlength) {
     if (rlength > Short.MAX_VALUE) {
       throw new IllegalArgumentException("Row > " + Short.MAX_VALUE);
     }
@@ -445,35 +536,18 @@ public class KeyValue implements Writable, HeapSize {
       throw new IllegalArgumentException("keylength " + longkeylength + " > " +
         Integer.MAX_VALUE);
     }
-    int keylength = (int)longkeylength;
     // Value length
     vlength = value == null? 0 : vlength;
     if (vlength > HConstants.MAXIMUM_VALUE_LENGTH) { // FindBugs INT_VACUOUS_COMPARISON
       throw new IllegalArgumentException("Valuer > " +
           HConstants.MAXIMUM_VALUE_LENGTH);
     }
-
-    // Allocate right-sized byte array.
-    byte [] bytes = new byte[KEYVALUE_INFRASTRUCTURE_SIZE + keylength + vlength];
-    // Write key, value and key row length.
-    int pos = 0;
-    pos = Bytes.putInt(bytes, pos, keylength);
-    pos = Bytes.putInt(bytes, pos, vlength);
-    pos = Bytes.putShort(bytes, pos, (short)(rlength & 0x0000ffff));
-    pos = Bytes.putBytes(bytes, pos, row, roffset, rlength);
-    pos = Bytes.putByte(bytes, pos, (byte)(flength & 0x0000ff));
-    if(flength != 0) {
-      pos = Bytes.putBytes(bytes, pos, family, foffset, flength);
-    }
-    if(qlength != 0) {
-      pos = Bytes.putBytes(bytes, pos, qualifier, qoffset, qlength);
-    }
-    pos = Bytes.putLong(bytes, pos, timestamp);
-    pos = Bytes.putByte(bytes, pos, type.getCode());
-    if (value != null && value.length > 0) {
-      pos = Bytes.putBytes(bytes, pos, value, voffset, vlength);
+    long length = KEYVALUE_INFRASTRUCTURE_SIZE + longkeylength + vlength;
+    if (length > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("KeyValue length " + length + " > " +
+        Integer.MAX_VALUE);
     }
-    return bytes;
+    return (int)length;
   }
 
   /**
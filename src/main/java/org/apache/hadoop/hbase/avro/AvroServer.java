@@ -20,12 +20,15 @@ package org.apache.hadoop.hbase.avro;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericData;
-import org.apache.avro.ipc.HttpServer;
+import org.apache.avro.ipc.Responder;
+import org.apache.avro.ipc.ResponderServlet;
 import org.apache.avro.specific.SpecificResponder;
 import org.apache.avro.util.Utf8;
 import org.apache.commons.logging.Log;
@@ -49,11 +52,22 @@ import org.apache.hadoop.hbase.avro.generated.ATableDescriptor;
 import org.apache.hadoop.hbase.avro.generated.ATableExists;
 import org.apache.hadoop.hbase.avro.generated.HBase;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.HTablePool;
+import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Row;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.mortbay.jetty.AbstractConnector;
+import org.mortbay.jetty.Connector;
+import org.mortbay.jetty.Server;
+import org.mortbay.jetty.bio.SocketConnector;
+import org.mortbay.jetty.nio.SelectChannelConnector;
+import org.mortbay.jetty.servlet.Context;
+import org.mortbay.jetty.servlet.ServletHolder;
+import org.mortbay.thread.QueuedThreadPool;
 
 /**
  * Start an Avro server
@@ -77,6 +91,9 @@ public class AvroServer {
     protected int nextScannerId = 0;
     protected HashMap<Integer, ResultScanner> scannerMap = null;
 
+    // rows fetched per region server round trip by scanners opened here
+    protected int scannerCaching;
+
     //
     // UTILITY METHODS
     //
@@ -119,16 +136,28 @@ public class AvroServer {
     // CTOR METHODS
     //
 
-    // TODO(hammer): figure out appropriate setting of maxSize for htablePool
     /**
      * Constructs an HBaseImpl object.
      * @throws IOException 
      */
     HBaseImpl() throws IOException {
-      conf = HBaseConfiguration.create();
+      this(HBaseConfiguration.create());
+    }
+
+    /**
+     * Constructs an HBaseImpl object.
+     * @param conf configuration
+     * @throws IOException 
+     */
+    HBaseImpl(final Configuration conf) throws IOException {
+      this.conf = conf;
       admin = new HBaseAdmin(conf);
-      htablePool = new HTablePool(conf, 10);
+      // Keep an idle table around for each worker that may want one
+      htablePool = new HTablePool(conf,
+        conf.getInt("hbase.avro.htablepool.size",
+          conf.getInt("hbase.avro.threads.max", DEFAULT_MAX_THREADS)));
       scannerMap = new HashMap<Integer, ResultScanner>();
+      scannerCaching = conf.getInt("hbase.avro.scanner.caching", 100);
     }
 
     //
@@ -463,6 +492,7 @@ public class AvroServer {
       HTableInterface htable = htablePool.getTable(Bytes.toBytes(table));
       try {
         Scan scan = AvroUtil.ascanToScan(ascan);
+        scan.setCaching(scannerCaching);
         return addScanner(htable.getScanner(scan));
       } catch (IOException e) {
     	AIOError ioe = new AIOError();
@@ -506,12 +536,74 @@ public class AvroServer {
         throw ioe;
       }
     }
+
+    //
+    // Multi-row DML (batched reads)
+    //
+
+    /**
+     * Fetches many rows with one multi call per region server.  There is one
+     * AResult per AGet, in order; a row that was not found comes back with
+     * the requested row key and no entries.
+     */
+    public GenericArray<AResult> multiGet(ByteBuffer table, GenericArray<AGet> agets) throws AIOError {
+      List<Row> gets = new ArrayList<Row>((int)agets.size());
+      HTable htable = (HTable)htablePool.getTable(Bytes.toBytes(table));
+      try {
+        for (AGet aget : agets) {
+          gets.add(AvroUtil.agetToGet(aget));
+        }
+        Result[] results = htable.batch(gets);
+        GenericArray<AResult> aresults = AvroUtil.resultsToAResults(results);
+        int i = 0;
+        for (AResult aresult : aresults) {
+          if (aresult.entries.size() == 0) {
+            aresult.row = ByteBuffer.wrap(gets.get(i).getRow());
+          }
+          i++;
+        }
+        return aresults;
+      } catch (IOException e) {
+    	AIOError ioe = new AIOError();
+	ioe.message = new Utf8(e.getMessage());
+        throw ioe;
+      } finally {
+        htablePool.putTable(htable);
+      }
+    }
+
+    /**
+     * Returns up to numberOfRows rows of a scan in one call, without leaving
+     * a scanner open on the gateway.
+     */
+    public GenericArray<AResult> scan(ByteBuffer table, AScan ascan, int numberOfRows) throws AIOError {
+      HTableInterface htable = htablePool.getTable(Bytes.toBytes(table));
+      ResultScanner scanner = null;
+      try {
+        Scan scan = AvroUtil.ascanToScan(ascan);
+        scan.setCaching(Math.max(1, numberOfRows));
+        scanner = htable.getScanner(scan);
+        return AvroUtil.resultsToAResults(scanner.next(numberOfRows));
+      } catch (IOException e) {
+    	AIOError ioe = new AIOError();
+	ioe.message = new Utf8(e.getMessage());
+        throw ioe;
+      } finally {
+        if (scanner != null) {
+          scanner.close();
+        }
+        htablePool.putTable(htable);
+      }
+    }
   }
 
   //
   // MAIN PROGRAM
   //
 
+  static final int DEFAULT_LISTEN_PORT = 9090;
+  static final int DEFAULT_MAX_THREADS = 100;
+
   private static void printUsageAndExit() {
     printUsageAndExit(null);
   }
@@ -521,26 +613,75 @@ public class AvroServer {
       System.err.println(message);
     }
     System.out.println("Usage: java org.apache.hadoop.hbase.avro.AvroServer " +
-      "--help | [--port=PORT] start");
+      "--help | [--port=PORT] [--transport=nio|bio] start");
     System.out.println("Arguments:");
     System.out.println(" start Start Avro server");
     System.out.println(" stop  Stop Avro server");
     System.out.println("Options:");
-    System.out.println(" port  Port to listen on. Default: 9090");
-    System.out.println(" help  Print this message and exit");
+    System.out.println(" port       Port to listen on. Default: 9090");
+    System.out.println(" transport  nio for a non-blocking connector, bio " +
+      "for a thread per connection. Default: nio");
+    System.out.println(" help       Print this message and exit");
     System.exit(0);
   }
 
-  // TODO(hammer): Figure out a better way to keep the server alive!
+  /**
+   * Builds, but does not start, a Jetty server that serves the Avro
+   * responder.  The connector and worker pool are set up from
+   * <code>hbase.avro.port</code>, <code>hbase.avro.transport</code>
+   * ("nio", the default, or "bio"), <code>hbase.avro.threads.min</code> and
+   * <code>hbase.avro.threads.max</code>.
+   * @param conf configuration
+   * @param responder the responder to serve
+   * @return the server
+   * @throws IOException
+   */
+  static Server createServer(final Configuration conf,
+      final Responder responder) throws IOException {
+    String transport = conf.get("hbase.avro.transport", "nio");
+    AbstractConnector connector;
+    if (transport.equals("nio")) {
+      connector = new SelectChannelConnector();
+    } else if (transport.equals("bio")) {
+      connector = new SocketConnector();
+    } else {
+      throw new IllegalArgumentException("Unknown transport: " + transport);
+    }
+    connector.setPort(conf.getInt("hbase.avro.port", DEFAULT_LISTEN_PORT));
+    connector.setAcceptQueueSize(conf.getInt("hbase.avro.accept.queue", 128));
+
+    QueuedThreadPool workers = new QueuedThreadPool();
+    workers.setName("AvroServer");
+    workers.setMinThreads(conf.getInt("hbase.avro.threads.min", 2));
+    workers.setMaxThreads(conf.getInt("hbase.avro.threads.max",
+      DEFAULT_MAX_THREADS));
+
+    Server server = new Server();
+    server.setConnectors(new Connector[] { connector });
+    server.setThreadPool(workers);
+    server.setSendServerVersion(false);
+    server.setSendDateHeader(false);
+    server.setStopAtShutdown(true);
+    Context context = new Context(server, "/");
+    context.addServlet(new ServletHolder(new ResponderServlet(responder)), "/*");
+    return server;
+  }
+
   protected static void doMain(final String[] args) throws Exception {
     if (args.length < 1) {
       printUsageAndExit();
     }
-    int port = 9090;
+    Configuration conf = HBaseConfiguration.create();
     final String portArgKey = "--port=";
+    final String transportArgKey = "--transport=";
     for (String cmd: args) {
       if (cmd.startsWith(portArgKey)) {
-        port = Integer.parseInt(cmd.substring(portArgKey.length()));
+        conf.setInt("hbase.avro.port",
+          Integer.parseInt(cmd.substring(portArgKey.length())));
+        continue;
+      } else if (cmd.startsWith(transportArgKey)) {
+        conf.set("hbase.avro.transport",
+          cmd.substring(transportArgKey.length()));
         continue;
       } else if (cmd.equals("--help") || cmd.equals("-h")) {
         printUsageAndExit();
@@ -556,10 +697,13 @@ public class AvroServer {
       printUsageAndExit();
     }
     Log LOG = LogFactory.getLog("AvroServer");
-    LOG.info("starting HBase Avro server on port " + Integer.toString(port));
-    SpecificResponder r = new SpecificResponder(HBase.class, new HBaseImpl());
-    new HttpServer(r, 9090);
-    Thread.sleep(1000000);
+    LOG.info("starting HBase Avro server on port " +
+      conf.getInt("hbase.avro.port", DEFAULT_LISTEN_PORT) + " using the " +
+      conf.get("hbase.avro.transport", "nio") + " transport");
+    SpecificResponder r = new SpecificResponder(HBase.class, new HBaseImpl(conf));
+    Server server = createServer(conf, r);
+    server.start();
+    server.join();
   }
 
   // TODO(hammer): Look at Cassandra's daemonization and integration with JSVC
@@ -21,10 +21,10 @@ package org.apache.hadoop.hbase.avro;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Collection;
-import java.util.List;
 
 import org.apache.hadoop.hbase.ClusterStatus;
 import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.HServerAddress;
 import org.apache.hadoop.hbase.HServerInfo;
 import org.apache.hadoop.hbase.HServerLoad;
@@ -62,6 +62,12 @@ import org.apache.avro.util.Utf8;
 
 public class AvroUtil {
 
+  // Array schemas are immutable, so build the hot ones once
+  private static final Schema ARESULT_ENTRY_ARRAY_SCHEMA =
+    Schema.createArray(AResultEntry.SCHEMA$);
+  private static final Schema ARESULT_ARRAY_SCHEMA =
+    Schema.createArray(AResult.SCHEMA$);
+
   //
   // Cluster metadata
   //
@@ -301,24 +307,30 @@ public class AvroUtil {
   }
 
   // TODO(hammer): Pick one: Timestamp or TimeStamp
+  /**
+   * Encodes a Result.  The row, family, qualifier and value of each
+   * KeyValue are copied out into buffers of their own.  An empty Result
+   * gives an empty row and no entries.
+   */
   static public AResult resultToAResult(Result result) {
     AResult aresult = new AResult();
-    aresult.row = ByteBuffer.wrap(result.getRow());
-    Schema s = Schema.createArray(AResultEntry.SCHEMA$);
-    GenericData.Array<AResultEntry> entries = null;
-    List<KeyValue> resultKeyValues = result.list();
-    if (resultKeyValues != null && resultKeyValues.size() > 0) {
-      entries = new GenericData.Array<AResultEntry>(resultKeyValues.size(), s);
-      for (KeyValue resultKeyValue : resultKeyValues) {
-	AResultEntry entry = new AResultEntry();
-	entry.family = ByteBuffer.wrap(resultKeyValue.getFamily());
-	entry.qualifier = ByteBuffer.wrap(resultKeyValue.getQualifier());
-	entry.value = ByteBuffer.wrap(resultKeyValue.getValue());
-	entry.timestamp = resultKeyValue.getTimestamp();
-	entries.add(entry);
-      }
-    } else {
-      entries = new GenericData.Array<AResultEntry>(0, s);
+    KeyValue[] kvs = result.sorted();
+    if (kvs == null) {
+      aresult.row = ByteBuffer.wrap(HConstants.EMPTY_BYTE_ARRAY);
+      aresult.entries =
+        new GenericData.Array<AResultEntry>(0, ARESULT_ENTRY_ARRAY_SCHEMA);
+      return aresult;
+    }
+    aresult.row = ByteBuffer.wrap(kvs[0].getRow());
+    GenericData.Array<AResultEntry> entries =
+      new GenericData.Array<AResultEntry>(kvs.length, ARESULT_ENTRY_ARRAY_SCHEMA);
+    for (KeyValue kv : kvs) {
+      AResultEntry entry = new AResultEntry();
+      entry.family = ByteBuffer.wrap(kv.getFamily());
+      entry.qualifier = ByteBuffer.wrap(kv.getQualifier());
+      entry.value = ByteBuffer.wrap(kv.getValue());
+      entry.timestamp = kv.getTimestamp();
+      entries.add(entry);
     }
     aresult.entries = entries;
     return aresult;
@@ -398,15 +410,15 @@ public class AvroUtil {
 
   // TODO(hammer): Better to return null or empty array?
   static public GenericArray<AResult> resultsToAResults(Result[] results) {
-    Schema s = Schema.createArray(AResult.SCHEMA$);
     GenericData.Array<AResult> aresults = null;
     if (results != null && results.length > 0) {
-      aresults = new GenericData.Array<AResult>(results.length, s);
+      aresults = new GenericData.Array<AResult>(results.length,
+        ARESULT_ARRAY_SCHEMA);
       for (Result result : results) {
 	aresults.add(resultToAResult(result));
       }
     } else {
-      aresults = new GenericData.Array<AResult>(0, s);
+      aresults = new GenericData.Array<AResult>(0, ARESULT_ARRAY_SCHEMA);
     }
     return aresults;
   }
@@ -20,8 +20,10 @@
 package org.apache.hadoop.hbase.catalog;
 
 import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.net.ConnectException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,6 +37,7 @@ import org.apache.hadoop.hbase.client.RetriesExhaustedException;
 import org.apache.hadoop.hbase.client.ServerConnection;
 import org.apache.hadoop.hbase.ipc.HRegionInterface;
 import org.apache.hadoop.hbase.util.Pair;
+import org.apache.hadoop.hbase.util.Threads;
 import org.apache.hadoop.hbase.zookeeper.MetaNodeTracker;
 import org.apache.hadoop.hbase.zookeeper.RootRegionTracker;
 import org.apache.hadoop.hbase.zookeeper.ZooKeeperWatcher;
@@ -48,6 +51,13 @@ import org.apache.zookeeper.KeeperException;
  * be explicitly set.  Instead, ZooKeeper is used to learn of the availability
  * and location of ROOT.  ROOT is used to learn of the location of META.  If not
  * available in ROOT, ZooKeeper is used to monitor for a new location of META.
+ * <p>
+ * Once verified, the location of META is used without verifying it again for
+ * the length of a lease, <code>hbase.catalog.verification.lease</code>.  When
+ * the lease is up, the next caller verifies it again and concurrent callers
+ * wait on that one verification.  While META is being reassigned its location
+ * is verified on every use, and a new one is looked up in the background once
+ * the assignment completes.
  * <p>Call {@link #start()} to start up operation.
  */
 public class CatalogTracker {
@@ -62,9 +72,26 @@ public class CatalogTracker {
   private final MetaNodeTracker metaNodeTracker;
 
   private final AtomicBoolean metaAvailable = new AtomicBoolean(false);
-  private HServerAddress metaLocation;
+  private volatile HServerAddress metaLocation;
+  // The fields below are guarded by metaAvailable
+  // Time up to which metaLocation is used without verifying it
+  private long metaLeaseExpiry = 0;
+  // Set while META is being reassigned, so the lease isn't renewed
+  private boolean metaInTransition = false;
+  // Set once META is reassigned, so its location is looked up in ROOT again
+  // rather than verified where it was: the old server may still be serving it
+  private boolean metaLookupRequired = false;
+  // Verification of the META location other callers can wait on, if any
+  private MetaVerification metaVerification = null;
+
+  private final AtomicBoolean metaRefreshPending = new AtomicBoolean(false);
+  private final AtomicLong metaVerifications = new AtomicLong(0);
 
   private final int defaultTimeout;
+  private final long verificationLease;
+
+  /** Default time, in milliseconds, a verified META location is trusted */
+  public static final long DEFAULT_VERIFICATION_LEASE = 60 * 1000;
 
   public static final byte [] ROOT_REGION =
     HRegionInfo.ROOT_REGIONINFO.getRegionName();
@@ -98,12 +125,40 @@ public class CatalogTracker {
   public CatalogTracker(final ZooKeeperWatcher zk,
       final ServerConnection connection, final Abortable abortable,
       final int defaultTimeout)
+  throws IOException {
+    this(zk, connection, abortable, defaultTimeout, DEFAULT_VERIFICATION_LEASE);
+  }
+
+  /**
+   * Constructs the catalog tracker.  Find current state of catalog tables and
+   * begin active tracking by executing {@link #start()}.
+   * @param zk
+   * @param connection server connection
+   * @param abortable if fatal exception
+   * @param defaultTimeout Timeout to use.
+   * @param verificationLease How long, in milliseconds, to use the location of
+   * META without verifying it again.  Pass 0 to verify it on every use.
+   * @throws IOException 
+   */
+  public CatalogTracker(final ZooKeeperWatcher zk,
+      final ServerConnection connection, final Abortable abortable,
+      final int defaultTimeout, final long verificationLease)
   throws IOException {
     this.zookeeper = zk;
     this.connection = connection;
-    this.rootRegionTracker = new RootRegionTracker(zookeeper, abortable);
+    this.rootRegionTracker = new RootRegionTracker(zookeeper, abortable) {
+      @Override
+      public synchronized void nodeCreated(String path) {
+        super.nodeCreated(path);
+        // Waiters on META may find it now that ROOT is deployed
+        if (path.equals(node) && getData() != null && !metaAvailable.get()) {
+          refreshMetaLocation();
+        }
+      }
+    };
     this.metaNodeTracker = new MetaNodeTracker(zookeeper, this);
     this.defaultTimeout = defaultTimeout;
+    this.verificationLease = verificationLease;
   }
 
   /**
@@ -120,6 +175,7 @@ public class CatalogTracker {
     zookeeper.registerListener(metaNodeTracker);
     // Start root tracking
     rootRegionTracker.start();
+    metaNodeTracker.start();
     // Determine meta assignment; may not work because root and meta not yet
     // deployed.
     getMetaServerConnection(true);
@@ -221,47 +277,110 @@ public class CatalogTracker {
   /**
    * Gets a connection to the server currently hosting <code>.META.</code> or
    * null if location is not currently available.
+   * @see #getMetaServerAddress(boolean)
+   * @return connection to server hosting meta, null if location not available
+   * @throws IOException
+   * @throws InterruptedException 
+   */
+  private HRegionInterface getMetaServerConnection(boolean refresh)
+  throws IOException, InterruptedException {
+    HServerAddress address = getMetaServerAddress(refresh);
+    return address == null? null: getCachedConnection(address);
+  }
+
+  /**
+   * Gets the location of <code>.META.</code> or null if location is not
+   * currently available.
    * <p>
-   * If a location is known, a connection to the cached location is returned.
-   * If refresh is true, the cached connection is verified first before
-   * returning.  If the connection is not valid, it is reset and rechecked.
+   * If a location is known, it is returned.  If refresh is true and the lease
+   * of the location is up, it is verified first.  If it is not valid, it is
+   * reset and looked up again.
    * <p>
    * If no location for meta is currently known, method checks ROOT for a new
-   * location, verifies META is currently there, and returns a cached connection
-   * to the server hosting META.
+   * location and verifies META is currently there.
+   * <p>
+   * Only one verification runs at a time, concurrent callers get its outcome.
    *
-   * @return connection to server hosting meta, null if location not available
+   * @return location of meta, null if location not available
    * @throws IOException
    * @throws InterruptedException 
    */
-  private HRegionInterface getMetaServerConnection(boolean refresh)
+  private HServerAddress getMetaServerAddress(boolean refresh)
   throws IOException, InterruptedException {
+    MetaVerification verification;
+    boolean verifier = false;
     synchronized(metaAvailable) {
-      if(metaAvailable.get()) {
-        HRegionInterface current = getCachedConnection(metaLocation);
-        if(!refresh) {
-          return current;
-        }
-        if(verifyRegionLocation(current, META_REGION)) {
-          return current;
-        }
-        resetMetaLocation();
+      if(metaAvailable.get() &&
+          (!refresh || System.currentTimeMillis() < metaLeaseExpiry)) {
+        return metaLocation;
+      }
+      verification = metaVerification;
+      if(verification == null) {
+        verification = new MetaVerification();
+        metaVerification = verification;
+        verifier = true;
       }
-      HRegionInterface rootConnection = getRootServerConnection();
-      if(rootConnection == null) {
-        return null;
+    }
+    if(!verifier) {
+      return verification.waitForOutcome();
+    }
+    HServerAddress address = null;
+    try {
+      address = verifyMetaLocation();
+      return address;
+    } catch (IOException e) {
+      verification.exception = e;
+      throw e;
+    } finally {
+      synchronized(metaAvailable) {
+        metaVerification = null;
       }
-      HServerAddress newLocation = MetaReader.readMetaLocation(rootConnection);
-      if(newLocation == null) {
-        return null;
+      verification.done(address);
+    }
+  }
+
+  /*
+   * Verifies the current META location, and if it's not valid looks up and
+   * verifies a new one in ROOT.  Only called by one thread at a time.
+   * @return verified location of META, null if not available
+   */
+  private HServerAddress verifyMetaLocation()
+  throws IOException, InterruptedException {
+    metaVerifications.incrementAndGet();
+    HServerAddress current = null;
+    synchronized(metaAvailable) {
+      if(metaAvailable.get() && !metaLookupRequired) {
+        current = metaLocation;
       }
-      HRegionInterface newConnection = getCachedConnection(newLocation);
-      if(verifyRegionLocation(newConnection, META_REGION)) {
-        setMetaLocation(newLocation);
-        return newConnection;
+    }
+    if(current != null) {
+      boolean valid =
+        verifyRegionLocation(getCachedConnection(current), META_REGION);
+      synchronized(metaAvailable) {
+        if(metaAvailable.get() && current.equals(metaLocation)) {
+          if(valid) {
+            renewMetaLease();
+            return current;
+          }
+          resetMetaLocation();
+        }
       }
+    }
+    HRegionInterface rootConnection = getRootServerConnection();
+    if(rootConnection == null) {
+      return null;
+    }
+    HServerAddress newLocation = MetaReader.readMetaLocation(rootConnection);
+    if(newLocation == null) {
       return null;
     }
+    if(verifyRegionLocation(getCachedConnection(newLocation), META_REGION)) {
+      synchronized(metaAvailable) {
+        setMetaLocation(newLocation);
+      }
+      return newLocation;
+    }
+    return null;
   }
 
   /**
@@ -291,20 +410,22 @@ public class CatalogTracker {
   public HServerAddress waitForMeta(long timeout)
   throws InterruptedException, IOException, NotAllMetaRegionsOnlineException {
     long stop = System.currentTimeMillis() + timeout;
+    HServerAddress address = getMetaServerAddress(true);
+    if(address != null) {
+      return address;
+    }
     synchronized(metaAvailable) {
-      if(getMetaServerConnection(true) != null) {
-        return metaLocation;
-      }
       while(!metaAvailable.get() &&
           (timeout == 0 || System.currentTimeMillis() < stop)) {
         metaAvailable.wait(timeout);
       }
-      if(getMetaServerConnection(true) == null) {
-        throw new NotAllMetaRegionsOnlineException(
-            "Timed out (" + timeout + "ms)");
-      }
-      return metaLocation;
     }
+    address = getMetaServerAddress(true);
+    if(address == null) {
+      throw new NotAllMetaRegionsOnlineException(
+          "Timed out (" + timeout + "ms)");
+    }
+    return address;
   }
 
   /**
@@ -338,20 +459,77 @@ public class CatalogTracker {
     }
   }
 
+  /**
+   * Called when <code>.META.</code> starts being reassigned.  Until the
+   * assignment completes, its location is verified on every use.
+   */
+  public void metaInTransition() {
+    synchronized(metaAvailable) {
+      metaInTransition = true;
+      metaLeaseExpiry = 0;
+    }
+  }
+
+  /**
+   * Looks up the location of <code>.META.</code> in ROOT again, in the
+   * background.  Called when a new assignment of META completes.  Doesn't
+   * block.
+   */
+  public void refreshMetaLocation() {
+    synchronized(metaAvailable) {
+      metaInTransition = false;
+      metaLookupRequired = true;
+      metaLeaseExpiry = 0;
+    }
+    // One refresh at a time is enough, it will see the latest state
+    if(!metaRefreshPending.compareAndSet(false, true)) {
+      return;
+    }
+    Threads.setDaemonThreadRunning(new Thread() {
+      @Override
+      public void run() {
+        metaRefreshPending.set(false);
+        try {
+          getMetaServerAddress(true);
+        } catch (IOException e) {
+          LOG.warn("Failed refreshing the META location", e);
+        } catch (InterruptedException e) {
+          LOG.debug("Interrupted refreshing the META location");
+        }
+      }
+    }, "CatalogTracker-MetaRefresher");
+  }
+
+  /**
+   * @return number of times the location of META was verified
+   */
+  long getMetaVerifications() {
+    return metaVerifications.get();
+  }
+
   private void resetMetaLocation() {
     LOG.info("Current cached META location is not valid, resetting");
     metaAvailable.set(false);
     metaLocation = null;
+    metaLeaseExpiry = 0;
   }
 
   private void setMetaLocation(HServerAddress metaLocation) {
     LOG.info("Found new META location, " + metaLocation);
     metaAvailable.set(true);
     this.metaLocation = metaLocation;
+    metaLookupRequired = false;
+    renewMetaLease();
     // no synchronization because these are private and already under lock
     metaAvailable.notifyAll();
   }
 
+  private void renewMetaLease() {
+    if(!metaInTransition) {
+      metaLeaseExpiry = System.currentTimeMillis() + verificationLease;
+    }
+  }
+
   private HRegionInterface getCachedConnection(HServerAddress address)
   throws IOException {
     HRegionInterface protocol = null;
@@ -369,10 +547,20 @@ public class CatalogTracker {
 
   private boolean verifyRegionLocation(HRegionInterface metaServer,
       byte [] regionName) {
+    if (metaServer == null) {
+      // Couldn't connect to it
+      return false;
+    }
     try {
       return metaServer.getRegionInfo(regionName) != null;
     } catch (NotServingRegionException e) {
       return false;
+    } catch (UndeclaredThrowableException e) {
+      if (e.getCause() instanceof ConnectException) {
+        // The server is gone, as when getting the connection above
+        return false;
+      }
+      throw e;
     }
   }
 
@@ -404,8 +592,38 @@ public class CatalogTracker {
       LOG.info(hsi.getServerName() + " carrying .META.; unsetting " +
         ".META. location");
       result.setSecond(true);
-      resetMetaLocation();
+      synchronized(metaAvailable) {
+        resetMetaLocation();
+      }
     }
     return result;
   }
+
+  /*
+   * Outcome of a verification of the META location, for the callers that
+   * wait on it instead of verifying it themselves.
+   */
+  private static class MetaVerification {
+    private boolean done = false;
+    private HServerAddress address = null;
+    volatile IOException exception = null;
+
+    synchronized void done(final HServerAddress address) {
+      this.address = address;
+      this.done = true;
+      notifyAll();
+    }
+
+    synchronized HServerAddress waitForOutcome()
+    throws IOException, InterruptedException {
+      while (!this.done) {
+        wait();
+      }
+      if (this.exception != null) {
+        throw new IOException("Failed verifying the META location",
+          this.exception);
+      }
+      return this.address;
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.catalog;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HServerInfo;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Groups the <code>.META.</code> edits of concurrent callers into multi-puts.
+ * <p>
+ * Callers block until their edits are written, as they would calling
+ * {@link MetaEditor} directly.  The first caller of a batch waits
+ * <code>hbase.catalog.batch.interval</code> milliseconds for others to join
+ * then writes everything in one RPC.  Edits submitted while a batch is being
+ * written go in the next batch, so there is at most one RPC in flight.  A
+ * batch is written early once it holds
+ * <code>hbase.catalog.batch.max</code> rows.
+ * <p>
+ * Used when many regions are opened at once, on cluster startup or server
+ * failover, so they don't each need their own RPC to the META region.
+ */
+public class MetaEditBatcher {
+  private static final Log LOG = LogFactory.getLog(MetaEditBatcher.class);
+
+  private final CatalogTracker catalogTracker;
+  private final long interval;
+  private final int maxBatchSize;
+  // The batch edits are being added to, guarded by this
+  private Batch current = new Batch();
+  // Held while writing a batch
+  private final Object writeLock = new Object();
+
+  /**
+   * @param catalogTracker where to find META
+   * @param conf configuration holding the batching interval and size
+   */
+  public MetaEditBatcher(final CatalogTracker catalogTracker,
+      final Configuration conf) {
+    this.catalogTracker = catalogTracker;
+    this.interval = conf.getLong("hbase.catalog.batch.interval", 10);
+    this.maxBatchSize = conf.getInt("hbase.catalog.batch.max", 1000);
+  }
+
+  /**
+   * Updates the location of the specified region in META.
+   * @see MetaEditor#updateRegionLocation(CatalogTracker, HRegionInfo, HServerInfo)
+   * @param regionInfo region to update location of
+   * @param serverInfo server the region is located on
+   * @throws IOException
+   */
+  public void updateRegionLocation(final HRegionInfo regionInfo,
+      final HServerInfo serverInfo)
+  throws IOException {
+    put(MetaEditor.makeLocationPut(regionInfo, serverInfo));
+    LOG.info("Updated row " + regionInfo.getRegionNameAsString() +
+      " in META with server=" + serverInfo.getHostnamePort() +
+      ", startcode=" + serverInfo.getStartCode());
+  }
+
+  /**
+   * Adds the row of a split daughter to META.
+   * @see MetaEditor#addDaughter(CatalogTracker, HRegionInfo, HServerInfo)
+   * @param regionInfo daughter region
+   * @param serverInfo server the daughter is located on
+   * @throws IOException
+   */
+  public void addDaughter(final HRegionInfo regionInfo,
+      final HServerInfo serverInfo)
+  throws IOException {
+    put(MetaEditor.makeDaughterPut(regionInfo, serverInfo));
+    LOG.info("Added daughter " + regionInfo.getRegionNameAsString() +
+      " in META with server=" + serverInfo.getHostnamePort() +
+      ", startcode=" + serverInfo.getStartCode());
+  }
+
+  /**
+   * Writes the passed row to META along with the ones of other callers.
+   * @param put row to write
+   * @throws IOException if the batch it went in failed
+   */
+  public void put(final Put put) throws IOException {
+    put(Collections.singletonList(put));
+  }
+
+  /**
+   * Writes the passed rows to META along with the ones of other callers.
+   * @param puts rows to write
+   * @throws IOException if the batch they went in failed
+   */
+  public void put(final List<Put> puts) throws IOException {
+    if (puts.isEmpty()) return;
+    Batch batch;
+    boolean first;
+    synchronized (this) {
+      batch = this.current;
+      first = batch.puts.isEmpty();
+      batch.puts.addAll(puts);
+      if (batch.puts.size() >= this.maxBatchSize) {
+        // Full, later edits go in the next one
+        this.current = new Batch();
+        notifyAll();
+      }
+    }
+    try {
+      if (first) {
+        write(batch);
+      } else {
+        batch.waitForWrite();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted writing " + puts.size() +
+        " rows to META");
+    }
+    if (batch.exception != null) {
+      throw new IOException("Failed writing a batch of " + batch.puts.size() +
+        " rows to META", batch.exception);
+    }
+  }
+
+  /**
+   * Writes the batch, even if interrupted since others are waiting on it
+   */
+  private void write(final Batch batch) {
+    boolean interrupted = false;
+    synchronized (this) {
+      long deadline = System.currentTimeMillis() + this.interval;
+      long remaining = this.interval;
+      while (this.current == batch && remaining > 0) {
+        try {
+          wait(remaining);
+        } catch (InterruptedException e) {
+          interrupted = true;
+          break;
+        }
+        remaining = deadline - System.currentTimeMillis();
+      }
+    }
+    try {
+      synchronized (this.writeLock) {
+        // Keep taking edits while waiting on the previous batch
+        synchronized (this) {
+          if (this.current == batch) {
+            this.current = new Batch();
+          }
+        }
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Writing a batch of " + batch.puts.size() +
+            " rows to META, first row " +
+            Bytes.toStringBinary(batch.puts.get(0).getRow()));
+        }
+        MetaEditor.putsToMeta(this.catalogTracker, batch.puts);
+      }
+    } catch (IOException e) {
+      batch.exception = e;
+    } catch (RuntimeException e) {
+      batch.exception = e;
+    } finally {
+      batch.written();
+      if (interrupted) Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Rows written in one RPC, and the outcome
+   */
+  private static class Batch {
+    // Only modified before being written
+    final List<Put> puts = new ArrayList<Put>();
+    volatile Exception exception = null;
+    private boolean written = false;
+
+    synchronized void written() {
+      this.written = true;
+      notifyAll();
+    }
+
+    synchronized void waitForWrite() throws InterruptedException {
+      while (!this.written) {
+        wait();
+      }
+    }
+  }
+}
@@ -20,6 +20,9 @@
 package org.apache.hadoop.hbase.catalog;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -38,10 +41,19 @@ import org.apache.hadoop.hbase.util.Writables;
  * <p>
  * Uses the {@link CatalogTracker} to obtain locations and connections to
  * catalogs.
+ * <p>
+ * The methods taking lists of regions write all their rows in one RPC, use
+ * them rather than calling the single region methods in a loop.  See
+ * {@link MetaEditBatcher} to group the edits of concurrent callers.
  */
 public class MetaEditor {
   private static final Log LOG = LogFactory.getLog(MetaEditor.class);
 
+  // For metrics: catalog rows edited, RPCs it took and time spent in them
+  private static final AtomicLong edits = new AtomicLong();
+  private static final AtomicLong editOps = new AtomicLong();
+  private static final AtomicLong editTime = new AtomicLong();
+
   /**
    * Adds a META row for the specified new region.
    * @param info region information
@@ -53,11 +65,28 @@ public class MetaEditor {
     Put put = new Put(regionInfo.getRegionName());
     put.add(HConstants.CATALOG_FAMILY, HConstants.REGIONINFO_QUALIFIER,
         Writables.getBytes(regionInfo));
-    catalogTracker.waitForMetaServerConnectionDefault().put(
+    put(catalogTracker.waitForMetaServerConnectionDefault(),
         CatalogTracker.META_REGION, put);
     LOG.info("Added region " + regionInfo.getRegionNameAsString() + " to META");
   }
 
+  /**
+   * Adds META rows for the specified new regions, in a single RPC.
+   * @param catalogTracker
+   * @param regionInfos region informations
+   * @throws IOException if problem connecting or updating meta
+   */
+  public static void addRegionsToMeta(CatalogTracker catalogTracker,
+      List<HRegionInfo> regionInfos)
+  throws IOException {
+    List<Put> puts = new ArrayList<Put>(regionInfos.size());
+    for (HRegionInfo regionInfo : regionInfos) {
+      puts.add(addRegionInfo(new Put(regionInfo.getRegionName()), regionInfo));
+    }
+    putsToMeta(catalogTracker, puts);
+    LOG.info("Added " + regionInfos.size() + " regions to META");
+  }
+
   /**
    * Offline parent in meta.
    * Used when splitting.
@@ -84,7 +113,8 @@ public class MetaEditor {
       Writables.getBytes(a));
     put.add(HConstants.CATALOG_FAMILY, HConstants.SPLITB_QUALIFIER,
       Writables.getBytes(b));
-    catalogTracker.waitForMetaServerConnectionDefault().put(CatalogTracker.META_REGION, put);
+    put(catalogTracker.waitForMetaServerConnectionDefault(),
+        CatalogTracker.META_REGION, put);
     LOG.info("Offlined parent region " + parent.getRegionNameAsString() +
       " in META");
   }
@@ -94,10 +124,7 @@ public class MetaEditor {
   throws NotAllMetaRegionsOnlineException, IOException {
     HRegionInterface server = catalogTracker.waitForMetaServerConnectionDefault();
     byte [] catalogRegionName = CatalogTracker.META_REGION;
-    Put put = new Put(regionInfo.getRegionName());
-    addRegionInfo(put, regionInfo);
-    if (serverInfo != null) addLocation(put, serverInfo);
-    server.put(catalogRegionName, put);
+    put(server, catalogRegionName, makeDaughterPut(regionInfo, serverInfo));
     LOG.info("Added daughter " + regionInfo.getRegionNameAsString() +
       " in region " + Bytes.toString(catalogRegionName) + " with " +
       "server=" + serverInfo.getHostnamePort() + ", " +
@@ -157,9 +184,7 @@ public class MetaEditor {
   public static void updateLocation(HRegionInterface server,
       byte [] catalogRegionName, HRegionInfo regionInfo, HServerInfo serverInfo)
   throws IOException {
-    Put put = new Put(regionInfo.getRegionName());
-    addLocation(put, serverInfo);
-    server.put(catalogRegionName, put);
+    put(server, catalogRegionName, makeLocationPut(regionInfo, serverInfo));
     LOG.info("Updated row " + regionInfo.getRegionNameAsString() +
       " in region " + Bytes.toString(catalogRegionName) + " with " +
       "server=" + serverInfo.getHostnamePort() + ", " +
@@ -176,12 +201,39 @@ public class MetaEditor {
       HRegionInfo regionInfo)
   throws IOException {
     Delete delete = new Delete(regionInfo.getRegionName());
+    long start = System.currentTimeMillis();
     catalogTracker.waitForMetaServerConnectionDefault().delete(
         CatalogTracker.META_REGION, delete);
+    recordEdits(1, start);
 
     LOG.info("Deleted region " + regionInfo.getRegionNameAsString() + " from META");
   }
 
+  /**
+   * Deletes the specified regions from META, in a single RPC.
+   * @param catalogTracker
+   * @param regionInfos regions to be deleted from META
+   * @throws IOException
+   */
+  public static void deleteRegions(CatalogTracker catalogTracker,
+      List<HRegionInfo> regionInfos)
+  throws IOException {
+    if (regionInfos.isEmpty()) return;
+    List<Delete> deletes = new ArrayList<Delete>(regionInfos.size());
+    for (HRegionInfo regionInfo : regionInfos) {
+      deletes.add(new Delete(regionInfo.getRegionName()));
+    }
+    long start = System.currentTimeMillis();
+    int processed = catalogTracker.waitForMetaServerConnectionDefault().delete(
+        CatalogTracker.META_REGION, deletes);
+    recordEdits(deletes.size(), start);
+    if (processed != -1) {
+      throw new IOException("Failed deleting " +
+        regionInfos.get(processed).getRegionNameAsString() + " from META");
+    }
+    LOG.info("Deleted " + regionInfos.size() + " regions from META");
+  }
+
   /**
    * Updates the region information for the specified region in META.
    * @param catalogTracker
@@ -193,11 +245,109 @@ public class MetaEditor {
   throws IOException {
     Put put = new Put(regionInfo.getRegionName());
     addRegionInfo(put, regionInfo);
-    catalogTracker.waitForMetaServerConnectionDefault().put(
+    put(catalogTracker.waitForMetaServerConnectionDefault(),
         CatalogTracker.META_REGION, put);
     LOG.info("Updated region " + regionInfo.getRegionNameAsString() + " in META");
   }
 
+  /**
+   * Updates the region information for the specified regions in META, in a
+   * single RPC.
+   * @param catalogTracker
+   * @param regionInfos regions to be updated in META
+   * @throws IOException
+   */
+  public static void updateRegionInfos(CatalogTracker catalogTracker,
+      List<HRegionInfo> regionInfos)
+  throws IOException {
+    List<Put> puts = new ArrayList<Put>(regionInfos.size());
+    for (HRegionInfo regionInfo : regionInfos) {
+      puts.add(addRegionInfo(new Put(regionInfo.getRegionName()), regionInfo));
+    }
+    putsToMeta(catalogTracker, puts);
+    LOG.info("Updated " + regionInfos.size() + " regions in META");
+  }
+
+  /**
+   * Writes the passed rows to META, in a single RPC.
+   * <p>
+   * There is only the one META region so all the rows go to the same server.
+   * @param catalogTracker
+   * @param puts rows to write
+   * @throws IOException if problem connecting or if any of the puts failed
+   */
+  public static void putsToMeta(CatalogTracker catalogTracker,
+      List<Put> puts)
+  throws IOException {
+    if (puts.isEmpty()) return;
+    HRegionInterface server = catalogTracker.waitForMetaServerConnectionDefault();
+    long start = System.currentTimeMillis();
+    int processed = server.put(CatalogTracker.META_REGION, puts);
+    recordEdits(puts.size(), start);
+    if (processed != -1) {
+      throw new IOException("Failed writing row " +
+        Bytes.toStringBinary(puts.get(processed).getRow()) + " to META, " +
+        processed + " of " + puts.size() + " rows written");
+    }
+  }
+
+  /**
+   * @return Count of catalog rows edited since last call, resets the count
+   */
+  public static long getEdits() {
+    return edits.getAndSet(0);
+  }
+
+  /**
+   * @return Count of RPCs made to edit catalog rows since last call, resets
+   * the count
+   */
+  public static long getEditOps() {
+    return editOps.getAndSet(0);
+  }
+
+  /**
+   * @return Milliseconds spent in RPCs editing catalog rows since last call,
+   * resets the time
+   */
+  public static long getEditTime() {
+    return editTime.getAndSet(0);
+  }
+
+  private static void put(final HRegionInterface server,
+      final byte [] catalogRegionName, final Put put)
+  throws IOException {
+    long start = System.currentTimeMillis();
+    server.put(catalogRegionName, put);
+    recordEdits(1, start);
+  }
+
+  private static void recordEdits(final int rows, final long start) {
+    editTime.addAndGet(System.currentTimeMillis() - start);
+    editOps.incrementAndGet();
+    edits.addAndGet(rows);
+  }
+
+  /**
+   * @return Put setting the location of the passed region
+   */
+  static Put makeLocationPut(final HRegionInfo regionInfo,
+      final HServerInfo serverInfo) {
+    return addLocation(new Put(regionInfo.getRegionName()), serverInfo);
+  }
+
+  /**
+   * @return Put writing the whole row of the passed split daughter
+   * @throws IOException
+   */
+  static Put makeDaughterPut(final HRegionInfo regionInfo,
+      final HServerInfo serverInfo)
+  throws IOException {
+    Put put = addRegionInfo(new Put(regionInfo.getRegionName()), regionInfo);
+    if (serverInfo != null) addLocation(put, serverInfo);
+    return put;
+  }
+
   private static Put addRegionInfo(final Put p, final HRegionInfo hri)
   throws IOException {
     p.add(HConstants.CATALOG_FAMILY, HConstants.REGIONINFO_QUALIFIER,
@@ -0,0 +1,368 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HServerAddress;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.hadoop.hbase.util.Threads;
+
+/**
+ * Buffers Puts to a table and sends them in the background.
+ * <p>
+ * Unlike the write buffer of {@link HTable}, which is flushed in the
+ * thread calling {@link HTable#put(Put)} and so waits on the slowest
+ * regionserver in the batch, Puts here are queued by the regionserver
+ * hosting their row and each regionserver has its own flusher thread
+ * sending batches of up to <code>hbase.client.write.buffer</code> bytes.
+ * While a batch is in flight further Puts for that server queue up behind
+ * it and go out in the next batch.
+ * <p>
+ * {@link #put(Put)} only blocks when the Puts queued or in flight for the
+ * row's regionserver reach
+ * <code>hbase.client.async.write.buffer.server.max</code> bytes, or those for
+ * all regionservers reach <code>hbase.client.async.write.buffer.max</code>
+ * bytes.  A slow regionserver so holds up only the Puts bound for it until
+ * the overall limit is reached.
+ * <p>
+ * Puts that still fail after the usual retries are handed to the
+ * {@link ExceptionListener}; they are not thrown from a later call.  Puts to
+ * different regionservers may be applied in any order, and, when a region
+ * moves, Puts to the same row may be too.
+ */
+public class AsyncBufferedMutator implements Closeable {
+  private static final Log LOG = LogFactory.getLog(AsyncBufferedMutator.class);
+
+  /** Bytes of Puts queued or in flight to all regionservers */
+  public static final String MAX_BUFFER_SIZE_KEY =
+    "hbase.client.async.write.buffer.max";
+  static final long DEFAULT_MAX_BUFFER_SIZE = 64 * 1024 * 1024;
+
+  /** Bytes of Puts queued or in flight to one regionserver */
+  public static final String MAX_SERVER_BUFFER_SIZE_KEY =
+    "hbase.client.async.write.buffer.server.max";
+
+  // A flusher with nothing to send for this long goes away.
+  private static final long FLUSHER_IDLE_TIME = 60 * 1000;
+
+  /**
+   * Told of Puts that could not be applied.
+   */
+  public interface ExceptionListener {
+    /**
+     * Called from a flusher thread for each Put that failed.
+     * @param put the Put
+     * @param cause why it failed
+     */
+    public void onException(final Put put, final Throwable cause);
+  }
+
+  private final HConnection connection;
+  private final byte [] tableName;
+  private final ExceptionListener listener;
+  private final long flushSize;
+  private final long maxBufferSize;
+  private final long maxServerBufferSize;
+  private final int maxKeyValueSize;
+  private final ExecutorService pool;
+
+  // All below guarded by this.
+  private final Map<HServerAddress, Flusher> flushers =
+    new HashMap<HServerAddress, Flusher>();
+  private long bufferedSize = 0;
+  private boolean closed = false;
+
+  /**
+   * @param conf Configuration object to use.
+   * @param tableName Name of the table.
+   * @param listener Told of failed Puts.  If null they are only logged.
+   * @throws IOException if a remote or network exception occurs
+   */
+  public AsyncBufferedMutator(final Configuration conf, final byte [] tableName,
+      final ExceptionListener listener)
+  throws IOException {
+    this.connection = HConnectionManager.getConnection(conf);
+    this.tableName = tableName;
+    this.listener = listener;
+    this.flushSize = conf.getLong("hbase.client.write.buffer", 2097152);
+    this.maxBufferSize = conf.getLong(MAX_BUFFER_SIZE_KEY,
+      DEFAULT_MAX_BUFFER_SIZE);
+    this.maxServerBufferSize = conf.getLong(MAX_SERVER_BUFFER_SIZE_KEY,
+      4 * this.flushSize);
+    this.maxKeyValueSize = conf.getInt("hbase.client.keyvalue.maxsize", -1);
+    // Each flusher sends to one regionserver at a time unless regions move
+    // so this stays at about one thread per flusher.
+    this.pool = new ThreadPoolExecutor(1, Integer.MAX_VALUE,
+      60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+      new HTable.DaemonThreadFactory());
+    this.connection.locateRegion(tableName, HConstants.EMPTY_START_ROW);
+  }
+
+  /**
+   * @return Name of the table written to.
+   */
+  public byte [] getTableName() {
+    return this.tableName;
+  }
+
+  /**
+   * Queue a Put.  Blocks while the buffer limits are reached.
+   * @param put The data to put.
+   * @throws IOException if the row's region cannot be located, or if
+   * closed or interrupted
+   */
+  public void put(final Put put) throws IOException {
+    validatePut(put);
+    HServerAddress address =
+      this.connection.locateRegion(this.tableName, put.getRow()).
+        getServerAddress();
+    long size = put.heapSize();
+    synchronized (this) {
+      try {
+        Flusher flusher = getFlusher(address);
+        // Always take a Put when nothing is buffered so one larger than the
+        // limits still goes through.
+        while (!this.closed &&
+            ((this.bufferedSize > 0 &&
+              this.bufferedSize + size > this.maxBufferSize) ||
+             (flusher.size > 0 &&
+              flusher.size + size > this.maxServerBufferSize))) {
+          wait();
+          // The flusher may have gone idle while we waited.
+          flusher = getFlusher(address);
+        }
+        if (this.closed) {
+          throw new IOException("Closed");
+        }
+        flusher.puts.add(new Pair<Put, Long>(put, size));
+        flusher.size += size;
+        this.bufferedSize += size;
+        notifyAll();
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException("Interrupted queueing put");
+      }
+    }
+  }
+
+  /**
+   * Queue Puts.  Blocks while the buffer limits are reached.
+   * @param puts The list of Puts to put.
+   * @throws IOException if a row's region cannot be located, or if
+   * closed or interrupted
+   */
+  public void put(final List<Put> puts) throws IOException {
+    for (Put put: puts) {
+      put(put);
+    }
+  }
+
+  private void validatePut(final Put put) throws IllegalArgumentException {
+    if (put.isEmpty()) {
+      throw new IllegalArgumentException("No columns to insert");
+    }
+    if (this.maxKeyValueSize > 0) {
+      for (List<KeyValue> list : put.getFamilyMap().values()) {
+        for (KeyValue kv : list) {
+          if (kv.getLength() > this.maxKeyValueSize) {
+            throw new IllegalArgumentException("KeyValue size too large");
+          }
+        }
+      }
+    }
+  }
+
+  /*
+   * Call with lock on this held.
+   */
+  private Flusher getFlusher(final HServerAddress address) {
+    Flusher flusher = this.flushers.get(address);
+    if (flusher == null) {
+      flusher = new Flusher(address);
+      this.flushers.put(address, flusher);
+      Threads.setDaemonThreadRunning(new Thread(flusher),
+        "AsyncBufferedMutator-" + Bytes.toString(this.tableName) + "-" +
+        address);
+    }
+    return flusher;
+  }
+
+  /**
+   * @return Bytes of Puts queued or in flight.
+   */
+  public synchronized long getBufferedSize() {
+    return this.bufferedSize;
+  }
+
+  /**
+   * Wait until every Put queued so far has been applied or handed to the
+   * {@link ExceptionListener}.
+   * @throws IOException if interrupted
+   */
+  public synchronized void flush() throws IOException {
+    try {
+      while (this.bufferedSize > 0) {
+        wait();
+      }
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException("Interrupted waiting on flush");
+    }
+  }
+
+  /**
+   * Flush and stop the flushers.  Puts made after this throw.
+   * @throws IOException if interrupted
+   */
+  public void close() throws IOException {
+    synchronized (this) {
+      if (this.closed) return;
+    }
+    flush();
+    synchronized (this) {
+      this.closed = true;
+      notifyAll();
+    }
+    this.pool.shutdown();
+  }
+
+  /*
+   * Sends the Puts queued for one regionserver.
+   */
+  private class Flusher implements Runnable {
+    private final HServerAddress address;
+    // Guarded by the lock on the enclosing instance.
+    private final LinkedList<Pair<Put, Long>> puts =
+      new LinkedList<Pair<Put, Long>>();
+    // Bytes queued and in flight.
+    private long size = 0;
+
+    Flusher(final HServerAddress address) {
+      this.address = address;
+    }
+
+    public void run() {
+      Object lock = AsyncBufferedMutator.this;
+      try {
+        while (true) {
+          List<Put> batch = new ArrayList<Put>();
+          long batchSize = 0;
+          synchronized (lock) {
+            long idleSince = System.currentTimeMillis();
+            while (this.puts.isEmpty() && !closed) {
+              long wait = idleSince + FLUSHER_IDLE_TIME -
+                System.currentTimeMillis();
+              if (wait <= 0) {
+                flushers.remove(this.address);
+                return;
+              }
+              lock.wait(wait);
+            }
+            if (this.puts.isEmpty()) {
+              // Closed.
+              return;
+            }
+            while (!this.puts.isEmpty() && batchSize < flushSize) {
+              Pair<Put, Long> p = this.puts.removeFirst();
+              batch.add(p.getFirst());
+              batchSize += p.getSecond();
+            }
+          }
+          send(batch);
+          synchronized (lock) {
+            this.size -= batchSize;
+            bufferedSize -= batchSize;
+            lock.notifyAll();
+          }
+        }
+      } catch (InterruptedException e) {
+        LOG.warn("Flusher for " + this.address + " interrupted");
+      } finally {
+        List<Put> failed = new ArrayList<Put>();
+        synchronized (lock) {
+          if (flushers.get(this.address) == this) {
+            flushers.remove(this.address);
+          }
+          // Only left when interrupted; fail them rather than have flush
+          // wait on them forever.
+          for (Pair<Put, Long> p: this.puts) {
+            failed.add(p.getFirst());
+            this.size -= p.getSecond();
+            bufferedSize -= p.getSecond();
+          }
+          this.puts.clear();
+          lock.notifyAll();
+        }
+        for (Put put: failed) {
+          failed(put, new InterruptedIOException("Flusher interrupted"));
+        }
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void send(final List<Put> batch) {
+      Result [] results = new Result[batch.size()];
+      Throwable cause = null;
+      try {
+        connection.processBatch((List) batch, tableName, pool, results);
+      } catch (IOException e) {
+        cause = e;
+      } catch (RuntimeException e) {
+        cause = e;
+      }
+      if (cause == null) return;
+      for (int i = 0; i < results.length; i++) {
+        if (results[i] == null) {
+          failed(batch.get(i), cause);
+        }
+      }
+    }
+
+    private void failed(final Put put, final Throwable cause) {
+      if (listener == null) {
+        LOG.error("Failed put of row " + Bytes.toStringBinary(put.getRow()),
+          cause);
+        return;
+      }
+      try {
+        listener.onException(put, cause);
+      } catch (RuntimeException e) {
+        LOG.error("Listener failed on row " +
+          Bytes.toStringBinary(put.getRow()), e);
+      }
+    }
+  }
+}
@@ -93,7 +93,9 @@ public class HBaseAdmin implements Abortable {
     if (this.catalogTracker == null) {
       this.catalogTracker = new CatalogTracker(this.connection.getZooKeeperWatcher(),
         ServerConnectionManager.getConnection(conf), this,
-        this.conf.getInt("hbase.admin.catalog.timeout", 10 * 1000));
+        this.conf.getInt("hbase.admin.catalog.timeout", 10 * 1000),
+        this.conf.getLong("hbase.catalog.verification.lease",
+          CatalogTracker.DEFAULT_VERIFICATION_LEASE));
       try {
         this.catalogTracker.start();
       } catch (InterruptedException e) {
@@ -320,6 +322,8 @@ public class HBaseAdmin implements Abortable {
     } catch (RemoteException e) {
       throw RemoteExceptionHandler.decodeRemoteException(e);
     }
+    // Forget we were told it didn't exist
+    connection.clearRegionCache(desc.getName());
   }
 
   /**
@@ -466,6 +470,8 @@ public class HBaseAdmin implements Abortable {
       throw new IOException("Unable to enable table " +
         Bytes.toString(tableName));
     }
+    // Forget the regions we were told were offline
+    connection.clearRegionCache(tableName);
     LOG.info("Enabled table " + Bytes.toString(tableName));
   }
 
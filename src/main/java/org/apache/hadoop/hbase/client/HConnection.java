@@ -121,6 +121,25 @@ public interface HConnection {
    */
   public void clearRegionCache();
 
+  /**
+   * Allows flushing the region cache of a table, including the lookup
+   * failures remembered for it.
+   * @param tableName name of the table to forget about
+   */
+  public void clearRegionCache(final byte [] tableName);
+
+  /**
+   * @return Count of region lookups answered from the region cache, found
+   * or known to fail, since the connection was created
+   */
+  public long getRegionCacheHits();
+
+  /**
+   * @return Count of region lookups that had to go to the catalog tables
+   * since the connection was created
+   */
+  public long getRegionCacheMisses();
+
   /**
    * Find the location of the region of <i>tableName</i> that <i>row</i>
    * lives in, ignoring any value that might be in the cache.
@@ -39,6 +39,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -50,10 +51,10 @@ import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.HRegionLocation;
 import org.apache.hadoop.hbase.HServerAddress;
 import org.apache.hadoop.hbase.HTableDescriptor;
-import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.MasterAddressTracker;
 import org.apache.hadoop.hbase.MasterNotRunningException;
 import org.apache.hadoop.hbase.NotServingRegionException;
+import org.apache.hadoop.hbase.RegionException;
 import org.apache.hadoop.hbase.RemoteExceptionHandler;
 import org.apache.hadoop.hbase.TableNotFoundException;
 import org.apache.hadoop.hbase.ZooKeeperConnectionException;
@@ -63,7 +64,6 @@ import org.apache.hadoop.hbase.ipc.HBaseRPCProtocolVersion;
 import org.apache.hadoop.hbase.ipc.HMasterInterface;
 import org.apache.hadoop.hbase.ipc.HRegionInterface;
 import org.apache.hadoop.hbase.util.Bytes;
-import org.apache.hadoop.hbase.util.SoftValueSortedMap;
 import org.apache.hadoop.hbase.util.Writables;
 import org.apache.hadoop.hbase.zookeeper.ZKTableDisable;
 import org.apache.hadoop.hbase.zookeeper.ZKUtil;
@@ -216,9 +216,9 @@ public class HConnectionManager {
     // Used by master and region servers during safe mode only
     private volatile HRegionLocation rootRegionLocation;
 
-    private final Map<Integer, SoftValueSortedMap<byte [], HRegionLocation>>
-      cachedRegionLocations =
-        new HashMap<Integer, SoftValueSortedMap<byte [], HRegionLocation>>();
+    private final RegionLocationCache cachedRegionLocations;
+    private final AtomicLong regionCacheHits = new AtomicLong(0);
+    private final AtomicLong regionCacheMisses = new AtomicLong(0);
 
     // region cache prefetch is enabled by default. this set contains all
     // tables whose region cache prefetch are disabled.
@@ -258,6 +258,9 @@ public class HConnectionManager {
 
       this.prefetchRegionLimit = conf.getInt("hbase.client.prefetch.limit",
           10);
+      this.cachedRegionLocations = new RegionLocationCache(
+          conf.getInt("hbase.client.region.cache.size", 10000),
+          conf.getLong("hbase.client.region.cache.failure.ttl", 500));
 
       // initialize zookeeper and master address manager
       getZooKeeperWatcher();
@@ -574,13 +577,16 @@ public class HConnectionManager {
                 return false; // stop scanning
               }
               if (regionInfo.isOffline()) {
-                // don't cache offline regions
+                // don't cache offline regions, remember them as such
+                cachedRegionLocations.putFailed(tableName, regionInfo);
                 return true;
               }
               value = result.getValue(HConstants.CATALOG_FAMILY,
                   HConstants.SERVER_QUALIFIER);
-              if (value == null) {
-                return true;  // don't cache it
+              if (value == null || value.length == 0) {
+                // in transition, remember it isn't assigned
+                cachedRegionLocations.putFailed(tableName, regionInfo);
+                return true;
               }
               final String serverAddress = Bytes.toString(value);
 
@@ -615,12 +621,19 @@ public class HConnectionManager {
     throws IOException {
       HRegionLocation location;
       // If we are supposed to be using the cache, look in the cache to see if
-      // we already have the region.
+      // we already have the region, or know we can't have it right now.
       if (useCache) {
         location = getCachedLocation(tableName, row);
         if (location != null) {
+          this.regionCacheHits.incrementAndGet();
           return location;
         }
+        try {
+          this.cachedRegionLocations.checkMissingTable(tableName);
+        } catch (TableNotFoundException e) {
+          this.regionCacheHits.incrementAndGet();
+          throw e;
+        }
       }
 
       // build the key of the meta region we should be looking for.
@@ -635,6 +648,18 @@ public class HConnectionManager {
         }
 
         try {
+          // If the region was recently found in transition, count this try
+          // as failed rather than asking again. Retries always ask.
+          if (useCache && tries == 0) {
+            try {
+              this.cachedRegionLocations.checkFailedRegion(tableName, row);
+            } catch (RegionException e) {
+              this.regionCacheHits.incrementAndGet();
+              throw e;
+            }
+          }
+          this.regionCacheMisses.incrementAndGet();
+
           // locate the root or meta region
           HRegionLocation metaLocation = locateRegion(parentTable, metaKey);
           HRegionInterface server =
@@ -688,6 +713,7 @@ public class HConnectionManager {
               "Table '" + Bytes.toString(tableName) + "' was not found.");
           }
           if (regionInfo.isOffline()) {
+            this.cachedRegionLocations.putFailed(tableName, regionInfo);
             throw new RegionOfflineException("region offline: " +
               regionInfo.getRegionNameAsString());
           }
@@ -699,6 +725,7 @@ public class HConnectionManager {
             serverAddress = Bytes.toString(value);
           }
           if (serverAddress.equals("")) {
+            this.cachedRegionLocations.putFailed(tableName, regionInfo);
             throw new NoServerForRegionException("No server address listed " +
               "in " + Bytes.toString(parentTable) + " for region " +
               regionInfo.getRegionNameAsString());
@@ -713,6 +740,7 @@ public class HConnectionManager {
           // if we got this error, probably means the table just plain doesn't
           // exist. rethrow the error immediately. this should always be coming
           // from the HTable constructor.
+          this.cachedRegionLocations.putMissingTable(tableName);
           throw e;
         } catch (IOException e) {
           if (e instanceof RemoteException) {
@@ -744,10 +772,7 @@ public class HConnectionManager {
 
     /*
      * Search the cache for a location that fits our table and row key.
-     * Return null if no suitable region is located. TODO: synchronization note
-     *
-     * <p>TODO: This method during writing consumes 15% of CPU doing lookup
-     * into the Soft Reference SortedMap.  Improve.
+     * Return null if no suitable region is located.
      *
      * @param tableName
      * @param row
@@ -755,60 +780,16 @@ public class HConnectionManager {
      */
     HRegionLocation getCachedLocation(final byte [] tableName,
         final byte [] row) {
-      SoftValueSortedMap<byte [], HRegionLocation> tableLocations =
-        getTableLocations(tableName);
-
-      // start to examine the cache. we can only do cache actions
-      // if there's something in the cache for this table.
-      if (tableLocations.isEmpty()) {
-        return null;
-      }
-
-      HRegionLocation rl = tableLocations.get(row);
-      if (rl != null) {
-        if (LOG.isDebugEnabled()) {
-          LOG.debug("Cache hit for row <" +
-            Bytes.toStringBinary(row) +
-            "> in tableName " + Bytes.toString(tableName) +
-            ": location server " + rl.getServerAddress() +
-            ", location region name " +
-            rl.getRegionInfo().getRegionNameAsString());
-        }
-        return rl;
+      HRegionLocation rl = this.cachedRegionLocations.get(tableName, row);
+      if (rl != null && LOG.isTraceEnabled()) {
+        LOG.trace("Cache hit for row <" +
+          Bytes.toStringBinary(row) +
+          "> in tableName " + Bytes.toString(tableName) +
+          ": location server " + rl.getServerAddress() +
+          ", location region name " +
+          rl.getRegionInfo().getRegionNameAsString());
       }
-
-      // Cut the cache so that we only get the part that could contain
-      // regions that match our key
-      SoftValueSortedMap<byte[], HRegionLocation> matchingRegions =
-        tableLocations.headMap(row);
-
-      // if that portion of the map is empty, then we're done. otherwise,
-      // we need to examine the cached location to verify that it is
-      // a match by end key as well.
-      if (!matchingRegions.isEmpty()) {
-        HRegionLocation possibleRegion =
-          matchingRegions.get(matchingRegions.lastKey());
-
-        // there is a possibility that the reference was garbage collected
-        // in the instant since we checked isEmpty().
-        if (possibleRegion != null) {
-          byte[] endKey = possibleRegion.getRegionInfo().getEndKey();
-
-          // make sure that the end key is greater than the row we're looking
-          // for, otherwise the row actually belongs in the next region, not
-          // this one. the exception case is when the endkey is
-          // HConstants.EMPTY_START_ROW, signifying that the region we're
-          // checking is actually the last region in the table.
-          if (Bytes.equals(endKey, HConstants.EMPTY_END_ROW) ||
-              KeyValue.getRowComparator(tableName).compareRows(endKey, 0, endKey.length,
-                  row, 0, row.length) > 0) {
-            return possibleRegion;
-          }
-        }
-      }
-
-      // Passed all the way through, so we got nothin - complete cache miss
-      return null;
+      return rl;
     }
 
     /*
@@ -816,48 +797,15 @@ public class HConnectionManager {
      * requirements.
      */
     void deleteCachedLocation(final byte [] tableName, final byte [] row) {
-      synchronized (this.cachedRegionLocations) {
-        SoftValueSortedMap<byte [], HRegionLocation> tableLocations =
-            getTableLocations(tableName);
-
-        // start to examine the cache. we can only do cache actions
-        // if there's something in the cache for this table.
-        if (!tableLocations.isEmpty()) {
-          HRegionLocation rl = getCachedLocation(tableName, row);
-          if (rl != null) {
-            tableLocations.remove(rl.getRegionInfo().getStartKey());
-            if (LOG.isDebugEnabled()) {
-              LOG.debug("Removed " +
-                  rl.getRegionInfo().getRegionNameAsString() +
-                  " for tableName=" + Bytes.toString(tableName) +
-                  " from cache " + "because of " + Bytes.toStringBinary(row));
-            }
-          }
-        }
+      HRegionLocation rl = this.cachedRegionLocations.remove(tableName, row);
+      if (rl != null && LOG.isDebugEnabled()) {
+        LOG.debug("Removed " +
+            rl.getRegionInfo().getRegionNameAsString() +
+            " for tableName=" + Bytes.toString(tableName) +
+            " from cache " + "because of " + Bytes.toStringBinary(row));
       }
     }
 
-    /*
-     * @param tableName
-     * @return Map of cached locations for passed <code>tableName</code>
-     */
-    private SoftValueSortedMap<byte [], HRegionLocation> getTableLocations(
-        final byte [] tableName) {
-      // find the map of cached locations for this table
-      Integer key = Bytes.mapKey(tableName);
-      SoftValueSortedMap<byte [], HRegionLocation> result;
-      synchronized (this.cachedRegionLocations) {
-        result = this.cachedRegionLocations.get(key);
-        // if tableLocations for this table isn't built yet, make one
-        if (result == null) {
-          result = new SoftValueSortedMap<byte [], HRegionLocation>(
-              Bytes.BYTES_COMPARATOR);
-          this.cachedRegionLocations.put(key, result);
-        }
-      }
-      return result;
-    }
-
     /**
      * Allows flushing the region cache.
      */
@@ -865,15 +813,24 @@ public class HConnectionManager {
       cachedRegionLocations.clear();
     }
 
+    public void clearRegionCache(final byte [] tableName) {
+      cachedRegionLocations.clear(tableName);
+    }
+
+    public long getRegionCacheHits() {
+      return this.regionCacheHits.get();
+    }
+
+    public long getRegionCacheMisses() {
+      return this.regionCacheMisses.get();
+    }
+
     /*
      * Put a newly discovered HRegionLocation into the cache.
      */
     private void cacheLocation(final byte [] tableName,
         final HRegionLocation location) {
-      byte [] startKey = location.getRegionInfo().getStartKey();
-      SoftValueSortedMap<byte [], HRegionLocation> tableLocations =
-        getTableLocations(tableName);
-      if (tableLocations.put(startKey, location) == null) {
+      if (this.cachedRegionLocations.put(tableName, location)) {
         LOG.debug("Cached location for " +
             location.getRegionInfo().getRegionNameAsString() +
             " is " + location.getServerAddress());
@@ -1362,16 +1319,7 @@ public class HConnectionManager {
      * from a unit test.
      */
     int getNumberOfCachedRegionLocations(final byte[] tableName) {
-      Integer key = Bytes.mapKey(tableName);
-      synchronized (this.cachedRegionLocations) {
-        SoftValueSortedMap<byte[], HRegionLocation> tableLocs =
-          this.cachedRegionLocations.get(key);
-
-        if (tableLocs == null) {
-          return 0;
-        }
-        return tableLocs.values().size();
-      }
+      return this.cachedRegionLocations.size(tableName);
     }
 
     /**
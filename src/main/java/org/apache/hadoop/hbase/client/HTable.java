@@ -509,6 +509,24 @@ public class HTable implements HTableInterface {
     return s;
   }
 
+  /**
+   * Get a scanner that scans several regions of the table at once.
+   * Meant for full or wide table scans where a single
+   * {@link #getScanner(Scan)} would visit the regions one after another.
+   * See {@link ParallelClientScanner} for how filters behave.
+   * @param scan Scan to run.
+   * @param parallelism Number of regions to scan at once.
+   * @param ordered True to get rows back in key order; false to get them in
+   * whatever order regions return them, which keeps all region scans busy.
+   * @return scanner
+   * @throws IOException
+   */
+  public ResultScanner getParallelScanner(final Scan scan,
+      final int parallelism, final boolean ordered)
+  throws IOException {
+    return new ParallelClientScanner(this, scan, parallelism, ordered);
+  }
+
   public ResultScanner getScanner(byte [] family) throws IOException {
     Scan scan = new Scan();
     scan.addFamily(family);
@@ -876,6 +894,7 @@ public class HTable implements HTableInterface {
     private ScannerCallable callable = null;
     private final LinkedList<Result> cache = new LinkedList<Result>();
     private final int caching;
+    private final long maxResultSize;
     private long lastNext;
     // Keep lastResult returned successfully in case we have to reset scanner.
     private Result lastResult = null;
@@ -895,6 +914,14 @@ public class HTable implements HTableInterface {
       } else {
         this.caching = HTable.this.scannerCaching;
       }
+      // Likewise the max result size.  The regionserver stops a batch short
+      // of caching rows at the same size so we must too, else we would take
+      // the short batch for the end of the region.
+      if (this.scan.getMaxResultSize() > 0) {
+        this.maxResultSize = this.scan.getMaxResultSize();
+      } else {
+        this.maxResultSize = HTable.this.maxScannerResultSize;
+      }
 
       // Removed filter validation.  We have a new format now, only one of all
       // the current filters has a validate() method.  We can add it back,
@@ -1008,7 +1035,7 @@ public class HTable implements HTableInterface {
       }
       if (cache.size() == 0) {
         Result [] values = null;
-        long remainingResultSize = maxScannerResultSize;
+        long remainingResultSize = this.maxResultSize;
         int countdown = this.caching;
         // We need to reset it if it's a new callable that was created
         // with a countdown in nextScanner
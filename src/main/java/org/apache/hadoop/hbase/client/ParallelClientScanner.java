@@ -0,0 +1,320 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+
+/**
+ * A {@link ResultScanner} that scans several regions of a table at once.
+ * <p>
+ * The scan is cut at region boundaries into one sub-scan per region, each
+ * run by an ordinary {@link HTable.ClientScanner} so region moves and
+ * splits during the scan are handled as usual.  Up to
+ * <code>parallelism</code> sub-scans run at a time, each reading ahead at
+ * most <code>hbase.client.scanner.parallel.buffered.batches</code> batches
+ * of {@link Scan#getCaching()} rows.
+ * <p>
+ * When ordered, rows come back in key order just as from
+ * {@link HTable#getScanner(Scan)}: batches are buffered per region and
+ * handed out region by region.  When not ordered, rows of a region are still
+ * in key order relative to one another but batches of different regions are
+ * handed out as they arrive, which keeps all sub-scans busy.
+ * <p>
+ * A filter on the scan is applied to each region separately, as in a
+ * MapReduce job over the table; filters that end the whole scan, such as a
+ * {@link org.apache.hadoop.hbase.filter.PageFilter}, only end the sub-scan
+ * they run in.
+ */
+public class ParallelClientScanner implements ResultScanner {
+  private static final Log LOG = LogFactory.getLog(ParallelClientScanner.class);
+
+  /** Batches each sub-scan may read ahead of the client */
+  public static final String BUFFERED_BATCHES_KEY =
+    "hbase.client.scanner.parallel.buffered.batches";
+  static final int DEFAULT_BUFFERED_BATCHES = 2;
+
+  // Marks the end of a sub-scan in its queue.
+  private static final Result [] DONE = new Result[0];
+
+  private final ExecutorService pool;
+  private final boolean ordered;
+  // When ordered, one queue per region in key order.  Otherwise a single
+  // queue shared by all regions.
+  private final List<BlockingQueue<Result []>> queues =
+    new ArrayList<BlockingQueue<Result []>>();
+  // Index of the queue being handed out, when ordered.
+  private int current = 0;
+  // Sub-scans that have not yet put DONE.
+  private int running;
+  private final LinkedList<Result> cache = new LinkedList<Result>();
+  private final AtomicReference<Throwable> failure =
+    new AtomicReference<Throwable>();
+  private volatile boolean closed = false;
+
+  /**
+   * @param table Table to scan.
+   * @param scan Scan to run.  Not modified.
+   * @param parallelism Number of regions to scan at once.
+   * @param ordered True if rows should come back in key order.
+   * @throws IOException
+   */
+  ParallelClientScanner(final HTable table, final Scan scan,
+      final int parallelism, final boolean ordered)
+  throws IOException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive: " +
+        parallelism);
+    }
+    this.ordered = ordered;
+    int caching = scan.getCaching() > 0? scan.getCaching():
+      table.getScannerCaching();
+    int bufferedBatches = table.getConfiguration().getInt(
+      BUFFERED_BATCHES_KEY, DEFAULT_BUFFERED_BATCHES);
+    List<Scan> scans = getRegionScans(table, scan);
+    this.running = scans.size();
+    if (!ordered) {
+      // Room for every sub-scan's DONE as well so none blocks on finishing.
+      this.queues.add(new ArrayBlockingQueue<Result []>(
+        parallelism * bufferedBatches + scans.size()));
+    }
+    this.pool = new ThreadPoolExecutor(parallelism, parallelism,
+      60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+      new HTable.DaemonThreadFactory());
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Scanning " + scans.size() + " region(s) of " +
+        Bytes.toString(table.getTableName()) + ", " + parallelism +
+        " at a time, " + (ordered? "ordered": "unordered"));
+    }
+    // Submitted in key order so, when ordered, the regions being handed out
+    // next are the ones running.
+    for (Scan s: scans) {
+      BlockingQueue<Result []> queue;
+      if (ordered) {
+        queue = new ArrayBlockingQueue<Result []>(bufferedBatches + 1);
+        this.queues.add(queue);
+      } else {
+        queue = this.queues.get(0);
+      }
+      this.pool.execute(new RegionScan(table, s, caching, queue));
+    }
+  }
+
+  /*
+   * Cut the scan into one scan per region it covers.
+   */
+  private static List<Scan> getRegionScans(final HTable table, final Scan scan)
+  throws IOException {
+    byte [] startRow = scan.getStartRow();
+    byte [] stopRow = scan.getStopRow();
+    Pair<byte[][], byte[][]> keys = table.getStartEndKeys();
+    List<Scan> scans = new ArrayList<Scan>();
+    for (int i = 0; i < keys.getFirst().length; i++) {
+      byte [] regionStart = keys.getFirst()[i];
+      byte [] regionEnd = keys.getSecond()[i];
+      boolean lastRegion = Bytes.equals(regionEnd, HConstants.EMPTY_END_ROW);
+      if (!lastRegion && Bytes.compareTo(regionEnd, startRow) <= 0) {
+        // Region ends before the scan starts.
+        continue;
+      }
+      if (stopRow.length > 0 && Bytes.compareTo(regionStart, stopRow) >= 0) {
+        // Region starts at or after the scan stops.
+        continue;
+      }
+      Scan s = new Scan(scan);
+      s.setStartRow(Bytes.compareTo(regionStart, startRow) > 0?
+        regionStart: startRow);
+      if (!lastRegion &&
+          (stopRow.length == 0 || Bytes.compareTo(regionEnd, stopRow) < 0)) {
+        s.setStopRow(regionEnd);
+      }
+      scans.add(s);
+    }
+    return scans;
+  }
+
+  /*
+   * Runs the scan of one region, putting its batches on a queue.
+   */
+  private class RegionScan implements Runnable {
+    private final HTable table;
+    private final Scan scan;
+    private final int caching;
+    private final BlockingQueue<Result []> queue;
+
+    RegionScan(final HTable table, final Scan scan, final int caching,
+        final BlockingQueue<Result []> queue) {
+      this.table = table;
+      this.scan = scan;
+      this.caching = caching;
+      this.queue = queue;
+    }
+
+    public void run() {
+      ResultScanner scanner = null;
+      try {
+        scanner = this.table.getScanner(this.scan);
+        while (!closed) {
+          Result [] batch = scanner.next(this.caching);
+          if (batch.length == 0) break;
+          this.queue.put(batch);
+        }
+      } catch (InterruptedException e) {
+        // We are being closed.
+      } catch (Throwable t) {
+        LOG.debug("Failed scan starting at " +
+          Bytes.toStringBinary(this.scan.getStartRow()), t);
+        failure.compareAndSet(null, t);
+      } finally {
+        if (scanner != null) scanner.close();
+        if (!closed) {
+          try {
+            this.queue.put(DONE);
+          } catch (InterruptedException e) {
+            // We are being closed.
+          }
+        }
+      }
+    }
+  }
+
+  public Result next() throws IOException {
+    if (this.cache.isEmpty() && !fill()) {
+      return null;
+    }
+    return this.cache.poll();
+  }
+
+  /*
+   * Take the next batch into the cache.
+   * @return False if there are no more rows.
+   */
+  private boolean fill() throws IOException {
+    while (!this.closed) {
+      BlockingQueue<Result []> queue;
+      if (this.ordered) {
+        if (this.current >= this.queues.size()) break;
+        queue = this.queues.get(this.current);
+      } else {
+        if (this.running == 0) break;
+        queue = this.queues.get(0);
+      }
+      Result [] batch;
+      try {
+        batch = queue.take();
+      } catch (InterruptedException e) {
+        close();
+        throw new InterruptedIOException("Interrupted waiting on scan");
+      }
+      if (batch == DONE) {
+        checkFailure();
+        this.running--;
+        if (this.ordered) this.current++;
+        continue;
+      }
+      this.cache.addAll(Arrays.asList(batch));
+      return true;
+    }
+    checkFailure();
+    close();
+    return false;
+  }
+
+  private void checkFailure() throws IOException {
+    Throwable t = this.failure.get();
+    if (t == null) return;
+    close();
+    if (t instanceof IOException) throw (IOException)t;
+    IOException ioe = new IOException("Failed scanning region");
+    ioe.initCause(t);
+    throw ioe;
+  }
+
+  public Result [] next(int nbRows) throws IOException {
+    // Collect values to be returned here
+    ArrayList<Result> resultSets = new ArrayList<Result>(nbRows);
+    for(int i = 0; i < nbRows; i++) {
+      Result next = next();
+      if (next != null) {
+        resultSets.add(next);
+      } else {
+        break;
+      }
+    }
+    return resultSets.toArray(new Result[resultSets.size()]);
+  }
+
+  public void close() {
+    if (this.closed) return;
+    this.closed = true;
+    // Interrupts sub-scans blocked on a full queue; each closes its scanner.
+    this.pool.shutdownNow();
+  }
+
+  public Iterator<Result> iterator() {
+    return new Iterator<Result>() {
+      // The next Result, possibly pre-read
+      Result next = null;
+
+      public boolean hasNext() {
+        if (next == null) {
+          try {
+            next = ParallelClientScanner.this.next();
+            return next != null;
+          } catch (IOException e) {
+            throw new RuntimeException(e);
+          }
+        }
+        return true;
+      }
+
+      public Result next() {
+        if (!hasNext()) {
+          return null;
+        }
+        Result temp = next;
+        next = null;
+        return temp;
+      }
+
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+}
@@ -0,0 +1,362 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.RegionException;
+import org.apache.hadoop.hbase.TableNotFoundException;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Cache of region locations, per table, used by the client connection.
+ * <p>
+ * Lookups don't take any lock.  Locations are strongly referenced so they
+ * stay cached under memory pressure, and the number of cached regions is
+ * bounded instead: once over the maximum the least recently used tenth is
+ * evicted.
+ * <p>
+ * Also remembers, for a short time, tables that were not found and regions
+ * that are offline or not deployed, so concurrent lookups don't all go to
+ * the catalog tables to be told the same thing.
+ */
+class RegionLocationCache {
+  static final Log LOG = LogFactory.getLog(RegionLocationCache.class);
+
+  private final int maxSize;
+  private final long failureTtl;
+  // Table name mapKey -> region start key -> location
+  private final ConcurrentMap<Integer, ConcurrentSkipListMap<byte [], Entry>>
+    tables =
+      new ConcurrentHashMap<Integer, ConcurrentSkipListMap<byte [], Entry>>();
+  // Table name mapKey -> time up to which the table is known not to exist
+  private final ConcurrentMap<Integer, Long> missingTables =
+    new ConcurrentHashMap<Integer, Long>();
+  private final AtomicInteger size = new AtomicInteger(0);
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final AtomicLong evictions = new AtomicLong(0);
+
+  /**
+   * @param maxSize maximum number of regions to cache
+   * @param failureTtl milliseconds to remember lookup failures for
+   */
+  RegionLocationCache(final int maxSize, final long failureTtl) {
+    this.maxSize = maxSize;
+    this.failureTtl = failureTtl;
+  }
+
+  /**
+   * @param tableName
+   * @param row
+   * @return location of the region holding the row, or null if not cached
+   * or the region is cached as failed
+   */
+  HRegionLocation get(final byte [] tableName, final byte [] row) {
+    Entry entry = getEntry(tableName, row);
+    return entry == null? null: entry.location;
+  }
+
+  /**
+   * Throws if the table was recently not found
+   * @param tableName
+   * @throws TableNotFoundException if the table is known not to exist
+   */
+  void checkMissingTable(final byte [] tableName)
+  throws TableNotFoundException {
+    Integer key = Bytes.mapKey(tableName);
+    Long missingUntil = this.missingTables.get(key);
+    if (missingUntil != null) {
+      if (System.currentTimeMillis() < missingUntil.longValue()) {
+        throw new TableNotFoundException(Bytes.toString(tableName));
+      }
+      this.missingTables.remove(key, missingUntil);
+    }
+  }
+
+  /**
+   * Throws the failure cached for the region holding the row, if any
+   * @param tableName
+   * @param row
+   * @throws RegionException {@link RegionOfflineException} or
+   * {@link NoServerForRegionException}, whichever was cached
+   */
+  void checkFailedRegion(final byte [] tableName, final byte [] row)
+  throws RegionException {
+    Entry entry = findEntry(tableName, row);
+    if (entry != null && entry.location == null) {
+      if (entry.offline) {
+        throw new RegionOfflineException("region offline: " +
+          entry.regionInfo.getRegionNameAsString());
+      }
+      throw new NoServerForRegionException("No server address listed " +
+        "for region " + entry.regionInfo.getRegionNameAsString());
+    }
+  }
+
+  /**
+   * Caches the location of a region, replacing anything cached for it
+   * @param tableName
+   * @param location
+   * @return true if the region wasn't cached yet
+   */
+  boolean put(final byte [] tableName, final HRegionLocation location) {
+    return put(tableName, new Entry(location.getRegionInfo(), location, false,
+      Long.MAX_VALUE));
+  }
+
+  /**
+   * Remembers the region is offline, or not assigned if not offline
+   * @param tableName
+   * @param regionInfo
+   */
+  void putFailed(final byte [] tableName, final HRegionInfo regionInfo) {
+    if (this.failureTtl <= 0) return;
+    put(tableName, new Entry(regionInfo, null, regionInfo.isOffline(),
+      System.currentTimeMillis() + this.failureTtl));
+  }
+
+  /**
+   * Remembers the table doesn't exist
+   * @param tableName
+   */
+  void putMissingTable(final byte [] tableName) {
+    if (this.failureTtl <= 0) return;
+    this.missingTables.put(Bytes.mapKey(tableName),
+      Long.valueOf(System.currentTimeMillis() + this.failureTtl));
+  }
+
+  /**
+   * Removes what's cached for the region holding the row, location or failure
+   * @param tableName
+   * @param row
+   * @return the location that was removed, null if none
+   */
+  HRegionLocation remove(final byte [] tableName, final byte [] row) {
+    Entry entry = findEntry(tableName, row);
+    if (entry == null) return null;
+    remove(Bytes.mapKey(tableName),
+      entry.regionInfo.getStartKey(), entry);
+    return entry.location;
+  }
+
+  /**
+   * Forgets everything about the table, including that it doesn't exist
+   * @param tableName
+   */
+  void clear(final byte [] tableName) {
+    Integer key = Bytes.mapKey(tableName);
+    this.missingTables.remove(key);
+    ConcurrentSkipListMap<byte [], Entry> locations = this.tables.get(key);
+    if (locations == null) return;
+    for (Map.Entry<byte [], Entry> e : locations.entrySet()) {
+      remove(key, e.getKey(), e.getValue());
+    }
+  }
+
+  void clear() {
+    this.tables.clear();
+    this.missingTables.clear();
+    this.size.set(0);
+  }
+
+  /**
+   * @param tableName
+   * @return number of regions of the table whose location is cached
+   */
+  int size(final byte [] tableName) {
+    ConcurrentSkipListMap<byte [], Entry> locations =
+      this.tables.get(Bytes.mapKey(tableName));
+    if (locations == null) return 0;
+    int count = 0;
+    for (Entry entry : locations.values()) {
+      if (entry.location != null) count++;
+    }
+    return count;
+  }
+
+  /**
+   * @return number of regions cached, locations and failures
+   */
+  int size() {
+    return this.size.get();
+  }
+
+  /**
+   * @return number of regions evicted since the cache was created
+   */
+  long getEvictions() {
+    return this.evictions.get();
+  }
+
+  private Entry getEntry(final byte [] tableName, final byte [] row) {
+    Entry entry = findEntry(tableName, row);
+    if (entry != null && entry.location != null) {
+      entry.lastAccess = System.nanoTime();
+      return entry;
+    }
+    return null;
+  }
+
+  /*
+   * @return the entry for the region holding the row, dropping it if it's an
+   * expired failure
+   */
+  private Entry findEntry(final byte [] tableName, final byte [] row) {
+    Integer key = Bytes.mapKey(tableName);
+    ConcurrentSkipListMap<byte [], Entry> locations = this.tables.get(key);
+    if (locations == null) return null;
+    Map.Entry<byte [], Entry> e = locations.floorEntry(row);
+    if (e == null) return null;
+    Entry entry = e.getValue();
+    // The region starts before the row, check it ends after it. An empty end
+    // key means it's the last region of the table
+    byte [] endKey = entry.regionInfo.getEndKey();
+    if (!Bytes.equals(endKey, HConstants.EMPTY_END_ROW) &&
+        KeyValue.getRowComparator(tableName).compareRows(endKey, 0,
+          endKey.length, row, 0, row.length) <= 0) {
+      return null;
+    }
+    if (entry.expires <= System.currentTimeMillis()) {
+      remove(key, e.getKey(), entry);
+      return null;
+    }
+    return entry;
+  }
+
+  private boolean put(final byte [] tableName, final Entry entry) {
+    Integer key = Bytes.mapKey(tableName);
+    ConcurrentSkipListMap<byte [], Entry> locations = this.tables.get(key);
+    if (locations == null) {
+      locations = new ConcurrentSkipListMap<byte [], Entry>(
+        Bytes.BYTES_COMPARATOR);
+      ConcurrentSkipListMap<byte [], Entry> existing =
+        this.tables.putIfAbsent(key, locations);
+      if (existing != null) locations = existing;
+    }
+    Entry previous =
+      locations.put(entry.regionInfo.getStartKey(), entry);
+    if (previous == null) {
+      if (this.size.incrementAndGet() > this.maxSize) {
+        evict();
+      }
+      return true;
+    }
+    return previous.location == null;
+  }
+
+  private void remove(final Integer key, final byte [] startKey,
+      final Entry entry) {
+    ConcurrentSkipListMap<byte [], Entry> locations = this.tables.get(key);
+    if (locations != null && locations.remove(startKey, entry)) {
+      this.size.decrementAndGet();
+    }
+  }
+
+  /*
+   * Drops the least recently used regions until the cache is 90% full.
+   * Only one thread evicts at a time, others keep on adding.
+   */
+  private void evict() {
+    if (!this.evictionLock.tryLock()) return;
+    try {
+      int toEvict = this.size.get() - (int)(this.maxSize * 0.9f);
+      if (toEvict <= 0) return;
+      List<Victim> victims = new ArrayList<Victim>(this.size.get());
+      for (Map.Entry<Integer, ConcurrentSkipListMap<byte [], Entry>> t :
+          this.tables.entrySet()) {
+        for (Map.Entry<byte [], Entry> e : t.getValue().entrySet()) {
+          victims.add(new Victim(t.getKey(), e.getKey(), e.getValue()));
+        }
+      }
+      Collections.sort(victims, Victim.COMPARATOR);
+      int evicted = 0;
+      for (Victim victim : victims) {
+        if (evicted >= toEvict) break;
+        remove(victim.table, victim.startKey, victim.entry);
+        evicted++;
+      }
+      this.evictions.addAndGet(evicted);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Evicted " + evicted + " regions from the location cache");
+      }
+    } finally {
+      this.evictionLock.unlock();
+    }
+  }
+
+  /*
+   * What's cached for a region: its location, or why it can't be used
+   */
+  private static class Entry {
+    final HRegionInfo regionInfo;
+    // Null if the region is offline or not assigned
+    final HRegionLocation location;
+    final boolean offline;
+    final long expires;
+    volatile long lastAccess = System.nanoTime();
+
+    Entry(final HRegionInfo regionInfo, final HRegionLocation location,
+        final boolean offline, final long expires) {
+      this.regionInfo = regionInfo;
+      this.location = location;
+      this.offline = offline;
+      this.expires = expires;
+    }
+  }
+
+  private static class Victim {
+    static final Comparator<Victim> COMPARATOR = new Comparator<Victim>() {
+      public int compare(Victim left, Victim right) {
+        long l = left.lastAccess;
+        long r = right.lastAccess;
+        return l < r? -1: l == r? 0: 1;
+      }
+    };
+
+    final Integer table;
+    final byte [] startKey;
+    final Entry entry;
+    // Copied so it doesn't change while sorting
+    final long lastAccess;
+
+    Victim(final Integer table, final byte [] startKey, final Entry entry) {
+      this.table = table;
+      this.startKey = startKey;
+      this.entry = entry;
+      this.lastAccess = entry.lastAccess;
+    }
+  }
+}
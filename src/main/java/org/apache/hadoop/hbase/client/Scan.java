@@ -71,19 +71,32 @@ import java.util.TreeSet;
  * To limit the maximum number of values returned for each call to next(),
  * execute {@link #setBatch(int) setBatch}.
  * <p>
+ * To bound the bytes of rows returned for each call to next(), execute
+ * {@link #setMaxResultSize(long) setMaxResultSize}.
+ * <p>
  * To add a filter, execute {@link #setFilter(org.apache.hadoop.hbase.filter.Filter) setFilter}.
  * <p>
  * Expert: To explicitly disable server-side block caching for this scan,
  * execute {@link #setCacheBlocks(boolean)}.
+ * <p>
+ * Expert: To have the regionserver compute the next batch of rows while the
+ * client works on the current one, execute {@link #setPrefetching(boolean)}.
  */
 public class Scan implements Writable {
-  private static final byte SCAN_VERSION = (byte)1;
+  // Version 2 added prefetching, version 3 the max result size.  Scans are
+  // written with the lowest version that carries what they use so servers
+  // that predate it can read them.
+  private static final byte SCAN_VERSION = (byte)3;
+  private static final byte SCAN_VERSION_PREFETCHING = (byte)2;
+  private static final byte SCAN_VERSION_MAX_RESULT_SIZE = (byte)3;
   private byte [] startRow = HConstants.EMPTY_START_ROW;
   private byte [] stopRow  = HConstants.EMPTY_END_ROW;
   private int maxVersions = 1;
   private int batch = -1;
   private int caching = -1;
   private boolean cacheBlocks = true;
+  private boolean prefetching = false;
+  private long maxResultSize = -1;
   private Filter filter = null;
   private TimeRange tr = new TimeRange();
   private Map<byte [], NavigableSet<byte []>> familyMap =
@@ -133,6 +146,8 @@ public class Scan implements Writable {
     batch = scan.getBatch();
     caching = scan.getCaching();
     cacheBlocks = scan.getCacheBlocks();
+    prefetching = scan.getPrefetching();
+    maxResultSize = scan.getMaxResultSize();
     filter = scan.getFilter(); // clone?
     TimeRange ctr = scan.getTimeRange();
     tr = new TimeRange(ctr.getMin(), ctr.getMax());
@@ -433,6 +448,56 @@ public class Scan implements Writable {
     return cacheBlocks;
   }
 
+  /**
+   * Set whether the regionserver should prefetch for this Scan.
+   * <p>
+   * This is false by default.  When true, after returning a batch of rows the
+   * regionserver goes on to compute the next batch of the same size in the
+   * background so it is ready when the client asks for it.  Useful for large
+   * sequential scans where the client spends a while on each batch.  The
+   * regionserver may skip prefetching when too much is already buffered.
+   *
+   * @param prefetching if true, prefetch the next batch of rows
+   */
+  public void setPrefetching(boolean prefetching) {
+    this.prefetching = prefetching;
+  }
+
+  /**
+   * Get whether the regionserver should prefetch for this Scan.
+   * @return true if the next batch should be prefetched
+   */
+  public boolean getPrefetching() {
+    return prefetching;
+  }
+
+  /**
+   * Set the maximum number of bytes of rows to return per call to next.
+   * <p>
+   * Rows are added to a batch until either {@link #setCaching(int)} rows
+   * or this many bytes, counted by {@link KeyValue#heapSize()}, have been
+   * collected, so caching can be set high for narrow rows without wide rows
+   * making for huge batches.  A single row larger than the limit is still
+   * returned whole; use {@link #setBatch(int)} to split up wide rows.
+   * <p>
+   * When not set the regionserver and client each fall back to
+   * <code>hbase.client.scanner.max.result.size</code> from their own
+   * configuration, which should then be the same on both.
+   *
+   * @param maxResultSize maximum bytes per batch; -1 to not set
+   */
+  public void setMaxResultSize(long maxResultSize) {
+    this.maxResultSize = maxResultSize;
+  }
+
+  /**
+   * @return the maximum number of bytes of rows to return per call to next,
+   * or -1 if not set
+   */
+  public long getMaxResultSize() {
+    return maxResultSize;
+  }
+
   /**
    * @return String
    */
@@ -451,6 +516,10 @@ public class Scan implements Writable {
     sb.append(this.caching);
     sb.append(", cacheBlocks=");
     sb.append(this.cacheBlocks);
+    sb.append(", prefetching=");
+    sb.append(this.prefetching);
+    sb.append(", maxResultSize=");
+    sb.append(this.maxResultSize);
     sb.append(", timeRange=");
     sb.append("[").append(this.tr.getMin()).append(",");
     sb.append(this.tr.getMax()).append(")");
@@ -533,11 +602,17 @@ public class Scan implements Writable {
       }
       this.familyMap.put(family, set);
     }
+    this.prefetching = version >= SCAN_VERSION_PREFETCHING?
+      in.readBoolean(): false;
+    this.maxResultSize = version >= SCAN_VERSION_MAX_RESULT_SIZE?
+      in.readLong(): -1;
   }
 
   public void write(final DataOutput out)
   throws IOException {
-    out.writeByte(SCAN_VERSION);
+    byte version = this.maxResultSize > 0? SCAN_VERSION_MAX_RESULT_SIZE:
+      this.prefetching? SCAN_VERSION_PREFETCHING: (byte)1;
+    out.writeByte(version);
     Bytes.writeByteArray(out, this.startRow);
     Bytes.writeByteArray(out, this.stopRow);
     out.writeInt(this.maxVersions);
@@ -565,6 +640,12 @@ public class Scan implements Writable {
         out.writeInt(0);
       }
     }
+    if (version >= SCAN_VERSION_PREFETCHING) {
+      out.writeBoolean(this.prefetching);
+    }
+    if (version >= SCAN_VERSION_MAX_RESULT_SIZE) {
+      out.writeLong(this.maxResultSize);
+    }
   }
 
    /**
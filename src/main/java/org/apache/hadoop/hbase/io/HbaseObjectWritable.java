@@ -338,6 +338,8 @@ public class HbaseObjectWritable implements Writable, Configurable {
         Bytes.writeByteArray(out, (byte [])instanceObj);
       } else if(declClass.equals(Result [].class)) {
         Result.writeArray(out, (Result [])instanceObj);
+      } else if(declClass.equals(HLog.Entry [].class)) {
+        HLog.Entry.writeArray(out, (HLog.Entry [])instanceObj);
       } else {
         int length = Array.getLength(instanceObj);
         out.writeInt(length);
@@ -450,6 +452,8 @@ public class HbaseObjectWritable implements Writable, Configurable {
         instance = Bytes.readByteArray(in);
       } else if(declaredClass.equals(Result [].class)) {
         instance = Result.readArray(in);
+      } else if(declaredClass.equals(HLog.Entry [].class)) {
+        instance = HLog.Entry.readArray(in);
       } else {
         int length = in.readInt();
         instance = Array.newInstance(declaredClass.getComponentType(), length);
@@ -793,6 +793,14 @@ public class HFile {
       return this.inMemory;
     }
 
+    /**
+     * @return Compression the file was written with.  Only set once
+     * {@link #loadFileInfo()} has been called.
+     */
+    public Compression.Algorithm getCompressionAlgorithm() {
+      return this.compressAlgo;
+    }
+
     /**
      * Read in the index and file info.
      * @return A map of fileinfo data.
@@ -1156,6 +1164,19 @@ public class HFile {
       return this.blockIndex.midkey();
     }
 
+    /**
+     * @return The first key of each block, in order.  Empty if the file info
+     * is not loaded or the file has no blocks.
+     */
+    public byte [][] getBlockIndexKeys() {
+      if (!isFileInfoLoaded() || this.blockIndex.isEmpty()) {
+        return new byte [0][];
+      }
+      byte [][] keys = new byte [this.blockIndex.count][];
+      System.arraycopy(this.blockIndex.blockKeys, 0, keys, 0, keys.length);
+      return keys;
+    }
+
     public void close() throws IOException {
       if (this.closeIStream && this.istream != null) {
         this.istream.close();
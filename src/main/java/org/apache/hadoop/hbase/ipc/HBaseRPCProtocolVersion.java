@@ -77,7 +77,10 @@ public interface HBaseRPCProtocolVersion extends VersionedProtocol {
    * <li>Version 23: HBASE-2066, multi-put.</li>
    * <li>Version 24: HBASE-2473, create table with regions.</li>
    * <li>Version 25: Added openRegion and Stoppable/Abortable to API.</li>
+   * <li>Version 26: HLog.Entry arrays are sent with dictionary compression.</li>
+   * <li>Version 27: RegionLoad carries the region's requests count.</li>
+   * <li>Version 28: Added openRegions to HRegionInterface.</li>
    * </ul>
    */
-  public static final long versionID = 25L;
+  public static final long versionID = 28L;
 }
@@ -22,6 +22,9 @@ package org.apache.hadoop.hbase.mapreduce;
 import java.io.IOException;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.client.Result;
@@ -37,9 +40,21 @@ import org.mortbay.log.Log;
  * Export an HBase table.
  * Writes content to sequence files up in HDFS.  Use {@link Import} to read it
  * back in again.
+ * <p>
+ * If {@link #CHECKPOINT_CONF_KEY} names a checkpoint file, the export is
+ * incremental: it starts at the end time recorded by the last successful run
+ * and, on success, records its own end time for the next one.  Store files
+ * whose time range ends before the checkpoint are skipped by the region
+ * servers without being read, so a daily incremental export only reads the
+ * files written since the previous day.  Cells written with an explicit
+ * timestamp older than the checkpoint, and deletes, are not picked up.
  */
 public class Export {
   final static String NAME = "export";
+  /** Path of the checkpoint file used for incremental exports. */
+  public final static String CHECKPOINT_CONF_KEY = "export.checkpoint";
+  /** End of the exported time range; set on the job's configuration. */
+  final static String END_TIME_CONF_KEY = "export.endtime";
 
   /**
    * Mapper.
@@ -88,7 +103,23 @@ public class Export {
     s.setMaxVersions(versions);
     long startTime = args.length > 3? Long.parseLong(args[3]): 0L;
     long endTime = args.length > 4? Long.parseLong(args[4]): Long.MAX_VALUE;
+    String checkpoint = conf.get(CHECKPOINT_CONF_KEY);
+    if (checkpoint != null) {
+      Path checkpointPath = new Path(checkpoint);
+      long lastEndTime =
+        readCheckpoint(checkpointPath.getFileSystem(conf), checkpointPath);
+      if (lastEndTime > 0) {
+        startTime = lastEndTime;
+      }
+      // Bound the range so the next run knows where this one stopped.
+      if (endTime == Long.MAX_VALUE) {
+        endTime = System.currentTimeMillis();
+      }
+    }
     s.setTimeRange(startTime, endTime);
+    // A full pass over the table would only churn the block cache.
+    s.setCacheBlocks(false);
+    job.getConfiguration().setLong(END_TIME_CONF_KEY, endTime);
     Log.info("verisons=" + versions + ", starttime=" + startTime +
       ", endtime=" + endTime);
     TableMapReduceUtil.initTableMapperJob(tableName, s, Exporter.class, null,
@@ -102,6 +133,58 @@ public class Export {
     return job;
   }
 
+  /**
+   * Reads the end time recorded by the last successful incremental export.
+   *
+   * @param fs  The filesystem holding the checkpoint.
+   * @param checkpoint  The checkpoint file.
+   * @return The recorded end time, or 0 if there is no checkpoint yet.
+   * @throws IOException When reading the checkpoint fails.
+   */
+  public static long readCheckpoint(final FileSystem fs, final Path checkpoint)
+  throws IOException {
+    if (!fs.exists(checkpoint)) {
+      return 0L;
+    }
+    FSDataInputStream in = fs.open(checkpoint);
+    try {
+      return Long.parseLong(in.readUTF());
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Records the end of the time range <code>job</code> exported in its
+   * checkpoint file.  Call only once the job has completed successfully.
+   *
+   * @param job  A job set up by {@link #createSubmittableJob}.
+   * @throws IOException When the job has no checkpoint or writing it fails.
+   */
+  public static void writeCheckpoint(final Job job) throws IOException {
+    Configuration conf = job.getConfiguration();
+    String checkpoint = conf.get(CHECKPOINT_CONF_KEY);
+    if (checkpoint == null) {
+      throw new IOException(CHECKPOINT_CONF_KEY + " is not set");
+    }
+    Path checkpointPath = new Path(checkpoint);
+    FileSystem fs = checkpointPath.getFileSystem(conf);
+    // Write aside and rename so a failed write leaves the old checkpoint.
+    Path tmp = new Path(checkpointPath.getParent(),
+      "." + checkpointPath.getName() + ".tmp");
+    FSDataOutputStream out = fs.create(tmp, true);
+    try {
+      out.writeUTF(Long.toString(conf.getLong(END_TIME_CONF_KEY, 0L)));
+    } finally {
+      out.close();
+    }
+    fs.delete(checkpointPath, false);
+    if (!fs.rename(tmp, checkpointPath)) {
+      throw new IOException("Failed rename of " + tmp + " to " +
+        checkpointPath);
+    }
+  }
+
   /*
    * @param errorMsg Error message.  Can be null.
    */
@@ -109,8 +192,11 @@ public class Export {
     if (errorMsg != null && errorMsg.length() > 0) {
       System.err.println("ERROR: " + errorMsg);
     }
-    System.err.println("Usage: Export <tablename> <outputdir> [<versions> " +
+    System.err.println("Usage: Export [-D" + CHECKPOINT_CONF_KEY +
+      "=<checkpointfile>] <tablename> <outputdir> [<versions> " +
       "[<starttime> [<endtime>]]]");
+    System.err.println("With a checkpoint file, only cells written since " +
+      "the last successful export\nusing that file are exported.");
   }
 
   /**
@@ -127,6 +213,12 @@ public class Export {
       System.exit(-1);
     }
     Job job = createSubmittableJob(conf, otherArgs);
-    System.exit(job.waitForCompletion(true)? 0 : 1);
+    if (!job.waitForCompletion(true)) {
+      System.exit(1);
+    }
+    if (conf.get(CHECKPOINT_CONF_KEY) != null) {
+      writeCheckpoint(job);
+    }
+    System.exit(0);
   }
 }
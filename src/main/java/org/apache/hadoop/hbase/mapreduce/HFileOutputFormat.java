@@ -20,8 +20,11 @@
 package org.apache.hadoop.hbase.mapreduce;
 
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -32,15 +35,16 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HColumnDescriptor;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.io.hfile.Compression;
-import org.apache.hadoop.hbase.io.hfile.HFile;
 import org.apache.hadoop.hbase.mapreduce.hadoopbackport.TotalOrderPartitioner;
 import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreFile.BloomType;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.SequenceFile;
@@ -57,28 +61,48 @@ import com.google.common.base.Preconditions;
 
 /**
  * Writes HFiles. Passed KeyValues must arrive in order.
- * Currently, can only write files to a single column family at a
- * time.  Multiple column families requires coordinating keys cross family.
+ * Writes a directory of files per column family; the files of all families
+ * are rolled together, at a row boundary, so they cover the same rows.
+ * Each family's files get the compression, block size and bloom filter type
+ * of its HColumnDescriptor as recorded by
+ * {@link #configureIncrementalLoad(Job, HTable)}; families it did not
+ * record fall back to <code>hfile.compression</code>,
+ * <code>hfile.min.blocksize.size</code> and no bloom filter.
  * Writes current time as the sequence id for the file. Sets the major compacted
  * attribute on created hfiles.
  * @see KeyValueSortReducer
  */
 public class HFileOutputFormat extends FileOutputFormat<ImmutableBytesWritable, KeyValue> {
   static Log LOG = LogFactory.getLog(HFileOutputFormat.class);
-  
+
+  // Per family settings, each "family=value&family=value", URL encoded.
+  static final String COMPRESSION_CONF_KEY =
+    "hbase.hfileoutputformat.families.compression";
+  static final String BLOCKSIZE_CONF_KEY =
+    "hbase.hfileoutputformat.families.blocksize";
+  static final String BLOOM_TYPE_CONF_KEY =
+    "hbase.hfileoutputformat.families.bloomtype";
+
   public RecordWriter<ImmutableBytesWritable, KeyValue> getRecordWriter(final TaskAttemptContext context)
   throws IOException, InterruptedException {
     // Get the path of the temporary output file
     final Path outputPath = FileOutputFormat.getOutputPath(context);
     final Path outputdir = new FileOutputCommitter(outputPath, context).getWorkPath();
-    Configuration conf = context.getConfiguration();
+    final Configuration conf = context.getConfiguration();
     final FileSystem fs = outputdir.getFileSystem(conf);
     // These configs. are from hbase-*.xml
     final long maxsize = conf.getLong("hbase.hregion.max.filesize", 268435456);
-    final int blocksize = conf.getInt("hfile.min.blocksize.size", 65536);
+    final int defaultBlocksize = conf.getInt("hfile.min.blocksize.size", 65536);
     // Invented config.  Add to hbase-*.xml if other than default compression.
-    final String compression = conf.get("hfile.compression",
+    final String defaultCompression = conf.get("hfile.compression",
       Compression.Algorithm.NONE.getName());
+    // Per family settings from configureIncrementalLoad
+    final Map<byte [], String> compressionMap =
+      createFamilyMap(conf, COMPRESSION_CONF_KEY);
+    final Map<byte [], String> blocksizeMap =
+      createFamilyMap(conf, BLOCKSIZE_CONF_KEY);
+    final Map<byte [], String> bloomTypeMap =
+      createFamilyMap(conf, BLOOM_TYPE_CONF_KEY);
 
     return new RecordWriter<ImmutableBytesWritable, KeyValue>() {
       // Map of families to writers and how much has been output on the writer.
@@ -86,28 +110,30 @@ public class HFileOutputFormat extends FileOutputFormat<ImmutableBytesWritable,
         new TreeMap<byte [], WriterLength>(Bytes.BYTES_COMPARATOR);
       private byte [] previousRow = HConstants.EMPTY_BYTE_ARRAY;
       private final byte [] now = Bytes.toBytes(System.currentTimeMillis());
+      // Set when a writer is full; all are rolled at the next row.
+      private boolean rollRequested = false;
 
       public void write(ImmutableBytesWritable row, KeyValue kv)
       throws IOException {
         long length = kv.getLength();
         byte [] family = kv.getFamily();
         WriterLength wl = this.writers.get(family);
-        if (wl == null || ((length + wl.written) >= maxsize) &&
+        if (wl != null && (length + wl.written) >= maxsize) {
+          this.rollRequested = true;
+        }
+        // Roll at a row boundary so the files of all families cover the
+        // same rows.
+        if (this.rollRequested &&
             Bytes.compareTo(this.previousRow, 0, this.previousRow.length,
               kv.getBuffer(), kv.getRowOffset(), kv.getRowLength()) != 0) {
-          // Get a new writer.
-          Path basedir = new Path(outputdir, Bytes.toString(family));
-          if (wl == null) {
-            wl = new WriterLength();
-            this.writers.put(family, wl);
-            if (this.writers.size() > 1) throw new IOException("One family only");
-            // If wl == null, first file in family.  Ensure family dir exits.
-            if (!fs.exists(basedir)) fs.mkdirs(basedir);
-          }
-          wl.writer = getNewWriter(wl.writer, basedir);
-          LOG.info("Writer=" + wl.writer.getPath() +
-            ((wl.written == 0)? "": ", wrote=" + wl.written));
-          wl.written = 0;
+          rollWriters();
+        }
+        if (wl == null) {
+          wl = new WriterLength();
+          this.writers.put(family, wl);
+        }
+        if (wl.writer == null) {
+          wl.writer = getNewWriter(family);
         }
         kv.updateLatestStamp(this.now);
         wl.writer.append(kv);
@@ -116,21 +142,46 @@ public class HFileOutputFormat extends FileOutputFormat<ImmutableBytesWritable,
         this.previousRow = kv.getRow();
       }
 
-      /* Create a new HFile.Writer. Close current if there is one.
-       * @param writer
-       * @param familydir
-       * @return A new HFile.Writer.
+      private void rollWriters() throws IOException {
+        for (WriterLength wl: this.writers.values()) {
+          if (wl.writer != null) {
+            LOG.info("Writer=" + wl.writer.getPath() +
+              ((wl.written == 0)? "": ", wrote=" + wl.written));
+            close(wl.writer);
+          }
+          wl.writer = null;
+          wl.written = 0;
+        }
+        this.rollRequested = false;
+      }
+
+      /* Create a new StoreFile.Writer for a family with its settings.
+       * @param family
+       * @return A new StoreFile.Writer.
        * @throws IOException
        */
-      private HFile.Writer getNewWriter(final HFile.Writer writer,
-          final Path familydir)
+      private StoreFile.Writer getNewWriter(final byte [] family)
       throws IOException {
-        close(writer);
-        return new HFile.Writer(fs,  StoreFile.getUniqueFile(fs, familydir),
-          blocksize, compression, KeyValue.KEY_COMPARATOR);
+        // Makes the family directory if it doesn't exist.
+        Path familydir = new Path(outputdir, Bytes.toString(family));
+        String compression = compressionMap.get(family);
+        compression = compression == null? defaultCompression: compression;
+        String blocksize = blocksizeMap.get(family);
+        String bloomType = bloomTypeMap.get(family);
+        StoreFile.Writer w = StoreFile.createWriter(fs, familydir,
+          blocksize == null? defaultBlocksize: Integer.parseInt(blocksize),
+          Compression.getCompressionAlgorithmByName(compression),
+          KeyValue.COMPARATOR, conf,
+          bloomType == null? BloomType.NONE: BloomType.valueOf(bloomType),
+          // Bloom filters are sized up front and folded down on close;
+          // assume no smaller than 128 byte KeyValues.
+          (int)Math.min(maxsize / 128, Integer.MAX_VALUE));
+        LOG.info("Writer=" + w.getPath() + ", compression=" + compression +
+          ", bloomType=" + (bloomType == null? BloomType.NONE: bloomType));
+        return w;
       }
 
-      private void close(final HFile.Writer w) throws IOException {
+      private void close(final StoreFile.Writer w) throws IOException {
         if (w != null) {
           w.appendFileInfo(StoreFile.BULKLOAD_TIME_KEY,
               Bytes.toBytes(System.currentTimeMillis()));
@@ -138,6 +189,7 @@ public class HFileOutputFormat extends FileOutputFormat<ImmutableBytesWritable,
               Bytes.toBytes(context.getTaskAttemptID().toString()));
           w.appendFileInfo(StoreFile.MAJOR_COMPACTION_KEY, 
               Bytes.toBytes(true));
+          w.appendTimeRangeMetadata();
           w.close();
         }
       }
@@ -156,7 +208,7 @@ public class HFileOutputFormat extends FileOutputFormat<ImmutableBytesWritable,
    */
   static class WriterLength {
     long written = 0;
-    HFile.Writer writer = null;
+    StoreFile.Writer writer = null;
   }
 
   /**
@@ -181,7 +233,8 @@ public class HFileOutputFormat extends FileOutputFormat<ImmutableBytesWritable,
    * @param startKeys the region start keys
    */
   private static void writePartitions(Configuration conf, Path partitionsPath,
-      List<ImmutableBytesWritable> startKeys) throws IOException {
+      List<ImmutableBytesWritable> startKeys, boolean keyValues)
+  throws IOException {
     Preconditions.checkArgument(!startKeys.isEmpty(), "No regions passed");
 
     // We're generating a list of split points, and we don't ever
@@ -201,11 +254,19 @@ public class HFileOutputFormat extends FileOutputFormat<ImmutableBytesWritable,
     // Write the actual file
     FileSystem fs = partitionsPath.getFileSystem(conf);
     SequenceFile.Writer writer = SequenceFile.createWriter(fs, 
-        conf, partitionsPath, ImmutableBytesWritable.class, NullWritable.class);
+        conf, partitionsPath,
+        keyValues? KeyValue.class: ImmutableBytesWritable.class,
+        NullWritable.class);
     
     try {
       for (ImmutableBytesWritable startKey : sorted) {
-        writer.append(startKey, NullWritable.get());
+        if (keyValues) {
+          // Sorts before every KeyValue of the region's first row.
+          writer.append(KeyValue.createFirstOnRow(startKey.copyBytes()),
+            NullWritable.get());
+        } else {
+          writer.append(startKey, NullWritable.get());
+        }
       }
     } finally {
       writer.close();
@@ -225,6 +286,11 @@ public class HFileOutputFormat extends FileOutputFormat<ImmutableBytesWritable,
    * </ul> 
    * The user should be sure to set the map output value class to either KeyValue or Put before
    * running this function.
+   * <p>
+   * Alternatively, set the map output key class to KeyValue (with any value
+   * class, usually NullWritable).  The shuffle then sorts the KeyValues with
+   * {@link KeyValueWritableComparator} and {@link SortedKeyValueReducer}
+   * streams them to the HFiles without sorting rows in memory.
    */
   public static void configureIncrementalLoad(Job job, HTable table) throws IOException {
     Configuration conf = job.getConfiguration();
@@ -236,7 +302,11 @@ public class HFileOutputFormat extends FileOutputFormat<ImmutableBytesWritable,
     // Based on the configured map output class, set the correct reducer to properly
     // sort the incoming values.
     // TODO it would be nice to pick one or the other of these formats.
-    if (KeyValue.class.equals(job.getMapOutputValueClass())) {
+    boolean keyValueKeys = KeyValue.class.equals(job.getMapOutputKeyClass());
+    if (keyValueKeys) {
+      job.setSortComparatorClass(KeyValueWritableComparator.class);
+      job.setReducerClass(SortedKeyValueReducer.class);
+    } else if (KeyValue.class.equals(job.getMapOutputValueClass())) {
       job.setReducerClass(KeyValueSortReducer.class);
     } else if (Put.class.equals(job.getMapOutputValueClass())) {
       job.setReducerClass(PutSortReducer.class);
@@ -255,7 +325,7 @@ public class HFileOutputFormat extends FileOutputFormat<ImmutableBytesWritable,
     LOG.info("Writing partition information to " + partitionsPath);
 
     FileSystem fs = partitionsPath.getFileSystem(conf);
-    writePartitions(conf, partitionsPath, startKeys);
+    writePartitions(conf, partitionsPath, startKeys, keyValueKeys);
     partitionsPath.makeQualified(fs);
     URI cacheUri;
     try {
@@ -266,8 +336,77 @@ public class HFileOutputFormat extends FileOutputFormat<ImmutableBytesWritable,
     }
     DistributedCache.addCacheFile(cacheUri, conf);
     DistributedCache.createSymlink(conf);
-    
+
+    configureFamilies(table, conf);
+
     LOG.info("Incremental table output configured.");
   }
+
+  /**
+   * Record the compression, block size and bloom filter type of each of the
+   * table's families in the configuration for the writers to use.
+   * @param table to read the families of
+   * @param conf to write to
+   * @throws IOException
+   */
+  static void configureFamilies(HTable table, Configuration conf)
+  throws IOException {
+    Map<byte [], String> compression =
+      new TreeMap<byte [], String>(Bytes.BYTES_COMPARATOR);
+    Map<byte [], String> blocksize =
+      new TreeMap<byte [], String>(Bytes.BYTES_COMPARATOR);
+    Map<byte [], String> bloomType =
+      new TreeMap<byte [], String>(Bytes.BYTES_COMPARATOR);
+    for (HColumnDescriptor family: table.getTableDescriptor().getFamilies()) {
+      compression.put(family.getName(), family.getCompression().getName());
+      blocksize.put(family.getName(), Integer.toString(family.getBlocksize()));
+      bloomType.put(family.getName(), family.getBloomFilterType().toString());
+    }
+    conf.set(COMPRESSION_CONF_KEY, serializeFamilyMap(compression));
+    conf.set(BLOCKSIZE_CONF_KEY, serializeFamilyMap(blocksize));
+    conf.set(BLOOM_TYPE_CONF_KEY, serializeFamilyMap(bloomType));
+  }
+
+  private static String serializeFamilyMap(final Map<byte [], String> map) {
+    StringBuilder sb = new StringBuilder();
+    try {
+      for (Map.Entry<byte [], String> e: map.entrySet()) {
+        if (sb.length() > 0) sb.append('&');
+        sb.append(URLEncoder.encode(Bytes.toString(e.getKey()), "UTF-8"));
+        sb.append('=');
+        sb.append(URLEncoder.encode(e.getValue(), "UTF-8"));
+      }
+    } catch (UnsupportedEncodingException e) {
+      // UTF-8 is always supported
+      throw new AssertionError(e);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Read back a per family setting written by
+   * {@link #configureFamilies(HTable, Configuration)}.
+   * @param conf to read from
+   * @param key of the setting
+   * @return Map of family to value; empty if not configured
+   */
+  static Map<byte [], String> createFamilyMap(Configuration conf, String key) {
+    Map<byte [], String> map =
+      new TreeMap<byte [], String>(Bytes.BYTES_COMPARATOR);
+    String value = conf.get(key, "");
+    if (value.length() == 0) return map;
+    try {
+      for (String pair: value.split("&")) {
+        int eq = pair.indexOf('=');
+        if (eq < 0) continue;
+        map.put(Bytes.toBytes(URLDecoder.decode(pair.substring(0, eq), "UTF-8")),
+          URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+      }
+    } catch (UnsupportedEncodingException e) {
+      // UTF-8 is always supported
+      throw new AssertionError(e);
+    }
+    return map;
+  }
   
 }
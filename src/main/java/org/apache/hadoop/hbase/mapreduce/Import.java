@@ -25,19 +25,29 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
 
 /**
  * Import data written by {@link Export}.
+ * <p>
+ * By default each row is written to the table as a Put.  If
+ * {@link #BULK_OUTPUT_CONF_KEY} is set, HFiles are written there instead,
+ * ready for <code>completebulkload</code>; this skips the write-ahead log and
+ * memstore entirely, which is much faster for large restores.
  */
 public class Import {
   final static String NAME = "import";
+  /** Directory to write HFiles to instead of writing to the table. */
+  public final static String BULK_OUTPUT_CONF_KEY = "import.bulk.output";
 
   /**
    * Write table content out to files in hdfs.
@@ -73,6 +83,34 @@ public class Import {
     }
   }
 
+  /**
+   * Emit each cell as the map output key so the shuffle sorts them for
+   * {@link HFileOutputFormat}.
+   */
+  static class KeyValueImporter
+  extends TableMapper<KeyValue, NullWritable> {
+    /**
+     * @param row  The current table row key.
+     * @param value  The columns.
+     * @param context  The current context.
+     * @throws IOException When something is broken with the data.
+     * @see org.apache.hadoop.mapreduce.Mapper#map(KEYIN, VALUEIN,
+     *   org.apache.hadoop.mapreduce.Mapper.Context)
+     */
+    @Override
+    public void map(ImmutableBytesWritable row, Result value,
+      Context context)
+    throws IOException {
+      try {
+        for (KeyValue kv : value.raw()) {
+          context.write(kv, NullWritable.get());
+        }
+      } catch (InterruptedException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
   /**
    * Sets up the actual job.
    *
@@ -84,16 +122,28 @@ public class Import {
   public static Job createSubmittableJob(Configuration conf, String[] args)
   throws IOException {
     String tableName = args[0];
-    Path inputDir = new Path(args[1]);
     Job job = new Job(conf, NAME + "_" + tableName);
     job.setJarByClass(Importer.class);
-    FileInputFormat.setInputPaths(job, inputDir);
+    // Comma separated, so a full export and its incrementals load together.
+    FileInputFormat.setInputPaths(job, args[1]);
     job.setInputFormatClass(SequenceFileInputFormat.class);
-    job.setMapperClass(Importer.class);
-    // No reducers.  Just write straight to table.  Call initTableReducerJob
-    // because it sets up the TableOutputFormat.
-    TableMapReduceUtil.initTableReducerJob(tableName, null, job);
-    job.setNumReduceTasks(0);
+    String hfileOutPath = conf.get(BULK_OUTPUT_CONF_KEY);
+    if (hfileOutPath != null) {
+      HTable table = new HTable(conf, tableName);
+      job.setMapperClass(KeyValueImporter.class);
+      job.setMapOutputKeyClass(KeyValue.class);
+      job.setMapOutputValueClass(NullWritable.class);
+      FileOutputFormat.setOutputPath(job, new Path(hfileOutPath));
+      // configureIncrementalLoad sets up the KeyValue sort and reducer
+      HFileOutputFormat.configureIncrementalLoad(job, table);
+      TableMapReduceUtil.addDependencyJars(job);
+    } else {
+      job.setMapperClass(Importer.class);
+      // No reducers.  Just write straight to table.  Call initTableReducerJob
+      // because it sets up the TableOutputFormat.
+      TableMapReduceUtil.initTableReducerJob(tableName, null, job);
+      job.setNumReduceTasks(0);
+    }
     return job;
   }
 
@@ -104,7 +154,10 @@ public class Import {
     if (errorMsg != null && errorMsg.length() > 0) {
       System.err.println("ERROR: " + errorMsg);
     }
-    System.err.println("Usage: Import <tablename> <inputdir>");
+    System.err.println("Usage: Import [-D" + BULK_OUTPUT_CONF_KEY +
+      "=<hfileoutputdir>] <tablename> <inputdir>[,<inputdir>...]");
+    System.err.println("With " + BULK_OUTPUT_CONF_KEY + " set, HFiles are " +
+      "written for completebulkload\ninstead of writing to the table.");
   }
 
   /**
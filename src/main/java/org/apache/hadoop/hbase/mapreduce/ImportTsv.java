@@ -33,12 +33,14 @@ import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.mapreduce.ImportTsv.TsvParser.BadTsvLineException;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.map.MultithreadedMapper;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
 
@@ -61,6 +63,8 @@ public class ImportTsv {
   final static String BULK_OUTPUT_CONF_KEY = "importtsv.bulk.output";
   final static String COLUMNS_CONF_KEY = "importtsv.columns";
   final static String SEPARATOR_CONF_KEY = "importtsv.separator";
+  final static String BULK_PUT_SORT_CONF_KEY = "importtsv.bulk.putsort";
+  final static String MAP_THREADS_CONF_KEY = "importtsv.map.threads";
   final static String DEFAULT_SEPARATOR = "\t";
 
   static class TsvParser {
@@ -73,6 +77,10 @@ public class ImportTsv {
     private final byte separatorByte;
 
     private int rowKeyColumnIndex;
+
+    /** Separator offsets of the line last parsed */
+    private final int[] tabOffsets;
+    private final ParsedLine parsedLine = new ParsedLine();
     
     public static String ROWKEY_COLUMN_SPEC="HBASE_ROW_KEY";
 
@@ -93,6 +101,7 @@ public class ImportTsv {
       
       families = new byte[columnStrings.size()][];
       qualifiers = new byte[columnStrings.size()][];
+      tabOffsets = new int[columnStrings.size()];
 
       for (int i = 0; i < columnStrings.size(); i++) {
         String str = columnStrings.get(i);
@@ -121,29 +130,37 @@ public class ImportTsv {
       return qualifiers[idx];
     }
     
+    /**
+     * Finds the columns of a line.  The returned ParsedLine is reused, so it
+     * is only good until the next call.
+     */
     public ParsedLine parse(byte[] lineBytes, int length)
     throws BadTsvLineException {
       // Enumerate separator offsets
-      ArrayList<Integer> tabOffsets = new ArrayList<Integer>(families.length);
+      int count = 0;
       for (int i = 0; i < length; i++) {
         if (lineBytes[i] == separatorByte) {
-          tabOffsets.add(i);
+          if (count == tabOffsets.length - 1) {
+            throw new BadTsvLineException("Bad line:\n");
+          }
+          tabOffsets[count++] = i;
         }
       }
-      tabOffsets.add(length);
-      if (tabOffsets.size() > families.length) {
-        throw new BadTsvLineException("Bad line:\n");
+      tabOffsets[count++] = length;
+      if (rowKeyColumnIndex >= count) {
+        throw new BadTsvLineException("No row key column:\n");
       }
 
-      return new ParsedLine(tabOffsets, lineBytes);
+      parsedLine.reset(count, lineBytes);
+      return parsedLine;
     }
     
     class ParsedLine {
-      private final ArrayList<Integer> tabOffsets;
+      private int columnCount;
       private byte[] lineBytes;
       
-      ParsedLine(ArrayList<Integer> tabOffsets, byte[] lineBytes) {
-        this.tabOffsets = tabOffsets;
+      void reset(int columnCount, byte[] lineBytes) {
+        this.columnCount = columnCount;
         this.lineBytes = lineBytes;
       }
       
@@ -155,15 +172,15 @@ public class ImportTsv {
       }
       public int getColumnOffset(int idx) {
         if (idx > 0)
-          return tabOffsets.get(idx - 1) + 1;
+          return tabOffsets[idx - 1] + 1;
         else
           return 0;
       }      
       public int getColumnLength(int idx) {
-        return tabOffsets.get(idx) - getColumnOffset(idx);
+        return tabOffsets[idx] - getColumnOffset(idx);
       }
       public int getColumnCount() {
-        return tabOffsets.size();
+        return columnCount;
       }
       public byte[] getLineBytes() {
         return lineBytes;
@@ -255,6 +272,90 @@ public class ImportTsv {
     }
   }
 
+  /**
+   * Write table content out as KeyValues for bulk output.  Rather than a Put
+   * per line, each column becomes a KeyValue map output key, built in a
+   * buffer reused across lines, and the shuffle sorts them for the HFiles.
+   * @see SortedKeyValueReducer
+   */
+  static class TsvKeyValueImporter
+  extends Mapper<LongWritable, Text, KeyValue, NullWritable>
+  {
+    /** Timestamp for all inserted rows */
+    private long ts;
+
+    /** Should skip bad lines */
+    private boolean skipBadLines;
+    private Counter badLineCount;
+
+    private TsvParser parser;
+
+    /** KeyValues are built here; the map output copies them on write */
+    private byte[] buffer = new byte[1024];
+
+    @Override
+    protected void setup(Context context) {
+      Configuration conf = context.getConfiguration();
+      parser = new TsvParser(conf.get(COLUMNS_CONF_KEY),
+                             conf.get(SEPARATOR_CONF_KEY, DEFAULT_SEPARATOR));
+      if (parser.getRowKeyColumnIndex() == -1) {
+        throw new RuntimeException("No row key column specified");
+      }
+      ts = System.currentTimeMillis();
+
+      skipBadLines = context.getConfiguration().getBoolean(
+        SKIP_LINES_CONF_KEY, true);
+      badLineCount = context.getCounter("ImportTsv", "Bad Lines");
+    }
+
+    /**
+     * Convert a line of TSV text into the KeyValues of an HBase table row.
+     */
+    @Override
+    public void map(LongWritable offset, Text value,
+      Context context)
+    throws IOException, InterruptedException {
+      byte[] lineBytes = value.getBytes();
+
+      TsvParser.ParsedLine parsed;
+      try {
+        parsed = parser.parse(lineBytes, value.getLength());
+      } catch (BadTsvLineException badLine) {
+        if (skipBadLines) {
+          System.err.println(
+              "Bad line at offset: " + offset.get() + ":\n" +
+              badLine.getMessage());
+          badLineCount.increment(1);
+          return;
+        } else {
+          throw new IOException(badLine);
+        }
+      }
+      int rowOffset = parsed.getRowKeyOffset();
+      int rowLength = parsed.getRowKeyLength();
+      for (int i = 0; i < parsed.getColumnCount(); i++) {
+        if (i == parser.getRowKeyColumnIndex()) continue;
+        byte[] family = parser.getFamily(i);
+        byte[] qualifier = parser.getQualifier(i);
+        int columnLength = parsed.getColumnLength(i);
+        long size = KeyValue.getKeyValueDataStructureSize(rowLength,
+            family.length, qualifier.length, columnLength);
+        if (size > buffer.length) {
+          buffer = new byte[(int)Math.min(Integer.MAX_VALUE,
+              Math.max(size, 2L * buffer.length))];
+        }
+        int length = KeyValue.writeByteArray(buffer, 0,
+            lineBytes, rowOffset, rowLength,
+            family, 0, family.length,
+            qualifier, 0, qualifier.length,
+            ts,
+            KeyValue.Type.Put,
+            lineBytes, parsed.getColumnOffset(i), columnLength);
+        context.write(new KeyValue(buffer, 0, length), NullWritable.get());
+      }
+    }
+  }
+
   /**
    * Sets up the actual job.
    *
@@ -271,16 +372,23 @@ public class ImportTsv {
     job.setJarByClass(TsvImporter.class);
     FileInputFormat.setInputPaths(job, inputDir);
     job.setInputFormatClass(TextInputFormat.class);
-    job.setMapperClass(TsvImporter.class);
+    boolean keyValues = false;
 
     String hfileOutPath = conf.get(BULK_OUTPUT_CONF_KEY);
     if (hfileOutPath != null) {
       HTable table = new HTable(conf, tableName);
-      job.setReducerClass(PutSortReducer.class);
       Path outputDir = new Path(hfileOutPath);
       FileOutputFormat.setOutputPath(job, outputDir);
-      job.setMapOutputKeyClass(ImmutableBytesWritable.class);
-      job.setMapOutputValueClass(Put.class);
+      if (conf.getBoolean(BULK_PUT_SORT_CONF_KEY, false)) {
+        job.setReducerClass(PutSortReducer.class);
+        job.setMapOutputKeyClass(ImmutableBytesWritable.class);
+        job.setMapOutputValueClass(Put.class);
+      } else {
+        // configureIncrementalLoad sets up the KeyValue sort and reducer
+        keyValues = true;
+        job.setMapOutputKeyClass(KeyValue.class);
+        job.setMapOutputValueClass(NullWritable.class);
+      }
       HFileOutputFormat.configureIncrementalLoad(job, table);
     } else {
       // No reducers.  Just write straight to table.  Call initTableReducerJob
@@ -288,11 +396,34 @@ public class ImportTsv {
       TableMapReduceUtil.initTableReducerJob(tableName, null, job);
       job.setNumReduceTasks(0);
     }
+
+    int threads = conf.getInt(MAP_THREADS_CONF_KEY, 1);
+    if (keyValues) {
+      setMapperClass(job, TsvKeyValueImporter.class, threads);
+    } else {
+      setMapperClass(job, TsvImporter.class, threads);
+    }
     
     TableMapReduceUtil.addDependencyJars(job);
     return job;
   }
 
+  /**
+   * Sets the mapper of the job, run on several threads of each map task
+   * through a MultithreadedMapper when <code>threads</code> is above 1.
+   */
+  private static <K, V> void setMapperClass(Job job,
+      Class<? extends Mapper<LongWritable, Text, K, V>> mapperClass,
+      int threads) {
+    if (threads > 1) {
+      job.setMapperClass(MultithreadedMapper.class);
+      MultithreadedMapper.setMapperClass(job, mapperClass);
+      MultithreadedMapper.setNumberOfThreads(job, threads);
+    } else {
+      job.setMapperClass(mapperClass);
+    }
+  }
+
   /*
    * @param errorMsg Error message.  Can be null.
    */
@@ -317,6 +448,9 @@ public class ImportTsv {
       "\n" +
       "Other options that may be specified with -D include:\n" +
       "  -D" + SKIP_LINES_CONF_KEY + "=false - fail if encountering an invalid line\n" +
+      "  -D" + MAP_THREADS_CONF_KEY + "=n - parse lines on n threads per map task\n" +
+      "  -D" + BULK_PUT_SORT_CONF_KEY + "=true - emit Puts and sort each row in the\n" +
+      "    reducer, as older versions did, instead of sorting KeyValues in the shuffle\n" +
       "  '-D" + SEPARATOR_CONF_KEY + "=|' - eg separate on pipes instead of tabs";
     System.err.println(usage);
   }
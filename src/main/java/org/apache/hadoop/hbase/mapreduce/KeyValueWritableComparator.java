@@ -0,0 +1,46 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.mapreduce;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.RawComparator;
+
+/**
+ * Sorts {@link KeyValue}s in their Writable serialized form, so a job can use
+ * KeyValues as map output keys and have the shuffle put them in the order
+ * HFiles need without deserializing them.
+ * @see SortedKeyValueReducer
+ */
+public class KeyValueWritableComparator implements RawComparator<KeyValue> {
+  // Writable length prefix, then the key and value lengths.
+  private static final int KEY_OFFSET = 3 * Bytes.SIZEOF_INT;
+
+  public int compare(byte [] b1, int s1, int l1, byte [] b2, int s2, int l2) {
+    int klength1 = Bytes.toInt(b1, s1 + Bytes.SIZEOF_INT);
+    int klength2 = Bytes.toInt(b2, s2 + Bytes.SIZEOF_INT);
+    return KeyValue.KEY_COMPARATOR.compare(b1, s1 + KEY_OFFSET, klength1,
+      b2, s2 + KEY_OFFSET, klength2);
+  }
+
+  public int compare(KeyValue left, KeyValue right) {
+    return KeyValue.COMPARATOR.compare(left, right);
+  }
+}
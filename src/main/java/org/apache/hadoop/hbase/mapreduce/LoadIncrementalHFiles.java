@@ -21,9 +21,22 @@ package org.apache.hadoop.hbase.mapreduce;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -34,7 +47,9 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.FileUtil;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.TableNotFoundException;
 import org.apache.hadoop.hbase.client.HConnection;
@@ -49,9 +64,13 @@ import org.apache.hadoop.hbase.io.hfile.Compression.Algorithm;
 import org.apache.hadoop.hbase.regionserver.StoreFile;
 import org.apache.hadoop.hbase.regionserver.StoreFile.BloomType;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.hadoop.util.StringUtils;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Tool to load the output of HFileOutputFormat into an existing table.
  * @see usage()
@@ -62,6 +81,15 @@ public class LoadIncrementalHFiles extends Configured implements Tool {
 
   public static String NAME = "completebulkload";
 
+  /** Threads used to split and load files */
+  public static final String THREADS_KEY = "hbase.loadincremental.threads.max";
+  /** Rounds of splitting and loading before giving up */
+  public static final String MAX_ROUNDS_KEY =
+    "hbase.loadincremental.max.rounds";
+  static final int DEFAULT_MAX_ROUNDS = 10;
+  // How often to log progress, in milliseconds
+  private static final long PROGRESS_INTERVAL = 10 * 1000;
+
   public LoadIncrementalHFiles(Configuration conf) {
     super(conf);
   }
@@ -88,6 +116,10 @@ public class LoadIncrementalHFiles extends Configured implements Tool {
   private static class LoadQueueItem {
     final byte[] family;
     final Path hfilePath;
+    // Set once the file has been opened to find where it goes.
+    byte[] first;
+    byte[] last;
+    long length;
 
     public LoadQueueItem(byte[] family, Path hfilePath) {
       this.family = family;
@@ -135,15 +167,22 @@ public class LoadIncrementalHFiles extends Configured implements Tool {
   /**
    * Perform a bulk load of the given directory into the given
    * pre-existing table.
+   * <p>
+   * Files are loaded in rounds.  Each round looks up the table's regions,
+   * splits files that cross region boundaries and groups the files by the
+   * region they fall in, then loads the regions' groups.  Both are done
+   * by up to <code>hbase.loadincremental.threads.max</code> threads.  Files
+   * whose region has split since it was looked up go around again, for up
+   * to <code>hbase.loadincremental.max.rounds</code> rounds.
    * @param hfofDir the directory that was provided as the output path
    * of a job using HFileOutputFormat
    * @param table the table to load into
    * @throws TableNotFoundException if table does not yet exist
    */
-  public void doBulkLoad(Path hfofDir, HTable table)
+  public void doBulkLoad(Path hfofDir, final HTable table)
     throws TableNotFoundException, IOException
   {
-    HConnection conn = table.getConnection();
+    final HConnection conn = table.getConnection();
 
     if (!conn.isTableAvailable(table.getTableName())) {
       throw new TableNotFoundException("Table " +
@@ -151,14 +190,37 @@ public class LoadIncrementalHFiles extends Configured implements Tool {
           "is not currently available.");
     }
 
+    int nrThreads = getConf().getInt(THREADS_KEY,
+      Runtime.getRuntime().availableProcessors());
+    int maxRounds = getConf().getInt(MAX_ROUNDS_KEY, DEFAULT_MAX_ROUNDS);
+    ExecutorService pool = new ThreadPoolExecutor(nrThreads, nrThreads,
+      60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+      new ThreadFactoryBuilder().setDaemon(true).
+        setNameFormat("LoadIncrementalHFiles-%1$d").build());
+    Progress progress = new Progress();
     Deque<LoadQueueItem> queue = null;
     try {
       queue = discoverLoadQueue(hfofDir);
+      int round = 0;
       while (!queue.isEmpty()) {
-        LoadQueueItem item = queue.remove();
-        tryLoad(item, conn, table.getTableName(), queue);
+        if (++round > maxRounds) {
+          throw new IOException("Gave up after " + maxRounds + " rounds; " +
+            "regions kept splitting under " + queue.size() + " files");
+        }
+        LOG.info("Round " + round + ": " + queue.size() + " files to load");
+        Pair<byte[][], byte[][]> startEndKeys = table.getStartEndKeys();
+        Map<byte[], List<LoadQueueItem>> regionGroups =
+          groupOrSplitPhase(table, pool, queue, startEndKeys);
+        List<LoadQueueItem> retry =
+          bulkLoadPhase(conn, table.getTableName(), pool, regionGroups,
+            progress);
+        // Anything not loaded and not to be retried was empty.
+        queue.clear();
+        queue.addAll(retry);
       }
+      progress.log();
     } finally {
+      pool.shutdownNow();
       if (queue != null && !queue.isEmpty()) {
         StringBuilder err = new StringBuilder();
         err.append("-------------------------------------------------\n");
@@ -172,71 +234,232 @@ public class LoadIncrementalHFiles extends Configured implements Tool {
     }
   }
 
-  /**
-   * Attempt to load the given load queue item into its target region server.
-   * If the hfile boundary no longer fits into a region, physically splits
-   * the hfile such that the new bottom half will fit, and adds the two
-   * resultant hfiles back into the load queue.
+  /*
+   * Open each queued file, in parallel, and split those that cross a region
+   * boundary until every piece falls in one region.  Empty files are
+   * dropped.  On return the queue holds the files to load, split pieces in
+   * place of the files they came from.
+   * @return Files to load keyed by the start key of their region.
+   */
+  private Map<byte[], List<LoadQueueItem>> groupOrSplitPhase(
+      final HTable table, final ExecutorService pool,
+      final Deque<LoadQueueItem> queue,
+      final Pair<byte[][], byte[][]> startEndKeys)
+  throws IOException {
+    final HTableDescriptor htd = table.getTableDescriptor();
+    Map<byte[], List<LoadQueueItem>> regionGroups =
+      new TreeMap<byte[], List<LoadQueueItem>>(Bytes.BYTES_COMPARATOR);
+    List<LoadQueueItem> toLoad = new ArrayList<LoadQueueItem>();
+    List<LoadQueueItem> pending = new ArrayList<LoadQueueItem>(queue);
+    while (!pending.isEmpty()) {
+      List<Future<List<LoadQueueItem>>> futures =
+        new ArrayList<Future<List<LoadQueueItem>>>(pending.size());
+      for (final LoadQueueItem item: pending) {
+        futures.add(pool.submit(new Callable<List<LoadQueueItem>>() {
+          public List<LoadQueueItem> call() throws IOException {
+            return groupOrSplit(item, htd, startEndKeys);
+          }
+        }));
+      }
+      List<LoadQueueItem> split = new ArrayList<LoadQueueItem>();
+      for (int i = 0; i < pending.size(); i++) {
+        LoadQueueItem item = pending.get(i);
+        List<LoadQueueItem> halves = get(futures.get(i));
+        if (halves != null) {
+          split.addAll(halves);
+        } else if (item.first != null) {
+          toLoad.add(item);
+          byte[] regionStart =
+            startEndKeys.getFirst()[getRegionIndex(startEndKeys, item.first)];
+          List<LoadQueueItem> group = regionGroups.get(regionStart);
+          if (group == null) {
+            group = new ArrayList<LoadQueueItem>();
+            regionGroups.put(regionStart, group);
+          }
+          group.add(item);
+        }
+      }
+      // Keep the queue current for the error report should we fail.
+      queue.clear();
+      queue.addAll(toLoad);
+      queue.addAll(split);
+      pending = split;
+    }
+    return regionGroups;
+  }
+
+  /*
+   * @return Index of the region <code>row</code> falls in.
+   */
+  private static int getRegionIndex(final Pair<byte[][], byte[][]> startEndKeys,
+      final byte[] row) {
+    int idx = Arrays.binarySearch(startEndKeys.getFirst(), row,
+      Bytes.BYTES_COMPARATOR);
+    // On a miss, the region before the insertion point.  The first region
+    // has an empty start key so there always is one.
+    return idx < 0? -(idx + 1) - 1: idx;
+  }
+
+  /*
+   * Find where a file goes, splitting it at the end of the region its first
+   * row falls in if it does not fit.
+   * @return The two halves if split, else null.
    */
-  private void tryLoad(final LoadQueueItem item,
-      HConnection conn, final byte[] table,
-      final Deque<LoadQueueItem> queue)
+  private List<LoadQueueItem> groupOrSplit(final LoadQueueItem item,
+      final HTableDescriptor htd, final Pair<byte[][], byte[][]> startEndKeys)
   throws IOException {
     final Path hfilePath = item.hfilePath;
     final FileSystem fs = hfilePath.getFileSystem(getConf());
     HFile.Reader hfr = new HFile.Reader(fs, hfilePath, null, false);
-    final byte[] first, last;
     try {
       hfr.loadFileInfo();
-      first = hfr.getFirstRowKey();
-      last = hfr.getLastRowKey();
+      item.first = hfr.getFirstRowKey();
+      item.last = hfr.getLastRowKey();
     }  finally {
       hfr.close();
     }
-
-    LOG.info("Trying to load hfile=" + hfilePath +
-        " first=" + Bytes.toStringBinary(first) +
-        " last="  + Bytes.toStringBinary(last));
-    if (first == null || last == null) {
-      assert first == null && last == null;
+    if (item.first == null || item.last == null) {
+      assert item.first == null && item.last == null;
       LOG.info("hfile " + hfilePath + " has no entries, skipping");
-      return;
+      item.first = item.last = null;
+      return null;
+    }
+    item.length = fs.getFileStatus(hfilePath).getLen();
+
+    int idx = getRegionIndex(startEndKeys, item.first);
+    byte[] endKey = startEndKeys.getSecond()[idx];
+    if (Bytes.equals(endKey, HConstants.EMPTY_END_ROW) ||
+        Bytes.compareTo(item.last, endKey) < 0) {
+      return null;
     }
 
+    LOG.info("HFile at " + hfilePath + " does not fit inside a single " +
+        "region. Splitting at " + Bytes.toStringBinary(endKey));
     // We use a '_' prefix which is ignored when walking directory trees
     // above.
-    final Path tmpDir = new Path(item.hfilePath.getParent(), "_tmp");
+    Path tmpDir = new Path(hfilePath.getParent(), "_tmp");
+    Path botOut = new Path(tmpDir, hfilePath.getName() + ".bottom");
+    Path topOut = new Path(tmpDir, hfilePath.getName() + ".top");
+    HColumnDescriptor familyDesc = htd.getFamily(item.family);
+    splitStoreFile(getConf(), hfilePath, familyDesc, endKey, botOut, topOut);
+    LOG.info("Successfully split into new HFiles " + botOut + " and " + topOut);
+    List<LoadQueueItem> halves = new ArrayList<LoadQueueItem>(2);
+    halves.add(new LoadQueueItem(item.family, botOut));
+    halves.add(new LoadQueueItem(item.family, topOut));
+    return halves;
+  }
+
+  /*
+   * Load each region's group of files, the groups in parallel.
+   * @return Files to try again because their region split.
+   */
+  private List<LoadQueueItem> bulkLoadPhase(final HConnection conn,
+      final byte[] table, final ExecutorService pool,
+      final Map<byte[], List<LoadQueueItem>> regionGroups,
+      final Progress progress)
+  throws IOException {
+    List<Future<List<LoadQueueItem>>> futures =
+      new ArrayList<Future<List<LoadQueueItem>>>(regionGroups.size());
+    for (final List<LoadQueueItem> group: regionGroups.values()) {
+      futures.add(pool.submit(new Callable<List<LoadQueueItem>>() {
+        public List<LoadQueueItem> call() throws IOException {
+          return tryLoad(group, conn, table, progress);
+        }
+      }));
+    }
+    List<LoadQueueItem> retry = new ArrayList<LoadQueueItem>();
+    IOException failure = null;
+    for (Future<List<LoadQueueItem>> future: futures) {
+      try {
+        retry.addAll(get(future));
+      } catch (IOException e) {
+        // Let the other regions finish before giving up.
+        if (failure == null) failure = e;
+      }
+    }
+    if (failure != null) throw failure;
+    return retry;
+  }
 
+  /**
+   * Attempt to load the given group of files, all in one region, into the
+   * region server hosting it.  Files that no longer fit in the region
+   * because it split are not loaded.
+   * @return Files not loaded
+   */
+  private List<LoadQueueItem> tryLoad(final List<LoadQueueItem> group,
+      HConnection conn, final byte[] table, final Progress progress)
+  throws IOException {
+    // Files are taken off as loaded so a retried call skips them.
+    final List<LoadQueueItem> toLoad = new LinkedList<LoadQueueItem>(group);
+    final List<LoadQueueItem> retry = new ArrayList<LoadQueueItem>();
     conn.getRegionServerWithRetries(
-      new ServerCallable<Void>(conn, table, first) {
+      new ServerCallable<Void>(conn, table, group.get(0).first) {
         @Override
         public Void call() throws Exception {
           LOG.debug("Going to connect to server " + location +
               "for row " + Bytes.toStringBinary(row));
           HRegionInfo hri = location.getRegionInfo();
-          if (!hri.containsRange(first, last)) {
-            LOG.info("HFile at " + hfilePath + " no longer fits inside a single " +
-                "region. Splitting...");
-
-            HColumnDescriptor familyDesc = hri.getTableDesc().getFamily(item.family);
-            Path botOut = new Path(tmpDir, hri.getEncodedName() + ".bottom");
-            Path topOut = new Path(tmpDir, hri.getEncodedName() + ".top");
-            splitStoreFile(getConf(), hfilePath, familyDesc, hri.getEndKey(),
-                botOut, topOut);
-
-            // Add these back at the *front* of the queue, so there's a lower
-            // chance that the region will just split again before we get there.
-            queue.addFirst(new LoadQueueItem(item.family, botOut));
-            queue.addFirst(new LoadQueueItem(item.family, topOut));
-            LOG.info("Successfully split into new HFiles " + botOut + " and " + topOut);
-            return null;
+          byte[] regionName = hri.getRegionName();
+          for (Iterator<LoadQueueItem> i = toLoad.iterator(); i.hasNext();) {
+            LoadQueueItem item = i.next();
+            if (!hri.containsRange(item.first, item.last)) {
+              LOG.info("HFile at " + item.hfilePath + " no longer fits " +
+                "inside a single region. Will split it next round.");
+              retry.add(item);
+            } else {
+              server.bulkLoadHFile(item.hfilePath.toString(), regionName,
+                item.family);
+              progress.loaded(item);
+            }
+            i.remove();
           }
-
-          byte[] regionName = location.getRegionInfo().getRegionName();
-          server.bulkLoadHFile(hfilePath.toString(), regionName, item.family);
           return null;
         }
       });
+    return retry;
+  }
+
+  private static <T> T get(final Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException("Interrupted waiting on " + future);
+    } catch (ExecutionException e) {
+      Throwable t = e.getCause();
+      if (t instanceof IOException) throw (IOException)t;
+      IOException ioe = new IOException("Failed bulk load step");
+      ioe.initCause(t);
+      throw ioe;
+    }
+  }
+
+  /*
+   * Counts what has been loaded and reports it now and then.
+   */
+  private static class Progress {
+    private final long start = System.currentTimeMillis();
+    private long files = 0;
+    private long bytes = 0;
+    private long lastLogged = start;
+
+    synchronized void loaded(final LoadQueueItem item) {
+      this.files++;
+      this.bytes += item.length;
+      long now = System.currentTimeMillis();
+      if (now - this.lastLogged >= PROGRESS_INTERVAL) {
+        this.lastLogged = now;
+        log();
+      }
+    }
+
+    synchronized void log() {
+      long elapsed = Math.max(System.currentTimeMillis() - this.start, 1);
+      LOG.info("Loaded " + this.files + " files, " +
+        StringUtils.humanReadableInt(this.bytes) + " in " +
+        StringUtils.formatTimeDiff(this.start + elapsed, this.start) + " (" +
+        StringUtils.humanReadableInt(this.bytes * 1000 / elapsed) + "/sec)");
+    }
   }
 
   /**
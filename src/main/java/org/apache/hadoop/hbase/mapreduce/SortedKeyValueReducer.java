@@ -0,0 +1,48 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.mapreduce;
+
+import java.io.IOException;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+/**
+ * Emits KeyValues that arrive as map output keys, already sorted by
+ * {@link KeyValueWritableComparator}.  Unlike {@link KeyValueSortReducer} and
+ * {@link PutSortReducer} it holds nothing in memory, so rows of any width
+ * stream straight through to {@link HFileOutputFormat}.  Identical KeyValues
+ * are grouped into one call and written once.
+ * @see HFileOutputFormat
+ */
+public class SortedKeyValueReducer
+extends Reducer<KeyValue, NullWritable, ImmutableBytesWritable, KeyValue> {
+  private final ImmutableBytesWritable row = new ImmutableBytesWritable();
+
+  @Override
+  protected void reduce(KeyValue kv, Iterable<NullWritable> ignored,
+      Context context)
+  throws IOException, InterruptedException {
+    this.row.set(kv.getBuffer(), kv.getRowOffset(), kv.getRowLength());
+    context.write(this.row, kv);
+  }
+}
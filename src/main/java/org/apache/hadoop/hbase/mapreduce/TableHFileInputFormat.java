@@ -0,0 +1,467 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.mapreduce;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.regionserver.StoreFileRegionScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.FSUtils;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+/**
+ * Reads a table by opening its store files directly on HDFS rather than
+ * scanning through the regionservers.  Full table jobs then run at
+ * filesystem speed and stay off the regionservers' handlers and block cache.
+ * Keys and values are the same as {@link TableInputFormat}'s, so any
+ * {@link TableMapper} works unchanged.
+ * <p>
+ * There is one split per region.  The mapper merges the region's store files
+ * the way the region itself would, so deletes, versions and time to live are
+ * honored, but edits still in a memstore are not seen.  Use
+ * {@link #initTableMapperJob(String, Scan, Class, Class, Class, Job)} to set up
+ * the job: it flushes the table and pins its store files so compactions do
+ * not remove them while the job runs.  Call {@link #releasePin(Configuration)}
+ * once the job is done; a pin that is never released expires after
+ * {@link #PIN_TTL} milliseconds.  Compactions already running when the pin is
+ * taken can still remove files; such a job fails and should be rerun.
+ */
+public class TableHFileInputFormat
+extends InputFormat<ImmutableBytesWritable, Result>
+implements Configurable {
+  static final Log LOG = LogFactory.getLog(TableHFileInputFormat.class);
+
+  /** Job parameter holding the compaction pin taken for the job. */
+  public static final String PIN = "hbase.mapreduce.hfile.pin";
+  /** Milliseconds before the job's compaction pin expires. */
+  public static final String PIN_TTL = "hbase.mapreduce.hfile.pin.ttl";
+  static final long DEFAULT_PIN_TTL = 24 * 60 * 60 * 1000L;
+
+  /** Hosts reported for each split, by most bytes stored locally. */
+  private static final int MAX_LOCATIONS = 3;
+
+  private Configuration conf = null;
+
+  /**
+   * Use this before submitting a job that reads a table from its store files.
+   * Sets the job up as {@link TableMapReduceUtil#initTableMapperJob(String,
+   * Scan, Class, Class, Class, Job)} does, then flushes and pins the table.
+   *
+   * @param table  The table name to read from.
+   * @param scan  The scan instance with the columns, time range etc.
+   * @param mapper  The mapper class to use.
+   * @param outputKeyClass  The class of the output key.
+   * @param outputValueClass  The class of the output value.
+   * @param job  The current job to adjust.
+   * @throws IOException When setting up the details fails.
+   */
+  public static void initTableMapperJob(String table, Scan scan,
+      Class<? extends TableMapper<?, ?>> mapper,
+      Class<? extends WritableComparable<?>> outputKeyClass,
+      Class<? extends Writable> outputValueClass, Job job) throws IOException {
+    TableMapReduceUtil.initTableMapperJob(table, scan, mapper, outputKeyClass,
+      outputValueClass, job);
+    job.setInputFormatClass(TableHFileInputFormat.class);
+    flushAndPin(job.getConfiguration(), table);
+  }
+
+  /**
+   * Pins the table's store files against compaction, then flushes the table
+   * so everything written so far is in a store file.  The pin is recorded in
+   * <code>conf</code> under {@link #PIN}.
+   *
+   * @param conf  The job configuration.
+   * @param table  The table to pin.
+   * @return The pin.
+   * @throws IOException When the pin or the flush fails.
+   */
+  public static Path flushAndPin(Configuration conf, String table)
+  throws IOException {
+    Configuration hconf = HBaseConfiguration.create(conf);
+    Path rootDir = FSUtils.getRootDir(hconf);
+    FileSystem fs = rootDir.getFileSystem(hconf);
+    // Pin first so the compactions the flush may trigger are held off too.
+    Path pin = FSUtils.createCompactionPin(fs,
+      HTableDescriptor.getTableDir(rootDir, Bytes.toBytes(table)),
+      conf.getLong(PIN_TTL, DEFAULT_PIN_TTL));
+    boolean flushed = false;
+    try {
+      new HBaseAdmin(hconf).flush(table);
+      flushed = true;
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException("Interrupted flushing " + table);
+    } finally {
+      if (!flushed) {
+        FSUtils.releaseCompactionPin(fs, pin);
+      }
+    }
+    LOG.info("Flushed " + table + " and pinned its store files with " + pin);
+    conf.set(PIN, pin.toString());
+    return pin;
+  }
+
+  /**
+   * Releases the pin taken by {@link #flushAndPin(Configuration, String)},
+   * letting the table compact again.  Does nothing if no pin was taken.
+   *
+   * @param conf  The job configuration.
+   * @throws IOException When removing the pin fails.
+   */
+  public static void releasePin(Configuration conf) throws IOException {
+    String pin = conf.get(PIN);
+    if (pin == null) {
+      return;
+    }
+    Path p = new Path(pin);
+    FSUtils.releaseCompactionPin(p.getFileSystem(conf), p);
+    LOG.info("Released " + p);
+  }
+
+  @Override
+  public Configuration getConf() {
+    return this.conf;
+  }
+
+  @Override
+  public void setConf(Configuration configuration) {
+    this.conf = configuration;
+  }
+
+  private static Scan getScan(final Configuration conf) throws IOException {
+    String s = conf.get(TableInputFormat.SCAN);
+    return s == null ? new Scan() : TableMapReduceUtil.convertStringToScan(s);
+  }
+
+  /**
+   * Lists the store files of every region the scan touches.
+   *
+   * @param context  The current job context.
+   * @return One split per region that has store files.
+   * @throws IOException When listing the regions or their files fails.
+   */
+  @Override
+  public List<InputSplit> getSplits(JobContext context) throws IOException {
+    Configuration conf = HBaseConfiguration.create(context.getConfiguration());
+    String tableName = conf.get(TableInputFormat.INPUT_TABLE);
+    if (tableName == null) {
+      throw new IOException("No table was provided.");
+    }
+    if (conf.get(PIN) == null) {
+      LOG.warn("No compaction pin taken for " + tableName + "; store files " +
+        "may be compacted away while the job runs");
+    }
+    Scan scan = getScan(conf);
+    byte [] startRow = scan.getStartRow();
+    byte [] stopRow = scan.getStopRow();
+    Path rootDir = FSUtils.getRootDir(conf);
+    FileSystem fs = rootDir.getFileSystem(conf);
+    Path tableDir = HTableDescriptor.getTableDir(rootDir,
+      Bytes.toBytes(tableName));
+
+    HTable table = new HTable(conf, tableName);
+    List<HRegionInfo> regions =
+      new ArrayList<HRegionInfo>(table.getRegionsInfo().keySet());
+    Collections.sort(regions);
+    List<InputSplit> splits = new ArrayList<InputSplit>(regions.size());
+    for (HRegionInfo hri : regions) {
+      byte [] startKey = hri.getStartKey();
+      byte [] endKey = hri.getEndKey();
+      if ((startRow.length != 0 && endKey.length != 0 &&
+            Bytes.compareTo(startRow, endKey) >= 0) ||
+          (stopRow.length != 0 && Bytes.compareTo(stopRow, startKey) <= 0)) {
+        continue;
+      }
+      List<Path> files = new ArrayList<Path>();
+      for (byte [] family : scan.hasFamilies() ? scan.getFamilies() :
+          hri.getTableDesc().getFamiliesKeys().toArray(new byte[0][])) {
+        files.addAll(StoreFileRegionScanner.listStoreFiles(fs, tableDir, hri,
+          family));
+      }
+      if (files.isEmpty()) {
+        continue;
+      }
+      byte [] splitStart = startRow.length == 0 ||
+        Bytes.compareTo(startKey, startRow) >= 0 ? startKey : startRow;
+      byte [] splitStop = (stopRow.length == 0 ||
+        Bytes.compareTo(endKey, stopRow) <= 0) && endKey.length > 0 ?
+          endKey : stopRow;
+      splits.add(createSplit(fs, hri, splitStart, splitStop, files));
+    }
+    LOG.info("Reading " + splits.size() + " of " + regions.size() +
+      " regions of " + tableName + " from their store files");
+    return splits;
+  }
+
+  /*
+   * Sizes the split and finds the hosts holding most of its files.
+   */
+  private static RegionSplit createSplit(final FileSystem fs,
+      final HRegionInfo hri, final byte [] startRow, final byte [] endRow,
+      final List<Path> files)
+  throws IOException {
+    long length = 0;
+    final Map<String, Long> hostBytes = new HashMap<String, Long>();
+    String [] paths = new String[files.size()];
+    for (int i = 0; i < paths.length; i++) {
+      Path p = files.get(i);
+      paths[i] = p.toString();
+      FileStatus status = fs.getFileStatus(p);
+      length += status.getLen();
+      BlockLocation [] blocks =
+        fs.getFileBlockLocations(status, 0, status.getLen());
+      for (int j = 0; blocks != null && j < blocks.length; j++) {
+        for (String host : blocks[j].getHosts()) {
+          Long sofar = hostBytes.get(host);
+          hostBytes.put(host, Long.valueOf(
+            (sofar == null ? 0 : sofar.longValue()) + blocks[j].getLength()));
+        }
+      }
+    }
+    List<String> hosts = new ArrayList<String>(hostBytes.keySet());
+    Collections.sort(hosts, new Comparator<String>() {
+      public int compare(String a, String b) {
+        return hostBytes.get(b).compareTo(hostBytes.get(a));
+      }
+    });
+    if (hosts.size() > MAX_LOCATIONS) {
+      hosts = hosts.subList(0, MAX_LOCATIONS);
+    }
+    return new RegionSplit(hri, startRow, endRow, paths, length,
+      hosts.toArray(new String[hosts.size()]));
+  }
+
+  @Override
+  public RecordReader<ImmutableBytesWritable, Result> createRecordReader(
+      InputSplit split, TaskAttemptContext context) {
+    return new RegionRecordReader();
+  }
+
+  /**
+   * The store files of one region, along with the part of the region the
+   * scan covers.
+   */
+  public static class RegionSplit extends InputSplit implements Writable {
+    private HRegionInfo regionInfo;
+    private byte [] startRow;
+    private byte [] endRow;
+    private String [] files;
+    private long length;
+    // Only used for scheduling, so not serialized.
+    private String [] locations;
+
+    /** Default constructor. */
+    public RegionSplit() {
+      this(new HRegionInfo(), HConstants.EMPTY_BYTE_ARRAY,
+        HConstants.EMPTY_BYTE_ARRAY, new String[0], 0, new String[0]);
+    }
+
+    /**
+     * @param regionInfo  The region the files belong to.
+     * @param startRow  The start row of the split.
+     * @param endRow  The end row of the split.
+     * @param files  Paths of the region's store files.
+     * @param length  Total size of the store files.
+     * @param locations  Hosts holding most of the store files.
+     */
+    public RegionSplit(HRegionInfo regionInfo, byte [] startRow,
+        byte [] endRow, String [] files, long length, String [] locations) {
+      this.regionInfo = regionInfo;
+      this.startRow = startRow;
+      this.endRow = endRow;
+      this.files = files;
+      this.length = length;
+      this.locations = locations;
+    }
+
+    public HRegionInfo getRegionInfo() {
+      return regionInfo;
+    }
+
+    public byte [] getStartRow() {
+      return startRow;
+    }
+
+    public byte [] getEndRow() {
+      return endRow;
+    }
+
+    public String [] getFiles() {
+      return files;
+    }
+
+    @Override
+    public long getLength() {
+      return length;
+    }
+
+    @Override
+    public String [] getLocations() {
+      return locations;
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+      regionInfo = new HRegionInfo();
+      regionInfo.readFields(in);
+      startRow = Bytes.readByteArray(in);
+      endRow = Bytes.readByteArray(in);
+      files = new String[WritableUtils.readVInt(in)];
+      for (int i = 0; i < files.length; i++) {
+        files[i] = Text.readString(in);
+      }
+      length = WritableUtils.readVLong(in);
+      locations = new String[0];
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+      regionInfo.write(out);
+      Bytes.writeByteArray(out, startRow);
+      Bytes.writeByteArray(out, endRow);
+      WritableUtils.writeVInt(out, files.length);
+      for (String file : files) {
+        Text.writeString(out, file);
+      }
+      WritableUtils.writeVLong(out, length);
+    }
+
+    @Override
+    public String toString() {
+      return regionInfo.getRegionNameAsString() + ":" +
+        Bytes.toStringBinary(startRow) + "," + Bytes.toStringBinary(endRow) +
+        " (" + files.length + " files)";
+    }
+  }
+
+  /**
+   * Iterates over the rows of a {@link RegionSplit}.
+   */
+  static class RegionRecordReader
+  extends RecordReader<ImmutableBytesWritable, Result> {
+    private StoreFileRegionScanner scanner = null;
+    private final List<KeyValue> kvs = new ArrayList<KeyValue>();
+    private boolean more = true;
+    private ImmutableBytesWritable key = null;
+    private Result value = null;
+
+    @Override
+    public void initialize(InputSplit split, TaskAttemptContext context)
+    throws IOException {
+      Configuration conf = context.getConfiguration();
+      RegionSplit rs = (RegionSplit)split;
+      Scan scan = new Scan(getScan(conf));
+      scan.setStartRow(rs.getStartRow());
+      scan.setStopRow(rs.getEndRow());
+      Map<byte [], List<Path>> files =
+        new TreeMap<byte [], List<Path>>(Bytes.BYTES_COMPARATOR);
+      FileSystem fs = null;
+      for (String file : rs.getFiles()) {
+        Path p = new Path(file);
+        if (fs == null) {
+          fs = p.getFileSystem(conf);
+        }
+        // Store files live in <region>/<family>/<file>.
+        byte [] family = Bytes.toBytes(p.getParent().getName());
+        List<Path> familyFiles = files.get(family);
+        if (familyFiles == null) {
+          familyFiles = new ArrayList<Path>();
+          files.put(family, familyFiles);
+        }
+        familyFiles.add(p);
+      }
+      this.scanner = new StoreFileRegionScanner(conf, fs, rs.getRegionInfo(),
+        files, scan);
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException {
+      while (more) {
+        kvs.clear();
+        more = scanner.next(kvs);
+        if (!kvs.isEmpty()) {
+          value = new Result(kvs);
+          key = new ImmutableBytesWritable(value.getRow());
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public ImmutableBytesWritable getCurrentKey() {
+      return key;
+    }
+
+    @Override
+    public Result getCurrentValue() {
+      return value;
+    }
+
+    @Override
+    public float getProgress() {
+      return more ? 0 : 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (scanner != null) {
+        scanner.close();
+        scanner = null;
+      }
+    }
+  }
+}
@@ -22,16 +22,27 @@ package org.apache.hadoop.hbase.mapreduce;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HServerAddress;
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.io.hfile.HFile;
+import org.apache.hadoop.hbase.regionserver.HRegion;
 import org.apache.hadoop.hbase.util.Bytes;
-import org.apache.hadoop.hbase.util.Pair;
+import org.apache.hadoop.hbase.util.FSUtils;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.JobContext;
@@ -72,6 +83,14 @@ extends InputFormat<ImmutableBytesWritable, Result> {
 
   final Log LOG = LogFactory.getLog(TableInputFormatBase.class);
 
+  /** Bytes of store files above which a region gets more than one split. */
+  public static final String SPLIT_MAXSIZE = "hbase.mapreduce.split.maxsize";
+  /** Bytes of store files below which adjacent regions on the same server
+   * share a split. */
+  public static final String SPLIT_MINSIZE = "hbase.mapreduce.split.minsize";
+  // Bound on the splits of any one region.
+  private static final int MAX_SPLITS_PER_REGION = 1024;
+
   /** Holds the details for the internal scanner. */
   private Scan scan = null;
   /** The table to scan. */
@@ -112,8 +131,15 @@ extends InputFormat<ImmutableBytesWritable, Result> {
   }
 
   /**
-   * Calculates the splits that will serve as input for the map tasks. The
-   * number of splits matches the number of regions in a table.
+   * Calculates the splits that will serve as input for the map tasks. By
+   * default the number of splits matches the number of regions in a table.
+   * <p>
+   * If {@link #SPLIT_MAXSIZE} is set, regions whose store files add up to
+   * more bytes are cut into about that many bytes' worth of splits at keys
+   * taken from the block index of the region's largest store file.  If
+   * {@link #SPLIT_MINSIZE} is set, adjacent regions on the same server
+   * whose store files add up to less are put in one split.  Either way all
+   * region locations come from a single scan of .META.
    *
    * @param context  The current job context.
    * @return The list of input splits.
@@ -126,43 +152,162 @@ extends InputFormat<ImmutableBytesWritable, Result> {
 	if (table == null) {
 	    throw new IOException("No table was provided.");
 	}
-    Pair<byte[][], byte[][]> keys = table.getStartEndKeys();
-    if (keys == null || keys.getFirst() == null ||
-        keys.getFirst().length == 0) {
+    Map<HRegionInfo, HServerAddress> regions = table.getRegionsInfo();
+    if (regions == null || regions.isEmpty()) {
       throw new IOException("Expecting at least one region.");
     }
-    int count = 0;
-    List<InputSplit> splits = new ArrayList<InputSplit>(keys.getFirst().length);
-    for (int i = 0; i < keys.getFirst().length; i++) {
-      if ( !includeRegionInSplit(keys.getFirst()[i], keys.getSecond()[i])) {
+    Configuration conf = context.getConfiguration();
+    long maxSize = conf.getLong(SPLIT_MAXSIZE, 0);
+    long minSize = conf.getLong(SPLIT_MINSIZE, 0);
+    FileSystem fs = null;
+    Path rootDir = null;
+    if (maxSize > 0 || minSize > 0) {
+      rootDir = FSUtils.getRootDir(table.getConfiguration());
+      fs = rootDir.getFileSystem(table.getConfiguration());
+    }
+    byte[] startRow = getScan().getStartRow();
+    byte[] stopRow = getScan().getStopRow();
+    List<InputSplit> splits = new ArrayList<InputSplit>(regions.size());
+    // Small regions waiting to be combined with the next.
+    TableSplit pending = null;
+    long pendingSize = 0;
+    for (Map.Entry<HRegionInfo, HServerAddress> e: regions.entrySet()) {
+      HRegionInfo hri = e.getKey();
+      byte[] startKey = hri.getStartKey();
+      byte[] endKey = hri.getEndKey();
+      if ( !includeRegionInSplit(startKey, endKey)) {
         continue;
       }
-      String regionLocation = table.getRegionLocation(keys.getFirst()[i]).
-        getServerAddress().getHostname();
-      byte[] startRow = scan.getStartRow();
-      byte[] stopRow = scan.getStopRow();
       // determine if the given start an stop key fall into the region
-      if ((startRow.length == 0 || keys.getSecond()[i].length == 0 ||
-           Bytes.compareTo(startRow, keys.getSecond()[i]) < 0) &&
-          (stopRow.length == 0 ||
-           Bytes.compareTo(stopRow, keys.getFirst()[i]) > 0)) {
-        byte[] splitStart = startRow.length == 0 ||
-          Bytes.compareTo(keys.getFirst()[i], startRow) >= 0 ?
-            keys.getFirst()[i] : startRow;
-        byte[] splitStop = (stopRow.length == 0 ||
-          Bytes.compareTo(keys.getSecond()[i], stopRow) <= 0) &&
-          keys.getSecond()[i].length > 0 ?
-            keys.getSecond()[i] : stopRow;
-        InputSplit split = new TableSplit(table.getTableName(),
-          splitStart, splitStop, regionLocation);
-        splits.add(split);
-        if (LOG.isDebugEnabled())
-          LOG.debug("getSplits: split -> " + (count++) + " -> " + split);
+      if (!((startRow.length == 0 || endKey.length == 0 ||
+             Bytes.compareTo(startRow, endKey) < 0) &&
+            (stopRow.length == 0 ||
+             Bytes.compareTo(stopRow, startKey) > 0))) {
+        continue;
       }
+      byte[] splitStart = startRow.length == 0 ||
+        Bytes.compareTo(startKey, startRow) >= 0 ?
+          startKey : startRow;
+      byte[] splitStop = (stopRow.length == 0 ||
+        Bytes.compareTo(endKey, stopRow) <= 0) &&
+        endKey.length > 0 ?
+          endKey : stopRow;
+      HServerAddress server = e.getValue();
+      // Unassigned regions are listed with an empty address.
+      String regionLocation = server.getInetSocketAddress() == null?
+        "": server.getHostname();
+      long size = fs == null? -1: getRegionSize(fs, rootDir, hri);
+      TableSplit split = new TableSplit(table.getTableName(),
+        splitStart, splitStop, regionLocation);
+
+      if (minSize > 0 && size >= 0 && size < minSize) {
+        if (pending != null && regionLocation.length() > 0 &&
+            regionLocation.equals(pending.getRegionLocation()) &&
+            pendingSize + size <= minSize &&
+            Bytes.equals(pending.getEndRow(), splitStart)) {
+          pending = new TableSplit(table.getTableName(),
+            pending.getStartRow(), splitStop, regionLocation);
+          pendingSize += size;
+        } else {
+          addSplit(splits, pending);
+          pending = split;
+          pendingSize = size;
+        }
+        continue;
+      }
+      addSplit(splits, pending);
+      pending = null;
+      if (maxSize > 0 && size > maxSize) {
+        int n = (int)Math.min((size + maxSize - 1) / maxSize, MAX_SPLITS_PER_REGION);
+        byte[] from = splitStart;
+        for (byte[] key: getSplitKeys(fs, rootDir, hri, n, splitStart, splitStop)) {
+          addSplit(splits, new TableSplit(table.getTableName(), from, key,
+            regionLocation));
+          from = key;
+        }
+        split = new TableSplit(table.getTableName(), from, splitStop,
+          regionLocation);
+      }
+      addSplit(splits, split);
     }
+    addSplit(splits, pending);
     return splits;
   }
 
+  private void addSplit(final List<InputSplit> splits, final TableSplit split) {
+    if (split == null) return;
+    splits.add(split);
+    if (LOG.isDebugEnabled())
+      LOG.debug("getSplits: split -> " + (splits.size() - 1) + " -> " + split);
+  }
+
+  /*
+   * @return Bytes in the region's directory, which is mostly store files, or
+   * -1 if it can not be read.
+   */
+  private long getRegionSize(final FileSystem fs, final Path rootDir,
+      final HRegionInfo hri) {
+    try {
+      return fs.getContentSummary(HRegion.getRegionDir(rootDir, hri)).
+        getLength();
+    } catch (IOException e) {
+      LOG.warn("Failed getting size of " + hri.getRegionNameAsString() +
+        "; not resizing its split", e);
+      return -1;
+    }
+  }
+
+  /*
+   * Pick up to <code>n - 1</code> rows between <code>start</code> and
+   * <code>stop</code> that cut the region's largest store file into about
+   * equal numbers of blocks.
+   * @return Rows in order, possibly none.
+   */
+  private List<byte[]> getSplitKeys(final FileSystem fs, final Path rootDir,
+      final HRegionInfo hri, final int n, final byte[] start, final byte[] stop) {
+    List<byte[]> rows = new ArrayList<byte[]>(n);
+    Path regionDir = HRegion.getRegionDir(rootDir, hri);
+    FileStatus largest = null;
+    try {
+      for (HColumnDescriptor family: hri.getTableDesc().getFamilies()) {
+        FileStatus[] files = fs.listStatus(new Path(regionDir,
+          family.getNameAsString()));
+        if (files == null) continue;
+        for (FileStatus file: files) {
+          if (file.isDir()) continue;
+          if (largest == null || file.getLen() > largest.getLen()) {
+            largest = file;
+          }
+        }
+      }
+      if (largest == null) return rows;
+      byte[][] blockKeys;
+      HFile.Reader reader = new HFile.Reader(fs, largest.getPath(), null, false);
+      try {
+        reader.loadFileInfo();
+        blockKeys = reader.getBlockIndexKeys();
+      } finally {
+        reader.close();
+      }
+      byte[] previous = start;
+      for (int i = 1; i < n; i++) {
+        int block = (int)((long)blockKeys.length * i / n);
+        if (block == 0 || block >= blockKeys.length) continue;
+        byte[] row = KeyValue.createKeyValueFromKey(blockKeys[block]).getRow();
+        // Keep strictly inside the split and increasing.
+        if (Bytes.compareTo(row, previous) <= 0) continue;
+        if (stop.length > 0 && Bytes.compareTo(row, stop) >= 0) break;
+        rows.add(row);
+        previous = row;
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed getting split keys of " + hri.getRegionNameAsString() +
+        "; not cutting its split", e);
+      rows.clear();
+    }
+    return rows;
+  }
+
   /**
    *
    *
@@ -30,7 +30,7 @@ import org.apache.hadoop.io.BinaryComparable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.RawComparator;
-import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Partitioner;
 import org.apache.hadoop.util.ReflectionUtils;
@@ -39,10 +39,12 @@ import org.apache.hadoop.util.ReflectionUtils;
  * Partitioner effecting a total order by reading split points from
  * an externally generated source.
  * 
- * This is an identical copy of o.a.h.mapreduce.lib.partition.TotalOrderPartitioner
- * from Hadoop trunk at r910774.
+ * This is a copy of o.a.h.mapreduce.lib.partition.TotalOrderPartitioner
+ * from Hadoop trunk at r910774, with the key type relaxed from
+ * WritableComparable to Writable so KeyValue map output keys, which are
+ * ordered by a {@link RawComparator} alone, can be partitioned.
  */
-public class TotalOrderPartitioner<K extends WritableComparable<?>,V>
+public class TotalOrderPartitioner<K extends Writable,V>
     extends Partitioner<K,V> implements Configurable {
 
   private Node partitions;
@@ -123,7 +123,11 @@ otherwise the KeyValue will be created with the default LATEST_TIMESTAMP (Long.M
 Use System.currentTimeMillis() if your data does not inherently bear a timestamp.
 Your reduce task
 will also need to emit the KeyValues in order.  See {@link org.apache.hadoop.hbase.mapreduce.KeyValueSortReducer}
-for an example reducer that emits KeyValues in order.
+for an example reducer that emits KeyValues in order.  Alternatively, have your
+map task emit the KeyValue itself as the map output key; then
+{@link org.apache.hadoop.hbase.mapreduce.HFileOutputFormat#configureIncrementalLoad}
+has the shuffle do the sort using {@link org.apache.hadoop.hbase.mapreduce.KeyValueWritableComparator}
+and streams the result out with {@link org.apache.hadoop.hbase.mapreduce.SortedKeyValueReducer}.
 </p>
 <p>Most importantly, you will also need to ensure that your MapReduce job
 ensures a total ordering among all keys.  MapReduce by default distributes
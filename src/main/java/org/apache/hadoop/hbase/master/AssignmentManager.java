@@ -33,11 +33,16 @@ import java.util.NavigableMap;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.Chore;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.HServerAddress;
@@ -56,15 +61,20 @@ import org.apache.hadoop.hbase.master.LoadBalancer.RegionPlan;
 import org.apache.hadoop.hbase.master.handler.ClosedRegionHandler;
 import org.apache.hadoop.hbase.master.handler.OpenedRegionHandler;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.FSUtils;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.hadoop.hbase.util.Threads;
 import org.apache.hadoop.hbase.zookeeper.ZKAssign;
 import org.apache.hadoop.hbase.zookeeper.ZKTableDisable;
 import org.apache.hadoop.hbase.zookeeper.ZKUtil;
-import org.apache.hadoop.hbase.zookeeper.ZKUtil.NodeAndData;
 import org.apache.hadoop.hbase.zookeeper.ZooKeeperListener;
+import org.apache.hadoop.hbase.zookeeper.ZooKeeperWatcher;
 import org.apache.hadoop.io.Writable;
+import org.apache.zookeeper.AsyncCallback;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Manages and performs region assignment.
@@ -186,8 +196,18 @@ public class AssignmentManager extends ZooKeeperListener {
     }
     LOG.info("Failed-over master needs to process " + nodes.size() +
         " regions in transition");
+    // Read all the nodes at once
+    List<String> paths = new ArrayList<String>(nodes.size());
     for(String regionName : nodes) {
-      RegionTransitionData data = ZKAssign.getData(watcher, regionName);
+      paths.add(ZKUtil.joinZNode(watcher.assignmentZNode, regionName));
+    }
+    List<byte []> datas = ZKUtil.getDataAndWatch(watcher, paths);
+    for(byte [] bytes : datas) {
+      if(bytes == null) {
+        // Transition completed since we listed it
+        continue;
+      }
+      RegionTransitionData data = RegionTransitionData.fromBytes(bytes);
       HRegionInfo regionInfo =
         MetaReader.getRegion(catalogTracker, data.getRegionName()).getFirst();
       String encodedName = regionInfo.getEncodedName();
@@ -338,17 +358,7 @@ public class AssignmentManager extends ZooKeeperListener {
   @Override
   public void nodeCreated(String path) {
     if(path.startsWith(watcher.assignmentZNode)) {
-      synchronized(regionsInTransition) {
-        try {
-          RegionTransitionData data = ZKAssign.getData(watcher, path);
-          if(data == null) {
-            return;
-          }
-          handleRegion(data);
-        } catch (KeeperException e) {
-          master.abort("Unexpected ZK exception reading unassigned node data", e);
-        }
-      }
+      ZKAssign.asyncGetData(watcher, path, this.handleRegionCallback, null);
     }
   }
 
@@ -367,17 +377,7 @@ public class AssignmentManager extends ZooKeeperListener {
   @Override
   public void nodeDataChanged(String path) {
     if(path.startsWith(watcher.assignmentZNode)) {
-      synchronized(regionsInTransition) {
-        try {
-          RegionTransitionData data = ZKAssign.getData(watcher, path);
-          if(data == null) {
-            return;
-          }
-          handleRegion(data);
-        } catch (KeeperException e) {
-          master.abort("Unexpected ZK exception reading unassigned node data", e);
-        }
-      }
+      ZKAssign.asyncGetData(watcher, path, this.handleRegionCallback, null);
     }
   }
 
@@ -397,21 +397,36 @@ public class AssignmentManager extends ZooKeeperListener {
   @Override
   public void nodeChildrenChanged(String path) {
     if(path.equals(watcher.assignmentZNode)) {
-      synchronized(regionsInTransition) {
-        try {
-          List<NodeAndData> newNodes = ZKUtil.watchAndGetNewChildren(watcher,
-              watcher.assignmentZNode);
-          for(NodeAndData newNode : newNodes) {
-            LOG.debug("Handling new unassigned node: " + newNode);
-            handleRegion(RegionTransitionData.fromBytes(newNode.getData()));
-          }
-        } catch(KeeperException e) {
-          master.abort("Unexpected ZK exception reading unassigned children", e);
-        }
-      }
+      ZKUtil.asyncWatchAndGetNewChildren(watcher, watcher.assignmentZNode,
+          this.handleRegionCallback);
     }
   }
 
+  /**
+   * Handles the unassigned node data read by the ZooKeeper events above.
+   * <p>
+   * The reads are asynchronous so the event thread doesn't wait on a round
+   * trip for each event; during a mass failover the reads are pipelined.  The
+   * callbacks come back on the event thread, in the order of the events.
+   */
+  private final AsyncCallback.DataCallback handleRegionCallback =
+      new AsyncCallback.DataCallback() {
+    @Override
+    public void processResult(int rc, String path, Object ctx, byte[] data,
+        Stat stat) {
+      if(rc == KeeperException.Code.NONODE.intValue()) {
+        // Transition completed before we could read it
+        return;
+      }
+      if(rc != KeeperException.Code.OK.intValue()) {
+        master.abort("Unexpected ZK exception reading unassigned node data",
+            KeeperException.create(KeeperException.Code.get(rc), path));
+        return;
+      }
+      handleRegion(RegionTransitionData.fromBytes(data));
+    }
+  };
+
   /**
    * Marks the region as online.  Removes it from regions in transition and
    * updates the in-memory assignment information.
@@ -428,6 +443,8 @@ public class AssignmentManager extends ZooKeeperListener {
     synchronized(regions) {
       regions.put(regionInfo, serverInfo);
       addToServers(serverInfo, regionInfo);
+      // Wake up waitForAssignment
+      regions.notifyAll();
     }
   }
 
@@ -680,32 +697,212 @@ public class AssignmentManager extends ZooKeeperListener {
         " servers");
 
     // Generate a cluster startup region placement plan
-    Map<HServerInfo,List<HRegionInfo>> bulkPlan =
-      LoadBalancer.bulkAssignment(allRegions, servers);
-
-    // For each server, create OFFLINE nodes and send OPEN RPCs
-    for(Map.Entry<HServerInfo,List<HRegionInfo>> entry : bulkPlan.entrySet()) {
-      HServerInfo server = entry.getKey();
-      List<HRegionInfo> regions = entry.getValue();
-      LOG.debug("Assigning " + regions.size() + " regions to " + server);
-      for(HRegionInfo region : regions) {
-        LOG.debug("Assigning " + region.getRegionNameAsString() + " to " + server);
-        String regionName = region.getEncodedName();
-        RegionPlan plan = new RegionPlan(region, null,server);
-        regionPlans.put(regionName, plan);
-        assign(region);
-      }
+    Configuration conf = master.getConfiguration();
+    Map<HServerInfo,List<HRegionInfo>> bulkPlan;
+    if (conf.getBoolean("hbase.master.bulkassignment.locality", true)) {
+      Path rootdir = FSUtils.getRootDir(conf);
+      bulkPlan = LoadBalancer.bulkAssignment(allRegions, servers,
+        rootdir.getFileSystem(conf), rootdir);
+    } else {
+      bulkPlan = LoadBalancer.bulkAssignment(allRegions, servers);
     }
 
-    // Wait for no regions to be in transition
+    // For each server, create OFFLINE nodes and send an OPEN RPC, servers
+    // in parallel
+    long startTime = System.currentTimeMillis();
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(1,
+      conf.getInt("hbase.bulk.assignment.threadpool.size", 20),
+      60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+      new ThreadFactoryBuilder()
+        .setNameFormat(master.getServerName() + "-BulkAssigner-%d")
+        .setDaemon(true)
+        .build(),
+      new ThreadPoolExecutor.CallerRunsPolicy());
     try {
+      for(final Map.Entry<HServerInfo,List<HRegionInfo>> entry :
+          bulkPlan.entrySet()) {
+        pool.execute(new Runnable() {
+          public void run() {
+            assign(entry.getKey(), entry.getValue());
+          }
+        });
+      }
+      pool.shutdown();
+      // Wait for no regions to be in transition
+      while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+        LOG.debug("Waiting on bulk assignment of regions to servers");
+      }
       waitUntilNoRegionsInTransition();
     } catch (InterruptedException e) {
       LOG.error("Interrupted waiting for regions to be assigned", e);
       throw new IOException(e);
+    } finally {
+      pool.shutdownNow();
+    }
+
+    long assignmentTime = System.currentTimeMillis() - startTime;
+    this.serverManager.getMetrics().setBulkAssignment(allRegions.size(),
+      assignmentTime);
+    LOG.info("All " + allRegions.size() + " user regions have been assigned " +
+      "in " + assignmentTime + "ms");
+  }
+
+  /**
+   * Bulk assign regions to a server.
+   * <p>
+   * Creates the OFFLINE nodes of all the regions without waiting on each
+   * ZooKeeper round trip, then asks the server to open them all with a single
+   * RPC.  Regions that can't go through this path are handed to
+   * {@link #assign(HRegionInfo)}.
+   * <p>
+   * Should only be used on cluster startup, the regions must not be in
+   * transition already.
+   * @param destination server to assign the regions to
+   * @param regions regions to assign
+   */
+  void assign(final HServerInfo destination, final List<HRegionInfo> regions) {
+    LOG.debug("Bulk assigning " + regions.size() + " region(s) to " +
+      destination.getServerName());
+    List<RegionState> states = new ArrayList<RegionState>(regions.size());
+    synchronized (this.regionsInTransition) {
+      for (HRegionInfo region: regions) {
+        RegionState state =
+          new RegionState(region, RegionState.State.OFFLINE);
+        this.regionsInTransition.put(region.getEncodedName(), state);
+        states.add(state);
+      }
+    }
+    synchronized (this.regionPlans) {
+      for (HRegionInfo region: regions) {
+        this.regionPlans.put(region.getEncodedName(),
+          new RegionPlan(region, null, destination));
+      }
     }
 
-    LOG.info("All user regions have been assigned");
+    // Pipeline the creation of the OFFLINE nodes
+    CreateOfflineCallback cb =
+      new CreateOfflineCallback(this.watcher, regions.size());
+    for (HRegionInfo region: regions) {
+      ZKAssign.asyncCreateNodeOffline(this.watcher, region,
+        this.master.getServerName(), cb, region);
+    }
+    try {
+      while (!cb.await(1000) && !this.master.isStopped()) {
+        LOG.debug("Waiting on " + cb.getPending() + " OFFLINE node(s) for " +
+          destination.getServerName());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    if (this.master.isStopped()) return;
+
+    // Those that failed, most likely because the node was left over, go
+    // through the usual path
+    List<HRegionInfo> failed = cb.getFailed();
+    if (!failed.isEmpty()) {
+      LOG.debug("Could not create the OFFLINE node of " + failed.size() +
+        " region(s), assigning them one by one");
+      for (HRegionInfo region: failed) {
+        assign(region);
+      }
+    }
+
+    // Transition to PENDING_OPEN before the RPC, the server could report
+    // OPENING before it returns.  Lock each state like assign(RegionState)
+    // does; the timeout monitor may have reassigned the region meanwhile.
+    List<RegionState> pending = new ArrayList<RegionState>(states.size());
+    List<HRegionInfo> toOpen = new ArrayList<HRegionInfo>(states.size());
+    for (RegionState state: states) {
+      if (failed.contains(state.getRegion())) continue;
+      synchronized (state) {
+        if (!state.isOffline()) {
+          LOG.debug("Not bulk assigning " +
+            state.getRegion().getRegionNameAsString() +
+            ", it moved on meanwhile: " + state);
+          continue;
+        }
+        state.update(RegionState.State.PENDING_OPEN);
+      }
+      pending.add(state);
+      toOpen.add(state.getRegion());
+    }
+    if (toOpen.isEmpty()) return;
+    try {
+      this.serverManager.sendRegionsOpen(destination, toOpen);
+    } catch (Throwable t) {
+      LOG.warn("Failed bulk assignment of " + toOpen.size() + " region(s) to " +
+        destination.getServerName() + ", assigning them one by one", t);
+      for (RegionState state: pending) {
+        synchronized (this.regionPlans) {
+          this.regionPlans.remove(state.getRegion().getEncodedName());
+        }
+        synchronized (state) {
+          if (!state.isPendingOpen()) continue;
+          state.update(RegionState.State.OFFLINE);
+          assign(state);
+        }
+      }
+    }
+  }
+
+  /**
+   * Counts down the async creations of OFFLINE nodes, setting a watch on
+   * those that were created and remembering the regions of those that
+   * couldn't.
+   */
+  static class CreateOfflineCallback
+  implements AsyncCallback.StringCallback, AsyncCallback.StatCallback {
+    private final ZooKeeperWatcher zkw;
+    private final CountDownLatch latch;
+    private final List<HRegionInfo> failed = new ArrayList<HRegionInfo>();
+
+    CreateOfflineCallback(final ZooKeeperWatcher zkw, final int count) {
+      this.zkw = zkw;
+      this.latch = new CountDownLatch(count);
+    }
+
+    @Override
+    public void processResult(int rc, String path, Object ctx, String name) {
+      if (rc != KeeperException.Code.OK.intValue()) {
+        LOG.debug("Could not create " + path + ": " + KeeperException.Code.get(rc));
+        fail((HRegionInfo)ctx);
+        return;
+      }
+      // Now watch it, like ZKUtil.createAndWatch does
+      this.zkw.getZooKeeper().exists(path, this.zkw, this, ctx);
+    }
+
+    @Override
+    public void processResult(int rc, String path, Object ctx, Stat stat) {
+      if (rc != KeeperException.Code.OK.intValue()) {
+        LOG.debug("Could not watch " + path + ": " + KeeperException.Code.get(rc));
+        fail((HRegionInfo)ctx);
+        return;
+      }
+      this.latch.countDown();
+    }
+
+    private void fail(final HRegionInfo region) {
+      synchronized (this.failed) {
+        this.failed.add(region);
+      }
+      this.latch.countDown();
+    }
+
+    boolean await(final long timeout) throws InterruptedException {
+      return this.latch.await(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    long getPending() {
+      return this.latch.getCount();
+    }
+
+    List<HRegionInfo> getFailed() {
+      synchronized (this.failed) {
+        return new ArrayList<HRegionInfo>(this.failed);
+      }
+    }
   }
 
   private void rebuildUserRegions() throws IOException {
@@ -1049,7 +1246,10 @@ public class AssignmentManager extends ZooKeeperListener {
       result = new HashMap<HServerInfo, List<HRegionInfo>>(this.servers.size());
       for (Map.Entry<HServerInfo, List<HRegionInfo>> e: this.servers.entrySet()) {
         List<HRegionInfo> shallowCopy = new ArrayList<HRegionInfo>(e.getValue());
-        HServerInfo clone = new HServerInfo(e.getKey());
+        // Clone the latest report so the balancer sees current region loads
+        HServerInfo latest =
+          this.serverManager.getServerInfo(e.getKey().getServerName());
+        HServerInfo clone = new HServerInfo(latest == null ? e.getKey() : latest);
         // Set into server load the number of regions this server is carrying
         // The load balancer calculation needs it at least and its handy.
         clone.getLoad().setNumberOfRegions(e.getValue().size());
@@ -168,7 +168,7 @@ implements HMasterInterface, HMasterRegionInterface, MasterServices, Server {
   // Instance of the hbase executor service.
   ExecutorService executorService;
 
-  private LoadBalancer balancer = new LoadBalancer();
+  private final LoadBalancer balancer;
   private Chore balancerChore;
   private volatile boolean balance = true;
 
@@ -188,6 +188,7 @@ implements HMasterInterface, HMasterRegionInterface, MasterServices, Server {
   public HMaster(final Configuration conf)
   throws IOException, KeeperException, InterruptedException {
     this.conf = conf;
+    this.balancer = LoadBalancer.getLoadBalancer(conf);
     /*
      * 1. Determine address and initialize RPC server (but do not start).
      * The RPC server ports can be ephemeral.
@@ -248,7 +249,9 @@ implements HMasterInterface, HMasterRegionInterface, MasterServices, Server {
     this.serverManager = new ServerManager(this, this);
 
     this.catalogTracker = new CatalogTracker(this.zooKeeper, this.connection,
-      this, conf.getInt("hbase.master.catalog.timeout", -1));
+      this, conf.getInt("hbase.master.catalog.timeout", -1),
+      conf.getLong("hbase.catalog.verification.lease",
+        CatalogTracker.DEFAULT_VERIFICATION_LEASE));
     this.catalogTracker.start();
 
     this.assignmentManager = new AssignmentManager(this, serverManager,
@@ -279,6 +282,7 @@ implements HMasterInterface, HMasterRegionInterface, MasterServices, Server {
   @Override
   public void run() {
     try {
+      long startTime = System.currentTimeMillis();
       // start up all service threads.
       startServiceThreads();
       // wait for minimum number of region servers to be up
@@ -292,6 +296,9 @@ implements HMasterInterface, HMasterRegionInterface, MasterServices, Server {
         // rebuild in-memory state.
         this.assignmentManager.processFailover();
       }
+      long startupTime = System.currentTimeMillis() - startTime;
+      LOG.info("Master startup took " + startupTime + "ms");
+      this.serverManager.getMetrics().setClusterStartupTime(startupTime);
       // Check if we should stop every second.
       Sleeper sleeper = new Sleeper(1000, this);
       while (!this.stopped  && !this.abort) {
@@ -635,20 +642,25 @@ implements HMasterInterface, HMasterRegionInterface, MasterServices, Server {
     if(MetaReader.tableExists(catalogTracker, tableName)) {
       throw new TableExistsException(tableName);
     }
+    List<HRegionInfo> regionInfos =
+      new ArrayList<HRegionInfo>(newRegions.length);
     for(HRegionInfo newRegion : newRegions) {
       // 1. Create HRegion
       HRegion region = HRegion.createHRegion(newRegion,
           fileSystemManager.getRootDir(), conf);
+      regionInfos.add(region.getRegionInfo());
 
-      // 2. Insert into META
-      MetaEditor.addRegionToMeta(catalogTracker, region.getRegionInfo());
-
-      // 3. Close the new region to flush to disk.  Close log file too.
+      // 2. Close the new region to flush to disk.  Close log file too.
       region.close();
       region.getLog().closeAndDelete();
+    }
+
+    // 3. Insert into META, all regions at once
+    MetaEditor.addRegionsToMeta(catalogTracker, regionInfos);
 
-      // 4. Trigger immediate assignment of this region
-      assignmentManager.assign(region.getRegionInfo());
+    // 4. Trigger immediate assignment of the regions
+    for(HRegionInfo regionInfo : regionInfos) {
+      assignmentManager.assign(regionInfo);
     }
 
     // 5. If sync, wait for assignment of regions
@@ -19,11 +19,10 @@
  */
 package org.apache.hadoop.hbase.master;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
@@ -33,13 +32,16 @@ import java.util.TreeSet;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.fs.BlockLocation;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.HServerInfo;
-import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.util.ReflectionUtils;
 
 /**
  * Makes decisions about the placement and movement of Regions across
@@ -54,13 +56,33 @@ import org.apache.hadoop.io.Writable;
  *
  * <p>On cluster startup, {@link #bulkAssignment} can be used to determine
  * locations for all Regions in a cluster.
- * 
+ *
+ * <p>The balancer the master runs is set with
+ * <code>hbase.master.loadbalancer.class</code>, see {@link #getLoadBalancer}.
+ * This class only balances region counts, {@link StochasticLoadBalancer}
+ * also weighs in block locality and the load of the regions.
+ *
  * <p>This classes produces plans for the {@link AssignmentManager} to execute.
  */
-public class LoadBalancer {
+public class LoadBalancer extends Configured {
   private static final Log LOG = LogFactory.getLog(LoadBalancer.class);
   private static final Random rand = new Random();
 
+  /** Configuration key for the class of the balancer the master runs */
+  public static final String BALANCER_CLASS_KEY =
+    "hbase.master.loadbalancer.class";
+
+  /**
+   * Create the balancer configured with {@link #BALANCER_CLASS_KEY}
+   * @param conf configuration to read, also handed to the balancer
+   * @return the balancer, a plain {@link LoadBalancer} by default
+   */
+  public static LoadBalancer getLoadBalancer(final Configuration conf) {
+    Class<? extends LoadBalancer> clazz = conf.getClass(BALANCER_CLASS_KEY,
+      LoadBalancer.class, LoadBalancer.class);
+    return ReflectionUtils.newInstance(clazz, conf);
+  }
+
   /**
    * Generate a global load balancing plan according to the specified map of
    * server information to the most loaded regions of each server.
@@ -346,8 +368,8 @@ public class LoadBalancer {
    *
    * Currently implemented as a round-robin assignment.  Same invariant as
    * load balancing, all servers holding floor(avg) or ceiling(avg).
-   *
-   * TODO: Use block locations from HDFS to place regions with their blocks
+   * {@link #bulkAssignment(List, List, FileSystem, Path)} also places the
+   * regions with their blocks.
    *
    * @param regions all regions
    * @param servers all servers
@@ -376,6 +398,101 @@ public class LoadBalancer {
     return assignments;
   }
 
+  /**
+   * Generates a bulk assignment plan that sends each region to the server
+   * holding most of its blocks, under the same invariant as
+   * {@link #bulkAssignment(List, List)}.
+   *
+   * Each region goes to the first of its {@link #getTopBlockLocations} hosts
+   * with a server that doesn't have floor(avg) regions yet, the least loaded
+   * one if there are a few servers on that host.  The regions that couldn't
+   * be placed that way are then given to the least loaded servers.
+   *
+   * @param regions all regions
+   * @param servers all servers
+   * @param fs the filesystem holding the regions
+   * @param rootdir hbase root directory
+   * @return map of server to the regions it should take, or null if no
+   *         assignment is possible (ie. no regions or no servers)
+   */
+  public static Map<HServerInfo,List<HRegionInfo>> bulkAssignment(
+      List<HRegionInfo> regions, List<HServerInfo> servers,
+      FileSystem fs, Path rootdir) {
+    if(regions.size() == 0 || servers.size() == 0) {
+      return null;
+    }
+    long startTime = System.currentTimeMillis();
+    int numServers = servers.size();
+    int min = regions.size() / numServers;
+    Map<HServerInfo,List<HRegionInfo>> assignments =
+      new TreeMap<HServerInfo,List<HRegionInfo>>();
+    Map<String,List<HServerInfo>> serversByHost =
+      new HashMap<String,List<HServerInfo>>();
+    for(HServerInfo server : servers) {
+      assignments.put(server, new ArrayList<HRegionInfo>(min + 1));
+      List<HServerInfo> hostServers = serversByHost.get(server.getHostname());
+      if(hostServers == null) {
+        hostServers = new ArrayList<HServerInfo>(1);
+        serversByHost.put(server.getHostname(), hostServers);
+      }
+      hostServers.add(server);
+    }
+
+    List<HRegionInfo> unplaced = new ArrayList<HRegionInfo>();
+    int local = 0;
+    for(HRegionInfo region : regions) {
+      HServerInfo dest = null;
+      try {
+        for(String host : getTopBlockLocations(fs, rootdir, region)) {
+          dest = leastLoaded(serversByHost.get(host), assignments, min);
+          if(dest != null) {
+            break;
+          }
+        }
+      } catch (IOException e) {
+        LOG.warn("Could not get the block locations of " +
+          region.getRegionNameAsString(), e);
+      }
+      if(dest == null) {
+        unplaced.add(region);
+      } else {
+        assignments.get(dest).add(region);
+        local++;
+      }
+    }
+    for(HRegionInfo region : unplaced) {
+      assignments.get(
+        leastLoaded(servers, assignments, Integer.MAX_VALUE)).add(region);
+    }
+    LOG.info("Calculated a bulk assignment in " +
+      (System.currentTimeMillis() - startTime) + "ms. " + local + " of " +
+      regions.size() + " regions go to the server holding most of their blocks");
+    return assignments;
+  }
+
+  /**
+   * @param candidates servers to choose from, can be null
+   * @param assignments regions assigned so far to each server
+   * @param limit number of regions a server must have less than
+   * @return the server with the fewest regions, or null if none is under limit
+   */
+  private static HServerInfo leastLoaded(final List<HServerInfo> candidates,
+      final Map<HServerInfo,List<HRegionInfo>> assignments, final int limit) {
+    HServerInfo leastLoaded = null;
+    int leastCount = limit;
+    if(candidates == null) {
+      return null;
+    }
+    for(HServerInfo server : candidates) {
+      int count = assignments.get(server).size();
+      if(count < leastCount) {
+        leastLoaded = server;
+        leastCount = count;
+      }
+    }
+    return leastLoaded;
+  }
+
   /**
    * Find the block locations for all of the files for the specified region.
    *
@@ -384,38 +501,18 @@ public class LoadBalancer {
    * files on that host, so the first host in the list is the server which
    * holds the most bytes of the given region's HFiles.
    *
-   * TODO: Make this work.  Need to figure out how to match hadoop's hostnames
-   *       given for block locations with our HServerAddress.
-   * TODO: Use the right directory for the region
-   * TODO: Use getFileBlockLocations on the files not the directory
-   *
    * @param fs the filesystem
+   * @param rootdir hbase root directory
    * @param region region
    * @return ordered list of hosts holding blocks of the specified region
    * @throws IOException if any filesystem errors
    */
-  private List<String> getTopBlockLocations(FileSystem fs, HRegionInfo region)
+  static List<String> getTopBlockLocations(FileSystem fs, Path rootdir,
+      HRegionInfo region)
   throws IOException {
-    String encodedName = region.getEncodedName();
-    Path path = new Path("/hbase/table/" + encodedName);
-    FileStatus status = fs.getFileStatus(path);
-    BlockLocation [] blockLocations =
-      fs.getFileBlockLocations(status, 0, status.getLen());
-    Map<HostAndWeight,HostAndWeight> hostWeights =
-      new TreeMap<HostAndWeight,HostAndWeight>(new HostAndWeight.HostComparator());
-    for(BlockLocation bl : blockLocations) {
-      String [] hosts = bl.getHosts();
-      long len = bl.getLength();
-      for(String host : hosts) {
-        HostAndWeight haw = hostWeights.get(host);
-        if(haw == null) {
-          haw = new HostAndWeight(host, len);
-          hostWeights.put(haw, haw);
-        } else {
-          haw.addWeight(len);
-        }
-      }
-    }
+    Map<String,HostAndWeight> hostWeights =
+      new HashMap<String,HostAndWeight>();
+    getBlockWeights(fs, rootdir, region, hostWeights);
     NavigableSet<HostAndWeight> orderedHosts = new TreeSet<HostAndWeight>(
         new HostAndWeight.WeightComparator());
     orderedHosts.addAll(hostWeights.values());
@@ -426,6 +523,58 @@ public class LoadBalancer {
     return topHosts;
   }
 
+  /**
+   * Sum the lengths of the blocks of the store files of a region held by
+   * each host.
+   *
+   * @param fs the filesystem
+   * @param rootdir hbase root directory
+   * @param region region
+   * @param hostWeights map filled with the weight of the region on each host
+   * @return total length of the store files of the region
+   * @throws IOException if any filesystem errors
+   */
+  static long getBlockWeights(FileSystem fs, Path rootdir, HRegionInfo region,
+      Map<String,HostAndWeight> hostWeights)
+  throws IOException {
+    FileStatus [] families = fs.listStatus(HRegion.getRegionDir(rootdir, region));
+    if(families == null) {
+      return 0;
+    }
+    long total = 0;
+    for(FileStatus family : families) {
+      // Skip .regioninfo, .tmp and the like
+      if(!family.isDir() || family.getPath().getName().startsWith(".")) {
+        continue;
+      }
+      FileStatus [] files = fs.listStatus(family.getPath());
+      if(files == null) {
+        continue;
+      }
+      for(FileStatus file : files) {
+        if(file.isDir()) {
+          continue;
+        }
+        total += file.getLen();
+        BlockLocation [] blockLocations =
+          fs.getFileBlockLocations(file, 0, file.getLen());
+        for(BlockLocation bl : blockLocations) {
+          long len = bl.getLength();
+          for(String host : bl.getHosts()) {
+            HostAndWeight haw = hostWeights.get(host);
+            if(haw == null) {
+              haw = new HostAndWeight(host, len);
+              hostWeights.put(host, haw);
+            } else {
+              haw.addWeight(len);
+            }
+          }
+        }
+      }
+    }
+    return total;
+  }
+
   /**
    * Stores the hostname and weight for that hostname.
    *
@@ -436,7 +585,7 @@ public class LoadBalancer {
    * this class is used to count the total weight for each host.  The weight is
    * currently just the size of the file.
    */
-  private static class HostAndWeight {
+  static class HostAndWeight {
 
     private final String host;
     private long weight;
@@ -394,6 +394,13 @@ public class ServerManager {
     return this.deadservers.clone();
   }
 
+  /**
+   * @return the master metrics
+   */
+  public MasterMetrics getMetrics() {
+    return this.metrics;
+  }
+
   /**
    * @param hsa
    * @return The HServerInfo whose HServerAddress is <code>hsa</code> or null
@@ -507,6 +514,24 @@ public class ServerManager {
     hri.openRegion(region);
   }
 
+  /**
+   * Sends an OPEN RPC to the specified server to open the specified regions.
+   * <p>
+   * Open should not fail but can if server just crashed.
+   * <p>
+   * @param server server to open the regions
+   * @param regions regions to open
+   */
+  public void sendRegionsOpen(HServerInfo server, List<HRegionInfo> regions) {
+    HRegionInterface hri = getServerConnection(server);
+    if(hri == null) {
+      LOG.warn("Attempting to send OPEN RPC to server " + server.getServerName()
+          + " failed because no RPC connection found to this server");
+      return;
+    }
+    hri.openRegions(regions);
+  }
+
   /**
    * Sends an CLOSE RPC to the specified server to close the specified region.
    * <p>
@@ -0,0 +1,624 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.master;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HServerInfo;
+import org.apache.hadoop.hbase.HServerLoad;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.FSUtils;
+
+/**
+ * Balancer that looks for the cheapest placement of the regions according to
+ * a cost made of several factors, instead of only evening out region counts:
+ * <ul>
+ * <li>the number of regions on each server,</li>
+ * <li>the spread of the regions of each table over the servers,</li>
+ * <li>the share of the store file bytes that aren't on the host of their
+ *     region,</li>
+ * <li>the requests each server got since the previous run,</li>
+ * <li>the memstore and store file sizes of each server.</li>
+ * </ul>
+ * Each factor is between 0 and 1, the cost is their sum weighted by
+ * <code>hbase.master.balancer.stochastic.regionCountCost</code>,
+ * <code>tableSkewCost</code>, <code>localityCost</code>,
+ * <code>requestCost</code>, <code>memstoreSizeCost</code> and
+ * <code>storefileSizeCost</code>.
+ *
+ * <p>Trying every placement isn't an option so the plan is found by a
+ * stochastic search.  At each step a few regions are picked, at random, off
+ * the server with the most regions, to go where most of their blocks are or
+ * to swap places, and moved.  The moves are kept if they lower the cost,
+ * undone otherwise.  At most <code>hbase.master.balancer.maxMoves</code>
+ * regions are moved per run.
+ *
+ * <p>Where the blocks of a region are is looked up in the filesystem, which
+ * is slow, so it is remembered for
+ * <code>hbase.master.balancer.stochastic.localityCacheTime</code>
+ * milliseconds, or until the store file size the server reports for the
+ * region changes.  The lookups count against
+ * <code>hbase.master.balancer.stochastic.maxRunningTime</code> like the
+ * search does; regions left when it runs out go without locality, or with
+ * what was remembered, until a later run.
+ */
+public class StochasticLoadBalancer extends LoadBalancer {
+  private static final Log LOG = LogFactory.getLog(StochasticLoadBalancer.class);
+  private static final String COST_KEY_PREFIX = "hbase.master.balancer.stochastic.";
+
+  private final Random rand = new Random();
+
+  private int maxSteps = 20000;
+  private int stepsPerRegion = 20;
+  private long maxRunningTime = 30 * 1000;
+  private long localityCacheTime = 30 * 60 * 1000;
+  private int maxMoves = 600;
+  private float regionCountCost = 500;
+  private float tableSkewCost = 35;
+  private float localityCost = 25;
+  private float requestCost = 5;
+  private float memstoreSizeCost = 5;
+  private float storefileSizeCost = 5;
+
+  // Requests counts of the regions at the previous run, to get request rates
+  private Map<String,Long> previousRequests = new HashMap<String,Long>();
+  // Block weights of the regions by encoded name, from previous runs
+  private Map<String,RegionBlocks> regionBlocks =
+    new HashMap<String,RegionBlocks>();
+
+  @Override
+  public void setConf(Configuration conf) {
+    super.setConf(conf);
+    if (conf == null) {
+      return;
+    }
+    this.maxSteps = conf.getInt(COST_KEY_PREFIX + "maxSteps", this.maxSteps);
+    this.stepsPerRegion =
+      conf.getInt(COST_KEY_PREFIX + "stepsPerRegion", this.stepsPerRegion);
+    this.maxRunningTime =
+      conf.getLong(COST_KEY_PREFIX + "maxRunningTime", this.maxRunningTime);
+    this.localityCacheTime = conf.getLong(COST_KEY_PREFIX +
+      "localityCacheTime", this.localityCacheTime);
+    this.maxMoves = conf.getInt("hbase.master.balancer.maxMoves", this.maxMoves);
+    this.regionCountCost =
+      conf.getFloat(COST_KEY_PREFIX + "regionCountCost", this.regionCountCost);
+    this.tableSkewCost =
+      conf.getFloat(COST_KEY_PREFIX + "tableSkewCost", this.tableSkewCost);
+    this.localityCost =
+      conf.getFloat(COST_KEY_PREFIX + "localityCost", this.localityCost);
+    this.requestCost =
+      conf.getFloat(COST_KEY_PREFIX + "requestCost", this.requestCost);
+    this.memstoreSizeCost =
+      conf.getFloat(COST_KEY_PREFIX + "memstoreSizeCost", this.memstoreSizeCost);
+    this.storefileSizeCost = conf.getFloat(COST_KEY_PREFIX +
+      "storefileSizeCost", this.storefileSizeCost);
+  }
+
+  /**
+   * Generate a plan lowering the cost of the cluster, see the class comment.
+   *
+   * @param clusterState map of regionservers and their load/region information
+   *                     to the regions they hold
+   * @return a list of regions to be moved, including source and destination,
+   *         or null if no move lowers the cost
+   */
+  @Override
+  public List<RegionPlan> balanceCluster(
+      Map<HServerInfo,List<HRegionInfo>> clusterState) {
+    LOG.debug("Running load balancer");
+    long startTime = System.currentTimeMillis();
+    if (clusterState.size() < 2) {
+      return null;
+    }
+    Cluster cluster = new Cluster(clusterState);
+    if (cluster.regions.length == 0) {
+      return null;
+    }
+    loadRegions(cluster, clusterState);
+    if (this.localityCost > 0) {
+      loadLocality(cluster, startTime);
+    }
+
+    double initialCost = computeCost(cluster);
+    double currentCost = initialCost;
+    int steps = (int)Math.min(this.maxSteps,
+      (long)cluster.regions.length * this.stepsPerRegion);
+    int step = 0;
+    for (; step < steps; step++) {
+      if (System.currentTimeMillis() - startTime > this.maxRunningTime) {
+        LOG.info("Stopping the search for a balance after " + step +
+          " steps, it ran longer than " + this.maxRunningTime + "ms");
+        break;
+      }
+      int [] moves = pickMoves(cluster);
+      if (moves == null) {
+        continue;
+      }
+      // Moves are region and destination pairs, undone in reverse order
+      int [] sources = new int[moves.length / 2];
+      for (int i = 0; i < moves.length; i += 2) {
+        sources[i / 2] = cluster.current[moves[i]];
+        cluster.move(moves[i], moves[i + 1]);
+      }
+      double newCost = computeCost(cluster);
+      if (cluster.moved <= this.maxMoves && newCost < currentCost) {
+        currentCost = newCost;
+      } else {
+        for (int i = moves.length - 2; i >= 0; i -= 2) {
+          cluster.move(moves[i], sources[i / 2]);
+        }
+      }
+    }
+
+    List<RegionPlan> regionsToMove = new ArrayList<RegionPlan>(cluster.moved);
+    for (int i = 0; i < cluster.regions.length; i++) {
+      if (cluster.current[i] != cluster.initial[i]) {
+        regionsToMove.add(new RegionPlan(cluster.regions[i],
+          cluster.servers[cluster.initial[i]],
+          cluster.servers[cluster.current[i]]));
+      }
+    }
+    long endTime = System.currentTimeMillis();
+    if (regionsToMove.isEmpty()) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Skipping load balancing, no move lowers the cost of " +
+          initialCost + " servers=" + cluster.servers.length +
+          " regions=" + cluster.regions.length + " steps=" + step);
+      }
+      return null;
+    }
+    LOG.info("Calculated a load balance in " + (endTime - startTime) + "ms. " +
+      "Moving " + regionsToMove.size() + " regions lowers the cost from " +
+      initialCost + " to " + currentCost + " after " + step + " steps");
+    return regionsToMove;
+  }
+
+  /**
+   * Pick the next moves to try, one of:
+   * <ul>
+   * <li>a region off the server with the most regions, onto the one with
+   *     the fewest,</li>
+   * <li>a region to the server holding most of its blocks, swapping places
+   *     with one of the regions there if that server has more regions,</li>
+   * <li>two regions on different servers swapping places, which keeps the
+   *     region counts even while evening out the other factors,</li>
+   * <li>a region to a random server.</li>
+   * </ul>
+   * @return region and destination pairs, or null if no move was found
+   */
+  private int [] pickMoves(final Cluster cluster) {
+    int region = this.rand.nextInt(cluster.regions.length);
+    int dest;
+    switch (this.rand.nextInt(4)) {
+      case 0:
+        int most = 0;
+        int least = 0;
+        for (int i = 1; i < cluster.servers.length; i++) {
+          if (cluster.count[i] > cluster.count[most]) most = i;
+          if (cluster.count[i] < cluster.count[least]) least = i;
+        }
+        List<Integer> mostRegions = cluster.serverRegions.get(most);
+        if (most == least || mostRegions.isEmpty()) {
+          return null;
+        }
+        region = mostRegions.get(this.rand.nextInt(mostRegions.size()));
+        dest = least;
+        break;
+      case 1:
+        dest = cluster.getMostLocalServer(region);
+        int from = cluster.current[region];
+        if (dest >= 0 && dest != from &&
+            cluster.count[dest] >= cluster.count[from]) {
+          // Make room for it
+          List<Integer> destRegions = cluster.serverRegions.get(dest);
+          return swap(cluster, region,
+            destRegions.get(this.rand.nextInt(destRegions.size())));
+        }
+        break;
+      case 2:
+        return swap(cluster, region,
+          this.rand.nextInt(cluster.regions.length));
+      default:
+        dest = this.rand.nextInt(cluster.servers.length);
+    }
+    if (dest < 0 || dest == cluster.current[region] ||
+        !isMovable(cluster, region)) {
+      return null;
+    }
+    return new int [] {region, dest};
+  }
+
+  private int [] swap(final Cluster cluster, final int region,
+      final int other) {
+    int source = cluster.current[region];
+    int dest = cluster.current[other];
+    if (source == dest || !isMovable(cluster, region) ||
+        !isMovable(cluster, other)) {
+      return null;
+    }
+    return new int [] {region, dest, other, source};
+  }
+
+  private boolean isMovable(final Cluster cluster, final int region) {
+    // Don't rebalance meta regions.
+    return !cluster.regions[region].isMetaRegion();
+  }
+
+  /**
+   * Fill in the requests and sizes of each region from the server loads
+   */
+  private void loadRegions(final Cluster cluster,
+      final Map<HServerInfo,List<HRegionInfo>> clusterState) {
+    Map<byte [], HServerLoad.RegionLoad> loads =
+      new TreeMap<byte [], HServerLoad.RegionLoad>(Bytes.BYTES_COMPARATOR);
+    for (HServerInfo server : clusterState.keySet()) {
+      if (server.getLoad() == null) continue;
+      for (HServerLoad.RegionLoad load : server.getLoad().getRegionsLoad()) {
+        loads.put(load.getName(), load);
+      }
+    }
+    Map<String,Long> requests = new HashMap<String,Long>(loads.size());
+    for (int i = 0; i < cluster.regions.length; i++) {
+      HServerLoad.RegionLoad load =
+        loads.get(cluster.regions[i].getRegionName());
+      if (load == null) continue;
+      String name = cluster.regions[i].getEncodedName();
+      // Use the requests since the last run, or since the region opened
+      long count = load.getRequestsCount();
+      Long previous = this.previousRequests.get(name);
+      cluster.regionRequests[i] =
+        previous == null || previous > count ? count : count - previous;
+      cluster.regionMemstore[i] = load.getMemStoreSizeMB();
+      cluster.regionStorefile[i] = load.getStorefileSizeMB();
+      requests.put(name, Long.valueOf(count));
+    }
+    this.previousRequests = requests;
+    cluster.loadServers();
+  }
+
+  /**
+   * Find how many bytes of each region are on the host of each server.
+   * Regions whose block weights are remembered from a previous run, and
+   * haven't changed since, aren't looked up again.
+   * @param startTime when the balancer run started
+   */
+  private void loadLocality(final Cluster cluster, final long startTime) {
+    Configuration conf = getConf();
+    if (conf == null) {
+      return;
+    }
+    FileSystem fs;
+    Path rootdir;
+    try {
+      rootdir = FSUtils.getRootDir(conf);
+      fs = rootdir.getFileSystem(conf);
+    } catch (IOException e) {
+      LOG.warn("Balancing without block locality", e);
+      return;
+    }
+    Map<String,RegionBlocks> blocks =
+      new HashMap<String,RegionBlocks>(cluster.regions.length);
+    int refreshed = 0;
+    int missed = 0;
+    for (int i = 0; i < cluster.regions.length; i++) {
+      String name = cluster.regions[i].getEncodedName();
+      RegionBlocks cached = this.regionBlocks.get(name);
+      long now = System.currentTimeMillis();
+      if (cached == null || now - cached.time > this.localityCacheTime ||
+          cached.storefileSize != cluster.regionStorefile[i]) {
+        if (now - startTime > this.maxRunningTime) {
+          missed++;
+        } else {
+          Map<String,HostAndWeight> hostWeights =
+            new HashMap<String,HostAndWeight>();
+          try {
+            long total =
+              getBlockWeights(fs, rootdir, cluster.regions[i], hostWeights);
+            cached = new RegionBlocks(now, cluster.regionStorefile[i], total,
+              hostWeights);
+            refreshed++;
+          } catch (IOException e) {
+            LOG.warn("Could not get the block locations of " +
+              cluster.regions[i].getRegionNameAsString(), e);
+          }
+        }
+      }
+      if (cached == null) continue;
+      blocks.put(name, cached);
+      if (cached.total == 0) continue;
+      cluster.regionBytes[i] = cached.total;
+      cluster.regionLocalBytes[i] = new float[cluster.servers.length];
+      for (int j = 0; j < cluster.servers.length; j++) {
+        HostAndWeight haw =
+          cached.hostWeights.get(cluster.servers[j].getHostname());
+        cluster.regionLocalBytes[i][j] = haw == null ? 0 : haw.getWeight();
+      }
+    }
+    // Forget the regions that are gone
+    this.regionBlocks = blocks;
+    if (missed > 0) {
+      LOG.info("Ran out of time looking up the blocks of " + missed +
+        " region(s), " + refreshed + " looked up");
+    } else if (LOG.isDebugEnabled()) {
+      LOG.debug("Looked up the blocks of " + refreshed + " region(s) in " +
+        (System.currentTimeMillis() - startTime) + "ms");
+    }
+    cluster.loadLocality();
+  }
+
+  double computeCost(final Cluster cluster) {
+    double tableSkew = 0;
+    for (int i = 0; i < cluster.tableSkew.length; i++) {
+      tableSkew += cluster.tableSkew[i];
+    }
+    if (cluster.tableSkew.length > 0) {
+      tableSkew /= cluster.tableSkew.length;
+    }
+    double locality = cluster.totalBytes == 0 ? 0 :
+      1 - cluster.localBytes / cluster.totalBytes;
+    return this.regionCountCost *
+        skew(cluster.count, cluster.regions.length) +
+      this.tableSkewCost * tableSkew +
+      this.localityCost * locality +
+      this.requestCost * skew(cluster.requests, cluster.totalRequests) +
+      this.memstoreSizeCost * skew(cluster.memstore, cluster.totalMemstore) +
+      this.storefileSizeCost * skew(cluster.storefile, cluster.totalStorefile);
+  }
+
+  /**
+   * @param values how much of something each server has
+   * @param total sum of the values
+   * @return how far the values are from being even, from 0 when they are
+   *  all equal to 1 when one server has everything
+   */
+  static double skew(final double [] values, final double total) {
+    if (values.length < 2 || total <= 0) {
+      return 0;
+    }
+    double mean = total / values.length;
+    double deviation = 0;
+    for (double value : values) {
+      deviation += Math.abs(value - mean);
+    }
+    return Math.min(1, deviation / (2 * (total - mean)));
+  }
+
+  /**
+   * Block weights of a region, as they were at some point
+   */
+  private static class RegionBlocks {
+    final long time;
+    // Store file size the server reported for the region then
+    final double storefileSize;
+    final long total;
+    final Map<String,HostAndWeight> hostWeights;
+
+    RegionBlocks(final long time, final double storefileSize, final long total,
+        final Map<String,HostAndWeight> hostWeights) {
+      this.time = time;
+      this.storefileSize = storefileSize;
+      this.total = total;
+      this.hostWeights = hostWeights;
+    }
+  }
+
+  /**
+   * Where the regions are and how loaded the servers are, updated as
+   * regions are moved around during the search.
+   */
+  static class Cluster {
+    final HServerInfo [] servers;
+    final HRegionInfo [] regions;
+    final int [] initial;
+    final int [] current;
+    final List<List<Integer>> serverRegions;
+    int moved = 0;
+
+    // Per region
+    final int [] regionTable;
+    final double [] regionRequests;
+    final double [] regionMemstore;
+    final double [] regionStorefile;
+    final double [] regionBytes;
+    // Bytes of the region on the host of each server, null if unknown
+    final float [][] regionLocalBytes;
+
+    // Per server
+    final double [] count;
+    final double [] requests;
+    final double [] memstore;
+    final double [] storefile;
+    final double [][] tableCount;
+    final double [] tableTotal;
+    final double [] tableSkew;
+
+    double totalRequests = 0;
+    double totalMemstore = 0;
+    double totalStorefile = 0;
+    double totalBytes = 0;
+    double localBytes = 0;
+
+    Cluster(final Map<HServerInfo,List<HRegionInfo>> clusterState) {
+      int numServers = clusterState.size();
+      int numRegions = 0;
+      for (List<HRegionInfo> regions : clusterState.values()) {
+        numRegions += regions.size();
+      }
+      this.servers = new HServerInfo[numServers];
+      this.regions = new HRegionInfo[numRegions];
+      this.initial = new int[numRegions];
+      this.current = new int[numRegions];
+      this.serverRegions = new ArrayList<List<Integer>>(numServers);
+      this.regionTable = new int[numRegions];
+      Map<byte [], Integer> tables =
+        new TreeMap<byte [], Integer>(Bytes.BYTES_COMPARATOR);
+      int server = 0;
+      int region = 0;
+      for (Map.Entry<HServerInfo, List<HRegionInfo>> e :
+          clusterState.entrySet()) {
+        this.servers[server] = e.getKey();
+        List<Integer> onServer = new ArrayList<Integer>(e.getValue().size());
+        for (HRegionInfo hri : e.getValue()) {
+          this.regions[region] = hri;
+          this.initial[region] = server;
+          this.current[region] = server;
+          onServer.add(Integer.valueOf(region));
+          byte [] table = hri.getTableDesc().getName();
+          Integer index = tables.get(table);
+          if (index == null) {
+            index = Integer.valueOf(tables.size());
+            tables.put(table, index);
+          }
+          this.regionTable[region] = index.intValue();
+          region++;
+        }
+        this.serverRegions.add(onServer);
+        server++;
+      }
+      this.regionRequests = new double[numRegions];
+      this.regionMemstore = new double[numRegions];
+      this.regionStorefile = new double[numRegions];
+      this.regionBytes = new double[numRegions];
+      this.regionLocalBytes = new float[numRegions][];
+      this.count = new double[numServers];
+      this.requests = new double[numServers];
+      this.memstore = new double[numServers];
+      this.storefile = new double[numServers];
+      this.tableCount = new double[tables.size()][numServers];
+      this.tableTotal = new double[tables.size()];
+      this.tableSkew = new double[tables.size()];
+      loadServers();
+    }
+
+    /**
+     * Sum up the loads of the regions on each server
+     */
+    void loadServers() {
+      for (int i = 0; i < this.servers.length; i++) {
+        this.count[i] = 0;
+        this.requests[i] = 0;
+        this.memstore[i] = 0;
+        this.storefile[i] = 0;
+      }
+      for (int i = 0; i < this.tableCount.length; i++) {
+        for (int j = 0; j < this.servers.length; j++) {
+          this.tableCount[i][j] = 0;
+        }
+        this.tableTotal[i] = 0;
+      }
+      this.totalRequests = 0;
+      this.totalMemstore = 0;
+      this.totalStorefile = 0;
+      for (int i = 0; i < this.regions.length; i++) {
+        int server = this.current[i];
+        this.count[server]++;
+        this.requests[server] += this.regionRequests[i];
+        this.memstore[server] += this.regionMemstore[i];
+        this.storefile[server] += this.regionStorefile[i];
+        this.tableCount[this.regionTable[i]][server]++;
+        this.tableTotal[this.regionTable[i]]++;
+        this.totalRequests += this.regionRequests[i];
+        this.totalMemstore += this.regionMemstore[i];
+        this.totalStorefile += this.regionStorefile[i];
+      }
+      for (int i = 0; i < this.tableCount.length; i++) {
+        this.tableSkew[i] = skew(this.tableCount[i], this.tableTotal[i]);
+      }
+    }
+
+    /**
+     * Sum up the bytes of the regions that are local to their server
+     */
+    void loadLocality() {
+      this.totalBytes = 0;
+      this.localBytes = 0;
+      for (int i = 0; i < this.regions.length; i++) {
+        if (this.regionLocalBytes[i] == null) continue;
+        this.totalBytes += this.regionBytes[i];
+        this.localBytes += this.regionLocalBytes[i][this.current[i]];
+      }
+    }
+
+    /**
+     * @param region index of a region
+     * @return index of the server holding most of its blocks, or -1 if
+     *  unknown
+     */
+    int getMostLocalServer(final int region) {
+      float [] local = this.regionLocalBytes[region];
+      if (local == null) {
+        return -1;
+      }
+      int best = -1;
+      for (int i = 0; i < local.length; i++) {
+        if (local[i] > 0 && (best == -1 || local[i] > local[best])) {
+          best = i;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Move a region and update the loads of its old and new servers
+     * @param region index of the region
+     * @param dest index of the server to move it to
+     */
+    void move(final int region, final int dest) {
+      int source = this.current[region];
+      this.current[region] = dest;
+      this.serverRegions.get(source).remove(Integer.valueOf(region));
+      this.serverRegions.get(dest).add(Integer.valueOf(region));
+      if (source == this.initial[region]) {
+        this.moved++;
+      } else if (dest == this.initial[region]) {
+        this.moved--;
+      }
+      this.count[source]--;
+      this.count[dest]++;
+      this.requests[source] -= this.regionRequests[region];
+      this.requests[dest] += this.regionRequests[region];
+      this.memstore[source] -= this.regionMemstore[region];
+      this.memstore[dest] += this.regionMemstore[region];
+      this.storefile[source] -= this.regionStorefile[region];
+      this.storefile[dest] += this.regionStorefile[region];
+      int table = this.regionTable[region];
+      this.tableCount[table][source]--;
+      this.tableCount[table][dest]++;
+      this.tableSkew[table] =
+        skew(this.tableCount[table], this.tableTotal[table]);
+      if (this.regionLocalBytes[region] != null) {
+        this.localBytes += this.regionLocalBytes[region][dest] -
+          this.regionLocalBytes[region][source];
+      }
+    }
+  }
+}
@@ -40,10 +40,10 @@ public class DeleteTableHandler extends TableEventHandler {
   @Override
   protected void handleTableOperation(List<HRegionInfo> regions)
   throws IOException {
+    // Remove regions from META, all at once
+    MetaEditor.deleteRegions(this.server.getCatalogTracker(), regions);
     for(HRegionInfo region : regions) {
-      LOG.debug("Deleting region " + region + " from META and FS");
-      // Remove region from META
-      MetaEditor.deleteRegion(this.server.getCatalogTracker(), region);
+      LOG.debug("Deleting region " + region + " from FS");
       // Delete region from FS
       this.masterServices.getMasterFileSystem().deleteRegion(region);
     }
@@ -42,9 +42,11 @@ public class ModifyTableHandler extends TableEventHandler {
   protected void handleTableOperation(List<HRegionInfo> hris)
   throws IOException {
     for (HRegionInfo hri : hris) {
-      // Update region info in META
       hri.setTableDesc(this.htd);
-      MetaEditor.updateRegionInfo(this.server.getCatalogTracker(), hri);
+    }
+    // Update region info in META, all regions at once
+    MetaEditor.updateRegionInfos(this.server.getCatalogTracker(), hris);
+    for (HRegionInfo hri : hris) {
       // Update region info in FS
       this.masterServices.getMasterFileSystem().updateRegionInfo(hri);
     }
@@ -57,8 +57,10 @@ public class TableAddFamilyHandler extends TableEventHandler {
     for(HRegionInfo hri : hris) {
       // Update the HTD
       hri.getTableDesc().addFamily(familyDesc);
-      // Update region in META
-      MetaEditor.updateRegionInfo(this.server.getCatalogTracker(), hri);
+    }
+    // Update regions in META, all at once
+    MetaEditor.updateRegionInfos(this.server.getCatalogTracker(), hris);
+    for(HRegionInfo hri : hris) {
       // Update region info in FS
       this.masterServices.getMasterFileSystem().updateRegionInfo(hri);
     }
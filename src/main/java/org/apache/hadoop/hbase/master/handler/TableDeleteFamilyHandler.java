@@ -55,8 +55,10 @@ public class TableDeleteFamilyHandler extends TableEventHandler {
     for (HRegionInfo hri : hris) {
       // Update the HTD
       hri.getTableDesc().removeFamily(familyName);
-      // Update region in META
-      MetaEditor.updateRegionInfo(this.server.getCatalogTracker(), hri);
+    }
+    // Update regions in META, all at once
+    MetaEditor.updateRegionInfos(this.server.getCatalogTracker(), hris);
+    for (HRegionInfo hri : hris) {
       MasterFileSystem mfs = this.masterServices.getMasterFileSystem();
       // Update region info in FS
       mfs.updateRegionInfo(hri);
@@ -56,8 +56,10 @@ public class TableModifyFamilyHandler extends TableEventHandler {
     for(HRegionInfo hri : regions) {
       // Update the HTD
       hri.getTableDesc().addFamily(familyDesc);
-      // Update region in META
-      MetaEditor.updateRegionInfo(this.server.getCatalogTracker(), hri);
+    }
+    // Update regions in META, all at once
+    MetaEditor.updateRegionInfos(this.server.getCatalogTracker(), regions);
+    for(HRegionInfo hri : regions) {
       // Update region info in FS
       this.masterServices.getMasterFileSystem().updateRegionInfo(hri);
     }
@@ -19,13 +19,18 @@ package org.apache.hadoop.hbase.master.metrics;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.catalog.MetaEditor;
 import org.apache.hadoop.hbase.metrics.MetricsRate;
 import org.apache.hadoop.metrics.MetricsContext;
 import org.apache.hadoop.metrics.MetricsRecord;
 import org.apache.hadoop.metrics.MetricsUtil;
 import org.apache.hadoop.metrics.Updater;
 import org.apache.hadoop.metrics.jvm.JvmMetrics;
+import org.apache.hadoop.metrics.util.MetricsIntValue;
+import org.apache.hadoop.metrics.util.MetricsLongValue;
 import org.apache.hadoop.metrics.util.MetricsRegistry;
+import org.apache.hadoop.metrics.util.MetricsTimeVaryingLong;
+import org.apache.hadoop.metrics.util.MetricsTimeVaryingRate;
 
 
 /**
@@ -46,6 +51,31 @@ public class MasterMetrics implements Updater {
   private final MetricsRate cluster_requests =
     new MetricsRate("cluster_requests", registry);
 
+  /*
+   * Time it took this master to bring the cluster up, from its start until
+   * all user regions were assigned, in milliseconds
+   */
+  private final MetricsLongValue clusterStartupTime =
+    new MetricsLongValue("clusterStartupTime", registry);
+
+  /*
+   * Time the last bulk assignment of user regions took, in milliseconds,
+   * and how many regions it assigned
+   */
+  private final MetricsLongValue bulkAssignmentTime =
+    new MetricsLongValue("bulkAssignmentTime", registry);
+  private final MetricsIntValue bulkAssignmentRegions =
+    new MetricsIntValue("bulkAssignmentRegions", registry);
+
+  /*
+   * Time of the RPCs editing catalog rows, and how many RPCs were saved by
+   * editing many rows at once
+   */
+  private final MetricsTimeVaryingRate catalogEditTime =
+    new MetricsTimeVaryingRate("catalogEditTime", registry);
+  private final MetricsTimeVaryingLong catalogEditRpcsSaved =
+    new MetricsTimeVaryingLong("catalogEditRpcsSaved", registry);
+
   public MasterMetrics(final String name) {
     MetricsContext context = MetricsUtil.getContext("hbase");
     metricsRecord = MetricsUtil.createRecord(context, "master");
@@ -72,12 +102,23 @@ public class MasterMetrics implements Updater {
   public void doUpdates(MetricsContext unused) {
     synchronized (this) {
       this.cluster_requests.pushMetric(metricsRecord);
+      this.clusterStartupTime.pushMetric(metricsRecord);
+      this.bulkAssignmentTime.pushMetric(metricsRecord);
+      this.bulkAssignmentRegions.pushMetric(metricsRecord);
+      long edits = MetaEditor.getEdits();
+      int ops = (int)MetaEditor.getEditOps();
+      if (ops != 0) {
+        this.catalogEditTime.inc(ops, MetaEditor.getEditTime());
+        this.catalogEditRpcsSaved.inc(edits - ops);
+      }
+      this.catalogEditTime.pushMetric(metricsRecord);
+      this.catalogEditRpcsSaved.pushMetric(metricsRecord);
     }
     this.metricsRecord.update();
   }
 
   public void resetAllMinMax() {
-    // Nothing to do
+    this.catalogEditTime.resetMinMax();
   }
 
   /**
@@ -93,4 +134,20 @@ public class MasterMetrics implements Updater {
   public void incrementRequests(final int inc) {
     this.cluster_requests.inc(inc);
   }
+
+  /**
+   * @param time How long it took to bring the cluster up, in milliseconds
+   */
+  public void setClusterStartupTime(final long time) {
+    this.clusterStartupTime.set(time);
+  }
+
+  /**
+   * @param regions How many regions were bulk assigned
+   * @param time How long it took to assign them, in milliseconds
+   */
+  public void setBulkAssignment(final int regions, final long time) {
+    this.bulkAssignmentRegions.set(regions);
+    this.bulkAssignmentTime.set(time);
+  }
 }
\ No newline at end of file
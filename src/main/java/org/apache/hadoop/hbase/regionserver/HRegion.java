@@ -20,9 +20,9 @@
 package org.apache.hadoop.hbase.regionserver;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Constructor;
-import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -34,7 +34,15 @@ import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -63,8 +71,6 @@ import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.RowLock;
 import org.apache.hadoop.hbase.client.Scan;
-import org.apache.hadoop.hbase.filter.Filter;
-import org.apache.hadoop.hbase.filter.IncompatibleFilterException;
 import org.apache.hadoop.hbase.io.HeapSize;
 import org.apache.hadoop.hbase.io.hfile.BlockCache;
 import org.apache.hadoop.hbase.ipc.HRegionInterface;
@@ -82,6 +88,7 @@ import org.apache.hadoop.util.Progressable;
 import org.apache.hadoop.util.StringUtils;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * HRegion stores data for a certain region of a table.  It stores all columns
@@ -123,6 +130,12 @@ public class HRegion implements HeapSize { // , Writable{
   public static final Log LOG = LogFactory.getLog(HRegion.class);
   static final String MERGEDIR = "merges";
 
+  // For measuring latency of region opens and closes
+  private static final AtomicLong openOps = new AtomicLong();
+  private static final AtomicLong openTime = new AtomicLong();
+  private static final AtomicLong closeOps = new AtomicLong();
+  private static final AtomicLong closeTime = new AtomicLong();
+
   final AtomicBoolean closed = new AtomicBoolean(false);
   /* Closing can take some time; use the closing flag if there is stuff we don't
    * want to do while in closing state; e.g. like offer this region up to the
@@ -153,6 +166,10 @@ public class HRegion implements HeapSize { // , Writable{
 
   final AtomicLong memstoreSize = new AtomicLong(0);
 
+  // Number of reads and writes served since the region was opened, reported
+  // to the master so it can balance on request rates
+  final AtomicLong requestsCount = new AtomicLong(0);
+
   /**
    * The directory for the table this region is part of.
    * This directory contains the directory for this region.
@@ -315,6 +332,7 @@ public class HRegion implements HeapSize { // , Writable{
    */
   public long initialize(final Progressable reporter)
   throws IOException {
+    long startTime = EnvironmentEdgeManager.currentTimeMillis();
     // A region can be reopened if failed a split; reset flags
     this.closing.set(false);
     this.closed.set(false);
@@ -325,14 +343,37 @@ public class HRegion implements HeapSize { // , Writable{
     // Remove temporary data left over from old regions
     cleanupTmpDir();
 
-    // Load in all the HStores.  Get maximum seqid.
+    // Load in all the HStores, in parallel.  Get maximum seqid.
     long maxSeqId = -1;
-    for (HColumnDescriptor c : this.regionInfo.getTableDesc().getFamilies()) {
-      Store store = instantiateHStore(this.tableDir, c);
-      this.stores.put(c.getName(), store);
-      long storeSeqId = store.getMaxSequenceId();
-      if (storeSeqId > maxSeqId) {
-        maxSeqId = storeSeqId;
+    Collection<HColumnDescriptor> families =
+      this.regionInfo.getTableDesc().getFamilies();
+    if (!families.isEmpty()) {
+      ThreadPoolExecutor pool = getStoreOpenAndCloseThreadPool(
+        "StoreOpener-" + this.regionInfo.getEncodedName());
+      try {
+        CompletionService<Store> completionService =
+          new ExecutorCompletionService<Store>(pool);
+        for (final HColumnDescriptor c : families) {
+          completionService.submit(new Callable<Store>() {
+            public Store call() throws IOException {
+              return instantiateHStore(tableDir, c);
+            }
+          });
+        }
+        for (int i = 0; i < families.size(); i++) {
+          Store store = waitFor(completionService.take());
+          this.stores.put(store.getFamily().getName(), store);
+          long storeSeqId = store.getMaxSequenceId();
+          if (storeSeqId > maxSeqId) {
+            maxSeqId = storeSeqId;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted opening stores of " +
+          this);
+      } finally {
+        pool.shutdownNow();
       }
     }
     // Recover any edits if available.
@@ -354,10 +395,111 @@ public class HRegion implements HeapSize { // , Writable{
     // Use maximum of log sequenceid or that which was found in stores
     // (particularly if no recovered edits, seqid will be -1).
     long nextSeqid = maxSeqId + 1;
-    LOG.info("Onlined " + this.toString() + "; next sequenceid=" + nextSeqid);
+    long took = EnvironmentEdgeManager.currentTimeMillis() - startTime;
+    openTime.addAndGet(took);
+    openOps.incrementAndGet();
+    LOG.info("Onlined " + this.toString() + "; next sequenceid=" + nextSeqid +
+      ", took " + took + "ms");
     return nextSeqid;
   }
 
+  /**
+   * @return Count of region opens since last call, resets the count
+   */
+  public static long getOpenOps() {
+    return openOps.getAndSet(0);
+  }
+
+  /**
+   * @return Milliseconds spent opening regions since last call, resets the
+   * time
+   */
+  public static long getOpenTime() {
+    return openTime.getAndSet(0);
+  }
+
+  /**
+   * @return Count of region closes since last call, resets the count
+   */
+  public static long getCloseOps() {
+    return closeOps.getAndSet(0);
+  }
+
+  /**
+   * @return Milliseconds spent closing regions since last call, resets the
+   * time
+   */
+  public static long getCloseTime() {
+    return closeTime.getAndSet(0);
+  }
+
+  /*
+   * @param threadNamePrefix
+   * @return Pool to open or close the stores of this region in parallel,
+   * shut it down when done.
+   */
+  private ThreadPoolExecutor getStoreOpenAndCloseThreadPool(
+      final String threadNamePrefix) {
+    int numStores =
+      Math.max(1, this.regionInfo.getTableDesc().getFamilies().size());
+    return getOpenAndCloseThreadPool(
+      Math.min(numStores, getOpenAndCloseThreadsMax()), threadNamePrefix);
+  }
+
+  /**
+   * Stores share the threads allowed to the region to open or close their
+   * store files.
+   * @param threadNamePrefix
+   * @return Pool to open or close the files of one store in parallel, shut it
+   * down when done.
+   */
+  ThreadPoolExecutor getStoreFileOpenAndCloseThreadPool(
+      final String threadNamePrefix) {
+    int numStores =
+      Math.max(1, this.regionInfo.getTableDesc().getFamilies().size());
+    return getOpenAndCloseThreadPool(
+      Math.max(1, getOpenAndCloseThreadsMax() / numStores), threadNamePrefix);
+  }
+
+  private int getOpenAndCloseThreadsMax() {
+    return Math.max(1,
+      this.conf.getInt("hbase.hstore.open.and.close.threads.max", 10));
+  }
+
+  private static ThreadPoolExecutor getOpenAndCloseThreadPool(
+      final int maxThreads, final String threadNamePrefix) {
+    return new ThreadPoolExecutor(maxThreads, maxThreads, 30, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<Runnable>(),
+      new ThreadFactoryBuilder()
+        .setNameFormat(threadNamePrefix + "-%d")
+        .setDaemon(true)
+        .build());
+  }
+
+  /**
+   * Get the result of a store or store file open or close task, rethrowing
+   * what it threw.
+   * @param future
+   * @return The result of the task
+   * @throws IOException
+   */
+  static <V> V waitFor(final Future<V> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting on store task");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException)cause;
+      }
+      IOException ioe = new IOException("Store task failed");
+      ioe.initCause(cause);
+      throw ioe;
+    }
+  }
+
   /*
    * Move any passed HStore files into place (if any).  Used to pick up split
    * files and any merges from splits and merges dirs.
@@ -465,6 +607,7 @@ public class HRegion implements HeapSize { // , Writable{
    */
   public List<StoreFile> close(final boolean abort)
   throws IOException {
+    long startTime = EnvironmentEdgeManager.currentTimeMillis();
     if (isClosed()) {
       LOG.warn("Region " + this + " already closed");
       return null;
@@ -510,11 +653,36 @@ public class HRegion implements HeapSize { // , Writable{
       }
 
       List<StoreFile> result = new ArrayList<StoreFile>();
-      for (Store store : stores.values()) {
-        result.addAll(store.close());
+      if (!stores.isEmpty()) {
+        // Close the stores in parallel
+        ThreadPoolExecutor pool = getStoreOpenAndCloseThreadPool(
+          "StoreCloser-" + this.regionInfo.getEncodedName());
+        try {
+          CompletionService<List<StoreFile>> completionService =
+            new ExecutorCompletionService<List<StoreFile>>(pool);
+          for (final Store store : stores.values()) {
+            completionService.submit(new Callable<List<StoreFile>>() {
+              public List<StoreFile> call() throws IOException {
+                return store.close();
+              }
+            });
+          }
+          for (int i = 0; i < stores.size(); i++) {
+            result.addAll(waitFor(completionService.take()));
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted closing stores of " +
+            this);
+        } finally {
+          pool.shutdownNow();
+        }
       }
       this.closed.set(true);
-      LOG.info("Closed " + this);
+      long took = EnvironmentEdgeManager.currentTimeMillis() - startTime;
+      closeTime.addAndGet(took);
+      closeOps.incrementAndGet();
+      LOG.info("Closed " + this + ", took " + took + "ms");
       return result;
     } finally {
       lock.writeLock().unlock();
@@ -1098,6 +1266,7 @@ public class HRegion implements HeapSize { // , Writable{
     checkResources();
     Integer lid = null;
     startRegionOperation();
+    this.requestsCount.incrementAndGet();
     try {
       byte [] row = delete.getRow();
       // If we did not pass an existing row lock, obtain a new one
@@ -1243,6 +1412,7 @@ public class HRegion implements HeapSize { // , Writable{
     // will be extremely rare; we'll deal with it when it happens.
     checkResources();
     startRegionOperation();
+    this.requestsCount.incrementAndGet();
     try {
       // We obtain a per-row lock, so other clients will block while one client
       // performs an update. The read lock is released by the client calling
@@ -1307,7 +1477,8 @@ public class HRegion implements HeapSize { // , Writable{
   public OperationStatusCode[] put(Pair<Put, Integer>[] putsAndLocks) throws IOException {
     BatchOperationInProgress<Pair<Put, Integer>> batchOp =
       new BatchOperationInProgress<Pair<Put,Integer>>(putsAndLocks);
-    
+    this.requestsCount.addAndGet(putsAndLocks.length);
+
     while (!batchOp.isDone()) {
       checkReadOnly();
       checkResources();
@@ -1457,6 +1628,7 @@ public class HRegion implements HeapSize { // , Writable{
       throw new IOException("Action must be Put or Delete");
 
     startRegionOperation();
+    this.requestsCount.incrementAndGet();
     try {
       RowLock lock = isPut ? ((Put)w).getRowLock() : ((Delete)w).getRowLock();
       Get get = new Get(row, lock);
@@ -2127,26 +2299,17 @@ public class HRegion implements HeapSize { // , Writable{
   class RegionScanner implements InternalScanner {
     // Package local for testability
     KeyValueHeap storeHeap = null;
-    private final byte [] stopRow;
-    private Filter filter;
+    private final RowAssembler rows;
     private List<KeyValue> results = new ArrayList<KeyValue>();
     private int batch;
-    private int isScan;
+    private final long maxResultSize;
     private boolean filterClosed = false;
     private long readPt;
 
     RegionScanner(Scan scan, List<KeyValueScanner> additionalScanners) throws IOException {
       //DebugPrint.println("HRegionScanner.<init>");
-      this.filter = scan.getFilter();
       this.batch = scan.getBatch();
-      if (Bytes.equals(scan.getStopRow(), HConstants.EMPTY_END_ROW)) {
-        this.stopRow = null;
-      } else {
-        this.stopRow = scan.getStopRow();
-      }
-      // If we are doing a get, we want to be [startRow,endRow] normally
-      // it is [startRow,endRow) and if startRow=endRow we get nothing.
-      this.isScan = scan.isGetScan() ? -1 : 0;
+      this.maxResultSize = scan.getMaxResultSize();
 
       this.readPt = ReadWriteConsistencyControl.resetThreadReadPoint(rwcc);
 
@@ -2161,21 +2324,13 @@ public class HRegion implements HeapSize { // , Writable{
         scanners.add(store.getScanner(scan, entry.getValue()));
       }
       this.storeHeap = new KeyValueHeap(scanners, comparator);
+      this.rows = new RowAssembler(this.storeHeap, scan, comparator);
     }
 
     RegionScanner(Scan scan) throws IOException {
       this(scan, null);
     }
 
-    /**
-     * Reset both the filter and the old filter.
-     */
-    protected void resetFilters() {
-      if (filter != null) {
-        filter.reset();
-      }
-    }
-
     public synchronized boolean next(List<KeyValue> outResults, int limit)
         throws IOException {
       if (this.filterClosed) {
@@ -2184,16 +2339,17 @@ public class HRegion implements HeapSize { // , Writable{
             "or a lengthy garbage collection");
       }
       startRegionOperation();
+      requestsCount.incrementAndGet();
       try {
 
         // This could be a new thread from the last time we called next().
         ReadWriteConsistencyControl.setThreadReadPoint(this.readPt);
 
         results.clear();
-        boolean returnResult = nextInternal(limit);
+        boolean returnResult = rows.next(results, limit);
 
         outResults.addAll(results);
-        resetFilters();
+        rows.resetFilters();
         if (isFilterDone()) {
           return false;
         }
@@ -2209,92 +2365,19 @@ public class HRegion implements HeapSize { // , Writable{
       return next(outResults, batch);
     }
 
+    /**
+     * @return Maximum bytes of rows to return per batch as set on the Scan,
+     * or -1 if not set.
+     */
+    long getMaxResultSize() {
+      return this.maxResultSize;
+    }
+
     /*
      * @return True if a filter rules the scanner is over, done.
      */
     synchronized boolean isFilterDone() {
-      return this.filter != null && this.filter.filterAllRemaining();
-    }
-
-    private boolean nextInternal(int limit) throws IOException {
-      while (true) {
-        byte [] currentRow = peekRow();
-        if (isStopRow(currentRow)) {
-          if (filter != null && filter.hasFilterRow()) {
-            filter.filterRow(results);
-          }
-          if (filter != null && filter.filterRow()) {
-            results.clear();
-          }
-
-          return false;
-        } else if (filterRowKey(currentRow)) {
-          nextRow(currentRow);
-        } else {
-          byte [] nextRow;
-          do {
-            this.storeHeap.next(results, limit - results.size());
-            if (limit > 0 && results.size() == limit) {
-              if (this.filter != null && filter.hasFilterRow()) throw new IncompatibleFilterException(
-                  "Filter with filterRow(List<KeyValue>) incompatible with scan with limit!");
-              return true; // we are expecting more yes, but also limited to how many we can return.
-            }
-          } while (Bytes.equals(currentRow, nextRow = peekRow()));
-
-          final boolean stopRow = isStopRow(nextRow);
-
-          // now that we have an entire row, lets process with a filters:
-
-          // first filter with the filterRow(List)
-          if (filter != null && filter.hasFilterRow()) {
-            filter.filterRow(results);
-          }
-
-          if (results.isEmpty() || filterRow()) {
-            // this seems like a redundant step - we already consumed the row
-            // there're no left overs.
-            // the reasons for calling this method are:
-            // 1. reset the filters.
-            // 2. provide a hook to fast forward the row (used by subclasses)
-            nextRow(currentRow);
-
-            // This row was totally filtered out, if this is NOT the last row,
-            // we should continue on.
-
-            if (!stopRow) continue;
-          }
-          return !stopRow;
-        }
-      }
-    }
-
-    private boolean filterRow() {
-      return filter != null
-          && filter.filterRow();
-    }
-    private boolean filterRowKey(byte[] row) {
-      return filter != null
-          && filter.filterRowKey(row, 0, row.length);
-    }
-
-    protected void nextRow(byte [] currentRow) throws IOException {
-      while (Bytes.equals(currentRow, peekRow())) {
-        this.storeHeap.next(MOCKED_LIST);
-      }
-      results.clear();
-      resetFilters();
-    }
-
-    private byte[] peekRow() {
-      KeyValue kv = this.storeHeap.peek();
-      return kv == null ? null : kv.getRow();
-    }
-
-    private boolean isStopRow(byte [] currentRow) {
-      return currentRow == null ||
-          (stopRow != null &&
-          comparator.compareRows(stopRow, 0, stopRow.length,
-              currentRow, 0, currentRow.length) <= isScan);
+      return rows.isFilterDone();
     }
 
     public synchronized void close() {
@@ -2821,6 +2904,7 @@ public class HRegion implements HeapSize { // , Writable{
    * @throws IOException read exceptions
    */
   public Result get(final Get get, final Integer lockid) throws IOException {
+    this.requestsCount.incrementAndGet();
     // Verify families are all valid
     if (get.hasFamilies()) {
       for (byte [] family: get.familySet()) {
@@ -2873,6 +2957,7 @@ public class HRegion implements HeapSize { // , Writable{
     // Lock row
     long result = amount;
     startRegionOperation();
+    this.requestsCount.incrementAndGet();
     try {
       Integer lid = obtainRowLock(row);
       try {
@@ -2943,11 +3028,11 @@ public class HRegion implements HeapSize { // , Writable{
 
   public static final long FIXED_OVERHEAD = ClassSize.align(
       (4 * Bytes.SIZEOF_LONG) + Bytes.SIZEOF_BOOLEAN +
-      (18 * ClassSize.REFERENCE) + ClassSize.OBJECT + Bytes.SIZEOF_INT);
+      (19 * ClassSize.REFERENCE) + ClassSize.OBJECT + Bytes.SIZEOF_INT);
 
   public static final long DEEP_OVERHEAD = ClassSize.align(FIXED_OVERHEAD +
       ClassSize.OBJECT + (2 * ClassSize.ATOMIC_BOOLEAN) +
-      ClassSize.ATOMIC_LONG + ClassSize.ATOMIC_INTEGER +
+      (2 * ClassSize.ATOMIC_LONG) + ClassSize.ATOMIC_INTEGER +
 
       // Using TreeMap for TreeSet
       ClassSize.TREEMAP +
@@ -3088,32 +3173,6 @@ public class HRegion implements HeapSize { // , Writable{
     lock.readLock().unlock();
   }
 
-  /**
-   * A mocked list implementaion - discards all updates.
-   */
-  private static final List<KeyValue> MOCKED_LIST = new AbstractList<KeyValue>() {
-
-    @Override
-    public void add(int index, KeyValue element) {
-      // do nothing
-    }
-
-    @Override
-    public boolean addAll(int index, Collection<? extends KeyValue> c) {
-      return false; // this list is never changed as a result of an update
-    }
-
-    @Override
-    public KeyValue get(int index) {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public int size() {
-      return 0;
-    }
-  };
-
 
   /**
    * Facility for dumping and compacting catalog tables.
@@ -42,6 +42,7 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -79,6 +80,7 @@ import org.apache.hadoop.hbase.UnknownScannerException;
 import org.apache.hadoop.hbase.YouAreDeadException;
 import org.apache.hadoop.hbase.HConstants.OperationStatusCode;
 import org.apache.hadoop.hbase.catalog.CatalogTracker;
+import org.apache.hadoop.hbase.catalog.MetaEditBatcher;
 import org.apache.hadoop.hbase.catalog.MetaEditor;
 import org.apache.hadoop.hbase.catalog.RootLocationEditor;
 import org.apache.hadoop.hbase.client.Delete;
@@ -188,6 +190,9 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
   // Leases
   private Leases leases;
 
+  // Computes next batches for scanners that asked for prefetching
+  private ScannerPrefetcher scannerPrefetcher;
+
   // Request counter
   private volatile AtomicInteger requestCount = new AtomicInteger();
 
@@ -238,6 +243,9 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
   // catalog tracker
   private CatalogTracker catalogTracker;
 
+  // Groups the META updates of regions opened at the same time
+  private MetaEditBatcher metaEditBatcher;
+
   // Cluster Status Tracker
   private ClusterStatusTracker clusterStatusTracker;
 
@@ -357,8 +365,11 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
 
     // create the catalog tracker and start it
     this.catalogTracker = new CatalogTracker(this.zooKeeper, this.connection,
-      this, this.conf.getInt("hbase.regionserver.catalog.timeout", -1));
+      this, this.conf.getInt("hbase.regionserver.catalog.timeout", -1),
+      this.conf.getLong("hbase.catalog.verification.lease",
+        CatalogTracker.DEFAULT_VERIFICATION_LEASE));
     catalogTracker.start();
+    this.metaEditBatcher = new MetaEditBatcher(this.catalogTracker, this.conf);
 
     this.clusterStatusTracker = new ClusterStatusTracker(this.zooKeeper, this);
     this.clusterStatusTracker.start();
@@ -391,6 +402,9 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
         HConstants.HBASE_REGIONSERVER_LEASE_PERIOD_KEY,
         HConstants.DEFAULT_HBASE_REGIONSERVER_LEASE_PERIOD),
         this.threadWakeFrequency);
+
+    this.scannerPrefetcher = new ScannerPrefetcher(this.conf,
+        this.serverInfo.getServerName());
   }
 
   /**
@@ -501,6 +515,8 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
       closeAllScanners();
       LOG.info("stopping server at: " + this.serverInfo.getServerName());
     }
+    // After closeAllScanners; cancel waits on prefetches the pool must run.
+    this.scannerPrefetcher.shutdown();
     waitOnAllRegionsToClose();
 
     // Make sure the proxy is down.
@@ -606,6 +622,7 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
     // exception next time they come in.
     for (Map.Entry<String, InternalScanner> e : this.scanners.entrySet()) {
       try {
+        this.scannerPrefetcher.cancel(e.getKey());
         e.getValue().close();
       } catch (IOException ioe) {
         LOG.warn("Closing scanner " + e.getKey(), ioe);
@@ -739,7 +756,8 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
       }
     }
     return new HServerLoad.RegionLoad(name, stores, storefiles,
-        storefileSizeMB, memstoreSizeMB, storefileIndexSizeMB);
+        storefileSizeMB, memstoreSizeMB, storefileIndexSizeMB,
+        r.requestsCount.get());
   }
 
   /**
@@ -1161,11 +1179,13 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
       // TODO: doh, this has weird naming between RootEditor/MetaEditor
       MetaEditor.updateMetaLocation(ct, r.getRegionInfo(), getServerInfo());
     } else {
+      // Batched with the regions other handlers are opening
       if (daughter) {
         // If daughter of a split, update whole row, not just location.
-        MetaEditor.addDaughter(ct, r.getRegionInfo(), getServerInfo());
+        this.metaEditBatcher.addDaughter(r.getRegionInfo(), getServerInfo());
       } else {
-        MetaEditor.updateRegionLocation(ct, r.getRegionInfo(), getServerInfo());
+        this.metaEditBatcher.updateRegionLocation(r.getRegionInfo(),
+          getServerInfo());
       }
     }
   }
@@ -1546,17 +1566,28 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
     requestCount.incrementAndGet();
     try {
       HRegion r = getRegion(regionName);
-      return addScanner(r.getScanner(scan));
+      return addScanner(r.getScanner(scan), scan.getPrefetching());
     } catch (Throwable t) {
       throw convertThrowableToIOE(cleanup(t, "Failed openScanner"));
     }
   }
 
-  protected long addScanner(InternalScanner s) throws LeaseStillHeldException {
+  /**
+   * @param s
+   * @param prefetching True if the next batch should be computed in the
+   * background after each call to next.
+   * @return The id of the new scanner
+   * @throws LeaseStillHeldException
+   */
+  protected long addScanner(InternalScanner s, boolean prefetching)
+  throws LeaseStillHeldException {
     long scannerId = -1L;
     scannerId = rand.nextLong();
     String scannerName = String.valueOf(scannerId);
     scanners.put(scannerName, s);
+    if (prefetching) {
+      this.scannerPrefetcher.register(scannerName);
+    }
     this.leases.createLease(scannerName, new ScannerListener(scannerName));
     return scannerId;
   }
@@ -1569,10 +1600,11 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
     return res[0];
   }
 
-  public Result[] next(final long scannerId, int nbRows) throws IOException {
+  public Result[] next(final long scannerId, final int nbRows)
+  throws IOException {
     try {
       String scannerName = String.valueOf(scannerId);
-      InternalScanner s = this.scanners.get(scannerName);
+      final InternalScanner s = this.scanners.get(scannerName);
       if (s == null) {
         throw new UnknownScannerException("Name: " + scannerName);
       }
@@ -1585,42 +1617,67 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
         throw e;
       }
       this.leases.renewLease(scannerName);
-      List<Result> results = new ArrayList<Result>(nbRows);
-      long currentScanResultSize = 0;
-      List<KeyValue> values = new ArrayList<KeyValue>();
-      for (int i = 0; i < nbRows
-          && currentScanResultSize < maxScannerResultSize; i++) {
-        requestCount.incrementAndGet();
-        // Collect values to be returned here
-        boolean moreRows = s.next(values);
-        if (!values.isEmpty()) {
-          for (KeyValue kv : values) {
-            currentScanResultSize += kv.heapSize();
+      // If a batch was prefetched it was computed with the nbRows of the
+      // previous call; clients use the same caching throughout a scan.
+      Result[] results = this.scannerPrefetcher.hasPrefetched(scannerName)?
+        this.scannerPrefetcher.take(scannerName): nextBatch(s, nbRows);
+      if (results != null && results.length > 0) {
+        this.scannerPrefetcher.prefetch(scannerName, new Callable<Result[]>() {
+          public Result[] call() throws IOException {
+            return nextBatch(s, nbRows);
           }
-          results.add(new Result(values));
-        }
-        if (!moreRows) {
-          break;
-        }
-        values.clear();
+        }, results);
       }
-      // Below is an ugly hack where we cast the InternalScanner to be a
-      // HRegion.RegionScanner. The alternative is to change InternalScanner
-      // interface but its used everywhere whereas we just need a bit of info
-      // from HRegion.RegionScanner, IF its filter if any is done with the scan
-      // and wants to tell the client to stop the scan. This is done by passing
-      // a null result.
-      return ((HRegion.RegionScanner) s).isFilterDone() && results.isEmpty() ? null
-          : results.toArray(new Result[0]);
+      return results;
     } catch (Throwable t) {
       if (t instanceof NotServingRegionException) {
         String scannerName = String.valueOf(scannerId);
         this.scanners.remove(scannerName);
+        this.scannerPrefetcher.cancel(scannerName);
       }
       throw convertThrowableToIOE(cleanup(t));
     }
   }
 
+  /*
+   * Get up to <code>nbRows</code> rows from the scanner, stopping early once
+   * the rows add up to the Scan's max result size, or ours if it set none.
+   * @return Rows found, or null if the scanner's filter is done.
+   */
+  private Result[] nextBatch(final InternalScanner s, final int nbRows)
+  throws IOException {
+    // Below is an ugly hack where we cast the InternalScanner to be a
+    // HRegion.RegionScanner. The alternative is to change InternalScanner
+    // interface but its used everywhere whereas we just need a bit of info
+    // from HRegion.RegionScanner: the Scan's max result size and, IF its
+    // filter if any is done with the scan and wants to tell the client to
+    // stop the scan, that it is done. This is done by passing a null result.
+    HRegion.RegionScanner rs = (HRegion.RegionScanner) s;
+    long maxResultSize = rs.getMaxResultSize() > 0?
+      rs.getMaxResultSize(): this.maxScannerResultSize;
+    List<Result> results = new ArrayList<Result>();
+    long currentScanResultSize = 0;
+    List<KeyValue> values = new ArrayList<KeyValue>();
+    for (int i = 0; i < nbRows
+        && currentScanResultSize < maxResultSize; i++) {
+      requestCount.incrementAndGet();
+      // Collect values to be returned here
+      boolean moreRows = s.next(values);
+      if (!values.isEmpty()) {
+        for (KeyValue kv : values) {
+          currentScanResultSize += kv.heapSize();
+        }
+        results.add(new Result(values));
+      }
+      if (!moreRows) {
+        break;
+      }
+      values.clear();
+    }
+    return rs.isFilterDone() && results.isEmpty() ? null
+        : results.toArray(new Result[0]);
+  }
+
   public void close(final long scannerId) throws IOException {
     try {
       checkOpen();
@@ -1628,6 +1685,7 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
       String scannerName = String.valueOf(scannerId);
       InternalScanner s = scanners.remove(scannerName);
       if (s != null) {
+        this.scannerPrefetcher.cancel(scannerName);
         s.close();
         this.leases.cancelLease(scannerName);
       }
@@ -1652,6 +1710,7 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
       InternalScanner s = scanners.remove(this.scannerName);
       if (s != null) {
         try {
+          scannerPrefetcher.cancel(this.scannerName);
           s.close();
         } catch (IOException e) {
           LOG.error("Closing scanner", e);
@@ -1846,6 +1905,12 @@ public class HRegionServer implements HRegionInterface, HBaseRPCErrorHandler,
     }
   }
 
+  @Override
+  public void openRegions(List<HRegionInfo> regions) {
+    LOG.info("Received request to open " + regions.size() + " region(s)");
+    for (HRegionInfo region: regions) openRegion(region);
+  }
+
   @Override
   public boolean closeRegion(HRegionInfo region)
   throws NotServingRegionException {
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.IncompatibleFilterException;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Gathers the KeyValues coming out of a {@link KeyValueHeap} into rows and
+ * runs each row past the scan's filter, up to the scan's stop row.
+ * <p>
+ * Used by the region's own scanner and by {@link StoreFileRegionScanner},
+ * which only differ in the scanners their heap merges.
+ */
+class RowAssembler {
+  private final KeyValueHeap storeHeap;
+  private final Filter filter;
+  private final byte [] stopRow;
+  private final KeyValue.KVComparator comparator;
+  private final int isScan;
+
+  /**
+   * @param storeHeap merged scanners of the families read
+   * @param scan the spec, gives the filter and the stop row
+   * @param comparator to compare rows with
+   */
+  RowAssembler(final KeyValueHeap storeHeap, final Scan scan,
+      final KeyValue.KVComparator comparator) {
+    this.storeHeap = storeHeap;
+    this.filter = scan.getFilter();
+    if (Bytes.equals(scan.getStopRow(), HConstants.EMPTY_END_ROW)) {
+      this.stopRow = null;
+    } else {
+      this.stopRow = scan.getStopRow();
+    }
+    this.comparator = comparator;
+    // If we are doing a get, we want to be [startRow,endRow] normally
+    // it is [startRow,endRow) and if startRow=endRow we get nothing.
+    this.isScan = scan.isGetScan() ? -1 : 0;
+  }
+
+  /**
+   * Resets the filter for the next row.
+   */
+  void resetFilters() {
+    if (filter != null) {
+      filter.reset();
+    }
+  }
+
+  /*
+   * @return True if a filter rules the scanner is over, done.
+   */
+  boolean isFilterDone() {
+    return this.filter != null && this.filter.filterAllRemaining();
+  }
+
+  /**
+   * Adds the next row that gets past the filter to <code>results</code>, or
+   * its first <code>limit</code> values.
+   * @param results empty list to add to
+   * @param limit most values to add, or -1 for the whole row
+   * @return true if there are more rows
+   * @throws IOException e
+   */
+  boolean next(List<KeyValue> results, int limit) throws IOException {
+    while (true) {
+      byte [] currentRow = peekRow();
+      if (isStopRow(currentRow)) {
+        if (filter != null && filter.hasFilterRow()) {
+          filter.filterRow(results);
+        }
+        if (filter != null && filter.filterRow()) {
+          results.clear();
+        }
+
+        return false;
+      } else if (filterRowKey(currentRow)) {
+        nextRow(currentRow, results);
+      } else {
+        byte [] nextRow;
+        do {
+          this.storeHeap.next(results, limit - results.size());
+          if (limit > 0 && results.size() == limit) {
+            if (this.filter != null && filter.hasFilterRow()) throw new IncompatibleFilterException(
+                "Filter with filterRow(List<KeyValue>) incompatible with scan with limit!");
+            return true; // we are expecting more yes, but also limited to how many we can return.
+          }
+        } while (Bytes.equals(currentRow, nextRow = peekRow()));
+
+        final boolean stopRow = isStopRow(nextRow);
+
+        // now that we have an entire row, lets process with a filters:
+
+        // first filter with the filterRow(List)
+        if (filter != null && filter.hasFilterRow()) {
+          filter.filterRow(results);
+        }
+
+        if (results.isEmpty() || filterRow()) {
+          // this seems like a redundant step - we already consumed the row
+          // there're no left overs, but it resets the filters.
+          nextRow(currentRow, results);
+
+          // This row was totally filtered out, if this is NOT the last row,
+          // we should continue on.
+
+          if (!stopRow) continue;
+        }
+        return !stopRow;
+      }
+    }
+  }
+
+  private boolean filterRow() {
+    return filter != null
+        && filter.filterRow();
+  }
+  private boolean filterRowKey(byte[] row) {
+    return filter != null
+        && filter.filterRowKey(row, 0, row.length);
+  }
+
+  private void nextRow(byte [] currentRow, List<KeyValue> results)
+  throws IOException {
+    while (Bytes.equals(currentRow, peekRow())) {
+      this.storeHeap.next(MOCKED_LIST);
+    }
+    results.clear();
+    resetFilters();
+  }
+
+  private byte[] peekRow() {
+    KeyValue kv = this.storeHeap.peek();
+    return kv == null ? null : kv.getRow();
+  }
+
+  private boolean isStopRow(byte [] currentRow) {
+    return currentRow == null ||
+        (stopRow != null &&
+        comparator.compareRows(stopRow, 0, stopRow.length,
+            currentRow, 0, currentRow.length) <= isScan);
+  }
+
+  /**
+   * A mocked list implementaion - discards all updates.
+   */
+  private static final List<KeyValue> MOCKED_LIST = new AbstractList<KeyValue>() {
+
+    @Override
+    public void add(int index, KeyValue element) {
+      // do nothing
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends KeyValue> c) {
+      return false; // this list is never changed as a result of an update
+    }
+
+    @Override
+    public KeyValue get(int index) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int size() {
+      return 0;
+    }
+  };
+}
@@ -0,0 +1,310 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Computes the next batch of a scanner in the background while the client
+ * works on the batch it was just handed.
+ * <p>
+ * Scanners opened with {@link org.apache.hadoop.hbase.client.Scan#getPrefetching()}
+ * are registered here.  After each call to next, the regionserver schedules
+ * the following batch with {@link #prefetch(String, Callable)}; the next call
+ * picks it up with {@link #take(String)}, waiting for it if it is still
+ * running.  At most one batch per scanner is outstanding, so the scanner is
+ * never used from two threads at once.
+ * <p>
+ * Prefetched results sit on the heap until the client comes for them.  Total
+ * bytes buffered across all scanners is tracked and no new prefetch is
+ * started while it is over <code>hbase.regionserver.scanner.prefetch.max.size</code>;
+ * the client then just gets its batch computed inline, as without prefetch.
+ * A prefetch reserves the size of the scanner's previous batch before it is
+ * submitted, so scanners prefetching at the same time cannot all slip in
+ * under the limit; the reservation is trued up once the batch is computed.
+ */
+class ScannerPrefetcher {
+  static final Log LOG = LogFactory.getLog(ScannerPrefetcher.class);
+
+  static final String THREADS_KEY =
+    "hbase.regionserver.scanner.prefetch.threads";
+  static final int DEFAULT_THREADS = 10;
+  static final String MAX_SIZE_KEY =
+    "hbase.regionserver.scanner.prefetch.max.size";
+  static final long DEFAULT_MAX_SIZE = 256 * 1024 * 1024;
+
+  private final ThreadPoolExecutor pool;
+  private final long maxBufferedSize;
+  private final AtomicLong bufferedSize = new AtomicLong(0);
+  private final Map<String, Slot> slots = new ConcurrentHashMap<String, Slot>();
+
+  /*
+   * Prefetch state of one scanner.  Guarded by itself.
+   */
+  private static class Slot {
+    private FutureTask<Batch> pending = null;
+    // Bytes reserved for the pending batch when it was scheduled.
+    private long reserved = 0;
+    private boolean closed = false;
+  }
+
+  /*
+   * A computed batch and the heap it occupies.
+   */
+  private static class Batch {
+    private final Result [] results;
+    private final long size;
+
+    Batch(final Result [] results, final long size) {
+      this.results = results;
+      this.size = size;
+    }
+  }
+
+  /**
+   * @param conf
+   * @param name Name of the server; used to name the prefetch threads.
+   */
+  ScannerPrefetcher(final Configuration conf, final String name) {
+    this.maxBufferedSize = conf.getLong(MAX_SIZE_KEY, DEFAULT_MAX_SIZE);
+    int threads = conf.getInt(THREADS_KEY, DEFAULT_THREADS);
+    ThreadFactoryBuilder builder = new ThreadFactoryBuilder();
+    builder.setNameFormat(name + ".scannerPrefetcher-%1$d");
+    builder.setDaemon(true);
+    this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<Runnable>(), builder.build());
+    this.pool.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Start prefetching for a newly opened scanner.
+   * @param scannerName
+   */
+  void register(final String scannerName) {
+    this.slots.put(scannerName, new Slot());
+  }
+
+  /**
+   * @param scannerName
+   * @return True if the scanner was registered and has not been cancelled.
+   */
+  boolean isRegistered(final String scannerName) {
+    return this.slots.containsKey(scannerName);
+  }
+
+  /**
+   * Schedule computing the next batch of a registered scanner.  Does nothing
+   * if the scanner is not registered, already has a batch outstanding, or if
+   * we are holding too much prefetched data already.
+   * @param scannerName
+   * @param next Computes the next batch from the scanner.
+   * @param previous The batch just handed to the client; the next one is
+   * expected to be about as big.
+   */
+  void prefetch(final String scannerName, final Callable<Result []> next,
+      final Result [] previous) {
+    final Slot slot = this.slots.get(scannerName);
+    if (slot == null) return;
+    final long reserved = heapSize(previous);
+    synchronized (slot) {
+      if (slot.closed || slot.pending != null) return;
+      if (!reserve(reserved)) {
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Not prefetching for scanner " + scannerName + "; " +
+            this.bufferedSize.get() + " bytes already buffered");
+        }
+        return;
+      }
+      FutureTask<Batch> task = new FutureTask<Batch>(new Callable<Batch>() {
+        public Batch call() throws Exception {
+          Result [] results = null;
+          long size = 0;
+          try {
+            // Cancelled while queued; leave the scanner to its closer.
+            synchronized (slot) {
+              if (slot.closed) return new Batch(null, 0);
+            }
+            results = next.call();
+            size = heapSize(results);
+          } finally {
+            bufferedSize.addAndGet(size - reserved);
+          }
+          return new Batch(results, size);
+        }
+      });
+      try {
+        this.pool.execute(task);
+        slot.pending = task;
+        slot.reserved = reserved;
+      } catch (RejectedExecutionException e) {
+        this.bufferedSize.addAndGet(-reserved);
+        LOG.debug("Prefetch rejected for scanner " + scannerName, e);
+      }
+    }
+  }
+
+  /*
+   * Reserve room for a prefetch if we are not over the limit already.
+   * @return True if reserved.
+   */
+  private boolean reserve(final long size) {
+    while (true) {
+      long current = this.bufferedSize.get();
+      if (current >= this.maxBufferedSize) return false;
+      if (this.bufferedSize.compareAndSet(current, current + size)) return true;
+    }
+  }
+
+  private static long heapSize(final Result [] results) {
+    long size = 0;
+    if (results != null) {
+      for (Result r: results) {
+        for (KeyValue kv: r.raw()) {
+          size += kv.heapSize();
+        }
+      }
+    }
+    return size;
+  }
+
+  /**
+   * @param scannerName
+   * @return True if there is a prefetched batch, possibly still being
+   * computed, waiting for this scanner.
+   */
+  boolean hasPrefetched(final String scannerName) {
+    Slot slot = this.slots.get(scannerName);
+    if (slot == null) return false;
+    synchronized (slot) {
+      return slot.pending != null;
+    }
+  }
+
+  /**
+   * Hand over the prefetched batch of a scanner, waiting for it to be
+   * computed if need be.  Only call if {@link #hasPrefetched(String)}.
+   * @param scannerName
+   * @return The batch, as HRegionServer#next would have returned it.
+   * @throws IOException If computing the batch failed; the exception thrown
+   * by the scanner is passed on as is if it was an IOException.
+   */
+  Result [] take(final String scannerName) throws IOException {
+    Slot slot = this.slots.get(scannerName);
+    if (slot == null) {
+      throw new IOException("No prefetch for scanner " + scannerName);
+    }
+    Future<Batch> future;
+    synchronized (slot) {
+      future = slot.pending;
+      slot.pending = null;
+    }
+    if (future == null) {
+      throw new IOException("No prefetch for scanner " + scannerName);
+    }
+    Batch batch = waitFor(future);
+    this.bufferedSize.addAndGet(-batch.size);
+    return batch.results;
+  }
+
+  /**
+   * Stop prefetching for a scanner that is being closed.  Waits for any
+   * outstanding prefetch to finish so the caller can safely close the
+   * scanner, and drops its results.  A prefetch still queued is dropped
+   * without running, so this only ever waits on a batch that is being
+   * computed.
+   * @param scannerName
+   */
+  void cancel(final String scannerName) {
+    Slot slot = this.slots.remove(scannerName);
+    if (slot == null) return;
+    FutureTask<Batch> future;
+    long reserved;
+    synchronized (slot) {
+      slot.closed = true;
+      future = slot.pending;
+      reserved = slot.reserved;
+      slot.pending = null;
+    }
+    if (future == null) return;
+    if (this.pool.remove(future)) {
+      // Never ran, so nobody else gives back its reservation.
+      this.bufferedSize.addAndGet(-reserved);
+      return;
+    }
+    try {
+      this.bufferedSize.addAndGet(-waitFor(future).size);
+    } catch (IOException e) {
+      LOG.debug("Dropped failed prefetch for scanner " + scannerName, e);
+    }
+  }
+
+  private Batch waitFor(final Future<Batch> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting on prefetch");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException)cause;
+      }
+      IOException ioe = new IOException("Prefetch failed");
+      ioe.initCause(cause);
+      throw ioe;
+    }
+  }
+
+  /**
+   * @return Bytes of prefetched results not yet handed to clients.
+   */
+  long getBufferedSize() {
+    return this.bufferedSize.get();
+  }
+
+  /**
+   * Stop all prefetch threads once they are done with queued prefetches.
+   * Cancel scanners before calling this; prefetches scheduled afterwards are
+   * rejected.
+   */
+  void shutdown() {
+    this.pool.shutdown();
+  }
+}
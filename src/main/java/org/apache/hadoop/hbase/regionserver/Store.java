@@ -20,13 +20,18 @@
 package org.apache.hadoop.hbase.regionserver;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.NavigableSet;
 import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.logging.Log;
@@ -49,6 +54,7 @@ import org.apache.hadoop.hbase.io.hfile.HFileScanner;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.ClassSize;
 import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.FSUtils;
 import org.apache.hadoop.util.StringUtils;
 
 import com.google.common.collect.ImmutableList;
@@ -226,40 +232,81 @@ public class Store implements HeapSize {
   throws IOException {
     ArrayList<StoreFile> results = new ArrayList<StoreFile>();
     FileStatus files[] = this.fs.listStatus(this.homedir);
-    for (int i = 0; files != null && i < files.length; i++) {
-      // Skip directories.
-      if (files[i].isDir()) {
-        continue;
-      }
-      Path p = files[i].getPath();
-      // Check for empty file.  Should never be the case but can happen
-      // after data loss in hdfs for whatever reason (upgrade, etc.): HBASE-646
-      if (this.fs.getFileStatus(p).getLen() <= 0) {
-        LOG.warn("Skipping " + p + " because its empty. HBASE-646 DATA LOSS?");
-        continue;
-      }
-      StoreFile curfile = null;
-      try {
-        curfile = new StoreFile(fs, p, blockcache, this.conf,
-            this.family.getBloomFilterType(), this.inMemory);
-        curfile.createReader();
-      } catch (IOException ioe) {
-        LOG.warn("Failed open of " + p + "; presumption is that file was " +
-          "corrupted at flush and lost edits picked up by commit log replay. " +
-          "Verify!", ioe);
-        continue;
+    if (files == null || files.length == 0) {
+      return results;
+    }
+    // Open the files in parallel, each open reads the trailer, file info,
+    // index and bloom metadata
+    ThreadPoolExecutor pool = this.region.getStoreFileOpenAndCloseThreadPool(
+      "StoreFileOpener-" + this.region.getRegionInfo().getEncodedName() +
+      "-" + this.storeNameStr);
+    try {
+      CompletionService<StoreFile> completionService =
+        new ExecutorCompletionService<StoreFile>(pool);
+      int submitted = 0;
+      for (int i = 0; i < files.length; i++) {
+        // Skip directories.
+        if (files[i].isDir()) {
+          continue;
+        }
+        final Path p = files[i].getPath();
+        completionService.submit(new Callable<StoreFile>() {
+          public StoreFile call() throws IOException {
+            return openStoreFile(p);
+          }
+        });
+        submitted++;
       }
-      long length = curfile.getReader().length();
-      this.storeSize += length;
-      if (LOG.isDebugEnabled()) {
-        LOG.debug("loaded " + curfile.toStringDetailed());
+      for (int i = 0; i < submitted; i++) {
+        StoreFile curfile = HRegion.waitFor(completionService.take());
+        if (curfile == null) {
+          continue;
+        }
+        long length = curfile.getReader().length();
+        this.storeSize += length;
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("loaded " + curfile.toStringDetailed());
+        }
+        results.add(curfile);
       }
-      results.add(curfile);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted opening store files of " +
+        this.storeNameStr);
+    } finally {
+      pool.shutdownNow();
     }
     Collections.sort(results, StoreFile.Comparators.FLUSH_TIME);
     return results;
   }
 
+  /*
+   * @param p Path of the store file
+   * @return The opened store file, or null if it is empty or couldn't be
+   * opened.
+   * @throws IOException
+   */
+  private StoreFile openStoreFile(final Path p) throws IOException {
+    // Check for empty file.  Should never be the case but can happen
+    // after data loss in hdfs for whatever reason (upgrade, etc.): HBASE-646
+    if (this.fs.getFileStatus(p).getLen() <= 0) {
+      LOG.warn("Skipping " + p + " because its empty. HBASE-646 DATA LOSS?");
+      return null;
+    }
+    StoreFile curfile = null;
+    try {
+      curfile = new StoreFile(fs, p, blockcache, this.conf,
+          this.family.getBloomFilterType(), this.inMemory);
+      curfile.createReader();
+    } catch (IOException ioe) {
+      LOG.warn("Failed open of " + p + "; presumption is that file was " +
+        "corrupted at flush and lost edits picked up by commit log replay. " +
+        "Verify!", ioe);
+      return null;
+    }
+    return curfile;
+  }
+
   /**
    * Adds a value to the memstore
    *
@@ -392,8 +439,33 @@ public class Store implements HeapSize {
       // Clear so metrics doesn't find them.
       storefiles = ImmutableList.of();
 
-      for (StoreFile f: result) {
-        f.closeReader();
+      if (!result.isEmpty()) {
+        // Close the readers in parallel
+        ThreadPoolExecutor pool =
+          this.region.getStoreFileOpenAndCloseThreadPool("StoreFileCloser-" +
+            this.region.getRegionInfo().getEncodedName() + "-" +
+            this.storeNameStr);
+        try {
+          CompletionService<Void> completionService =
+            new ExecutorCompletionService<Void>(pool);
+          for (final StoreFile f: result) {
+            completionService.submit(new Callable<Void>() {
+              public Void call() throws IOException {
+                f.closeReader();
+                return null;
+              }
+            });
+          }
+          for (int i = 0; i < result.size(); i++) {
+            HRegion.waitFor(completionService.take());
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted closing store files " +
+            "of " + this.storeNameStr);
+        } finally {
+          pool.shutdownNow();
+        }
       }
       LOG.debug("closed " + this.storeNameStr);
       return result;
@@ -584,6 +656,13 @@ public class Store implements HeapSize {
         return null;
       }
 
+      // Someone is reading this table's files directly off the filesystem;
+      // leave them in place until they are done.
+      if (FSUtils.isCompactionPinned(this.fs, this.region.getTableDir())) {
+        LOG.debug(this.storeNameStr + ": compactions are pinned; skipping");
+        return checkSplit(forceSplit);
+      }
+
       // Max-sequenceID is the last key of the storefiles TreeMap
       long maxId = StoreFile.getMaxSequenceIdInList(storefiles);
 
@@ -1045,6 +1045,10 @@ public class StoreFile {
       return reader.indexSize();
     }
 
+    public Compression.Algorithm getCompressionAlgorithm() {
+      return reader.getCompressionAlgorithm();
+    }
+
     public BloomType getBloomFilterType() {
       return this.bloomFilterType;
     }
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Scans a region by reading its StoreFiles straight off the filesystem,
+ * without a hosting regionserver.
+ * <p>
+ * Each family's files are merged by a {@link StoreScanner} so deletes,
+ * versions and time to live are applied as they would be by the region, and
+ * the families are merged by a {@link KeyValueHeap}.  Edits still in the
+ * region's memstore are not seen; flush the region before listing its files.
+ * The files must not be compacted away while the scanner is open, see
+ * {@link org.apache.hadoop.hbase.util.FSUtils#createCompactionPin(FileSystem, Path, long)}.
+ */
+public class StoreFileRegionScanner implements InternalScanner {
+  static final Log LOG = LogFactory.getLog(StoreFileRegionScanner.class);
+
+  private final KeyValue.KVComparator comparator;
+  private final List<StoreFile> storeFiles = new ArrayList<StoreFile>();
+  private KeyValueHeap storeHeap;
+  private final RowAssembler rows;
+  private final int batch;
+  private final List<KeyValue> results = new ArrayList<KeyValue>();
+
+  /**
+   * @param conf configuration
+   * @param fs filesystem holding the files
+   * @param info region the files belong to
+   * @param files StoreFiles to read, keyed by family
+   * @param scan the spec; when it names no families all families in
+   * <code>files</code> are read
+   * @throws IOException if a file cannot be opened
+   */
+  public StoreFileRegionScanner(final Configuration conf, final FileSystem fs,
+      final HRegionInfo info, final Map<byte [], List<Path>> files,
+      final Scan scan)
+  throws IOException {
+    this.comparator = info.getComparator();
+    this.batch = scan.getBatch();
+
+    List<KeyValueScanner> scanners = new ArrayList<KeyValueScanner>();
+    try {
+      for (Map.Entry<byte [], List<Path>> e : files.entrySet()) {
+        byte [] family = e.getKey();
+        NavigableSet<byte []> columns = null;
+        if (scan.hasFamilies()) {
+          if (!scan.getFamilyMap().containsKey(family)) continue;
+          columns = scan.getFamilyMap().get(family);
+        }
+        HColumnDescriptor hcd = info.getTableDesc().getFamily(family);
+        if (hcd == null) {
+          throw new NoSuchColumnFamilyException("Column family " +
+            Bytes.toString(family) + " does not exist in region " +
+            info.getRegionNameAsString());
+        }
+        scanners.add(getStoreScanner(conf, fs, hcd, e.getValue(), scan,
+          columns));
+      }
+    } catch (IOException e) {
+      for (KeyValueScanner scanner : scanners) {
+        scanner.close();
+      }
+      closeStoreFiles();
+      throw e;
+    }
+    this.storeHeap = new KeyValueHeap(scanners, this.comparator);
+    this.rows = new RowAssembler(this.storeHeap, scan, this.comparator);
+  }
+
+  private StoreScanner getStoreScanner(final Configuration conf,
+      final FileSystem fs, final HColumnDescriptor hcd, final List<Path> paths,
+      final Scan scan, final NavigableSet<byte []> columns)
+  throws IOException {
+    List<StoreFile> familyFiles = new ArrayList<StoreFile>(paths.size());
+    for (Path p : paths) {
+      StoreFile sf = new StoreFile(fs, p, false, conf,
+        hcd.getBloomFilterType(), false);
+      this.storeFiles.add(sf);
+      sf.createReader();
+      familyFiles.add(sf);
+    }
+    // Same order the Store keeps its files in.
+    Collections.sort(familyFiles, StoreFile.Comparators.FLUSH_TIME);
+    List<StoreFileScanner> sfScanners =
+      new ArrayList<StoreFileScanner>(familyFiles.size());
+    for (StoreFile sf : familyFiles) {
+      // Files are read once front to back; don't churn the block cache.
+      sfScanners.add(sf.getReader().getStoreFileScanner(false, false));
+    }
+
+    long ttl = hcd.getTimeToLive();
+    if (ttl == HConstants.FOREVER || ttl == -1) {
+      ttl = Long.MAX_VALUE;
+    } else {
+      ttl *= 1000;
+    }
+    int versions = Math.min(scan.getMaxVersions(), hcd.getMaxVersions());
+    return new StoreScanner(scan, hcd.getName(), ttl, this.comparator,
+      columns, sfScanners, versions);
+  }
+
+  /**
+   * Lists the StoreFiles a region currently has for a family.  Skips empty
+   * files the way the Store does when it opens.
+   * @param fs filesystem
+   * @param tableDir qualified path of the table directory
+   * @param info region
+   * @param family family
+   * @return Paths of the StoreFiles, possibly empty
+   * @throws IOException e
+   */
+  public static List<Path> listStoreFiles(final FileSystem fs,
+      final Path tableDir, final HRegionInfo info, final byte [] family)
+  throws IOException {
+    List<Path> paths = new ArrayList<Path>();
+    Path homedir = Store.getStoreHomedir(tableDir, info.getEncodedName(),
+      family);
+    if (!fs.exists(homedir)) {
+      return paths;
+    }
+    FileStatus [] files = fs.listStatus(homedir);
+    for (int i = 0; files != null && i < files.length; i++) {
+      if (files[i].isDir()) {
+        continue;
+      }
+      if (files[i].getLen() <= 0) {
+        LOG.warn("Skipping " + files[i].getPath() + " because its empty");
+        continue;
+      }
+      paths.add(files[i].getPath());
+    }
+    return paths;
+  }
+
+  public synchronized boolean next(List<KeyValue> outResults)
+  throws IOException {
+    return next(outResults, this.batch);
+  }
+
+  public synchronized boolean next(List<KeyValue> outResults, int limit)
+  throws IOException {
+    if (this.storeHeap == null) {
+      throw new IOException("Scanner is closed");
+    }
+    results.clear();
+    boolean returnResult = rows.next(results, limit);
+    outResults.addAll(results);
+    rows.resetFilters();
+    if (rows.isFilterDone()) {
+      return false;
+    }
+    return returnResult;
+  }
+
+  public synchronized void close() throws IOException {
+    if (this.storeHeap != null) {
+      this.storeHeap.close();
+      this.storeHeap = null;
+    }
+    closeStoreFiles();
+  }
+
+  private void closeStoreFiles() {
+    for (StoreFile sf : this.storeFiles) {
+      try {
+        sf.closeReader();
+      } catch (IOException e) {
+        LOG.warn("Failed close of " + sf, e);
+      }
+    }
+    this.storeFiles.clear();
+  }
+}
@@ -111,11 +111,32 @@ class StoreScanner implements KeyValueScanner, InternalScanner, ChangedReadersOb
       final NavigableSet<byte[]> columns,
       final List<KeyValueScanner> scanners)
         throws IOException {
+    this(scan, colFamily, ttl, comparator, columns, scanners,
+      scan.getMaxVersions());
+  }
+
+  /**
+   * Opens a scanner across the specified scanners without a backing Store,
+   * as when reading StoreFiles straight from the filesystem.
+   * @param scan the spec
+   * @param colFamily family scanned
+   * @param ttl time to live of the family, in milliseconds
+   * @param comparator comparator for the region being scanned
+   * @param columns which columns we are scanning
+   * @param scanners scanners to merge
+   * @param maxVersions maximum versions to return
+   * @throws IOException
+   */
+  StoreScanner(final Scan scan, final byte [] colFamily, final long ttl,
+      final KeyValue.KVComparator comparator,
+      final NavigableSet<byte[]> columns,
+      final List<? extends KeyValueScanner> scanners, final int maxVersions)
+        throws IOException {
     this.store = null;
     this.isGet = false;
     this.cacheBlocks = scan.getCacheBlocks();
     this.matcher = new ScanQueryMatcher(scan, colFamily, columns, ttl,
-        comparator.getRawComparator(), scan.getMaxVersions());
+        comparator.getRawComparator(), maxVersions);
 
     // Seek all scanners to the initial key
     for(KeyValueScanner scanner : scanners) {
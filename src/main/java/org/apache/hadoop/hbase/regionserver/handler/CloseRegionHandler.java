@@ -122,36 +122,44 @@ public class CloseRegionHandler extends EventHandler {
       if (this.zk) deleteClosingState();
     }
 
-    if (this.zk) setClosedState(expectedVersion, region);
-
-    // Done!  Successful region open
-    LOG.debug("Closed region " + region.getRegionNameAsString());
+    if (this.zk) {
+      LOG.debug("Closed region " + name + ", transitioning its node to CLOSED");
+      setClosedState(expectedVersion, region);
+    } else {
+      LOG.debug("Closed region " + name);
+    }
   }
 
   /**
-   * Transition ZK node to CLOSED
+   * Transition ZK node to CLOSED.
+   * <p>
+   * Asynchronous, frees the handler for the next close instead of waiting on
+   * ZooKeeper.  The region is closed already so there is nothing left for us
+   * to do whatever the outcome: if the node can't be moved to CLOSED it stays
+   * CLOSING, and the master's timeout monitor unassigns the region again once
+   * it has been CLOSING for too long.
    * @param expectedVersion
    */
   private void setClosedState(final int expectedVersion, final HRegion region) {
-    try {
-      if (ZKAssign.transitionNodeClosed(server.getZooKeeper(), regionInfo,
-          server.getServerName(), expectedVersion) == FAILED) {
-        LOG.warn("Completed the CLOSE of a region but when transitioning from " +
-            " CLOSING to CLOSED got a version mismatch, someone else clashed " +
-            "so now unassigning");
-        region.close();
-        return;
+    ZKAssign.asyncTransitionNodeClosed(server.getZooKeeper(), regionInfo,
+        server.getServerName(), expectedVersion,
+        new ZKAssign.TransitionCallback() {
+      public void processResult(int rc, HRegionInfo hri, int version) {
+        if (rc != KeeperException.Code.OK.intValue()) {
+          LOG.error("Failed transitioning node of " +
+              hri.getRegionNameAsString() + " from CLOSING to CLOSED, " +
+              "leaving it to the master to time out",
+              KeeperException.create(KeeperException.Code.get(rc)));
+        } else if (version == FAILED) {
+          LOG.warn("Completed the CLOSE of " + hri.getRegionNameAsString() +
+              " but when transitioning from CLOSING to CLOSED got a version " +
+              "mismatch, someone else clashed");
+        } else {
+          LOG.debug("Set node of " + hri.getRegionNameAsString() +
+              " to CLOSED");
+        }
       }
-    } catch (NullPointerException e) {
-      // I've seen NPE when table was deleted while close was running in unit tests.
-      LOG.warn("NPE during close -- catching and continuing...", e);
-    } catch (KeeperException e) {
-      LOG.error("Failed transitioning node from CLOSING to CLOSED", e);
-      return;
-    } catch (IOException e) {
-      LOG.error("Failed to close region after failing to transition", e);
-      return;
-    }
+    });
   }
 
   /**
@@ -20,7 +20,6 @@
 package org.apache.hadoop.hbase.regionserver.handler;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -85,29 +84,18 @@ public class OpenRegionHandler extends EventHandler {
     if (openingVersion == -1) return;
 
     // Open the region
-    final AtomicInteger openingInteger = new AtomicInteger(openingVersion);
+    OpeningTickler tickler = new OpeningTickler(openingVersion);
     try {
       // Instantiate the region.  This also periodically updates OPENING.
       region = HRegion.openHRegion(regionInfo, this.rsServices.getWAL(),
           server.getConfiguration(), this.rsServices.getFlushRequester(),
-          new Progressable() {
-            public void progress() {
-              try {
-                int vsn = ZKAssign.retransitionNodeOpening(
-                    server.getZooKeeper(), regionInfo, server.getServerName(),
-                    openingInteger.get());
-                if (vsn == -1) {
-                  throw KeeperException.create(Code.BADVERSION);
-                }
-                openingInteger.set(vsn);
-              } catch (KeeperException e) {
-                server.abort("ZK exception refreshing OPENING node", e);
-              }
-            }
-      });
+          tickler);
     } catch (IOException e) {
       LOG.error("IOException instantiating region for " + regionInfo +
         "; resetting state of transition node from OPENING to OFFLINE");
+      // Let a refresh still in flight land before we touch the node; it
+      // failing now is no reason to abort
+      tickler.stop();
       try {
         // TODO: We should rely on the master timing out OPENING instead of this
         // TODO: What if this was a split open?  The RS made the OFFLINE
@@ -122,7 +110,12 @@ public class OpenRegionHandler extends EventHandler {
     }
 
     // Re-transition node to OPENING again to verify no one has stomped on us
-    openingVersion = openingInteger.get();
+    openingVersion = tickler.waitForPendingTransition();
+    if (openingVersion == -1) {
+      LOG.warn("Failed refreshing the OPENING node of " +
+        regionInfo.getRegionNameAsString() + " while opening it");
+      return;
+    }
     try {
       if((openingVersion = ZKAssign.retransitionNodeOpening(
           server.getZooKeeper(), regionInfo, server.getServerName(),
@@ -175,6 +168,73 @@ public class OpenRegionHandler extends EventHandler {
     LOG.debug("Opened " + region.getRegionNameAsString());
   }
 
+  /**
+   * Refreshes the OPENING node while the region opens.  The refreshes are
+   * asynchronous so the open doesn't stop to wait on ZooKeeper; only one is in
+   * flight at a time, progress reported meanwhile is covered by it.  Aborts
+   * the server if a refresh fails, someone else took the node, unless the
+   * handler has given up on the open already.
+   */
+  private class OpeningTickler
+  implements Progressable, ZKAssign.TransitionCallback {
+    // Version of the OPENING node, -1 once a refresh failed
+    private int version;
+    private boolean pending = false;
+    // Set once the handler no longer cares how the refreshes turn out
+    private boolean stopped = false;
+
+    OpeningTickler(final int version) {
+      this.version = version;
+    }
+
+    public synchronized void progress() {
+      if (this.stopped || this.pending || this.version == -1) return;
+      this.pending = true;
+      ZKAssign.asyncRetransitionNodeOpening(server.getZooKeeper(), regionInfo,
+        server.getServerName(), this.version, this);
+    }
+
+    public void processResult(int rc, HRegionInfo region, int version) {
+      boolean failed;
+      synchronized (this) {
+        this.pending = false;
+        this.version = version;
+        failed = version == -1 && !this.stopped;
+        notifyAll();
+      }
+      if (failed) {
+        server.abort("ZK exception refreshing OPENING node",
+          KeeperException.create(rc == Code.OK.intValue() ?
+            Code.BADVERSION : Code.get(rc)));
+      }
+    }
+
+    /**
+     * @return Version of the OPENING node once no refresh is in flight, -1 if
+     * a refresh failed or we were interrupted
+     */
+    synchronized int waitForPendingTransition() {
+      while (this.pending) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return -1;
+        }
+      }
+      return this.version;
+    }
+
+    /**
+     * Stop refreshing the node and wait for a refresh still in flight.
+     * Failing refreshes no longer abort the server after this.
+     */
+    synchronized void stop() {
+      this.stopped = true;
+      waitForPendingTransition();
+    }
+  }
+
   int transitionZookeeperOfflineToOpening(final String encodedName) {
     // Transition ZK node from OFFLINE to OPENING
     // TODO: should also handle transition from CLOSED?
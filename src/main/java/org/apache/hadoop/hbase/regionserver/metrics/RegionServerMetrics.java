@@ -21,8 +21,10 @@ package org.apache.hadoop.hbase.regionserver.metrics;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.catalog.MetaEditor;
 import org.apache.hadoop.hbase.io.hfile.HFile;
 import org.apache.hadoop.hbase.metrics.MetricsRate;
+import org.apache.hadoop.hbase.regionserver.HRegion;
 import org.apache.hadoop.hbase.regionserver.wal.HLog;
 import org.apache.hadoop.hbase.util.Strings;
 import org.apache.hadoop.metrics.MetricsContext;
@@ -33,6 +35,7 @@ import org.apache.hadoop.metrics.jvm.JvmMetrics;
 import org.apache.hadoop.metrics.util.MetricsIntValue;
 import org.apache.hadoop.metrics.util.MetricsLongValue;
 import org.apache.hadoop.metrics.util.MetricsRegistry;
+import org.apache.hadoop.metrics.util.MetricsTimeVaryingLong;
 import org.apache.hadoop.metrics.util.MetricsTimeVaryingRate;
 
 import java.lang.management.ManagementFactory;
@@ -128,12 +131,42 @@ public class RegionServerMetrics implements Updater {
   public final MetricsTimeVaryingRate fsWriteLatency =
     new MetricsTimeVaryingRate("fsWriteLatency", registry);
 
+  /**
+   * Size in bytes of the edits written to the hlog, averaged per edit
+   */
+  public final MetricsTimeVaryingRate hlogEditSize =
+    new MetricsTimeVaryingRate("hlogEditSize", registry);
+
   /**
    * filesystem sync latency
    */
   public final MetricsTimeVaryingRate fsSyncLatency =
     new MetricsTimeVaryingRate("fsSyncLatency", registry);
 
+  /**
+   * Time it takes to open a region
+   */
+  public final MetricsTimeVaryingRate regionOpenTime =
+    new MetricsTimeVaryingRate("regionOpenTime", registry);
+
+  /**
+   * Time it takes to close a region
+   */
+  public final MetricsTimeVaryingRate regionCloseTime =
+    new MetricsTimeVaryingRate("regionCloseTime", registry);
+
+  /**
+   * Time of the RPCs editing catalog rows, one op per RPC
+   */
+  public final MetricsTimeVaryingRate catalogEditTime =
+    new MetricsTimeVaryingRate("catalogEditTime", registry);
+
+  /**
+   * Catalog rows edited minus the RPCs it took, the RPCs batching saved
+   */
+  public final MetricsTimeVaryingLong catalogEditRpcsSaved =
+    new MetricsTimeVaryingLong("catalogEditRpcsSaved", registry);
+
   public RegionServerMetrics() {
     MetricsContext context = MetricsUtil.getContext("hbase");
     metricsRecord = MetricsUtil.createRecord(context, "regionserver");
@@ -189,13 +222,33 @@ public class RegionServerMetrics implements Updater {
       // mix in HLog metrics
       ops = (int)HLog.getWriteOps();
       if (ops != 0) this.fsWriteLatency.inc(ops, HLog.getWriteTime());
+      // Same trick to get the average bytes per edit
+      long size = HLog.getWriteSize();
+      if (ops != 0) this.hlogEditSize.inc(ops, size);
       ops = (int)HLog.getSyncOps();
       if (ops != 0) this.fsSyncLatency.inc(ops, HLog.getSyncTime());
+      // mix in region open and close times
+      ops = (int)HRegion.getOpenOps();
+      if (ops != 0) this.regionOpenTime.inc(ops, HRegion.getOpenTime());
+      ops = (int)HRegion.getCloseOps();
+      if (ops != 0) this.regionCloseTime.inc(ops, HRegion.getCloseTime());
+      // mix in catalog edits
+      long edits = MetaEditor.getEdits();
+      ops = (int)MetaEditor.getEditOps();
+      if (ops != 0) {
+        this.catalogEditTime.inc(ops, MetaEditor.getEditTime());
+        this.catalogEditRpcsSaved.inc(edits - ops);
+      }
 
       // push the result
       this.fsReadLatency.pushMetric(this.metricsRecord);
       this.fsWriteLatency.pushMetric(this.metricsRecord);
       this.fsSyncLatency.pushMetric(this.metricsRecord);
+      this.hlogEditSize.pushMetric(this.metricsRecord);
+      this.regionOpenTime.pushMetric(this.metricsRecord);
+      this.regionCloseTime.pushMetric(this.metricsRecord);
+      this.catalogEditTime.pushMetric(this.metricsRecord);
+      this.catalogEditRpcsSaved.pushMetric(this.metricsRecord);
     }
     this.metricsRecord.update();
     this.lastUpdate = System.currentTimeMillis();
@@ -205,6 +258,9 @@ public class RegionServerMetrics implements Updater {
     this.atomicIncrementTime.resetMinMax();
     this.fsReadLatency.resetMinMax();
     this.fsWriteLatency.resetMinMax();
+    this.regionOpenTime.resetMinMax();
+    this.regionCloseTime.resetMinMax();
+    this.catalogEditTime.resetMinMax();
   }
 
   /**
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.wal;
+
+/**
+ * The dictionaries used to compress the entries of one WAL file, or of one
+ * batch of entries sent over the wire. When set on a {@link HLogKey} or a
+ * {@link WALEdit}, they are written in their compressed form.
+ */
+class CompressionContext {
+  // Few tables and regions go through a log
+  private static final int SMALL_CAPACITY = 1024;
+
+  final LRUDictionary regionDict = new LRUDictionary(SMALL_CAPACITY);
+  final LRUDictionary tableDict = new LRUDictionary(SMALL_CAPACITY);
+  final LRUDictionary familyDict = new LRUDictionary(SMALL_CAPACITY);
+  final LRUDictionary qualifierDict = new LRUDictionary(Short.MAX_VALUE);
+  final LRUDictionary rowDict = new LRUDictionary(Short.MAX_VALUE);
+
+  /**
+   * Empty all the dictionaries
+   */
+  void clear() {
+    this.regionDict.clear();
+    this.tableDict.clear();
+    this.familyDict.clear();
+    this.qualifierDict.clear();
+    this.rowDict.clear();
+  }
+}
@@ -167,6 +167,11 @@ public class HLog implements Syncable {
     Entry next(Entry reuse) throws IOException;
     void seek(long pos) throws IOException;
     long getPosition() throws IOException;
+    /**
+     * Reopen the file at the current position, to see what was appended to
+     * it since it was opened.
+     */
+    void reset() throws IOException;
   }
 
   public interface Writer {
@@ -246,9 +251,10 @@ public class HLog implements Syncable {
     }
   }
 
-  // For measuring latency of writes
+  // For measuring latency and size of writes
   private static volatile long writeOps;
   private static volatile long writeTime;
+  private static volatile long writeSize;
   // For measuring latency of syncs
   private static volatile long syncOps;
   private static volatile long syncTime;
@@ -265,6 +271,12 @@ public class HLog implements Syncable {
     return ret;
   }
 
+  public static long getWriteSize() {
+    long ret = writeSize;
+    writeSize = 0;
+    return ret;
+  }
+
   public static long getSyncOps() {
     long ret = syncOps;
     syncOps = 0;
@@ -1085,9 +1097,11 @@ public class HLog implements Syncable {
     }
     try {
       long now = System.currentTimeMillis();
+      long length = this.writer.getLength();
       this.writer.append(new HLog.Entry(logKey, logEdit));
       long took = System.currentTimeMillis() - now;
       writeTime += took;
+      writeSize += this.writer.getLength() - length;
       writeOps++;
       if (took > 1000) {
         LOG.warn(Thread.currentThread().getName() + " took " + took +
@@ -1157,8 +1171,10 @@ public class HLog implements Syncable {
         WALEdit edit = completeCacheFlushLogEdit();
         HLogKey key = makeKey(encodedRegionName, tableName, logSeqId,
             System.currentTimeMillis());
+        long length = this.writer.getLength();
         this.writer.append(new Entry(key, edit));
         writeTime += System.currentTimeMillis() - now;
+        writeSize += this.writer.getLength() - length;
         writeOps++;
         this.numEntries.incrementAndGet();
         Long seq = this.lastSeqWritten.get(encodedRegionName);
@@ -1433,6 +1449,55 @@ public class HLog implements Syncable {
       this.key.readFields(dataInput);
       this.edit.readFields(dataInput);
     }
+
+    /**
+     * @param compressionContext dictionaries to write and read this entry
+     * with, null to use the uncompressed format
+     */
+    void setCompressionContext(CompressionContext compressionContext) {
+      this.key.setCompressionContext(compressionContext);
+      this.edit.setCompressionContext(compressionContext);
+    }
+
+    /**
+     * Write out an array of entries, compressing the keys and edits with
+     * dictionaries shared by the whole array.
+     * @param out where to write
+     * @param entries the entries to write
+     * @throws IOException
+     */
+    public static void writeArray(final DataOutput out, final Entry [] entries)
+    throws IOException {
+      out.writeInt(entries.length);
+      CompressionContext context = new CompressionContext();
+      for (Entry entry : entries) {
+        entry.setCompressionContext(context);
+        try {
+          entry.write(out);
+        } finally {
+          entry.setCompressionContext(null);
+        }
+      }
+    }
+
+    /**
+     * Read an array of entries written by
+     * {@link #writeArray(DataOutput, Entry[])}
+     * @param in where to read from
+     * @return the entries
+     * @throws IOException
+     */
+    public static Entry [] readArray(final DataInput in) throws IOException {
+      Entry [] entries = new Entry[in.readInt()];
+      CompressionContext context = new CompressionContext();
+      for (int i = 0; i < entries.length; i++) {
+        entries[i] = new Entry();
+        entries[i].setCompressionContext(context);
+        entries[i].readFields(in);
+        entries[i].setCompressionContext(null);
+      }
+      return entries;
+    }
   }
 
   /**
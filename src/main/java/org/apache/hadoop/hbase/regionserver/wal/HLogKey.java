@@ -27,6 +27,7 @@ import java.io.IOException;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableUtils;
 
 /**
  * A Key for an entry in the change log.
@@ -48,6 +49,9 @@ public class HLogKey implements WritableComparable<HLogKey> {
 
   private byte clusterId;
 
+  // Dictionaries to use when writing or reading, null if not compressed
+  private CompressionContext compressionContext;
+
   /** Writable Consructor -- Do not use. */
   public HLogKey() {
     this(null, null, 0L, HConstants.LATEST_TIMESTAMP);
@@ -115,6 +119,14 @@ public class HLogKey implements WritableComparable<HLogKey> {
     this.clusterId = clusterId;
   }
 
+  /**
+   * @param compressionContext dictionaries to write and read this key with,
+   * null to use the uncompressed format
+   */
+  void setCompressionContext(CompressionContext compressionContext) {
+    this.compressionContext = compressionContext;
+  }
+
   @Override
   public String toString() {
     return Bytes.toString(tablename) + "/" + Bytes.toString(encodedRegionName) + "/" +
@@ -161,6 +173,14 @@ public class HLogKey implements WritableComparable<HLogKey> {
   }
 
   public void write(DataOutput out) throws IOException {
+    if (this.compressionContext != null) {
+      this.compressionContext.regionDict.write(out, this.encodedRegionName);
+      this.compressionContext.tableDict.write(out, this.tablename);
+      WritableUtils.writeVLong(out, this.logSeqNum);
+      WritableUtils.writeVLong(out, this.writeTime);
+      out.writeByte(this.clusterId);
+      return;
+    }
     Bytes.writeByteArray(out, this.encodedRegionName);
     Bytes.writeByteArray(out, this.tablename);
     out.writeLong(this.logSeqNum);
@@ -169,6 +189,14 @@ public class HLogKey implements WritableComparable<HLogKey> {
   }
 
   public void readFields(DataInput in) throws IOException {
+    if (this.compressionContext != null) {
+      this.encodedRegionName = this.compressionContext.regionDict.read(in);
+      this.tablename = this.compressionContext.tableDict.read(in);
+      this.logSeqNum = WritableUtils.readVLong(in);
+      this.writeTime = WritableUtils.readVLong(in);
+      this.clusterId = in.readByte();
+      return;
+    }
     this.encodedRegionName = Bytes.readByteArray(in);
     this.tablename = Bytes.readByteArray(in);
     this.logSeqNum = in.readLong();
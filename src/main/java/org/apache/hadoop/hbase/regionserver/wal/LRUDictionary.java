@@ -0,0 +1,195 @@
+/*
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.wal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Dictionary of byte arrays used to compress the WAL. The first time an
+ * array is written it goes out as is and is added to the dictionary, after
+ * that only its index in the dictionary is written. The reader rebuilds the
+ * same dictionary as it reads, so it must see the arrays in the order they
+ * were written.
+ * <p>
+ * When full, the least recently used array is evicted and its index reused.
+ * Both sides evict in lockstep since they see the same arrays.
+ */
+class LRUDictionary {
+  /** Written instead of an index when the array wasn't in the dictionary */
+  static final byte NOT_IN_DICTIONARY = -1;
+
+  // Indexes are written as shorts whose first byte can't be NOT_IN_DICTIONARY
+  private final int capacity;
+  // Grown as entries are added, most dictionaries never get full
+  private byte [][] entries;
+  // Doubly linked list of indexes, from most to least recently used
+  private short [] newer;
+  private short [] older;
+  private short head = -1;
+  private short tail = -1;
+  private short size = 0;
+  private final HashMap<ImmutableBytesWritable, Short> indexes;
+
+  LRUDictionary(final int capacity) {
+    if (capacity <= 0 || capacity > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Capacity must be between 1 and " +
+        Short.MAX_VALUE + ": " + capacity);
+    }
+    this.capacity = capacity;
+    int initial = Math.min(capacity, 16);
+    this.entries = new byte[initial][];
+    this.newer = new short[initial];
+    this.older = new short[initial];
+    this.indexes = new HashMap<ImmutableBytesWritable, Short>();
+  }
+
+  /**
+   * Write the passed array, or its index if it's already in the dictionary
+   * @param out where to write
+   * @param data array holding the bytes to write
+   * @param offset offset of the bytes in data
+   * @param length number of bytes to write
+   * @throws IOException
+   */
+  void write(final DataOutput out, final byte [] data, final int offset,
+      final int length)
+  throws IOException {
+    Short index =
+      this.indexes.get(new ImmutableBytesWritable(data, offset, length));
+    if (index == null) {
+      out.writeByte(NOT_IN_DICTIONARY);
+      WritableUtils.writeVInt(out, length);
+      out.write(data, offset, length);
+      byte [] copy = new byte[length];
+      System.arraycopy(data, offset, copy, 0, length);
+      add(copy);
+    } else {
+      out.writeShort(index.shortValue());
+      moveToHead(index.shortValue());
+    }
+  }
+
+  /**
+   * Write the passed array, or its index if it's already in the dictionary
+   * @param out where to write
+   * @param data bytes to write
+   * @throws IOException
+   */
+  void write(final DataOutput out, final byte [] data) throws IOException {
+    write(out, data, 0, data.length);
+  }
+
+  /**
+   * Read an array written by {@link #write(DataOutput, byte[], int, int)}
+   * @param in where to read from
+   * @return the array, shared with the dictionary so don't modify it
+   * @throws IOException
+   */
+  byte [] read(final DataInput in) throws IOException {
+    byte status = in.readByte();
+    if (status == NOT_IN_DICTIONARY) {
+      byte [] data = new byte[WritableUtils.readVInt(in)];
+      in.readFully(data);
+      add(data);
+      return data;
+    }
+    short index = (short)((status << 8) | (in.readByte() & 0xff));
+    if (index < 0 || index >= this.size) {
+      throw new IOException("Index " + index + " not in a dictionary of " +
+        this.size + " entries");
+    }
+    moveToHead(index);
+    return this.entries[index];
+  }
+
+  /**
+   * Forget about everything we saw, to start a new file or stream
+   */
+  void clear() {
+    for (int i = 0; i < this.size; i++) {
+      this.entries[i] = null;
+    }
+    this.indexes.clear();
+    this.head = -1;
+    this.tail = -1;
+    this.size = 0;
+  }
+
+  private void add(final byte [] data) {
+    short index;
+    if (this.size < this.capacity) {
+      if (this.size == this.entries.length) {
+        int length = Math.min(this.capacity, this.size * 2);
+        this.entries = Arrays.copyOf(this.entries, length);
+        this.newer = Arrays.copyOf(this.newer, length);
+        this.older = Arrays.copyOf(this.older, length);
+      }
+      index = this.size++;
+    } else {
+      index = this.tail;
+      unlink(index);
+      this.indexes.remove(new ImmutableBytesWritable(this.entries[index]));
+    }
+    this.entries[index] = data;
+    this.indexes.put(new ImmutableBytesWritable(data), Short.valueOf(index));
+    link(index);
+  }
+
+  private void moveToHead(final short index) {
+    if (index != this.head) {
+      unlink(index);
+      link(index);
+    }
+  }
+
+  private void link(final short index) {
+    this.newer[index] = -1;
+    this.older[index] = this.head;
+    if (this.head != -1) {
+      this.newer[this.head] = index;
+    }
+    this.head = index;
+    if (this.tail == -1) {
+      this.tail = index;
+    }
+  }
+
+  private void unlink(final short index) {
+    short n = this.newer[index];
+    short o = this.older[index];
+    if (n != -1) {
+      this.older[n] = o;
+    } else {
+      this.head = o;
+    }
+    if (o != -1) {
+      this.newer[o] = n;
+    } else {
+      this.tail = n;
+    }
+  }
+}
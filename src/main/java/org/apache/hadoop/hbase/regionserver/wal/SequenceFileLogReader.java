@@ -29,6 +29,7 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.regionserver.wal.HLog;
 import org.apache.hadoop.hbase.regionserver.wal.WALEdit;
 import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
 
 public class SequenceFileLogReader implements HLog.Reader {
 
@@ -93,6 +94,12 @@ public class SequenceFileLogReader implements HLog.Reader {
 
   Configuration conf;
   WALReader reader;
+  FileSystem fs;
+  Path path;
+  // Dictionaries rebuilt as the file is read, or null if not compressed
+  CompressionContext compressionContext;
+  // Position of the first entry, where the dictionaries are empty
+  long firstEntryPosition;
 
   public SequenceFileLogReader() { }
 
@@ -100,7 +107,15 @@ public class SequenceFileLogReader implements HLog.Reader {
   public void init(FileSystem fs, Path path, Configuration conf)
       throws IOException {
     this.conf = conf;
+    this.fs = fs;
+    this.path = path;
     reader = new WALReader(fs, path, conf);
+    Text compressed =
+      reader.getMetadata().get(SequenceFileLogWriter.WAL_COMPRESSION_KEY);
+    if (compressed != null && Boolean.parseBoolean(compressed.toString())) {
+      this.compressionContext = new CompressionContext();
+    }
+    this.firstEntryPosition = reader.getPosition();
   }
 
   @Override
@@ -115,20 +130,49 @@ public class SequenceFileLogReader implements HLog.Reader {
 
   @Override
   public HLog.Entry next(HLog.Entry reuse) throws IOException {
-    if (reuse == null) {
-      HLogKey key = HLog.newKey(conf);
-      WALEdit val = new WALEdit();
-      if (reader.next(key, val)) {
-        return new HLog.Entry(key, val);
+    HLog.Entry entry = reuse;
+    if (entry == null) {
+      entry = new HLog.Entry(HLog.newKey(conf), new WALEdit());
+    }
+    entry.setCompressionContext(this.compressionContext);
+    try {
+      if (reader.next(entry.getKey(), entry.getEdit())) {
+        return entry;
       }
-    } else if (reader.next(reuse.getKey(), reuse.getEdit())) {
-      return reuse;
+    } finally {
+      entry.setCompressionContext(null);
     }
     return null;
   }
 
   @Override
   public void seek(long pos) throws IOException {
+    if (this.compressionContext == null) {
+      reader.seek(pos);
+      return;
+    }
+    // The dictionaries only match a position if we read up to it
+    if (pos < reader.getPosition()) {
+      this.compressionContext.clear();
+      reader.seek(this.firstEntryPosition);
+    }
+    HLog.Entry entry = new HLog.Entry();
+    while (reader.getPosition() < pos && next(entry) != null) {
+      // skip
+    }
+    if (reader.getPosition() != pos) {
+      throw new IOException("Can't seek to " + pos + " in " + this.path +
+        ", entries end at " + reader.getPosition());
+    }
+  }
+
+  @Override
+  public void reset() throws IOException {
+    long pos = reader.getPosition();
+    WALReader newReader = new WALReader(this.fs, this.path, this.conf);
+    reader.close();
+    // The dictionaries are still good since we're back where we were
+    reader = newReader;
     reader.seek(pos);
   }
 
@@ -33,13 +33,26 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.SequenceFile.Metadata;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.util.ReflectionUtils;
 
 /**
  * Implementation of {@link HLog.Writer} that delegates to
  * {@link SequenceFile.Writer}.
+ * <p>
+ * If hbase.regionserver.wal.enablecompression is set, keys and edits are
+ * written using dictionaries built as the file is written, see
+ * {@link CompressionContext}. If hbase.regionserver.wal.compression.codec
+ * names a codec, each record is also compressed with it. Block compression
+ * is not offered since positions in the log must point at single entries
+ * for replication and log splitting.
  */
 public class SequenceFileLogWriter implements HLog.Writer {
+  /** Metadata key set to "true" in logs whose entries use dictionaries */
+  static final Text WAL_COMPRESSION_KEY = new Text("hbase.wal.compression");
+
   private final Log LOG = LogFactory.getLog(this.getClass());
   // The sequence file we delegate to.
   private SequenceFile.Writer writer;
@@ -47,6 +60,8 @@ public class SequenceFileLogWriter implements HLog.Writer {
   private OutputStream dfsClient_out;
   // The syncFs method from hdfs-200 or null if not available.
   private Method syncFs;
+  // Dictionaries for this file, or null if not compressing
+  private CompressionContext compressionContext;
 
   public SequenceFileLogWriter() {
     super();
@@ -55,6 +70,20 @@ public class SequenceFileLogWriter implements HLog.Writer {
   @Override
   public void init(FileSystem fs, Path path, Configuration conf)
       throws IOException {
+    Metadata metadata = new Metadata();
+    if (conf.getBoolean("hbase.regionserver.wal.enablecompression", false)) {
+      this.compressionContext = new CompressionContext();
+      metadata.set(WAL_COMPRESSION_KEY, new Text("true"));
+    }
+    SequenceFile.CompressionType compressionType =
+      SequenceFile.CompressionType.NONE;
+    CompressionCodec codec = new DefaultCodec();
+    Class<?> codecClass =
+      conf.getClass("hbase.regionserver.wal.compression.codec", null);
+    if (codecClass != null) {
+      compressionType = SequenceFile.CompressionType.RECORD;
+      codec = (CompressionCodec)ReflectionUtils.newInstance(codecClass, conf);
+    }
     // Create a SF.Writer instance.
     this.writer = SequenceFile.createWriter(fs, conf, path,
       HLog.getKeyClass(conf), WALEdit.class,
@@ -63,10 +92,10 @@ public class SequenceFileLogWriter implements HLog.Writer {
         fs.getDefaultReplication()),
       conf.getLong("hbase.regionserver.hlog.blocksize",
         fs.getDefaultBlockSize()),
-      SequenceFile.CompressionType.NONE,
-      new DefaultCodec(),
+      compressionType,
+      codec,
       null,
-      new Metadata());
+      metadata);
 
     // Get at the private FSDataOutputStream inside in SequenceFile so we can
     // call sync on it.  Make it accessible.  Stash it aside for call up in
@@ -110,7 +139,16 @@ public class SequenceFileLogWriter implements HLog.Writer {
 
   @Override
   public void append(HLog.Entry entry) throws IOException {
-    this.writer.append(entry.getKey(), entry.getEdit());
+    if (this.compressionContext == null) {
+      this.writer.append(entry.getKey(), entry.getEdit());
+      return;
+    }
+    entry.setCompressionContext(this.compressionContext);
+    try {
+      this.writer.append(entry.getKey(), entry.getEdit());
+    } finally {
+      entry.setCompressionContext(null);
+    }
   }
 
   @Override
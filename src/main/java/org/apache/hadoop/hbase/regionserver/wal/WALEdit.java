@@ -31,6 +31,7 @@ import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.ClassSize;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
 
 /**
  * WALEdit: Used in HBase's transaction log (WAL) to represent
@@ -65,6 +66,10 @@ import org.apache.hadoop.io.Writable;
  * The deserializer for WALEdit backward compatibly detects if the record
  * is an old style KeyValue or the new style WALEdit.
  *
+ * When a {@link CompressionContext} is set, the edit is instead written as:
+ *   <# of edits, <compressed KeyValue>, ..., # of scopes, <family, scope>, ...>
+ * where rows, families and qualifiers go through the dictionaries of the
+ * context and the counts are vints.
  */
 public class WALEdit implements Writable {
 
@@ -73,6 +78,9 @@ public class WALEdit implements Writable {
   private final ArrayList<KeyValue> kvs = new ArrayList<KeyValue>();
   private NavigableMap<byte[], Integer> scopes;
 
+  // Dictionaries to use when writing or reading, null if not compressed
+  private CompressionContext compressionContext;
+
   public WALEdit() {
   }
 
@@ -103,11 +111,23 @@ public class WALEdit implements Writable {
     this.scopes = scopes;
   }
 
+  /**
+   * @param compressionContext dictionaries to write and read this edit with,
+   * null to use the uncompressed format
+   */
+  void setCompressionContext(CompressionContext compressionContext) {
+    this.compressionContext = compressionContext;
+  }
+
   public void readFields(DataInput in) throws IOException {
     kvs.clear();
     if (scopes != null) {
       scopes.clear();
     }
+    if (compressionContext != null) {
+      readCompressed(in);
+      return;
+    }
     int versionOrLength = in.readInt();
     if (versionOrLength == VERSION_2) {
       // this is new style HLog entry containing multiple KeyValues.
@@ -138,7 +158,37 @@ public class WALEdit implements Writable {
 
   }
 
+  private void readCompressed(DataInput in) throws IOException {
+    int numEdits = WritableUtils.readVInt(in);
+    for (int idx = 0; idx < numEdits; idx++) {
+      byte [] row = compressionContext.rowDict.read(in);
+      byte [] family = compressionContext.familyDict.read(in);
+      byte [] qualifier = compressionContext.qualifierDict.read(in);
+      long timestamp = WritableUtils.readVLong(in);
+      KeyValue.Type type = KeyValue.Type.codeToType(in.readByte());
+      byte [] value = new byte[WritableUtils.readVInt(in)];
+      in.readFully(value);
+      this.add(new KeyValue(row, 0, row.length, family, 0, family.length,
+        qualifier, 0, qualifier.length, timestamp, type,
+        value, 0, value.length));
+    }
+    int numFamilies = WritableUtils.readVInt(in);
+    if (numFamilies > 0) {
+      if (scopes == null) {
+        scopes = new TreeMap<byte[], Integer>(Bytes.BYTES_COMPARATOR);
+      }
+      for (int i = 0; i < numFamilies; i++) {
+        byte [] fam = compressionContext.familyDict.read(in);
+        scopes.put(fam, WritableUtils.readVInt(in));
+      }
+    }
+  }
+
   public void write(DataOutput out) throws IOException {
+    if (compressionContext != null) {
+      writeCompressed(out);
+      return;
+    }
     out.writeInt(VERSION_2);
     out.writeInt(kvs.size());
     // We interleave the two lists for code simplicity
@@ -157,6 +207,32 @@ public class WALEdit implements Writable {
 
   }
 
+  private void writeCompressed(DataOutput out) throws IOException {
+    WritableUtils.writeVInt(out, kvs.size());
+    for (KeyValue kv : kvs) {
+      byte [] buffer = kv.getBuffer();
+      compressionContext.rowDict.write(out, buffer, kv.getRowOffset(),
+        kv.getRowLength());
+      compressionContext.familyDict.write(out, buffer, kv.getFamilyOffset(),
+        kv.getFamilyLength());
+      compressionContext.qualifierDict.write(out, buffer,
+        kv.getQualifierOffset(), kv.getQualifierLength());
+      WritableUtils.writeVLong(out, kv.getTimestamp());
+      out.writeByte(kv.getType());
+      WritableUtils.writeVInt(out, kv.getValueLength());
+      out.write(buffer, kv.getValueOffset(), kv.getValueLength());
+    }
+    if (scopes == null) {
+      WritableUtils.writeVInt(out, 0);
+    } else {
+      WritableUtils.writeVInt(out, scopes.size());
+      for (byte[] key : scopes.keySet()) {
+        compressionContext.familyDict.write(out, key);
+        WritableUtils.writeVInt(out, scopes.get(key));
+      }
+    }
+  }
+
   public String toString() {
     StringBuilder sb = new StringBuilder();
 
@@ -95,6 +95,8 @@ public class Replication implements WALObserver {
     if (this.replication) {
       if (this.replicationMaster) {
         this.replicationManager.join();
+      } else if (this.replicationSink != null) {
+        this.replicationSink.stopReplicationSinkServices();
       }
         this.zkHelper.deleteOwnRSZNode();
     }
@@ -150,6 +152,9 @@ public class Replication implements WALObserver {
     }
     if (!scopes.isEmpty()) {
       logEdit.setScopes(scopes);
+      if (this.replicationManager != null) {
+        this.replicationManager.logEntriesAppended();
+      }
     }
   }
 
@@ -22,31 +22,48 @@ package org.apache.hadoop.hbase.replication.regionserver;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.TableNotFoundException;
 import org.apache.hadoop.hbase.client.Delete;
-import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.HTablePool;
 import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Row;
 import org.apache.hadoop.hbase.regionserver.wal.HLog;
 import org.apache.hadoop.hbase.regionserver.wal.WALEdit;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.Stoppable;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * This class is responsible for replicating the edits coming
  * from another cluster.
  * <p/>
  * This replication process is currently waiting for the edits to be applied
- * before the method can return. This means that the replication of edits
- * is synchronized (after reading from HLogs in ReplicationSource) and that a
- * single region server cannot receive edits from two sources at the same time
+ * before the method can return. A source ships its next batch only once the
+ * previous one was applied, so the edits of a source are applied in order.
+ * Batches from different sources are applied concurrently.
+ * <p/>
+ * Within a batch, the edits are grouped by table and each table's Puts and
+ * Deletes are sent, in their original order, as a single
+ * {@link HTable#batch(List)}. That call splits them up by region and region
+ * server, and a region server applies actions on the same row in the order
+ * they were sent, so per-row ordering is kept. The tables of a batch are
+ * applied in parallel.
  * <p/>
  * This class uses the native HBase client in order to replicate entries.
  * <p/>
@@ -64,6 +81,8 @@ public class ReplicationSink {
   // Chain to pull on when we want all to stop.
   private final Stoppable stopper;
   private final ReplicationSinkMetrics metrics;
+  // Applies the per-table batches of a shipment in parallel
+  private final ThreadPoolExecutor sharedThreadPool;
 
   /**
    * Create a sink for replication
@@ -79,6 +98,12 @@ public class ReplicationSink {
         conf.getInt("replication.sink.htablepool.capacity", 10));
     this.stopper = stopper;
     this.metrics = new ReplicationSinkMetrics();
+    int threads = conf.getInt("replication.sink.threads", 10);
+    this.sharedThreadPool = new ThreadPoolExecutor(threads, threads,
+        60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("ReplicationSink-%d").build());
+    this.sharedThreadPool.allowCoreThreadTimeOut(true);
   }
 
   /**
@@ -88,19 +113,19 @@ public class ReplicationSink {
    * @param entries
    * @throws IOException
    */
-  public synchronized void replicateEntries(HLog.Entry[] entries)
+  public void replicateEntries(HLog.Entry[] entries)
       throws IOException {
     if (entries.length == 0) {
       return;
     }
-    // Very simple optimization where we batch sequences of rows going
-    // to the same table.
     try {
       long totalReplicated = 0;
-      byte[] lastTable = HConstants.EMPTY_BYTE_ARRAY;
-      List<Put> puts = new ArrayList<Put>();
+      // Map of table => list of Rows, in the order they were shipped
+      Map<byte[], List<Row>> rowMap =
+          new TreeMap<byte[], List<Row>>(Bytes.BYTES_COMPARATOR);
       for (HLog.Entry entry : entries) {
         WALEdit edit = entry.getEdit();
+        byte[] table = entry.getKey().getTablename();
         List<KeyValue> kvs = edit.getKeyValues();
         if (kvs.get(0).isDelete()) {
           Delete delete = new Delete(kvs.get(0).getRow(),
@@ -113,30 +138,24 @@ public class ReplicationSink {
                   kv.getQualifier());
             }
           }
-          delete(entry.getKey().getTablename(), delete);
+          addToMap(rowMap, table, delete);
         } else {
-          // Switching table, flush
-          if (!Bytes.equals(lastTable, entry.getKey().getTablename())) {
-            put(lastTable, puts);
-          }
           // With mini-batching, we need to expect multiple rows per edit
-          byte[] lastKey = kvs.get(0).getRow();
-          Put put = new Put(kvs.get(0).getRow(),
-              kvs.get(0).getTimestamp());
+          KeyValue lastKV = kvs.get(0);
+          Put put = new Put(lastKV.getRow(), lastKV.getTimestamp());
           for (KeyValue kv : kvs) {
-            if (!Bytes.equals(lastKey, kv.getRow())) {
-              puts.add(put);
+            if (!lastKV.matchingRow(kv)) {
+              addToMap(rowMap, table, put);
               put = new Put(kv.getRow(), kv.getTimestamp());
             }
-            put.add(kv.getFamily(), kv.getQualifier(), kv.getValue());
-            lastKey = kv.getRow();
+            put.add(kv);
+            lastKV = kv;
           }
-          puts.add(put);
-          lastTable = entry.getKey().getTablename();
+          addToMap(rowMap, table, put);
         }
         totalReplicated++;
       }
-      put(lastTable, puts);
+      batch(rowMap);
       this.metrics.setAgeOfLastAppliedOp(
           entries[entries.length-1].getKey().getWriteTime());
       this.metrics.appliedBatchesRate.inc(1);
@@ -161,42 +180,79 @@ public class ReplicationSink {
   }
 
   /**
-   * Do the puts and handle the pool
-   * @param tableName table to insert into
-   * @param puts list of puts
-   * @throws IOException
+   * Stop the threads used to apply edits
    */
-  private void put(byte[] tableName, List<Put> puts) throws IOException {
-    if (puts.isEmpty()) {
+  public void stopReplicationSinkServices() {
+    this.sharedThreadPool.shutdown();
+  }
+
+  private static void addToMap(Map<byte[], List<Row>> rowMap, byte[] table,
+      Row row) {
+    List<Row> rows = rowMap.get(table);
+    if (rows == null) {
+      rows = new ArrayList<Row>();
+      rowMap.put(table, rows);
+    }
+    rows.add(row);
+  }
+
+  /**
+   * Applies the rows of every table, the tables in parallel, and waits for
+   * all of them to finish.
+   * @param rowMap table => rows to apply to it, in order
+   * @throws IOException the first failure, once all tables are done
+   */
+  private void batch(Map<byte[], List<Row>> rowMap) throws IOException {
+    if (rowMap.size() == 1) {
+      Map.Entry<byte[], List<Row>> entry = rowMap.entrySet().iterator().next();
+      batch(entry.getKey(), entry.getValue());
       return;
     }
-    HTableInterface table = null;
-    try {
-      table = this.pool.getTable(tableName);
-      table.put(puts);
-      this.metrics.appliedOpsRate.inc(puts.size());
-      this.pool.putTable(table);
-      puts.clear();
-    } finally {
-      if (table != null) {
-        this.pool.putTable(table);
+    List<Future<Void>> futures = new ArrayList<Future<Void>>(rowMap.size());
+    for (final Map.Entry<byte[], List<Row>> entry : rowMap.entrySet()) {
+      futures.add(this.sharedThreadPool.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws IOException {
+          batch(entry.getKey(), entry.getValue());
+          return null;
+        }
+      }));
+    }
+    Throwable failure = null;
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw (InterruptedIOException)
+            new InterruptedIOException().initCause(e);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
       }
     }
+    if (failure instanceof IOException) {
+      throw (IOException)failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException)failure;
+    } else if (failure != null) {
+      throw new IOException(failure);
+    }
   }
 
   /**
-   * Do the delete and handle the pool
-   * @param tableName table to delete in
-   * @param delete the delete to use
+   * Do the batch and handle the pool
+   * @param tableName table to apply the rows to
+   * @param rows list of Puts and Deletes, in the order they must be applied
    * @throws IOException
    */
-  private void delete(byte[] tableName, Delete delete) throws IOException {
-    HTableInterface table = null;
+  private void batch(byte[] tableName, List<Row> rows) throws IOException {
+    HTable table = null;
     try {
-      table = this.pool.getTable(tableName);
-      table.delete(delete);
-      this.metrics.appliedOpsRate.inc(1);
-      this.pool.putTable(table);
+      table = (HTable) this.pool.getTable(tableName);
+      table.batch(rows);
+      this.metrics.appliedOpsRate.inc(rows.size());
     } finally {
       if (table != null) {
         this.pool.putTable(table);
@@ -23,17 +23,21 @@ import java.io.EOFException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.NavigableMap;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -65,7 +69,15 @@ import org.apache.hadoop.hbase.util.Threads;
  * A stream is considered down when we cannot contact a region server on the
  * peer cluster for more than 55 seconds by default.
  * <p/>
- *
+ * This thread only reads the logs. Every batch of edits it reads is split by
+ * region between a number of shipper threads, each of them talking to its
+ * own sink, so that edits to a region are always shipped in order. At most
+ * replication.source.size.capacity bytes of edits are waiting to be shipped
+ * at any time, and the position of a batch in the log is only recorded once
+ * it and all the batches before it are shipped.
+ * <p/>
+ * Instead of polling the current log, the reader waits to be told by the
+ * region server that new entries were appended to it.
  */
 public class ReplicationSource extends Thread
     implements ReplicationSourceInterface {
@@ -74,7 +86,7 @@ public class ReplicationSource extends Thread
   // Queue of logs to process
   private PriorityBlockingQueue<Path> queue;
   // container of entries to replicate
-  private HLog.Entry[] entriesArray;
+  private List<HLog.Entry> entries;
   private HConnection conn;
   // Helper class for zookeeper
   private ReplicationZookeeper zkHelper;
@@ -90,14 +102,16 @@ public class ReplicationSource extends Thread
   private ReplicationSourceManager manager;
   // Should we stop everything?
   private Stoppable stopper;
-  // List of chosen sinks (region servers)
-  private List<HServerAddress> currentPeers;
+  // List of chosen sinks (region servers), replaced as a whole when changed
+  private volatile List<HServerAddress> currentPeers;
   // How long should we sleep for each retry
   private long sleepForRetries;
-  // Max size in bytes of entriesArray
+  // Max size in bytes of the edits read but not shipped yet
   private long replicationQueueSizeCapacity;
-  // Max number of entries in entriesArray
+  // Max number of entries in a batch
   private int replicationQueueNbCapacity;
+  // How long to wait for appended entries to become readable
+  private long appendPollInterval;
   // Our reader for the current log
   private HLog.Reader reader;
   // Current position in the log
@@ -121,6 +135,28 @@ public class ReplicationSource extends Thread
   private int currentNbEntries = 0;
   // Current number of operations (Put/Delete) that we need to replicate
   private int currentNbOperations = 0;
+  // Size in bytes of the log entries read in the current batch
+  private long currentSize = 0;
+  // Number of log entries seen while reading the current batch
+  private long currentSeenEntries = 0;
+  // Threads shipping the batches to the peer cluster
+  private Shipper[] shippers;
+  // Batches read but not yet recorded as shipped, in log order
+  private final LinkedList<Batch> pendingBatches = new LinkedList<Batch>();
+  // Size in bytes of all the pending batches
+  private long pendingSize = 0;
+  // Last batch shipped whose position wasn't recorded yet, guarded by
+  // pendingBatches
+  private Batch lastShipped = null;
+  // Held while recording the position, so positions are written in order
+  private final Object positionLock = new Object();
+  // Used to wake up the reader when entries are appended or logs enqueued
+  private final Object appendLock = new Object();
+  // Number of notifications received and already taken care of by the reader
+  private long appendedEntries = 0;
+  private long consumedAppends = 0;
+  // Number of times we read again waiting for notified entries to show up
+  private int appendPolls = 0;
   // Indicates if this particular source is running
   private volatile boolean running = true;
   // Metrics for this source
@@ -150,10 +186,8 @@ public class ReplicationSource extends Thread
         this.conf.getLong("replication.source.size.capacity", 1024*1024*64);
     this.replicationQueueNbCapacity =
         this.conf.getInt("replication.source.nb.capacity", 25000);
-    this.entriesArray = new HLog.Entry[this.replicationQueueNbCapacity];
-    for (int i = 0; i < this.replicationQueueNbCapacity; i++) {
-      this.entriesArray[i] = new HLog.Entry();
-    }
+    this.appendPollInterval =
+        this.conf.getLong("replication.source.append.poll.interval", 10);
     this.maxRetriesMultiplier =
         this.conf.getLong("replication.source.maxretriesmultiplier", 10);
     this.queue =
@@ -163,7 +197,7 @@ public class ReplicationSource extends Thread
     this.conn = HConnectionManager.getConnection(conf);
     this.zkHelper = manager.getRepZkWrapper();
     this.ratio = this.conf.getFloat("replication.source.ratio", 0.1f);
-    this.currentPeers = new ArrayList<HServerAddress>();
+    this.currentPeers = Collections.emptyList();
     this.random = new Random();
     this.replicating = replicating;
     this.manager = manager;
@@ -172,6 +206,11 @@ public class ReplicationSource extends Thread
     this.fs = fs;
     this.clusterId = Byte.valueOf(zkHelper.getClusterId());
     this.metrics = new ReplicationSourceMetrics(peerClusterZnode);
+    this.shippers =
+        new Shipper[this.conf.getInt("replication.source.shipper.threads", 3)];
+    for (int i = 0; i < this.shippers.length; i++) {
+      this.shippers[i] = new Shipper(i);
+    }
 
     // Finally look if this is a recovered queue
     this.checkIfQueueRecovered(peerClusterZnode);
@@ -195,8 +234,7 @@ public class ReplicationSource extends Thread
   /**
    * Select a number of peers at random using the ratio. Mininum 1.
    */
-  private void chooseSinks() {
-    this.currentPeers.clear();
+  private synchronized void chooseSinks() {
     List<HServerAddress> addresses =
         this.zkHelper.getPeersAddresses(peerClusterId);
     Set<HServerAddress> setOfAddr = new HashSet<HServerAddress>();
@@ -212,20 +250,29 @@ public class ReplicationSource extends Thread
       LOG.info("Choosing peer " + address);
       setOfAddr.add(address);
     }
-    this.currentPeers.addAll(setOfAddr);
+    this.currentPeers = new ArrayList<HServerAddress>(setOfAddr);
   }
 
   @Override
   public void enqueueLog(Path log) {
     this.queue.put(log);
     this.metrics.sizeOfLogQueue.set(queue.size());
+    logEntriesAppended();
+  }
+
+  @Override
+  public void logEntriesAppended() {
+    synchronized (this.appendLock) {
+      this.appendedEntries++;
+      this.appendLock.notifyAll();
+    }
   }
 
   @Override
   public void run() {
     connectToPeers();
     // We were stopped while looping to connect to sinks, just abort
-    if (this.stopper.isStopped()) {
+    if (this.stopper.isStopped() || !this.running) {
       return;
     }
     // If this is recovered, the queue is already full and the first log
@@ -261,6 +308,11 @@ public class ReplicationSource extends Thread
 
       boolean gotIOE = false;
       currentNbEntries = 0;
+      currentNbOperations = 0;
+      currentSize = 0;
+      currentSeenEntries = 0;
+      this.entries = new ArrayList<HLog.Entry>();
+      long appendsBeforeRead = getAppendedEntries();
       try {
         if(readAllEntriesToReplicateOrNextFile()) {
           continue;
@@ -300,28 +352,41 @@ public class ReplicationSource extends Thread
           if (this.currentPath != null && !gotIOE) {
             this.position = this.reader.getPosition();
           }
-          if (this.reader != null) {
-            this.reader.close();
-          }
         } catch (IOException e) {
           gotIOE = true;
           LOG.warn("Unable to finalize the tailing of a file", e);
         }
+        // Keep the reader to tail the same log, unless we're done with it or
+        // don't know where it stands anymore
+        if (this.currentPath == null || gotIOE) {
+          closeReader();
+        }
       }
 
-      // If we didn't get anything to replicate, or if we hit a IOE,
-      // wait a bit and retry.
+      if (currentSeenEntries != 0) {
+        consumeAppends(appendsBeforeRead);
+      }
+      // If we hit a IOE, wait a bit and retry. If we didn't get anything new
+      // wait until more entries are appended, and if we only got entries that
+      // aren't replicated go on reading.
       // But if we need to stop, don't bother sleeping
       if (!stopper.isStopped() && (gotIOE || currentNbEntries == 0)) {
-        if (sleepForRetries("Nothing to replicate", sleepMultiplier)) {
-          sleepMultiplier++;
+        if (gotIOE) {
+          if (sleepForRetries("Unable to read the log", sleepMultiplier)) {
+            sleepMultiplier++;
+          }
+        } else if (currentSeenEntries == 0) {
+          if (waitForAppends(sleepMultiplier)) {
+            sleepMultiplier++;
+          }
         }
         continue;
       }
       sleepMultiplier = 1;
-      shipEdits();
+      queueEdits();
 
     }
+    closeReader();
     LOG.debug("Source exiting " + peerClusterId);
   }
 
@@ -337,7 +402,7 @@ public class ReplicationSource extends Thread
     if (this.position != 0) {
       this.reader.seek(this.position);
     }
-    HLog.Entry entry = this.reader.next(this.entriesArray[currentNbEntries]);
+    HLog.Entry entry = this.reader.next();
     while (entry != null) {
       WALEdit edit = entry.getEdit();
       this.metrics.logEditsReadRate.inc(1);
@@ -353,6 +418,7 @@ public class ReplicationSource extends Thread
         logKey.setClusterId(this.clusterId);
         currentNbOperations += countDistinctRowKeys(edit);
         currentNbEntries++;
+        this.entries.add(entry);
       } else {
         this.metrics.logEditsFilteredRate.inc(1);
       }
@@ -362,11 +428,13 @@ public class ReplicationSource extends Thread
           currentNbEntries >= this.replicationQueueNbCapacity) {
         break;
       }
-      entry = this.reader.next(entriesArray[currentNbEntries]);
+      entry = this.reader.next();
     }
+    currentSeenEntries = seenEntries;
+    currentSize = this.reader.getPosition() - this.position;
     LOG.debug("currentNbOperations:" + currentNbOperations +
         " and seenEntries:" + seenEntries +
-        " and size: " + (this.reader.getPosition() - this.position));
+        " and size: " + currentSize);
     // If we didn't get anything and the queue has an object, it means we
     // hit the end of the file for sure
     return seenEntries == 0 && processEndOfFile();
@@ -374,7 +442,8 @@ public class ReplicationSource extends Thread
 
   private void connectToPeers() {
     // Connect to peer cluster first, unless we have to stop
-    while (!this.stopper.isStopped() && this.currentPeers.size() == 0) {
+    while (!this.stopper.isStopped() && this.running &&
+        this.currentPeers.size() == 0) {
       try {
         chooseSinks();
         Thread.sleep(this.sleepForRetries);
@@ -407,6 +476,17 @@ public class ReplicationSource extends Thread
    * @return true if we should continue with that file, false if we are over with it
    */
   protected boolean openReader(int sleepMultiplier) {
+    if (this.reader != null) {
+      // Still on the same log, reopen it where we were to see new entries.
+      // This also keeps the dictionaries of a compressed log.
+      try {
+        this.reader.reset();
+        return true;
+      } catch (IOException ioe) {
+        LOG.debug("Unable to reopen " + this.currentPath, ioe);
+        closeReader();
+      }
+    }
     try {
       LOG.info("Opening log for replication " + this.currentPath.getName() +
           " at " + this.position);
@@ -461,6 +541,17 @@ public class ReplicationSource extends Thread
     return true;
   }
 
+  private void closeReader() {
+    if (this.reader != null) {
+      try {
+        this.reader.close();
+      } catch (IOException e) {
+        LOG.warn("Unable to close the reader on " + this.currentPath, e);
+      }
+      this.reader = null;
+    }
+  }
+
   /**
    * Do the sleeping logic
    * @param msg Why we sleep
@@ -477,6 +568,52 @@ public class ReplicationSource extends Thread
     return sleepMultiplier < maxRetriesMultiplier;
   }
 
+  private long getAppendedEntries() {
+    synchronized (this.appendLock) {
+      return this.appendedEntries;
+    }
+  }
+
+  /**
+   * Remember that everything appended before we last started reading was seen
+   * @param appends number of notifications received before reading
+   */
+  private void consumeAppends(long appends) {
+    synchronized (this.appendLock) {
+      this.consumedAppends = Math.max(this.consumedAppends, appends);
+      this.appendPolls = 0;
+    }
+  }
+
+  /**
+   * Wait until new entries are appended to the logs. If we were already told
+   * about entries we didn't see, they are probably waiting to be flushed by
+   * the log syncer so only wait a little before reading again.
+   * @param sleepMultiplier by how many times the waiting time is augmented
+   * when nothing was appended
+   * @return true if the multiplier can still be increased
+   */
+  protected boolean waitForAppends(int sleepMultiplier) {
+    synchronized (this.appendLock) {
+      try {
+        if (this.appendedEntries == this.consumedAppends) {
+          this.appendPolls = 0;
+          this.appendLock.wait(this.sleepForRetries * sleepMultiplier);
+        } else if (this.appendPolls < maxRetriesMultiplier) {
+          this.appendPolls++;
+          this.appendLock.wait(this.appendPollInterval * this.appendPolls);
+        } else {
+          // Those entries never showed up, forget about them
+          this.consumedAppends = this.appendedEntries;
+          this.appendPolls = 0;
+        }
+      } catch (InterruptedException e) {
+        LOG.debug("Interrupted while waiting for new entries");
+      }
+    }
+    return sleepMultiplier < maxRetriesMultiplier;
+  }
+
   /**
    * We only want KVs that are scoped other than local
    * @param edit The KV to check for replication
@@ -513,25 +650,110 @@ public class ReplicationSource extends Thread
     return distinctRowKeys;
   }
 
+  /**
+   * Hand the entries we just read to the shippers. Entries are split by
+   * region so that all the edits of a region go through the same shipper.
+   * Blocks while there are already too many edits waiting to be shipped,
+   * unless the source is stopped.
+   */
+  protected void queueEdits() {
+    Batch batch = new Batch(this.currentPath, this.position,
+        currentNbOperations, currentSize, this.shippers.length);
+    for (HLog.Entry entry : this.entries) {
+      int index = (Bytes.hashCode(entry.getKey().getEncodedRegionName())
+          & Integer.MAX_VALUE) % this.shippers.length;
+      batch.add(index, entry);
+    }
+    synchronized (this.pendingBatches) {
+      while (!this.stopper.isStopped() && this.running &&
+          this.pendingSize > 0 &&
+          this.pendingSize + batch.size > this.replicationQueueSizeCapacity) {
+        try {
+          this.pendingBatches.wait(this.sleepForRetries);
+        } catch (InterruptedException e) {
+          LOG.debug("Interrupted while waiting for edits to be shipped");
+        }
+      }
+      if (this.stopper.isStopped() || !this.running) {
+        return;
+      }
+      this.pendingBatches.add(batch);
+      this.pendingSize += batch.size;
+    }
+    for (int i = 0; i < this.shippers.length; i++) {
+      if (batch.getEntries(i) != null) {
+        this.shippers[i].batches.add(batch);
+      }
+    }
+  }
+
+  /**
+   * Record the position of all the batches shipped so far, in the order they
+   * were read. Called by the shippers each time they're done with a batch.
+   * The position is written to ZooKeeper without holding pendingBatches, so
+   * the reader and the other shippers don't wait on it.
+   */
+  private void logShippedBatches() {
+    synchronized (this.pendingBatches) {
+      while (!this.pendingBatches.isEmpty() &&
+          this.pendingBatches.getFirst().isShipped()) {
+        Batch batch = this.pendingBatches.removeFirst();
+        this.pendingSize -= batch.size;
+        this.totalReplicatedEdits += batch.nbEntries;
+        this.metrics.shippedBatchesRate.inc(1);
+        this.metrics.shippedOpsRate.inc(batch.nbOperations);
+        this.lastShipped = batch;
+      }
+      this.pendingBatches.notifyAll();
+    }
+    synchronized (this.positionLock) {
+      Batch last;
+      long total;
+      synchronized (this.pendingBatches) {
+        // Whoever held positionLock before us may have recorded it already
+        last = this.lastShipped;
+        this.lastShipped = null;
+        total = this.totalReplicatedEdits;
+      }
+      if (last == null) {
+        return;
+      }
+      this.manager.logPositionAndCleanOldLogs(last.path,
+          this.peerClusterZnode, last.position, queueRecovered);
+      this.metrics.setAgeOfLastShippedOp(last.writeTime);
+      LOG.debug("Replicated in total: " + total);
+    }
+  }
+
+  /**
+   * Wait until every batch we read has been shipped, or until we're stopped
+   */
+  private void waitForPendingBatches() {
+    synchronized (this.pendingBatches) {
+      while (!this.stopper.isStopped() && this.running &&
+          !this.pendingBatches.isEmpty()) {
+        try {
+          this.pendingBatches.wait(this.sleepForRetries);
+        } catch (InterruptedException e) {
+          LOG.debug("Interrupted while waiting for edits to be shipped");
+        }
+      }
+    }
+  }
+
   /**
    * Do the shipping logic
+   * @param index index of the shipper doing the work, used to pick its sink
+   * @param entries the entries to ship
    */
-  protected void shipEdits() {
+  protected void shipEdits(int index, List<HLog.Entry> entries) {
     int sleepMultiplier = 1;
-    while (!this.stopper.isStopped()) {
+    while (!this.stopper.isStopped() && this.running) {
       try {
-        HRegionInterface rrs = getRS();
-        LOG.debug("Replicating " + currentNbEntries);
-        rrs.replicateLogEntries(Arrays.copyOf(this.entriesArray, currentNbEntries));
-        this.manager.logPositionAndCleanOldLogs(this.currentPath,
-            this.peerClusterZnode, this.position, queueRecovered);
-        this.totalReplicatedEdits += currentNbEntries;
-        this.metrics.shippedBatchesRate.inc(1);
-        this.metrics.shippedOpsRate.inc(
-            this.currentNbOperations);
-        this.metrics.setAgeOfLastShippedOp(
-            this.entriesArray[this.entriesArray.length-1].getKey().getWriteTime());
-        LOG.debug("Replicated in total: " + this.totalReplicatedEdits);
+        HRegionInterface rrs = getRS(index);
+        LOG.debug("Replicating " + entries.size());
+        rrs.replicateLogEntries(
+            entries.toArray(new HLog.Entry[entries.size()]));
         break;
 
       } catch (IOException ioe) {
@@ -539,7 +761,7 @@ public class ReplicationSource extends Thread
         try {
           boolean down;
           do {
-            down = isSlaveDown();
+            down = isSlaveDown(index);
             if (down) {
               LOG.debug("The region server we tried to ping didn't answer, " +
                   "sleeping " + sleepForRetries + " times " + sleepMultiplier);
@@ -550,7 +772,7 @@ public class ReplicationSource extends Thread
                 chooseSinks();
               }
             }
-          } while (!this.stopper.isStopped() && down);
+          } while (!this.stopper.isStopped() && this.running && down);
         } catch (InterruptedException e) {
           LOG.debug("Interrupted while trying to contact the peer cluster");
         }
@@ -572,6 +794,7 @@ public class ReplicationSource extends Thread
       this.position = 0;
       return true;
     } else if (this.queueRecovered) {
+      waitForPendingBatches();
       this.manager.closeRecoveredQueue(this);
       this.abort();
       return true;
@@ -588,6 +811,10 @@ public class ReplicationSource extends Thread
             abort();
           }
         };
+    for (int i = 0; i < this.shippers.length; i++) {
+      Threads.setDaemonThreadRunning(this.shippers[i],
+          n + ".replicationSource.shipper" + i + "," + clusterId, handler);
+    }
     Threads.setDaemonThreadRunning(
         this, n + ".replicationSource," + clusterId, handler);
   }
@@ -597,40 +824,64 @@ public class ReplicationSource extends Thread
    */
   private void abort() {
     LOG.info("abort");
-    this.running = false;
     terminate();
   }
 
   public void terminate() {
     LOG.info("terminate");
-    Threads.shutdown(this, this.sleepForRetries);
+    this.running = false;
+    // Wake up the reader and shippers wherever they wait
+    interrupt(this);
+    for (Shipper shipper : this.shippers) {
+      interrupt(shipper);
+    }
+    shutdown(this);
+    for (Shipper shipper : this.shippers) {
+      shutdown(shipper);
+    }
+  }
+
+  // A thread aborting the source should not interrupt itself
+  private void interrupt(Thread t) {
+    if (t != Thread.currentThread()) {
+      t.interrupt();
+    }
+  }
+
+  // A thread aborting the source cannot wait on itself
+  private void shutdown(Thread t) {
+    if (t != Thread.currentThread()) {
+      Threads.shutdown(t, this.sleepForRetries);
+    }
   }
 
   /**
-   * Get a new region server at random from this peer
+   * Get the region server of this peer a shipper talks to
+   * @param index index of the shipper
    * @return
    * @throws IOException
    */
-  private HRegionInterface getRS() throws IOException {
-    if (this.currentPeers.size() == 0) {
+  private HRegionInterface getRS(int index) throws IOException {
+    List<HServerAddress> peers = this.currentPeers;
+    if (peers.size() == 0) {
       throw new IOException(this.peerClusterZnode + " has 0 region servers");
     }
-    HServerAddress address =
-        currentPeers.get(random.nextInt(this.currentPeers.size()));
+    HServerAddress address = peers.get(index % peers.size());
     return this.conn.getHRegionConnection(address);
   }
 
   /**
    * Check if the slave is down by trying to establish a connection
+   * @param index index of the shipper whose region server we ping
    * @return true if down, false if up
    * @throws InterruptedException
    */
-  public boolean isSlaveDown() throws InterruptedException {
+  public boolean isSlaveDown(final int index) throws InterruptedException {
     final CountDownLatch latch = new CountDownLatch(1);
     Thread pingThread = new Thread() {
       public void run() {
         try {
-          HRegionInterface rrs = getRS();
+          HRegionInterface rrs = getRS(index);
           // Dummy call which should fail
           rrs.getHServerInfo();
           latch.countDown();
@@ -663,6 +914,98 @@ public class ReplicationSource extends Thread
     return this.currentPath;
   }
 
+  /**
+   * Thread shipping, in order, its share of every batch read
+   */
+  private class Shipper extends Thread {
+    private final int index;
+    private final BlockingQueue<Batch> batches =
+        new LinkedBlockingQueue<Batch>();
+
+    Shipper(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public void run() {
+      while (!stopper.isStopped() && running) {
+        Batch batch;
+        try {
+          batch = this.batches.poll(sleepForRetries, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          LOG.debug("Interrupted while waiting for edits to ship");
+          continue;
+        }
+        if (batch == null) {
+          continue;
+        }
+        shipEdits(this.index, batch.getEntries(this.index));
+        // The edits may not have been shipped, don't record the position
+        if (stopper.isStopped() || !running) {
+          break;
+        }
+        if (batch.partShipped()) {
+          logShippedBatches();
+        }
+      }
+      LOG.debug("Shipper exiting " + peerClusterId);
+    }
+  }
+
+  /**
+   * Entries read in one go from a log, split between the shippers
+   */
+  private static class Batch {
+    // Log the entries come from and the position right after them
+    private final Path path;
+    private final long position;
+    private final int nbOperations;
+    private final long size;
+    private int nbEntries = 0;
+    private long writeTime = 0;
+    private final List<List<HLog.Entry>> entries;
+    private final AtomicInteger unshippedParts = new AtomicInteger();
+
+    Batch(Path path, long position, int nbOperations, long size,
+        int nbShippers) {
+      this.path = path;
+      this.position = position;
+      this.nbOperations = nbOperations;
+      this.size = size;
+      this.entries = new ArrayList<List<HLog.Entry>>(nbShippers);
+      for (int i = 0; i < nbShippers; i++) {
+        this.entries.add(null);
+      }
+    }
+
+    void add(int index, HLog.Entry entry) {
+      List<HLog.Entry> part = this.entries.get(index);
+      if (part == null) {
+        part = new ArrayList<HLog.Entry>();
+        this.entries.set(index, part);
+        this.unshippedParts.incrementAndGet();
+      }
+      part.add(entry);
+      this.nbEntries++;
+      this.writeTime = entry.getKey().getWriteTime();
+    }
+
+    List<HLog.Entry> getEntries(int index) {
+      return this.entries.get(index);
+    }
+
+    /**
+     * @return true if this was the last part of the batch to be shipped
+     */
+    boolean partShipped() {
+      return this.unshippedParts.decrementAndGet() == 0;
+    }
+
+    boolean isShipped() {
+      return this.unshippedParts.get() == 0;
+    }
+  }
+
   /**
    * Comparator used to compare logs together based on their start time
    */
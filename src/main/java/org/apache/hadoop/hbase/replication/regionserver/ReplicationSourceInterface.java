@@ -55,6 +55,11 @@ public interface ReplicationSourceInterface {
    */
   public void enqueueLog(Path log);
 
+  /**
+   * Tell the source that entries were appended to the current log
+   */
+  public void logEntriesAppended();
+
   /**
    * Get the current log that's replicated
    * @return the current log
@@ -27,6 +27,7 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
@@ -53,7 +54,7 @@ import org.apache.zookeeper.Watcher;
 public class ReplicationSourceManager {
   private static final Log LOG =
       LogFactory.getLog(ReplicationSourceManager.class);
-  // List of all the sources that read this RS's logs
+  // List of all the sources that read this RS's logs, read on every append
   private final List<ReplicationSourceInterface> sources;
   // List of all the sources we got from died RSs
   private final List<ReplicationSourceInterface> oldsources;
@@ -94,7 +95,7 @@ public class ReplicationSourceManager {
                                   final AtomicBoolean replicating,
                                   final Path logDir,
                                   final Path oldLogDir) {
-    this.sources = new ArrayList<ReplicationSourceInterface>();
+    this.sources = new CopyOnWriteArrayList<ReplicationSourceInterface>();
     this.replicating = replicating;
     this.zkHelper = zkHelper;
     this.stopper = stopper;
@@ -223,6 +224,16 @@ public class ReplicationSourceManager {
     }
   }
 
+  /**
+   * Wake up the sources reading the current log, it has new entries
+   */
+  void logEntriesAppended() {
+    // Recovered sources only read logs that are already closed
+    for (ReplicationSourceInterface source : this.sources) {
+      source.logEntriesAppended();
+    }
+  }
+
   /**
    * Get the ZK help of this manager
    * @return the helper
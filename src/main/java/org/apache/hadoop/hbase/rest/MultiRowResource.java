@@ -0,0 +1,196 @@
+/*
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.rest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.core.Response.ResponseBuilder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTablePool;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.rest.model.CellModel;
+import org.apache.hadoop.hbase.rest.model.CellSetModel;
+import org.apache.hadoop.hbase.rest.model.RowModel;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Reads or writes many rows in one request.
+ * <p>
+ * A GET takes the rows to read as repeated <tt>row</tt> query parameters,
+ * optionally narrowed by repeated <tt>column</tt> parameters (family or
+ * family:qualifier) and with <tt>v</tt> versions, and returns the rows found
+ * as one cell set in the order asked for.  A PUT or POST takes a cell set of
+ * any number of rows.  Either way the whole request is sent to the cluster
+ * as one {@link HTable#batch(List)}, which groups the rows by region server,
+ * instead of one round trip per row as with {@link RowResource}.
+ */
+public class MultiRowResource extends ResourceBase {
+  private static final Log LOG = LogFactory.getLog(MultiRowResource.class);
+
+  String tableName;
+  CacheControl cacheControl;
+
+  /**
+   * Constructor
+   * @param table
+   * @throws IOException
+   */
+  public MultiRowResource(String table) throws IOException {
+    super();
+    this.tableName = table;
+    this.cacheControl = new CacheControl();
+    this.cacheControl.setMaxAge(servlet.getMaxAge(tableName));
+    this.cacheControl.setNoTransform(false);
+  }
+
+  @GET
+  @Produces({MIMETYPE_XML, MIMETYPE_JSON, MIMETYPE_PROTOBUF})
+  public Response get(final @Context UriInfo uriInfo,
+      final @QueryParam("row") List<String> rows,
+      final @QueryParam("column") List<String> columns,
+      final @QueryParam("v") Integer versions) {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("GET " + uriInfo.getAbsolutePath());
+    }
+    servlet.getMetrics().incrementRequests(1);
+    if (rows == null || rows.isEmpty()) {
+      throw new WebApplicationException(Response.Status.BAD_REQUEST);
+    }
+    List<Row> gets = new ArrayList<Row>(rows.size());
+    try {
+      for (String row: rows) {
+        Get get = new Get(Bytes.toBytes(row));
+        if (columns != null) {
+          for (String column: columns) {
+            byte[][] split = KeyValue.parseColumn(Bytes.toBytes(column));
+            if (split.length == 2 && split[1].length != 0) {
+              get.addColumn(split[0], split[1]);
+            } else {
+              get.addFamily(split[0]);
+            }
+          }
+        }
+        if (versions != null) {
+          get.setMaxVersions(versions);
+        }
+        gets.add(get);
+      }
+    } catch (IOException e) {
+      // thrown by Get.setMaxVersions
+      throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+    }
+    long start = System.currentTimeMillis();
+    Result[] results = batch(gets);
+    servlet.getMetrics().updateMultiGet(gets.size(),
+      System.currentTimeMillis() - start);
+    CellSetModel model = new CellSetModel();
+    for (Result result: results) {
+      if (result == null || result.isEmpty()) {
+        continue;
+      }
+      RowModel rowModel = new RowModel(result.getRow());
+      for (KeyValue value: result.raw()) {
+        rowModel.addCell(
+          new CellModel(value.getFamily(), value.getQualifier(),
+            value.getTimestamp(), value.getValue()));
+      }
+      model.addRow(rowModel);
+    }
+    if (model.getRows().isEmpty()) {
+      throw new WebApplicationException(Response.Status.NOT_FOUND);
+    }
+    ResponseBuilder response = Response.ok(model);
+    response.cacheControl(cacheControl);
+    return response.build();
+  }
+
+  Response update(final CellSetModel model) {
+    servlet.getMetrics().incrementRequests(1);
+    List<Row> puts = new ArrayList<Row>(model.getRows().size());
+    for (RowModel row: model.getRows()) {
+      puts.add(RowResource.toPut(row));
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("PUT " + puts.size() + " rows");
+    }
+    long start = System.currentTimeMillis();
+    batch(puts);
+    servlet.getMetrics().updateMultiPut(puts.size(),
+      System.currentTimeMillis() - start);
+    return Response.ok().build();
+  }
+
+  private Result[] batch(final List<Row> actions) {
+    HTablePool pool = servlet.getTablePool();
+    HTableInterface table = null;
+    try {
+      table = pool.getTable(tableName);
+      return ((HTable)table).batch(actions);
+    } catch (IOException e) {
+      throw new WebApplicationException(e,
+                  Response.Status.SERVICE_UNAVAILABLE);
+    } finally {
+      if (table != null) {
+        pool.putTable(table);
+      }
+    }
+  }
+
+  @PUT
+  @Consumes({MIMETYPE_XML, MIMETYPE_JSON, MIMETYPE_PROTOBUF})
+  public Response put(final CellSetModel model,
+      final @Context UriInfo uriInfo) {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("PUT " + uriInfo.getAbsolutePath());
+    }
+    return update(model);
+  }
+
+  @POST
+  @Consumes({MIMETYPE_XML, MIMETYPE_JSON, MIMETYPE_PROTOBUF})
+  public Response post(final CellSetModel model,
+      final @Context UriInfo uriInfo) {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("POST " + uriInfo.getAbsolutePath());
+    }
+    return update(model);
+  }
+}
@@ -151,6 +151,23 @@ public class RowResource extends ResourceBase {
     }
   }
 
+  /**
+   * @param row the row to write
+   * @return a put of every cell in <code>row</code>
+   */
+  static Put toPut(final RowModel row) {
+    Put put = new Put(row.getKey());
+    for (CellModel cell: row.getCells()) {
+      byte [][] parts = KeyValue.parseColumn(cell.getColumn());
+      if (parts.length == 2 && parts[1].length > 0) {
+        put.add(parts[0], parts[1], cell.getTimestamp(), cell.getValue());
+      } else {
+        put.add(parts[0], null, cell.getTimestamp(), cell.getValue());
+      }
+    }
+    return put;
+  }
+
   Response update(final CellSetModel model, final boolean replace) {
     servlet.getMetrics().incrementRequests(1);
     HTablePool pool = servlet.getTablePool();
@@ -160,16 +177,7 @@ public class RowResource extends ResourceBase {
       table = pool.getTable(tableName);
       ((HTable)table).setAutoFlush(false);
       for (RowModel row: rows) {
-        byte[] key = row.getKey();
-        Put put = new Put(key);
-        for (CellModel cell: row.getCells()) {
-          byte [][] parts = KeyValue.parseColumn(cell.getColumn());
-          if (parts.length == 2 && parts[1].length > 0) {
-            put.add(parts[0], parts[1], cell.getTimestamp(), cell.getValue());
-          } else {
-            put.add(parts[0], null, cell.getTimestamp(), cell.getValue());
-          }
-        }
+        Put put = toPut(row);
         table.put(put);
         if (LOG.isDebugEnabled()) {
           LOG.debug("PUT " + put.toString());
@@ -51,6 +51,47 @@ public class ScannerResultGenerator extends ResultGenerator {
     return buildFilter(filter);
   }
 
+  /**
+   * @param table the table to scan
+   * @param rowspec the rows, columns, time range and versions to scan
+   * @param filter the filter, or null
+   * @return a scan for <code>rowspec</code> with block caching disabled
+   * @throws IOException
+   */
+  static Scan buildScan(final HTableInterface table, final RowSpec rowspec,
+      final Filter filter) throws IOException {
+    Scan scan;
+    if (rowspec.hasEndRow()) {
+      scan = new Scan(rowspec.getStartRow(), rowspec.getEndRow());
+    } else {
+      scan = new Scan(rowspec.getStartRow());
+    }
+    if (rowspec.hasColumns()) {
+      byte[][] columns = rowspec.getColumns();
+      for (byte[] column: columns) {
+        byte[][] split = KeyValue.parseColumn(column);
+        if (split.length > 1 && (split[1] != null && split[1].length != 0)) {
+          scan.addColumn(split[0], split[1]);
+        } else {
+          scan.addFamily(split[0]);
+        }
+      }
+    } else {
+      for (HColumnDescriptor family: 
+          table.getTableDescriptor().getFamilies()) {
+        scan.addFamily(family.getName());
+      }
+    }
+    scan.setTimeRange(rowspec.getStartTime(), rowspec.getEndTime());          
+    scan.setMaxVersions(rowspec.getMaxVersions());
+    if (filter != null) {
+      scan.setFilter(filter);
+    }
+    // always disable block caching on the cluster when scanning
+    scan.setCacheBlocks(false);
+    return scan;
+  }
+
   private String id;
   private Iterator<KeyValue> rowI;
   private KeyValue cache;
@@ -62,36 +103,7 @@ public class ScannerResultGenerator extends ResultGenerator {
     HTablePool pool = RESTServlet.getInstance().getTablePool(); 
     HTableInterface table = pool.getTable(tableName);
     try {
-      Scan scan;
-      if (rowspec.hasEndRow()) {
-        scan = new Scan(rowspec.getStartRow(), rowspec.getEndRow());
-      } else {
-        scan = new Scan(rowspec.getStartRow());
-      }
-      if (rowspec.hasColumns()) {
-        byte[][] columns = rowspec.getColumns();
-        for (byte[] column: columns) {
-          byte[][] split = KeyValue.parseColumn(column);
-          if (split.length > 1 && (split[1] != null && split[1].length != 0)) {
-            scan.addColumn(split[0], split[1]);
-          } else {
-            scan.addFamily(split[0]);
-          }
-        }
-      } else {
-        for (HColumnDescriptor family: 
-            table.getTableDescriptor().getFamilies()) {
-          scan.addFamily(family.getName());
-        }
-      }
-      scan.setTimeRange(rowspec.getStartTime(), rowspec.getEndTime());          
-      scan.setMaxVersions(rowspec.getMaxVersions());
-      if (filter != null) {
-        scan.setFilter(filter);
-      }
-      // always disable block caching on the cluster when scanning
-      scan.setCacheBlocks(false);
-      scanner = table.getScanner(scan);
+      scanner = table.getScanner(buildScan(table, rowspec, filter));
       cached = null;
       id = Long.toString(System.currentTimeMillis()) +
              Integer.toHexString(scanner.hashCode());
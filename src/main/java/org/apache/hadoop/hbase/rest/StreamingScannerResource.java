@@ -0,0 +1,213 @@
+/*
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.core.Response.ResponseBuilder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTablePool;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.rest.protobuf.generated.CellMessage.Cell;
+import org.apache.hadoop.hbase.rest.protobuf.generated.CellSetMessage.CellSet;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Streams the whole result of a scan back in the response to a single GET.
+ * <p>
+ * Unlike {@link ScannerResource}, nothing is kept on the gateway between
+ * requests.  The scan is given by the query parameters <tt>startrow</tt>,
+ * <tt>endrow</tt>, <tt>column</tt> (repeated, as family or
+ * family:qualifier), <tt>starttime</tt>, <tt>endtime</tt>,
+ * <tt>maxversions</tt>, <tt>limit</tt> (the most rows to return) and
+ * <tt>filter</tt> (as in {@link org.apache.hadoop.hbase.rest.model.ScannerModel}).
+ * <p>
+ * The response body is a sequence of CellSet protobuf messages, each preceded
+ * by its length as a varint, as read by <code>CellSet.parseDelimitedFrom</code>.
+ * No content length is known up front so the body is sent with chunked
+ * transfer encoding.  Each message holds at most
+ * <tt>hbase.rest.stream.rows.per.message</tt> rows and is flushed as soon as
+ * it is full, so the gateway never buffers more than one message and one
+ * batch of scanner caching however large the scan.  An error part way through
+ * aborts the response, leaving the body truncated.
+ */
+public class StreamingScannerResource extends ResourceBase {
+  private static final Log LOG =
+    LogFactory.getLog(StreamingScannerResource.class);
+
+  static final String ROWS_PER_MESSAGE_KEY =
+    "hbase.rest.stream.rows.per.message";
+  static final int DEFAULT_ROWS_PER_MESSAGE = 100;
+
+  String tableName;
+
+  /**
+   * Constructor
+   * @param table
+   * @throws IOException
+   */
+  public StreamingScannerResource(String table) throws IOException {
+    super();
+    this.tableName = table;
+  }
+
+  @GET
+  @Produces(MIMETYPE_PROTOBUF)
+  public Response get(final @Context UriInfo uriInfo,
+      final @QueryParam("startrow") String startRow,
+      final @QueryParam("endrow") String endRow,
+      final @QueryParam("column") List<String> columns,
+      final @QueryParam("starttime") Long startTime,
+      final @QueryParam("endtime") Long endTime,
+      final @QueryParam("maxversions") Integer maxVersions,
+      final @QueryParam("limit") int limit,
+      final @QueryParam("filter") String filterSpec) {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("GET " + uriInfo.getAbsolutePath());
+    }
+    servlet.getMetrics().incrementRequests(1);
+    List<byte[]> columnList = new ArrayList<byte[]>();
+    if (columns != null) {
+      for (String column: columns) {
+        columnList.add(Bytes.toBytes(column));
+      }
+    }
+    RowSpec spec = new RowSpec(
+      startRow != null ? Bytes.toBytes(startRow) : HConstants.EMPTY_START_ROW,
+      endRow != null ? Bytes.toBytes(endRow) : null,
+      columnList,
+      startTime != null ? startTime : 0L,
+      endTime != null ? endTime : Long.MAX_VALUE,
+      maxVersions != null ? maxVersions : 1);
+    Filter filter = null;
+    if (filterSpec != null && filterSpec.length() > 0) {
+      try {
+        filter = ScannerResultGenerator.buildFilter(filterSpec);
+      } catch (Exception e) {
+        throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+      }
+    }
+    int rowsPerMessage = servlet.getConfiguration().getInt(
+      ROWS_PER_MESSAGE_KEY, DEFAULT_ROWS_PER_MESSAGE);
+    ResultScanner scanner;
+    HTablePool pool = servlet.getTablePool();
+    try {
+      HTableInterface table = pool.getTable(tableName);
+      try {
+        Scan scan = ScannerResultGenerator.buildScan(table, spec, filter);
+        // Fetch from the region servers in batches the size of a message.
+        scan.setCaching(rowsPerMessage);
+        scanner = table.getScanner(scan);
+      } finally {
+        pool.putTable(table);
+      }
+    } catch (IOException e) {
+      throw new WebApplicationException(e,
+        Response.Status.SERVICE_UNAVAILABLE);
+    }
+    ResponseBuilder response = Response.ok(
+      new ScanOutput(scanner, rowsPerMessage, limit));
+    response.cacheControl(ScannerInstanceResource.cacheControl);
+    return response.build();
+  }
+
+  /**
+   * Writes the rows from a scanner to the response as they arrive, closing
+   * the scanner when done.
+   */
+  static class ScanOutput implements StreamingOutput {
+    private final ResultScanner scanner;
+    private final int rowsPerMessage;
+    private final int limit;
+
+    ScanOutput(final ResultScanner scanner, final int rowsPerMessage,
+        final int limit) {
+      this.scanner = scanner;
+      this.rowsPerMessage = rowsPerMessage;
+      this.limit = limit;
+    }
+
+    @Override
+    public void write(final OutputStream out) throws IOException {
+      try {
+        CellSet.Builder builder = CellSet.newBuilder();
+        int rows = 0;
+        Result result;
+        while ((limit <= 0 || rows < limit) &&
+            (result = scanner.next()) != null) {
+          if (result.isEmpty()) {
+            continue;
+          }
+          builder.addRows(toRow(result));
+          rows++;
+          if (builder.getRowsCount() >= rowsPerMessage) {
+            builder.build().writeDelimitedTo(out);
+            out.flush();
+            builder = CellSet.newBuilder();
+          }
+        }
+        if (builder.getRowsCount() > 0) {
+          builder.build().writeDelimitedTo(out);
+        }
+        out.flush();
+      } finally {
+        scanner.close();
+      }
+    }
+
+    private static CellSet.Row toRow(final Result result) {
+      CellSet.Row.Builder rowBuilder = CellSet.Row.newBuilder();
+      rowBuilder.setKey(ByteString.copyFrom(result.getRow()));
+      for (KeyValue kv: result.raw()) {
+        Cell.Builder cellBuilder = Cell.newBuilder();
+        cellBuilder.setColumn(ByteString.copyFrom(
+          KeyValue.makeColumn(kv.getFamily(), kv.getQualifier())));
+        cellBuilder.setData(ByteString.copyFrom(kv.getBuffer(),
+          kv.getValueOffset(), kv.getValueLength()));
+        cellBuilder.setTimestamp(kv.getTimestamp());
+        rowBuilder.addValues(cellBuilder);
+      }
+      return rowBuilder.build();
+    }
+  }
+}
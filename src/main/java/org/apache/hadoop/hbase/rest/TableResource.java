@@ -45,6 +45,11 @@ public class TableResource extends ResourceBase {
     return new ExistsResource(table);
   }
 
+  @Path("multi")
+  public MultiRowResource getMultiRowResource() throws IOException {
+    return new MultiRowResource(table);
+  }
+
   @Path("regions")
   public RegionsResource getRegionsResource() throws IOException {
     return new RegionsResource(table);
@@ -55,6 +60,12 @@ public class TableResource extends ResourceBase {
     return new ScannerResource(table);
   }
 
+  @Path("stream")
+  public StreamingScannerResource getStreamingScannerResource()
+      throws IOException {
+    return new StreamingScannerResource(table);
+  }
+
   @Path("schema")
   public SchemaResource getSchemaResource() throws IOException {
     return new SchemaResource(table);
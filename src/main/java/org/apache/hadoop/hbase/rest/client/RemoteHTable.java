@@ -69,6 +69,8 @@ public class RemoteHTable implements HTableInterface {
   final String accessToken;
   final int maxRetries;
   final long sleepTime;
+  // cleared once the gateway is found to predate the multi endpoint
+  volatile boolean multiEndpoint = true;
 
   @SuppressWarnings("unchecked")
   protected String buildRowSpec(final byte[] row, final Map familyMap, 
@@ -327,9 +329,6 @@ public class RemoteHTable implements HTableInterface {
   }
 
   public void put(List<Put> puts) throws IOException {
-    // this is a trick: The gateway accepts multiple rows in a cell set and
-    // ignores the row specification in the URI
-
     // separate puts by row
     TreeMap<byte[],List<KeyValue>> map =
       new TreeMap<byte[],List<KeyValue>>(Bytes.BYTES_COMPARATOR);
@@ -363,24 +362,49 @@ public class RemoteHTable implements HTableInterface {
       sb.append('/');      
     }
     sb.append(Bytes.toStringBinary(name));
-    sb.append("/$multiput"); // can be any nonexistent row
-    for (int i = 0; i < maxRetries; i++) {
-      Response response = client.put(sb.toString(), Constants.MIMETYPE_PROTOBUF,
-        model.createProtobufOutput());
-      int code = response.getCode();
-      switch (code) {
-      case 200:
-        return;
-      case 509:
+    String path = sb.toString();
+    byte[] cells = model.createProtobufOutput();
+    int code = 0;
+    if (multiEndpoint) {
+      code = putCells(path + "/multi", cells);
+      if (code == 404 || code == 405) {
+        LOG.info("gateway has no multi endpoint, falling back to multiput");
+        multiEndpoint = false;
+      }
+    }
+    if (!multiEndpoint) {
+      // this is a trick: older gateways accept multiple rows in a cell set
+      // and ignore the row specification in the URI
+      code = putCells(path + "/$multiput", cells); // can be any nonexistent row
+    }
+    switch (code) {
+    case 200:
+      return;
+    case 509:
+      throw new IOException("multiput request timed out");
+    default:
+      throw new IOException("multiput request failed with " + code);
+    }
+  }
+
+  /**
+   * Sends a cell set, retrying while the gateway is busy.
+   * @return the response code, 509 if it was still busy after the retries
+   */
+  private int putCells(final String path, final byte[] cells)
+      throws IOException {
+    int code = 509;
+    for (int i = 0; i < maxRetries && code == 509; i++) {
+      Response response = client.put(path, Constants.MIMETYPE_PROTOBUF,
+        cells);
+      code = response.getCode();
+      if (code == 509) {
         try {
           Thread.sleep(sleepTime);
         } catch (InterruptedException e) { }
-        break;
-      default:
-        throw new IOException("multiput request failed with " + code);
       }
     }
-    throw new IOException("multiput request timed out");
+    return code;
   }
 
   public void delete(Delete delete) throws IOException {
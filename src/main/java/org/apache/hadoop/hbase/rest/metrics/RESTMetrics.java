@@ -28,6 +28,7 @@ import org.apache.hadoop.metrics.MetricsUtil;
 import org.apache.hadoop.metrics.Updater;
 import org.apache.hadoop.metrics.jvm.JvmMetrics;
 import org.apache.hadoop.metrics.util.MetricsRegistry;
+import org.apache.hadoop.metrics.util.MetricsTimeVaryingRate;
 
 public class RESTMetrics implements Updater {
   private final MetricsRecord metricsRecord;
@@ -36,6 +37,20 @@ public class RESTMetrics implements Updater {
 
   private MetricsRate requests = new MetricsRate("requests", registry);
 
+  /** Rows read through the multi-row endpoint, per second. */
+  private MetricsRate multiGetRows = new MetricsRate("multiGetRows", registry);
+
+  /** Rows written through the multi-row endpoint, per second. */
+  private MetricsRate multiPutRows = new MetricsRate("multiPutRows", registry);
+
+  /** Time taken by each multi-row read, in milliseconds. */
+  private MetricsTimeVaryingRate multiGetLatency =
+    new MetricsTimeVaryingRate("multiGetLatency", registry);
+
+  /** Time taken by each multi-row write, in milliseconds. */
+  private MetricsTimeVaryingRate multiPutLatency =
+    new MetricsTimeVaryingRate("multiPutLatency", registry);
+
   public RESTMetrics() {
     MetricsContext context = MetricsUtil.getContext("rest");
     metricsRecord = MetricsUtil.createRecord(context, "rest");
@@ -62,12 +77,17 @@ public class RESTMetrics implements Updater {
   public void doUpdates(MetricsContext unused) {
     synchronized (this) {
       requests.pushMetric(metricsRecord);
+      multiGetRows.pushMetric(metricsRecord);
+      multiPutRows.pushMetric(metricsRecord);
+      multiGetLatency.pushMetric(metricsRecord);
+      multiPutLatency.pushMetric(metricsRecord);
     }
     this.metricsRecord.update();
   }
   
   public void resetAllMinMax() {
-    // Nothing to do
+    multiGetLatency.resetMinMax();
+    multiPutLatency.resetMinMax();
   }
 
   /**
@@ -84,4 +104,38 @@ public class RESTMetrics implements Updater {
     requests.inc(inc);
   }
 
+  /**
+   * @return Count of rows read by multi-row requests.
+   */
+  public float getMultiGetRows() {
+    return multiGetRows.getPreviousIntervalValue();
+  }
+
+  /**
+   * @return Count of rows written by multi-row requests.
+   */
+  public float getMultiPutRows() {
+    return multiPutRows.getPreviousIntervalValue();
+  }
+
+  /**
+   * Record a multi-row read.
+   * @param rows How many rows were asked for.
+   * @param time How long it took, in milliseconds.
+   */
+  public void updateMultiGet(final int rows, final long time) {
+    multiGetRows.inc(rows);
+    multiGetLatency.inc(time);
+  }
+
+  /**
+   * Record a multi-row write.
+   * @param rows How many rows were written.
+   * @param time How long it took, in milliseconds.
+   */
+  public void updateMultiPut(final int rows, final long time) {
+    multiPutRows.inc(rows);
+    multiPutLatency.inc(time);
+  }
+
 }
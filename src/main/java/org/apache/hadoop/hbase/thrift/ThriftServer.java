@@ -50,9 +50,11 @@ import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
 import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.HTablePool;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Row;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.filter.PrefixFilter;
@@ -102,12 +104,12 @@ public class ThriftServer {
     protected int nextScannerId = 0;
     protected HashMap<Integer, ResultScanner> scannerMap = null;
 
-    private static ThreadLocal<Map<String, HTable>> threadLocalTables = new ThreadLocal<Map<String, HTable>>() {
-      @Override
-      protected Map<String, HTable> initialValue() {
-        return new TreeMap<String, HTable>();
-      }
-    };
+    // tables are shared by all worker threads; see getTable and putTable
+    protected HTablePool tablePool = null;
+
+    // rows and bytes prefetched per round trip by scanners opened here
+    protected int scannerCaching;
+    protected long scannerMaxResultSize;
 
     /**
      * Returns a list of all the column families for a given htable.
@@ -127,7 +129,8 @@ public class ThriftServer {
     }
 
     /**
-     * Creates and returns an HTable instance from a given table name.
+     * Takes an HTable instance for the given table name out of the shared
+     * pool.  Callers must hand it back with {@link #putTable(HTable)}.
      *
      * @param tableName
      *          name of table
@@ -137,12 +140,29 @@ public class ThriftServer {
      */
     protected HTable getTable(final byte[] tableName) throws IOError,
         IOException {
-      String table = new String(tableName);
-      Map<String, HTable> tables = threadLocalTables.get();
-      if (!tables.containsKey(table)) {
-        tables.put(table, new HTable(conf, tableName));
+      return (HTable)tablePool.getTable(tableName);
+    }
+
+    /**
+     * Returns an HTable obtained from {@link #getTable(byte[])} to the pool.
+     *
+     * @param table
+     *          the table, may be null
+     */
+    protected void putTable(final HTable table) {
+      if (table != null) {
+        tablePool.putTable(table);
       }
-      return tables.get(table);
+    }
+
+    /*
+     * Applies the caching and result size limits configured for this
+     * gateway to a newly built scan.
+     */
+    private Scan configureScan(final Scan scan) {
+      scan.setCaching(scannerCaching);
+      scan.setMaxResultSize(scannerMaxResultSize);
+      return scan;
     }
 
     /**
@@ -193,6 +213,11 @@ public class ThriftServer {
       this.conf = c;
       admin = new HBaseAdmin(conf);
       scannerMap = new HashMap<Integer, ResultScanner>();
+      tablePool = new HTablePool(conf,
+        conf.getInt("hbase.thrift.htablepool.size", 10));
+      scannerCaching = conf.getInt("hbase.thrift.scanner.caching", 100);
+      scannerMaxResultSize = conf.getLong("hbase.thrift.scanner.max.result.size",
+        2 * 1024 * 1024);
     }
 
     public void enableTable(final byte[] tableName) throws IOError {
@@ -254,8 +279,9 @@ public class ThriftServer {
 
     public List<TRegionInfo> getTableRegions(byte[] tableName)
     throws IOError {
-      try{
-        HTable table = getTable(tableName);
+      HTable table = null;
+      try {
+        table = getTable(tableName);
         Map<HRegionInfo, HServerAddress> regionsInfo = table.getRegionsInfo();
         List<TRegionInfo> regions = new ArrayList<TRegionInfo>();
 
@@ -271,6 +297,8 @@ public class ThriftServer {
         return regions;
       } catch (IOException e){
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
@@ -286,8 +314,9 @@ public class ThriftServer {
 
     public List<TCell> get(byte [] tableName, byte [] row, byte [] family,
         byte [] qualifier) throws IOError {
+      HTable table = null;
       try {
-        HTable table = getTable(tableName);
+        table = getTable(tableName);
         Get get = new Get(row);
         if (qualifier == null || qualifier.length == 0) {
           get.addFamily(family);
@@ -298,6 +327,8 @@ public class ThriftServer {
         return ThriftUtilities.cellFromHBase(result.sorted());
       } catch (IOException e) {
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
@@ -313,8 +344,9 @@ public class ThriftServer {
 
     public List<TCell> getVer(byte [] tableName, byte [] row, byte [] family,
         byte [] qualifier, int numVersions) throws IOError {
+      HTable table = null;
       try {
-        HTable table = getTable(tableName);
+        table = getTable(tableName);
         Get get = new Get(row);
         get.addColumn(family, qualifier);
         get.setMaxVersions(numVersions);
@@ -322,6 +354,8 @@ public class ThriftServer {
         return ThriftUtilities.cellFromHBase(result.sorted());
       } catch (IOException e) {
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
@@ -339,8 +373,9 @@ public class ThriftServer {
 
     public List<TCell> getVerTs(byte [] tableName, byte [] row, byte [] family,
         byte [] qualifier, long timestamp, int numVersions) throws IOError {
+      HTable table = null;
       try {
-        HTable table = getTable(tableName);
+        table = getTable(tableName);
         Get get = new Get(row);
         get.addColumn(family, qualifier);
         get.setTimeRange(Long.MIN_VALUE, timestamp);
@@ -349,6 +384,8 @@ public class ThriftServer {
         return ThriftUtilities.cellFromHBase(result.sorted());
       } catch (IOException e) {
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
@@ -372,8 +409,9 @@ public class ThriftServer {
 
     public List<TRowResult> getRowWithColumnsTs(byte[] tableName, byte[] row,
         List<byte[]> columns, long timestamp) throws IOError {
+      HTable table = null;
       try {
-        HTable table = getTable(tableName);
+        table = getTable(tableName);
         if (columns == null) {
           Get get = new Get(row);
           get.setTimeRange(Long.MIN_VALUE, timestamp);
@@ -395,6 +433,57 @@ public class ThriftServer {
         return ThriftUtilities.rowResultFromHBase(result);
       } catch (IOException e) {
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
+      }
+    }
+
+    public List<TRowResult> getRows(byte[] tableName, List<byte[]> rows)
+        throws IOError {
+      return getRowsWithColumnsTs(tableName, rows, null,
+                                  HConstants.LATEST_TIMESTAMP);
+    }
+
+    public List<TRowResult> getRowsWithColumns(byte[] tableName,
+        List<byte[]> rows, List<byte[]> columns) throws IOError {
+      return getRowsWithColumnsTs(tableName, rows, columns,
+                                  HConstants.LATEST_TIMESTAMP);
+    }
+
+    public List<TRowResult> getRowsTs(byte[] tableName, List<byte[]> rows,
+        long timestamp) throws IOError {
+      return getRowsWithColumnsTs(tableName, rows, null,
+                                  timestamp);
+    }
+
+    public List<TRowResult> getRowsWithColumnsTs(byte[] tableName,
+        List<byte[]> rows, List<byte[]> columns, long timestamp)
+        throws IOError {
+      HTable table = null;
+      try {
+        // One multi call per region server instead of a round trip per row
+        List<Row> gets = new ArrayList<Row>(rows.size());
+        for (byte[] row : rows) {
+          Get get = new Get(row);
+          if (columns != null) {
+            for (byte [] column : columns) {
+              byte [][] famAndQf = KeyValue.parseColumn(column);
+              if (famAndQf.length == 1) {
+                get.addFamily(famAndQf[0]);
+              } else {
+                get.addColumn(famAndQf[0], famAndQf[1]);
+              }
+            }
+          }
+          get.setTimeRange(Long.MIN_VALUE, timestamp);
+          gets.add(get);
+        }
+        table = getTable(tableName);
+        return ThriftUtilities.rowResultFromHBase(table.batch(gets));
+      } catch (IOException e) {
+        throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
@@ -405,8 +494,9 @@ public class ThriftServer {
 
     public void deleteAllTs(byte[] tableName, byte[] row, byte[] column,
         long timestamp) throws IOError {
+      HTable table = null;
       try {
-        HTable table = getTable(tableName);
+        table = getTable(tableName);
         Delete delete  = new Delete(row);
         byte [][] famAndQf = KeyValue.parseColumn(column);
         if (famAndQf.length == 1) {
@@ -418,6 +508,8 @@ public class ThriftServer {
 
       } catch (IOException e) {
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
@@ -427,12 +519,15 @@ public class ThriftServer {
 
     public void deleteAllRowTs(byte[] tableName, byte[] row, long timestamp)
         throws IOError {
+      HTable table = null;
       try {
-        HTable table = getTable(tableName);
+        table = getTable(tableName);
         Delete delete  = new Delete(row, timestamp, null);
         table.delete(delete);
       } catch (IOException e) {
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
@@ -509,6 +604,8 @@ public class ThriftServer {
         throw new IOError(e.getMessage());
       } catch (IllegalArgumentException e) {
         throw new IllegalArgument(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
@@ -519,8 +616,10 @@ public class ThriftServer {
 
     public void mutateRowsTs(byte[] tableName, List<BatchMutation> rowBatches, long timestamp)
         throws IOError, IllegalArgument, TException {
-      List<Put> puts = new ArrayList<Put>();
-      List<Delete> deletes = new ArrayList<Delete>();
+      // All puts are applied before any delete, so a delete and a put of
+      // the same column in one call leave the column deleted.
+      List<Row> puts = new ArrayList<Row>();
+      List<Row> deletes = new ArrayList<Row>();
 
       for (BatchMutation batch : rowBatches) {
         byte[] row = batch.row;
@@ -549,19 +648,23 @@ public class ThriftServer {
         if (!put.isEmpty())
           puts.add(put);
       }
+      if (puts.isEmpty() && deletes.isEmpty()) {
+        return;
+      }
 
       HTable table = null;
       try {
         table = getTable(tableName);
         if (!puts.isEmpty())
-          table.put(puts);
-        for (Delete del : deletes) {
-          table.delete(del);
-        }
+          table.batch(puts);
+        if (!deletes.isEmpty())
+          table.batch(deletes);
       } catch (IOException e) {
         throw new IOError(e.getMessage());
       } catch (IllegalArgumentException e) {
         throw new IllegalArgument(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
@@ -579,12 +682,14 @@ public class ThriftServer {
     public long atomicIncrement(byte [] tableName, byte [] row, byte [] family,
         byte [] qualifier, long amount)
     throws IOError, IllegalArgument, TException {
-      HTable table;
+      HTable table = null;
       try {
         table = getTable(tableName);
         return table.incrementColumnValue(row, family, qualifier, amount);
       } catch (IOException e) {
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
@@ -621,8 +726,9 @@ public class ThriftServer {
     }
     public int scannerOpen(byte[] tableName, byte[] startRow,
             List<byte[]> columns) throws IOError {
+        HTable table = null;
         try {
-          HTable table = getTable(tableName);
+          table = getTable(tableName);
           Scan scan = new Scan(startRow);
           if(columns != null && columns.size() != 0) {
             for(byte [] column : columns) {
@@ -634,16 +740,19 @@ public class ThriftServer {
               }
             }
           }
-          return addScanner(table.getScanner(scan));
+          return addScanner(table.getScanner(configureScan(scan)));
         } catch (IOException e) {
           throw new IOError(e.getMessage());
+        } finally {
+          putTable(table);
         }
     }
 
     public int scannerOpenWithStop(byte[] tableName, byte[] startRow,
         byte[] stopRow, List<byte[]> columns) throws IOError, TException {
+      HTable table = null;
       try {
-        HTable table = getTable(tableName);
+        table = getTable(tableName);
         Scan scan = new Scan(startRow, stopRow);
         if(columns != null && columns.size() != 0) {
           for(byte [] column : columns) {
@@ -655,16 +764,19 @@ public class ThriftServer {
             }
           }
         }
-        return addScanner(table.getScanner(scan));
+        return addScanner(table.getScanner(configureScan(scan)));
       } catch (IOException e) {
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
     @Override
     public int scannerOpenWithPrefix(byte[] tableName, byte[] startAndPrefix, List<byte[]> columns) throws IOError, TException {
+      HTable table = null;
       try {
-        HTable table = getTable(tableName);
+        table = getTable(tableName);
         Scan scan = new Scan(startAndPrefix);
         Filter f = new WhileMatchFilter(
             new PrefixFilter(startAndPrefix));
@@ -679,16 +791,19 @@ public class ThriftServer {
             }
           }
         }
-        return addScanner(table.getScanner(scan));
+        return addScanner(table.getScanner(configureScan(scan)));
       } catch (IOException e) {
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
     public int scannerOpenTs(byte[] tableName, byte[] startRow,
         List<byte[]> columns, long timestamp) throws IOError, TException {
+      HTable table = null;
       try {
-        HTable table = getTable(tableName);
+        table = getTable(tableName);
         Scan scan = new Scan(startRow);
         scan.setTimeRange(Long.MIN_VALUE, timestamp);
         if(columns != null && columns.size() != 0) {
@@ -701,17 +816,20 @@ public class ThriftServer {
             }
           }
         }
-        return addScanner(table.getScanner(scan));
+        return addScanner(table.getScanner(configureScan(scan)));
       } catch (IOException e) {
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
     public int scannerOpenWithStopTs(byte[] tableName, byte[] startRow,
         byte[] stopRow, List<byte[]> columns, long timestamp)
         throws IOError, TException {
+      HTable table = null;
       try {
-        HTable table = getTable(tableName);
+        table = getTable(tableName);
         Scan scan = new Scan(startRow, stopRow);
         scan.setTimeRange(Long.MIN_VALUE, timestamp);
         if(columns != null && columns.size() != 0) {
@@ -725,19 +843,22 @@ public class ThriftServer {
           }
         }
         scan.setTimeRange(Long.MIN_VALUE, timestamp);
-        return addScanner(table.getScanner(scan));
+        return addScanner(table.getScanner(configureScan(scan)));
       } catch (IOException e) {
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
 
     public Map<byte[], ColumnDescriptor> getColumnDescriptors(
         byte[] tableName) throws IOError, TException {
+      HTable table = null;
       try {
         TreeMap<byte[], ColumnDescriptor> columns =
           new TreeMap<byte[], ColumnDescriptor>(Bytes.BYTES_COMPARATOR);
 
-        HTable table = getTable(tableName);
+        table = getTable(tableName);
         HTableDescriptor desc = table.getTableDescriptor();
 
         for (HColumnDescriptor e : desc.getFamilies()) {
@@ -747,6 +868,8 @@ public class ThriftServer {
         return columns;
       } catch (IOException e) {
         throw new IOError(e.getMessage());
+      } finally {
+        putTable(table);
       }
     }
   }
@@ -44,12 +44,14 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * Utility methods for interacting with the underlying file system.
  */
 public class FSUtils {
   private static final Log LOG = LogFactory.getLog(FSUtils.class);
+  private static final Random PIN_RANDOM = new Random();
 
   /**
    * Not instantiable
@@ -433,7 +435,8 @@ public class FSUtils {
       FileStatus[] regionDirs = fs.listStatus(d, df);
       for (FileStatus regionDir : regionDirs) {
         Path dd = regionDir.getPath();
-        if (dd.getName().equals(HConstants.HREGION_COMPACTIONDIR_NAME)) {
+        if (dd.getName().equals(HConstants.HREGION_COMPACTIONDIR_NAME) ||
+            dd.getName().equals(HConstants.COMPACTION_PIN_DIR_NAME)) {
           continue;
         }
         // else its a region name, now look in region for families
@@ -539,6 +542,70 @@ public class FSUtils {
     return true;
   }
 
+  /**
+   * Pins the current store files of a table.  Until the pin is released or
+   * expires, regionservers will not compact the table's stores, so files
+   * listed after the pin was taken stay in place and can be read directly
+   * off the filesystem.
+   * @param fs filesystem
+   * @param tableDir qualified path of the table directory
+   * @param ttl milliseconds after which the pin expires on its own, in case
+   * its owner dies without releasing it
+   * @return Path of the pin; pass to {@link #releaseCompactionPin(FileSystem, Path)}
+   * @throws IOException e
+   */
+  public static Path createCompactionPin(final FileSystem fs,
+      final Path tableDir, final long ttl)
+  throws IOException {
+    // The expiry is carried in the name so checking pins only needs a listing.
+    long expires = System.currentTimeMillis() + ttl;
+    Path p = new Path(new Path(tableDir, HConstants.COMPACTION_PIN_DIR_NAME),
+      expires + "-" + Math.abs(PIN_RANDOM.nextLong()));
+    return create(fs, p);
+  }
+
+  /**
+   * @param fs filesystem
+   * @param pin Path returned by {@link #createCompactionPin(FileSystem, Path, long)}
+   * @throws IOException e
+   */
+  public static void releaseCompactionPin(final FileSystem fs, final Path pin)
+  throws IOException {
+    if (!fs.delete(pin, false) && fs.exists(pin)) {
+      throw new IOException("Failed delete of " + pin);
+    }
+  }
+
+  /**
+   * @param fs filesystem
+   * @param tableDir qualified path of the table directory
+   * @return True if the table has an unexpired pin, in which case its stores
+   * should not be compacted.
+   * @throws IOException e
+   */
+  public static boolean isCompactionPinned(final FileSystem fs,
+      final Path tableDir)
+  throws IOException {
+    Path pinDir = new Path(tableDir, HConstants.COMPACTION_PIN_DIR_NAME);
+    if (!fs.exists(pinDir)) {
+      return false;
+    }
+    FileStatus [] pins = fs.listStatus(pinDir);
+    long now = System.currentTimeMillis();
+    for (int i = 0; pins != null && i < pins.length; i++) {
+      String name = pins[i].getPath().getName();
+      int dash = name.indexOf('-');
+      try {
+        if (dash > 0 && Long.parseLong(name.substring(0, dash)) > now) {
+          return true;
+        }
+      } catch (NumberFormatException e) {
+        LOG.warn("Ignoring unrecognized compaction pin " + pins[i].getPath());
+      }
+    }
+    return false;
+  }
+
   /**
    * A {@link PathFilter} that returns directories.
    */
@@ -19,22 +19,23 @@
  */
 package org.apache.hadoop.hbase.zookeeper;
 
-import java.io.IOException;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.catalog.CatalogTracker;
+import org.apache.zookeeper.KeeperException;
 
 /**
  * Tracks the unassigned zookeeper node used by the META table.
  * <p>
- * A callback is made into a {@link CatalogTracker} when META completes a new
- * assignment.
+ * A callback is made into a {@link CatalogTracker} when META starts being
+ * reassigned, and when META completes a new assignment.  The callbacks don't
+ * block, the catalog tracker refreshes the META location in the background.
  * <p>
  * If META is already assigned when instantiating this class, you will not
  * receive any notification for that assignment.  You will receive a
  * notification after META has been successfully assigned to a new location.
+ * <p>After construction, use {@link #start} to kick off tracking.
  */
 public class MetaNodeTracker extends ZooKeeperListener {
   private static final Log LOG = LogFactory.getLog(MetaNodeTracker.class);
@@ -47,7 +48,7 @@ public class MetaNodeTracker extends ZooKeeperListener {
   /**
    * Creates a meta node tracker.
    * @param watcher
-   * @param abortable
+   * @param catalogTracker
    */
   public MetaNodeTracker(ZooKeeperWatcher watcher,
       CatalogTracker catalogTracker) {
@@ -57,17 +58,56 @@ public class MetaNodeTracker extends ZooKeeperListener {
             HRegionInfo.FIRST_META_REGIONINFO.getEncodedName());
   }
 
+  /**
+   * Sets a watch on the node, so the catalog tracker is notified of META
+   * reassignments even when nothing else on this server watches it.
+   */
+  public void start() {
+    if(watchNode()) {
+      catalogTracker.metaInTransition();
+    }
+  }
+
+  @Override
+  public void nodeCreated(String path) {
+    if(path.equals(node)) {
+      nodeChanged();
+    }
+  }
+
+  @Override
+  public void nodeDataChanged(String path) {
+    if(path.equals(node)) {
+      nodeChanged();
+    }
+  }
+
   @Override
   public void nodeDeleted(String path) {
     if(path.equals(node)) {
+      nodeChanged();
+    }
+  }
+
+  private void nodeChanged() {
+    if(watchNode()) {
+      catalogTracker.metaInTransition();
+    } else {
       LOG.info("Detected completed assignment of META, notifying catalog " +
           "tracker");
-      try {
-        catalogTracker.waitForMetaServerConnectionDefault();
-      } catch (IOException e) {
-        LOG.warn("Tried to reset META server location after seeing the " +
-            "completion of a new META assignment but got an IOE", e);
-      }
+      catalogTracker.refreshMetaLocation();
+    }
+  }
+
+  /*
+   * @return true if the node exists, that is META is being assigned
+   */
+  private boolean watchNode() {
+    try {
+      return ZKUtil.watchAndCheckExists(watcher, node);
+    } catch (KeeperException e) {
+      LOG.warn("Failed setting a watch on the META unassigned node", e);
+      return false;
     }
   }
-}
\ No newline at end of file
+}
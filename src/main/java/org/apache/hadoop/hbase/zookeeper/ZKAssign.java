@@ -22,10 +22,12 @@ package org.apache.hadoop.hbase.zookeeper;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.executor.RegionTransitionData;
 import org.apache.hadoop.hbase.executor.EventHandler.EventType;
+import org.apache.zookeeper.AsyncCallback;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.Code;
 import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.apache.zookeeper.KeeperException.NodeExistsException;
+import org.apache.zookeeper.ZooKeeper;
 import org.apache.zookeeper.data.Stat;
 
 /**
@@ -95,6 +97,21 @@ public class ZKAssign {
     return ZKUtil.joinZNode(zkw.assignmentZNode, regionName);
   }
 
+  /**
+   * Callback for the asynchronous transitions of unassigned nodes.
+   */
+  public static interface TransitionCallback {
+    /**
+     * Called once the transition is done, or could not be done.
+     * @param rc OK, or the code of the unexpected zookeeper error that
+     * prevented the transition
+     * @param region region whose node was to be transitioned
+     * @param version version of node after transition, -1 if unsuccessful
+     * transition
+     */
+    public void processResult(int rc, HRegionInfo region, int version);
+  }
+
   /**
    * Gets the region name from the full path node name of an unassigned node.
    * @param path full zk path
@@ -143,6 +160,38 @@ public class ZKAssign {
     }
   }
 
+  /**
+   * Creates an unassigned node in the OFFLINE state for the specified region,
+   * without waiting on ZooKeeper.
+   *
+   * <p>Runs asynchronously, the callback is told whether the node could be
+   * created.  Lets the master pipeline the creation of many nodes instead of
+   * paying a round trip for each.
+   *
+   * <p>No watcher is set, set it with an async exists from the callback.
+   *
+   * <p>This method should only be used during cluster startup.
+   *
+   * @param zkw zk reference
+   * @param region region to be created as offline
+   * @param serverName server event originates from
+   * @param cb called once the node is created or the create failed
+   * @param ctx passed to the callback
+   */
+  public static void asyncCreateNodeOffline(ZooKeeperWatcher zkw,
+      HRegionInfo region, String serverName,
+      final AsyncCallback.StringCallback cb, final Object ctx) {
+    zkw.debug("Async creating an unassigned node for " +
+        region.getEncodedName() + " in an OFFLINE state");
+    RegionTransitionData data = new RegionTransitionData(
+        EventType.M2ZK_REGION_OFFLINE, region.getRegionName(), serverName);
+    synchronized(zkw.getNodes()) {
+      String node = getNodeName(zkw, region.getEncodedName());
+      zkw.getNodes().add(node);
+      ZKUtil.asyncCreate(zkw, node, data.getBytes(), cb, ctx);
+    }
+  }
+
   /**
    * Forces an existing unassigned node to the OFFLINE state for the specified
    * region.
@@ -432,6 +481,27 @@ public class ZKAssign {
         EventType.RS2ZK_REGION_CLOSED, expectedVersion);
   }
 
+  /**
+   * Asynchronous version of
+   * {@link #transitionNodeClosed(ZooKeeperWatcher, HRegionInfo, String, int)}.
+   *
+   * <p>Returns right away, the callback is given the version of the node
+   * after transition, or -1.
+   *
+   * @param zkw zk reference
+   * @param region region to be transitioned to closed
+   * @param serverName server event originates from
+   * @param expectedVersion expected version of the CLOSING node
+   * @param cb called once the transition is done or failed
+   */
+  public static void asyncTransitionNodeClosed(ZooKeeperWatcher zkw,
+      HRegionInfo region, String serverName, int expectedVersion,
+      TransitionCallback cb) {
+    asyncTransitionNode(zkw, region, serverName,
+        EventType.RS2ZK_REGION_CLOSING,
+        EventType.RS2ZK_REGION_CLOSED, expectedVersion, cb);
+  }
+
   /**
    * Transitions an existing unassigned node for the specified region which is
    * currently in the OFFLINE state to be in the OPENING state.
@@ -506,6 +576,28 @@ public class ZKAssign {
         EventType.RS2ZK_REGION_OPENING, expectedVersion);
   }
 
+  /**
+   * Asynchronous version of
+   * {@link #retransitionNodeOpening(ZooKeeperWatcher, HRegionInfo, String, int)}.
+   *
+   * <p>Returns right away, the callback is given the version of the node
+   * rewritten as OPENING, or -1.  Lets a RegionServer refresh the OPENING
+   * node while it opens the region instead of stopping to wait on ZooKeeper.
+   *
+   * @param zkw zk reference
+   * @param region region to be transitioned to opening
+   * @param serverName server event originates from
+   * @param expectedVersion expected version of the OPENING node
+   * @param cb called once the transition is done or failed
+   */
+  public static void asyncRetransitionNodeOpening(ZooKeeperWatcher zkw,
+      HRegionInfo region, String serverName, int expectedVersion,
+      TransitionCallback cb) {
+    asyncTransitionNode(zkw, region, serverName,
+        EventType.RS2ZK_REGION_OPENING,
+        EventType.RS2ZK_REGION_OPENING, expectedVersion, cb);
+  }
+
   /**
    * Transitions an existing unassigned node for the specified region which is
    * currently in the OPENING state to be in the OPENED state.
@@ -631,6 +723,109 @@ public class ZKAssign {
     }
   }
 
+  /**
+   * Asynchronous version of {@link #transitionNode(ZooKeeperWatcher,
+   * HRegionInfo, String, EventType, EventType, int)}.
+   *
+   * <p>Does the same read, checks and versioned write, chaining the requests
+   * from the callbacks instead of waiting on each of them.  If the watcher has
+   * no zookeeper anymore, as when it was closed under us, the callback is told
+   * the transition failed with CONNECTIONLOSS.
+   */
+  private static void asyncTransitionNode(final ZooKeeperWatcher zkw,
+      final HRegionInfo region, final String serverName,
+      final EventType beginState, final EventType endState,
+      final int expectedVersion, final TransitionCallback cb) {
+    final String encoded = region.getEncodedName();
+    if(zkw.isDebugEnabled()) {
+      zkw.debug("Attempting to async transition node " +
+        HRegionInfo.prettyPrint(encoded) +
+        " from " + beginState.toString() + " to " + endState.toString());
+    }
+    final String node = getNodeName(zkw, encoded);
+
+    final AsyncCallback.StatCallback setDataCallback =
+        new AsyncCallback.StatCallback() {
+      @Override
+      public void processResult(int rc, String path, Object ctx, Stat stat) {
+        if(rc == Code.BADVERSION.intValue() || rc == Code.NONODE.intValue()) {
+          zkw.warn("Attempt to transition the unassigned node for " + encoded +
+            " from " + beginState + " to " + endState + " failed, " +
+            "the node existed and was in the expected state but then when " +
+            "setting data we got " + Code.get(rc));
+          cb.processResult(Code.OK.intValue(), region, -1);
+        } else if(rc != Code.OK.intValue()) {
+          cb.processResult(rc, region, -1);
+        } else {
+          if(zkw.isDebugEnabled()) {
+            zkw.debug("Successfully transitioned node " + encoded +
+              " from " + beginState + " to " + endState);
+          }
+          cb.processResult(rc, region, stat.getVersion());
+        }
+      }
+    };
+
+    // Read existing data of the node
+    ZooKeeper zk = zkw.getZooKeeper();
+    if (zk == null) {
+      zkw.warn("Attempt to transition the unassigned node for " + encoded +
+        " from " + beginState + " to " + endState + " failed, " +
+        "no zookeeper connection");
+      cb.processResult(Code.CONNECTIONLOSS.intValue(), region, -1);
+      return;
+    }
+    zk.getData(node, false, new AsyncCallback.DataCallback() {
+      @Override
+      public void processResult(int rc, String path, Object ctx, byte[] bytes,
+          Stat stat) {
+        if(rc == Code.NONODE.intValue()) {
+          zkw.warn("Attempt to transition the unassigned node for " + encoded +
+            " from " + beginState + " to " + endState + " failed, " +
+            "the node does not exist");
+          cb.processResult(Code.OK.intValue(), region, -1);
+          return;
+        } else if(rc != Code.OK.intValue()) {
+          cb.processResult(rc, region, -1);
+          return;
+        }
+        RegionTransitionData existingData =
+          RegionTransitionData.fromBytes(bytes);
+
+        // Verify it is the expected version
+        if(expectedVersion != -1 && stat.getVersion() != expectedVersion) {
+          zkw.warn("Attempt to transition the unassigned node for " + encoded +
+              " from " + beginState + " to " + endState + " failed, " +
+              "the node existed but was version " + stat.getVersion() +
+              " not the expected version " + expectedVersion);
+          cb.processResult(Code.OK.intValue(), region, -1);
+          return;
+        }
+
+        // Verify it is in expected state
+        if(!existingData.getEventType().equals(beginState)) {
+          zkw.warn("Attempt to transition the unassigned node for " + encoded +
+            " from " + beginState + " to " + endState + " failed, " +
+            "the node existed but was in the state " +
+            existingData.getEventType());
+          cb.processResult(Code.OK.intValue(), region, -1);
+          return;
+        }
+
+        // Write new data, ensuring data has not changed since we last read it
+        RegionTransitionData data = new RegionTransitionData(endState,
+            region.getRegionName(), serverName);
+        ZooKeeper zk = zkw.getZooKeeper();
+        if (zk == null) {
+          cb.processResult(Code.CONNECTIONLOSS.intValue(), region, -1);
+          return;
+        }
+        zk.setData(node, data.getBytes(), stat.getVersion(),
+            setDataCallback, null);
+      }
+    }, null);
+  }
+
   /**
    * Gets the current data in the unassigned node for the specified region name
    * or fully-qualified path.
@@ -656,4 +851,28 @@ public class ZKAssign {
     }
     return RegionTransitionData.fromBytes(data);
   }
+
+  /**
+   * Asynchronous version of {@link #getData(ZooKeeperWatcher, String)}.
+   *
+   * <p>Returns right away, the callback is given the data of the node, to be
+   * read with {@link RegionTransitionData#fromBytes(byte[])}, or NONODE if the
+   * region does not currently have a node.
+   *
+   * <p>Sets a watch on the node if the node exists.
+   *
+   * <p>Lets the thread delivering the events read the new states of nodes
+   * without waiting on each read.
+   *
+   * @param zkw zk reference
+   * @param pathOrRegionName fully-specified path or region name
+   * @param cb called with the data of the node
+   * @param ctx passed to the callback
+   */
+  public static void asyncGetData(ZooKeeperWatcher zkw,
+      String pathOrRegionName, AsyncCallback.DataCallback cb, Object ctx) {
+    String node = pathOrRegionName.startsWith("/") ?
+        pathOrRegionName : getNodeName(zkw, pathOrRegionName);
+    zkw.getZooKeeper().getData(node, zkw, cb, ctx);
+  }
 }
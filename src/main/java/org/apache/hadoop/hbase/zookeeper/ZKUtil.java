@@ -25,8 +25,10 @@ import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,6 +38,7 @@ import org.apache.hadoop.hbase.HServerAddress;
 import org.apache.hadoop.hbase.HServerInfo;
 import org.apache.hadoop.hbase.executor.RegionTransitionData;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.zookeeper.AsyncCallback;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.Watcher;
@@ -291,10 +294,17 @@ public class ZKUtil {
     if(children == null) {
       return null;
     }
+    List<String> paths = new ArrayList<String>(children.size());
+    for(String child : children) {
+      paths.add(joinZNode(znode, child));
+    }
+    // Read all the addresses at once
+    List<byte []> datas = getDataAndWatch(zkw, paths);
     List<HServerAddress> addresses =
       new ArrayList<HServerAddress>(children.size());
-    for(String child : children) {
-      addresses.add(getDataAsAddress(zkw, joinZNode(znode, child)));
+    for(byte [] data : datas) {
+      addresses.add(data == null ? null :
+        new HServerAddress(Bytes.toString(data)));
     }
     return addresses;
   }
@@ -334,6 +344,9 @@ public class ZKUtil {
    * Atomically add watches and read data from all unwatched unassigned nodes.
    *
    * <p>This works because master is the only person deleting nodes.
+   *
+   * <p>The data of the new nodes is read with pipelined requests.  Nodes that
+   * were deleted before they could be read are skipped.
    */
   public static List<NodeAndData> watchAndGetNewChildren(ZooKeeperWatcher zkw,
       String baseNode)
@@ -342,18 +355,79 @@ public class ZKUtil {
     synchronized(zkw.getNodes()) {
       List<String> nodes =
         ZKUtil.listChildrenAndWatchForNewChildren(zkw, baseNode);
+      if(nodes == null) {
+        return newNodes;
+      }
+      List<String> nodePaths = new ArrayList<String>();
       for(String node : nodes) {
         String nodePath = ZKUtil.joinZNode(baseNode, node);
         if(!zkw.getNodes().contains(nodePath)) {
-          byte [] data = ZKUtil.getDataAndWatch(zkw, nodePath);
-          newNodes.add(new NodeAndData(nodePath, data));
-          zkw.getNodes().add(nodePath);
+          nodePaths.add(nodePath);
+        }
+      }
+      List<byte []> datas = getDataAndWatch(zkw, nodePaths);
+      for(int i = 0; i < nodePaths.size(); i++) {
+        if(datas.get(i) == null) {
+          continue;
         }
+        newNodes.add(new NodeAndData(nodePaths.get(i), datas.get(i)));
+        zkw.getNodes().add(nodePaths.get(i));
       }
     }
     return newNodes;
   }
 
+  /**
+   * Asynchronous version of {@link #watchAndGetNewChildren}, safe to call
+   * from the thread delivering the events.
+   *
+   * <p>Lists the children of the base node and sets a watch for new ones,
+   * then reads the data of each new child and sets a watch on it.  Nothing is
+   * waited on, the passed callback is called with the data of each new child
+   * as it comes back, with NONODE if the child was deleted before it could be
+   * read.  It is also called with the error, and no data, if the children
+   * could not be listed.
+   *
+   * @param zkw zk reference
+   * @param baseNode node whose children to watch and get
+   * @param cb called with the data of each new child
+   */
+  public static void asyncWatchAndGetNewChildren(final ZooKeeperWatcher zkw,
+      final String baseNode, final AsyncCallback.DataCallback cb) {
+    final AsyncCallback.DataCallback childCb = new AsyncCallback.DataCallback() {
+      @Override
+      public void processResult(int rc, String path, Object ctx, byte[] data,
+          Stat stat) {
+        if(rc != KeeperException.Code.OK.intValue()) {
+          // Not watched after all
+          synchronized(zkw.getNodes()) {
+            zkw.getNodes().remove(path);
+          }
+        }
+        cb.processResult(rc, path, ctx, data, stat);
+      }
+    };
+    zkw.getZooKeeper().getChildren(baseNode, zkw,
+        new AsyncCallback.ChildrenCallback() {
+      @Override
+      public void processResult(int rc, String path, Object ctx,
+          List<String> nodes) {
+        if(rc != KeeperException.Code.OK.intValue()) {
+          cb.processResult(rc, path, ctx, null, null);
+          return;
+        }
+        synchronized(zkw.getNodes()) {
+          for(String node : nodes) {
+            String nodePath = joinZNode(baseNode, node);
+            if(zkw.getNodes().add(nodePath)) {
+              zkw.getZooKeeper().getData(nodePath, zkw, childCb, ctx);
+            }
+          }
+        }
+      }
+    }, null);
+  }
+
   /**
    * Simple class to hold a node path and node data.
    */
@@ -537,6 +611,111 @@ public class ZKUtil {
     }
   }
 
+  /**
+   * Get the data of all the specified znodes and set watches.
+   *
+   * <p>The reads are pipelined, only one round trip to ZooKeeper is waited on
+   * instead of one per node.
+   *
+   * <p>Returns the data in the order of the passed nodes, with nulls for the
+   * nodes that do not exist.  Watches are only set on the nodes that exist.
+   *
+   * @param zkw zk reference
+   * @param znodes paths of the nodes
+   * @return data of the specified znodes, null for those that do not exist
+   * @throws KeeperException if unexpected zookeeper exception
+   */
+  public static List<byte []> getDataAndWatch(ZooKeeperWatcher zkw,
+      List<String> znodes)
+  throws KeeperException {
+    return getData(zkw, znodes, true);
+  }
+
+  /**
+   * Get the data of all the specified znodes without setting watches.
+   *
+   * <p>The reads are pipelined, only one round trip to ZooKeeper is waited on
+   * instead of one per node.
+   *
+   * @param zkw zk reference
+   * @param znodes paths of the nodes
+   * @return data of the specified znodes, null for those that do not exist
+   * @throws KeeperException if unexpected zookeeper exception
+   */
+  public static List<byte []> getDataNoWatch(ZooKeeperWatcher zkw,
+      List<String> znodes)
+  throws KeeperException {
+    return getData(zkw, znodes, false);
+  }
+
+  private static List<byte []> getData(ZooKeeperWatcher zkw,
+      List<String> znodes, boolean watch)
+  throws KeeperException {
+    if(znodes.isEmpty()) {
+      return Collections.emptyList();
+    }
+    if(zkw.isEventThread()) {
+      // Can't wait on callbacks here, read one node at a time
+      List<byte []> result = new ArrayList<byte []>(znodes.size());
+      for(String znode : znodes) {
+        result.add(watch ? getDataAndWatch(zkw, znode) :
+          getDataNoWatch(zkw, znode, null));
+      }
+      return result;
+    }
+    final byte [][] datas = new byte[znodes.size()][];
+    final int [] codes = new int[znodes.size()];
+    final CountDownLatch latch = new CountDownLatch(znodes.size());
+    AsyncCallback.DataCallback cb = new AsyncCallback.DataCallback() {
+      @Override
+      public void processResult(int rc, String path, Object ctx, byte[] data,
+          Stat stat) {
+        int i = ((Integer)ctx).intValue();
+        codes[i] = rc;
+        datas[i] = data;
+        latch.countDown();
+      }
+    };
+    for(int i = 0; i < znodes.size(); i++) {
+      zkw.getZooKeeper().getData(znodes.get(i), watch ? zkw : null, cb,
+          Integer.valueOf(i));
+    }
+    if(!await(zkw, latch)) {
+      return Collections.nCopies(znodes.size(), null);
+    }
+    List<byte []> result = new ArrayList<byte []>(znodes.size());
+    for(int i = 0; i < znodes.size(); i++) {
+      if(codes[i] == KeeperException.Code.NONODE.intValue()) {
+        zkw.debug("Unable to get data of znode " + znodes.get(i) + " " +
+            "because node does not exist (not an error)");
+        result.add(null);
+      } else if(codes[i] != KeeperException.Code.OK.intValue()) {
+        KeeperException e = KeeperException.create(
+            KeeperException.Code.get(codes[i]), znodes.get(i));
+        zkw.warn("Unable to get data of znode " + znodes.get(i), e);
+        zkw.keeperException(e);
+      } else {
+        result.add(datas[i]);
+      }
+    }
+    zkw.debug("Retrieved the data of " + znodes.size() + " znodes");
+    return result;
+  }
+
+  /*
+   * Waits on the pipelined requests counting down the passed latch.
+   * @return false if interrupted
+   */
+  private static boolean await(ZooKeeperWatcher zkw, CountDownLatch latch) {
+    try {
+      latch.await();
+      return true;
+    } catch(InterruptedException ie) {
+      zkw.interruptedException(ie);
+      return false;
+    }
+  }
+
   /**
    * Get the data at the specified znode, deserialize it as an HServerAddress,
    * and set a watch.
@@ -753,7 +932,9 @@ public class ZKUtil {
   /**
    * Creates the specified node with the specified data and watches it.
    *
-   * <p>Throws an exception if the node already exists.
+   * <p>Nothing is thrown if the node already exists, the callback is called
+   * with a result code of {@link KeeperException.Code#NODEEXISTS} instead.
+   * Other failures are reported to it the same way, with their own code.
    *
    * <p>The node created is persistent and open access.
    *
@@ -779,6 +960,29 @@ public class ZKUtil {
     }
   }
 
+  /**
+   * Async creates the specified node with the specified data.
+   *
+   * <p>Throws an exception if the node already exists.
+   *
+   * <p>The node created is persistent and open access.
+   *
+   * <p>No watch is set, callers wanting one can set it from the callback with
+   * an async exists.
+   *
+   * @param zkw zk reference
+   * @param znode path of node to create
+   * @param data data of node to create
+   * @param cb called once the node is created or the create failed
+   * @param ctx passed to the callback
+   */
+  public static void asyncCreate(ZooKeeperWatcher zkw,
+      String znode, byte [] data, final AsyncCallback.StringCallback cb,
+      final Object ctx) {
+    zkw.getZooKeeper().create(znode, data, Ids.OPEN_ACL_UNSAFE,
+        CreateMode.PERSISTENT, cb, ctx);
+  }
+
   /**
    * Creates the specified node, if the node does not exist.  Does not set a
    * watch and fails silently if the node already exists.
@@ -907,10 +1111,109 @@ public class ZKUtil {
   public static void deleteChildrenRecursively(ZooKeeperWatcher zkw, String node)
   throws KeeperException {
     List<String> children = ZKUtil.listChildrenNoWatch(zkw, node);
-    if(!children.isEmpty()) {
-      for(String child : children) {
-        deleteNodeRecursively(zkw, joinZNode(node, child));
+    if(children == null || children.isEmpty()) {
+      return;
+    }
+    // List the whole tree a level at a time, parents before their children,
+    // pipelining the listing of each level
+    List<String> nodes = new ArrayList<String>();
+    List<String> level = new ArrayList<String>(children.size());
+    for(String child : children) {
+      level.add(joinZNode(node, child));
+    }
+    while(!level.isEmpty()) {
+      nodes.addAll(level);
+      level = listChildrenNoWatch(zkw, level);
+    }
+    // Then delete it bottom up.  ZooKeeper applies the requests of a session
+    // in order so the children are gone by the time their parent is deleted
+    Collections.reverse(nodes);
+    if(zkw.isEventThread()) {
+      // Can't wait on callbacks here, delete one node at a time
+      for(String n : nodes) {
+        deleteNodeFailSilent(zkw, n);
+      }
+      return;
+    }
+    final int [] codes = new int[nodes.size()];
+    final CountDownLatch latch = new CountDownLatch(nodes.size());
+    AsyncCallback.VoidCallback cb = new AsyncCallback.VoidCallback() {
+      @Override
+      public void processResult(int rc, String path, Object ctx) {
+        codes[((Integer)ctx).intValue()] = rc;
+        latch.countDown();
+      }
+    };
+    for(int i = 0; i < nodes.size(); i++) {
+      zkw.getZooKeeper().delete(nodes.get(i), -1, cb, Integer.valueOf(i));
+    }
+    if(!await(zkw, latch)) {
+      return;
+    }
+    for(int i = 0; i < nodes.size(); i++) {
+      // Someone else may have deleted it already
+      if(codes[i] != KeeperException.Code.OK.intValue() &&
+          codes[i] != KeeperException.Code.NONODE.intValue()) {
+        throw KeeperException.create(KeeperException.Code.get(codes[i]),
+            nodes.get(i));
+      }
+    }
+  }
+
+  /*
+   * Lists the children of all the passed nodes with pipelined requests.  Sets
+   * no watches.  Nodes that do not exist have no children.
+   * @return full paths of the children of all the passed nodes
+   */
+  private static List<String> listChildrenNoWatch(ZooKeeperWatcher zkw,
+      List<String> znodes)
+  throws KeeperException {
+    final List<String> children = new ArrayList<String>();
+    if(zkw.isEventThread()) {
+      // Can't wait on callbacks here, list one node at a time
+      for(String znode : znodes) {
+        List<String> nodes = listChildrenNoWatch(zkw, znode);
+        if(nodes != null) {
+          for(String node : nodes) {
+            children.add(joinZNode(znode, node));
+          }
+        }
       }
+      return children;
+    }
+    final int [] codes = new int[znodes.size()];
+    final CountDownLatch latch = new CountDownLatch(znodes.size());
+    AsyncCallback.ChildrenCallback cb = new AsyncCallback.ChildrenCallback() {
+      @Override
+      public void processResult(int rc, String path, Object ctx,
+          List<String> nodes) {
+        codes[((Integer)ctx).intValue()] = rc;
+        if(nodes != null) {
+          synchronized(children) {
+            for(String node : nodes) {
+              children.add(joinZNode(path, node));
+            }
+          }
+        }
+        latch.countDown();
+      }
+    };
+    for(int i = 0; i < znodes.size(); i++) {
+      zkw.getZooKeeper().getChildren(znodes.get(i), null, cb,
+          Integer.valueOf(i));
+    }
+    if(!await(zkw, latch)) {
+      return Collections.emptyList();
+    }
+    for(int i = 0; i < znodes.size(); i++) {
+      if(codes[i] != KeeperException.Code.OK.intValue() &&
+          codes[i] != KeeperException.Code.NONODE.intValue()) {
+        throw KeeperException.create(KeeperException.Code.get(codes[i]),
+            znodes.get(i));
+      }
+    }
+    synchronized(children) {
+      return children;
     }
   }
 
@@ -67,6 +67,9 @@ public class ZooKeeperWatcher implements Watcher {
   // set of unassigned nodes watched
   private Set<String> unassignedNodes = new HashSet<String>();
 
+  // thread delivering the events and the async callbacks
+  private volatile Thread eventThread;
+
   // node names
 
   // base znode for this cluster
@@ -164,6 +167,7 @@ public class ZooKeeperWatcher implements Watcher {
    */
   @Override
   public void process(WatchedEvent event) {
+    this.eventThread = Thread.currentThread();
     LOG.debug("<" + name + "> Received ZooKeeper Event, " +
         "type=" + event.getType() + ", " +
         "state=" + event.getState() + ", " +
@@ -241,6 +245,16 @@ public class ZooKeeperWatcher implements Watcher {
     }
   }
 
+  /**
+   * Waiting on an async callback from the thread delivering them would
+   * deadlock, so callers that pipeline requests check this first.
+   * @return true if the current thread is the one delivering the events and
+   * the async callbacks
+   */
+  public boolean isEventThread() {
+    return Thread.currentThread() == this.eventThread;
+  }
+
   /**
    * Get the set of already watched unassigned nodes.
    * @return
@@ -688,4 +688,70 @@ service Hbase {
     /** id of a scanner returned by scannerOpen */
     1:ScannerID id
   ) throws (1:IOError io, 2:IllegalArgument ia)
+
+  /** 
+   * Get all the data for the specified table and rows at the latest
+   * timestamp. Rows that do not exist are left out.
+   * 
+   * @return a TRowResult for each row found, in the order asked for
+   */
+  list<TRowResult> getRows(
+    /** name of table */
+    1:Text tableName,
+
+    /** row keys */
+    2:list<Text> rows
+  ) throws (1:IOError io)
+
+  /** 
+   * Get the specified columns for the specified table and rows at the latest
+   * timestamp. Rows that do not exist are left out.
+   * 
+   * @return a TRowResult for each row found, in the order asked for
+   */
+  list<TRowResult> getRowsWithColumns(
+    /** name of table */
+    1:Text tableName,
+
+    /** row keys */
+    2:list<Text> rows,
+
+    /** List of columns to return, null for all columns */
+    3:list<Text> columns
+  ) throws (1:IOError io)
+
+  /** 
+   * Get all the data for the specified table and rows at the specified
+   * timestamp. Rows that do not exist are left out.
+   * 
+   * @return a TRowResult for each row found, in the order asked for
+   */
+  list<TRowResult> getRowsTs(
+    /** name of the table */
+    1:Text tableName,
+
+    /** row keys */
+    2:list<Text> rows,
+
+    /** timestamp */
+    3:i64 timestamp
+  ) throws (1:IOError io)
+
+  /** 
+   * Get the specified columns for the specified table and rows at the specified
+   * timestamp. Rows that do not exist are left out.
+   * 
+   * @return a TRowResult for each row found, in the order asked for
+   */
+  list<TRowResult> getRowsWithColumnsTs(
+    /** name of table */
+    1:Text tableName,
+
+    /** row keys */
+    2:list<Text> rows,
+
+    /** List of columns to return, null for all columns */
+    3:list<Text> columns,
+    4:i64 timestamp
+  ) throws (1:IOError io)
 }
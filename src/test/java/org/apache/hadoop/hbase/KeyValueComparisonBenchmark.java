@@ -0,0 +1,70 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase;
+
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Measures {@link KeyValue.KVComparator#compare(KeyValue, KeyValue)} on keys
+ * that share a common row prefix, as keys within a block or a memstore do.
+ * One operation is one comparison.
+ */
+public class KeyValueComparisonBenchmark extends MicroBenchmark {
+  private static final int COUNT = 1024;
+  private static final byte [] FAMILY = Bytes.toBytes("family");
+  private KeyValue [] kvs;
+
+  public KeyValueComparisonBenchmark(final Configuration conf) {
+    super(conf);
+  }
+
+  @Override
+  public int getOperationsPerInvocation() {
+    return COUNT;
+  }
+
+  @Override
+  public void setUp() {
+    Random random = new Random(COUNT);
+    this.kvs = new KeyValue[COUNT + 1];
+    for (int i = 0; i < this.kvs.length; i++) {
+      // Most neighbours differ in the row suffix; every fourth pair shares
+      // the row and differs in qualifier or timestamp.
+      byte [] row = Bytes.toBytes("user" + (random.nextInt(4) == 0?
+        "0000000000": String.format("%010d", random.nextInt())));
+      byte [] qualifier = Bytes.toBytes("q" + random.nextInt(16));
+      this.kvs[i] = new KeyValue(row, FAMILY, qualifier,
+        random.nextInt(1000), Bytes.toBytes(i));
+    }
+  }
+
+  @Override
+  public long operation(final int thread) {
+    long result = 0;
+    KeyValue.KVComparator comparator = KeyValue.COMPARATOR;
+    for (int i = 0; i < COUNT; i++) {
+      result += comparator.compare(this.kvs[i], this.kvs[i + 1]);
+    }
+    return result;
+  }
+}
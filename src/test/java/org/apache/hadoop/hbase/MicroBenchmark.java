@@ -0,0 +1,92 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase;
+
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * A single in-process micro benchmark run by {@link MicroBenchmarkRunner}.
+ * <p>
+ * Unlike {@link PerformanceEvaluation} these do not need a cluster; each one
+ * exercises one hot path (comparators, memstore, block cache, etc.) in
+ * isolation.  The runner calls {@link #setUp()} once, then repeatedly calls
+ * {@link #operation(int)} from {@link #getThreads()} threads for a series of
+ * timed warmup and measurement iterations, then calls {@link #tearDown()}.
+ * <p>
+ * Implementations must be thread safe in {@link #operation(int)} when they
+ * return more than one from {@link #getThreads()}.
+ */
+public abstract class MicroBenchmark {
+  protected final Configuration conf;
+
+  protected MicroBenchmark(final Configuration conf) {
+    this.conf = conf;
+  }
+
+  /**
+   * @return Name to report results under; defaults to the class name without
+   * its package, so nested benchmarks read as <code>Outer.Inner</code>.
+   */
+  public String getName() {
+    String name = getClass().getName();
+    return name.substring(name.lastIndexOf('.') + 1).replace('$', '.');
+  }
+
+  /**
+   * @return Number of threads to call {@link #operation(int)} concurrently.
+   */
+  public int getThreads() {
+    return 1;
+  }
+
+  /**
+   * @return How many logical operations a single call to
+   * {@link #operation(int)} performs.  Throughput is reported per logical
+   * operation.
+   */
+  public int getOperationsPerInvocation() {
+    return 1;
+  }
+
+  /**
+   * Called once before any iterations.  Not timed.
+   * @throws Exception
+   */
+  public void setUp() throws Exception {
+    // do nothing
+  }
+
+  /**
+   * Do the work being measured.
+   * @param thread Index of the calling thread, zero-based.
+   * @return Some value derived from the work done.  The runner folds it into
+   * a sink so the JIT cannot eliminate the measured code as dead.
+   * @throws Exception
+   */
+  public abstract long operation(final int thread) throws Exception;
+
+  /**
+   * Called once after all iterations.  Not timed.
+   * @throws Exception
+   */
+  public void tearDown() throws Exception {
+    // do nothing
+  }
+}
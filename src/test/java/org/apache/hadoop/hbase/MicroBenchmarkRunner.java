@@ -0,0 +1,399 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase;
+
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.WritableSerializationBenchmark;
+import org.apache.hadoop.hbase.io.hfile.Compression;
+import org.apache.hadoop.hbase.io.hfile.HFileScannerBenchmark;
+import org.apache.hadoop.hbase.io.hfile.LruBlockCacheBenchmark;
+import org.apache.hadoop.hbase.mapreduce.ImportTsvBenchmark;
+import org.apache.hadoop.hbase.regionserver.KeyValueHeapBenchmark;
+import org.apache.hadoop.hbase.regionserver.MemStoreBenchmark;
+import org.apache.hadoop.hbase.regionserver.ScanQueryMatcherBenchmark;
+
+/**
+ * Runs {@link MicroBenchmark}s in-process and emits the results in a
+ * machine-readable format so they can be compared between builds.
+ * <p>
+ * Each benchmark is run for a number of timed warmup iterations whose
+ * results are discarded, then for a number of timed measurement iterations.
+ * Throughput of each measurement iteration is recorded in operations per
+ * second.  Output is either JSON, laid out like the JMH result file so
+ * existing JMH tooling can read it, or CSV with one line per benchmark.
+ * <p>
+ * Run with -h for usage.
+ */
+public class MicroBenchmarkRunner {
+  static final Log LOG = LogFactory.getLog(MicroBenchmarkRunner.class);
+
+  private static final String WARMUP = "--warmup=";
+  private static final String ITERATIONS = "--iterations=";
+  private static final String TIME = "--time=";
+  private static final String OUTPUT = "--output=";
+  private static final String FORMAT = "--format=";
+
+  /** Folds in values returned by benchmarks so they are not dead code. */
+  static volatile long sink = 0;
+
+  private int warmupIterations = 5;
+  private int measurementIterations = 10;
+  private long iterationMillis = 1000;
+  private String format = "json";
+
+  /**
+   * Result of running a single {@link MicroBenchmark}.
+   */
+  public static class Result {
+    private final String name;
+    private final int threads;
+    private final double [] scores;
+
+    Result(final String name, final int threads, final double [] scores) {
+      this.name = name;
+      this.threads = threads;
+      this.scores = scores;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    public int getThreads() {
+      return this.threads;
+    }
+
+    /** @return Operations per second of each measurement iteration. */
+    public double [] getScores() {
+      return this.scores;
+    }
+
+    public double getMean() {
+      double sum = 0;
+      for (double s: this.scores) {
+        sum += s;
+      }
+      return this.scores.length == 0? 0: sum / this.scores.length;
+    }
+
+    public double getStdDev() {
+      if (this.scores.length < 2) return 0;
+      double mean = getMean();
+      double sum = 0;
+      for (double s: this.scores) {
+        sum += (s - mean) * (s - mean);
+      }
+      return Math.sqrt(sum / (this.scores.length - 1));
+    }
+
+    public double getMin() {
+      double min = Double.MAX_VALUE;
+      for (double s: this.scores) min = Math.min(min, s);
+      return min;
+    }
+
+    public double getMax() {
+      double max = 0;
+      for (double s: this.scores) max = Math.max(max, s);
+      return max;
+    }
+  }
+
+  public void setWarmupIterations(final int warmupIterations) {
+    this.warmupIterations = warmupIterations;
+  }
+
+  public void setMeasurementIterations(final int measurementIterations) {
+    this.measurementIterations = measurementIterations;
+  }
+
+  public void setIterationMillis(final long iterationMillis) {
+    this.iterationMillis = iterationMillis;
+  }
+
+  public void setFormat(final String format) {
+    if (!format.equals("json") && !format.equals("csv")) {
+      throw new IllegalArgumentException("Unknown format: " + format);
+    }
+    this.format = format;
+  }
+
+  /**
+   * @param conf
+   * @return All benchmarks we know of.
+   */
+  static List<MicroBenchmark> getBenchmarks(final Configuration conf) {
+    List<MicroBenchmark> benchmarks = new ArrayList<MicroBenchmark>();
+    benchmarks.add(new KeyValueComparisonBenchmark(conf));
+    benchmarks.add(new MemStoreBenchmark.Add(conf));
+    benchmarks.add(new MemStoreBenchmark.Scan(conf));
+    for (int n: new int [] {2, 8, 32}) {
+      benchmarks.add(new KeyValueHeapBenchmark(conf, n));
+    }
+    for (Compression.Algorithm algo: new Compression.Algorithm [] {
+        Compression.Algorithm.NONE, Compression.Algorithm.GZ}) {
+      benchmarks.add(new HFileScannerBenchmark.SeekTo(conf, algo));
+      benchmarks.add(new HFileScannerBenchmark.Next(conf, algo));
+    }
+    for (int threads: new int [] {1, 4, 16}) {
+      benchmarks.add(new LruBlockCacheBenchmark(conf, threads));
+    }
+    benchmarks.add(new ScanQueryMatcherBenchmark(conf));
+    benchmarks.add(new WritableSerializationBenchmark.PutWritable(conf));
+    benchmarks.add(new WritableSerializationBenchmark.ResultWritable(conf));
+    benchmarks.add(new ImportTsvBenchmark.PutSort(conf));
+    benchmarks.add(new ImportTsvBenchmark.KeyValueSort(conf));
+    return benchmarks;
+  }
+
+  /**
+   * Run a benchmark through its warmup and measurement iterations.
+   * @param benchmark
+   * @return The measured result.
+   * @throws Exception
+   */
+  public Result run(final MicroBenchmark benchmark) throws Exception {
+    LOG.info("Running " + benchmark.getName() + " with " +
+      benchmark.getThreads() + " thread(s)");
+    double [] scores = new double[this.measurementIterations];
+    ExecutorService pool = Executors.newFixedThreadPool(benchmark.getThreads());
+    benchmark.setUp();
+    try {
+      for (int i = 0; i < this.warmupIterations; i++) {
+        double score = runIteration(benchmark, pool);
+        LOG.debug("Warmup iteration " + i + ": " + format(score) + " ops/s");
+      }
+      for (int i = 0; i < this.measurementIterations; i++) {
+        scores[i] = runIteration(benchmark, pool);
+        LOG.info("Iteration " + i + ": " + format(scores[i]) + " ops/s");
+      }
+    } finally {
+      pool.shutdownNow();
+      benchmark.tearDown();
+    }
+    Result result = new Result(benchmark.getName(), benchmark.getThreads(),
+      scores);
+    LOG.info(benchmark.getName() + ": " + format(result.getMean()) +
+      " +- " + format(result.getStdDev()) + " ops/s");
+    return result;
+  }
+
+  /*
+   * Calls the benchmark operation from all threads until the iteration time
+   * is up.
+   * @return Operations per second over all threads.
+   */
+  private double runIteration(final MicroBenchmark benchmark,
+      final ExecutorService pool)
+  throws Exception {
+    final int threads = benchmark.getThreads();
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicBoolean stop = new AtomicBoolean(false);
+    List<Future<Long>> futures = new ArrayList<Future<Long>>(threads);
+    for (int t = 0; t < threads; t++) {
+      final int thread = t;
+      futures.add(pool.submit(new Callable<Long>() {
+        public Long call() throws Exception {
+          long invocations = 0;
+          long localSink = 0;
+          start.await();
+          while (!stop.get()) {
+            localSink ^= benchmark.operation(thread);
+            invocations++;
+          }
+          sink ^= localSink;
+          return invocations;
+        }
+      }));
+    }
+    long startTime = System.nanoTime();
+    start.countDown();
+    Thread.sleep(this.iterationMillis);
+    stop.set(true);
+    long invocations = 0;
+    for (Future<Long> f: futures) {
+      invocations += f.get().longValue();
+    }
+    long elapsed = System.nanoTime() - startTime;
+    return (double)invocations * benchmark.getOperationsPerInvocation() *
+      1000000000L / elapsed;
+  }
+
+  /**
+   * Write results in the configured format.
+   * @param results
+   * @param out
+   */
+  public void write(final List<Result> results, final OutputStream out) {
+    PrintWriter w = new PrintWriter(new OutputStreamWriter(out));
+    if (this.format.equals("csv")) {
+      writeCsv(results, w);
+    } else {
+      writeJson(results, w);
+    }
+    w.flush();
+  }
+
+  private void writeCsv(final List<Result> results, final PrintWriter w) {
+    w.println("benchmark,threads,iterations,mean,stddev,min,max,unit");
+    for (Result r: results) {
+      w.println(r.getName() + "," + r.getThreads() + "," +
+        r.getScores().length + "," + format(r.getMean()) + "," +
+        format(r.getStdDev()) + "," + format(r.getMin()) + "," +
+        format(r.getMax()) + ",ops/s");
+    }
+  }
+
+  private void writeJson(final List<Result> results, final PrintWriter w) {
+    w.println("[");
+    for (int i = 0; i < results.size(); i++) {
+      Result r = results.get(i);
+      w.println("  {");
+      w.println("    \"benchmark\" : \"" + r.getName() + "\",");
+      w.println("    \"mode\" : \"thrpt\",");
+      w.println("    \"threads\" : " + r.getThreads() + ",");
+      w.println("    \"warmupIterations\" : " + this.warmupIterations + ",");
+      w.println("    \"measurementIterations\" : " +
+        this.measurementIterations + ",");
+      w.println("    \"measurementTime\" : \"" + this.iterationMillis +
+        " ms\",");
+      w.println("    \"primaryMetric\" : {");
+      w.println("      \"score\" : " + format(r.getMean()) + ",");
+      w.println("      \"scoreError\" : " + format(r.getStdDev()) + ",");
+      w.println("      \"scoreUnit\" : \"ops/s\",");
+      StringBuilder raw = new StringBuilder();
+      for (int j = 0; j < r.getScores().length; j++) {
+        if (j > 0) raw.append(", ");
+        raw.append(format(r.getScores()[j]));
+      }
+      w.println("      \"rawData\" : [ [ " + raw + " ] ]");
+      w.println("    }");
+      w.println("  }" + (i < results.size() - 1? ",": ""));
+    }
+    w.println("]");
+  }
+
+  private static String format(final double d) {
+    return String.format("%.3f", d);
+  }
+
+  /*
+   * @param errorMsg Error message.  Can be null.
+   */
+  private static void usage(final String errorMsg) {
+    if (errorMsg != null && errorMsg.length() > 0) {
+      System.err.println("ERROR: " + errorMsg);
+    }
+    System.err.println("Usage: java " + MicroBenchmarkRunner.class.getName() +
+      " \\");
+    System.err.println("  [--warmup=N] [--iterations=N] [--time=MS]" +
+      " [--output=FILE] [--format=json|csv] [REGEX...]");
+    System.err.println();
+    System.err.println("Options:");
+    System.err.println(" warmup       Warmup iterations. Default: 5");
+    System.err.println(" iterations   Measurement iterations. Default: 10");
+    System.err.println(" time         Milliseconds per iteration. Default: 1000");
+    System.err.println(" output       File to write results to. Default: stdout");
+    System.err.println(" format       json or csv. Default: json");
+    System.err.println(" REGEX        Only run benchmarks whose name matches");
+    System.err.println();
+    System.err.println("Benchmarks:");
+    for (MicroBenchmark b: getBenchmarks(HBaseConfiguration.create())) {
+      System.err.println(" " + b.getName());
+    }
+    System.err.println();
+    System.err.println("Examples:");
+    System.err.println(" To run the block cache benchmarks writing CSV:");
+    System.err.println(" $ bin/hbase " + MicroBenchmarkRunner.class.getName() +
+      " --format=csv --output=results.csv LruBlockCache");
+  }
+
+  public static void main(String[] args) throws Exception {
+    MicroBenchmarkRunner runner = new MicroBenchmarkRunner();
+    String output = null;
+    List<Pattern> filters = new ArrayList<Pattern>();
+    try {
+      for (String arg: args) {
+        if (arg.equals("-h") || arg.startsWith("--h")) {
+          usage(null);
+          return;
+        } else if (arg.startsWith(WARMUP)) {
+          runner.setWarmupIterations(
+            Integer.parseInt(arg.substring(WARMUP.length())));
+        } else if (arg.startsWith(ITERATIONS)) {
+          runner.setMeasurementIterations(
+            Integer.parseInt(arg.substring(ITERATIONS.length())));
+        } else if (arg.startsWith(TIME)) {
+          runner.setIterationMillis(
+            Long.parseLong(arg.substring(TIME.length())));
+        } else if (arg.startsWith(OUTPUT)) {
+          output = arg.substring(OUTPUT.length());
+        } else if (arg.startsWith(FORMAT)) {
+          runner.setFormat(arg.substring(FORMAT.length()));
+        } else if (arg.startsWith("--")) {
+          usage("Unknown option: " + arg);
+          System.exit(-1);
+        } else {
+          filters.add(Pattern.compile(arg));
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      usage(e.getMessage());
+      System.exit(-1);
+    }
+
+    Configuration conf = HBaseConfiguration.create();
+    List<Result> results = new ArrayList<Result>();
+    for (MicroBenchmark b: getBenchmarks(conf)) {
+      if (!filters.isEmpty()) {
+        boolean matched = false;
+        for (Pattern p: filters) {
+          if (p.matcher(b.getName()).find()) matched = true;
+        }
+        if (!matched) continue;
+      }
+      results.add(runner.run(b));
+    }
+
+    OutputStream out = output == null? System.out:
+      new FileOutputStream(output);
+    try {
+      runner.write(results, out);
+    } finally {
+      if (output != null) out.close();
+    }
+  }
+}
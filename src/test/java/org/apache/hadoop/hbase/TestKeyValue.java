@@ -322,4 +322,28 @@ public class TestKeyValue extends TestCase {
     assertKVLess(c, kvA_1, lastOnRowA);
     assertKVLess(c, firstOnRowA, lastOnRowA);
   }
+
+  public void testWriteByteArray() {
+    byte [] value = Bytes.toBytes("value");
+    KeyValue expected = new KeyValue(rowA, family, qualA, 1L, Type.Put, value);
+    byte [] buffer = new byte[2 * expected.getLength()];
+    int length = KeyValue.writeByteArray(buffer, expected.getLength(),
+      rowA, 0, rowA.length, family, 0, family.length, qualA, 0, qualA.length,
+      1L, Type.Put, value, 0, value.length);
+    assertEquals(expected.getLength(), length);
+    assertEquals(expected.getLength(), KeyValue.getKeyValueDataStructureSize(
+      rowA.length, family.length, qualA.length, value.length));
+    KeyValue kv = new KeyValue(buffer, expected.getLength(), length);
+    assertTrue(KeyValue.COMPARATOR.compare(expected, kv) == 0);
+    assertTrue(Bytes.equals(value, kv.getValue()));
+
+    try {
+      KeyValue.writeByteArray(buffer, expected.getLength() + 1,
+        rowA, 0, rowA.length, family, 0, family.length, qualA, 0,
+        qualA.length, 1L, Type.Put, value, 0, value.length);
+      fail("Buffer too short");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
 }
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+/**
+ * Test the micro benchmark harness, not the benchmarks themselves.
+ */
+public class TestMicroBenchmarkRunner {
+  static class CountingBenchmark extends MicroBenchmark {
+    final AtomicLong calls = new AtomicLong();
+    boolean setUp = false;
+    boolean tearDown = false;
+
+    CountingBenchmark(final Configuration conf) {
+      super(conf);
+    }
+
+    @Override
+    public int getThreads() {
+      return 2;
+    }
+
+    @Override
+    public void setUp() {
+      this.setUp = true;
+    }
+
+    @Override
+    public long operation(final int thread) {
+      assertTrue(thread >= 0 && thread < getThreads());
+      return this.calls.incrementAndGet();
+    }
+
+    @Override
+    public void tearDown() {
+      this.tearDown = true;
+    }
+  }
+
+  private MicroBenchmarkRunner createRunner() {
+    MicroBenchmarkRunner runner = new MicroBenchmarkRunner();
+    runner.setWarmupIterations(1);
+    runner.setMeasurementIterations(3);
+    runner.setIterationMillis(50);
+    return runner;
+  }
+
+  @Test
+  public void testRun() throws Exception {
+    CountingBenchmark benchmark =
+      new CountingBenchmark(HBaseConfiguration.create());
+    MicroBenchmarkRunner.Result result = createRunner().run(benchmark);
+    assertTrue(benchmark.setUp);
+    assertTrue(benchmark.tearDown);
+    assertTrue(benchmark.calls.get() > 0);
+    assertEquals("TestMicroBenchmarkRunner.CountingBenchmark",
+      result.getName());
+    assertEquals(2, result.getThreads());
+    assertEquals(3, result.getScores().length);
+    for (double score: result.getScores()) {
+      assertTrue(score > 0);
+    }
+    assertTrue(result.getMin() <= result.getMean());
+    assertTrue(result.getMean() <= result.getMax());
+  }
+
+  @Test
+  public void testWrite() throws Exception {
+    MicroBenchmarkRunner runner = createRunner();
+    List<MicroBenchmarkRunner.Result> results =
+      new ArrayList<MicroBenchmarkRunner.Result>();
+    results.add(new MicroBenchmarkRunner.Result("a", 1,
+      new double [] {1, 2, 3}));
+    results.add(new MicroBenchmarkRunner.Result("b", 4,
+      new double [] {10, 10, 10}));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    runner.write(results, out);
+    String json = out.toString();
+    assertTrue(json.startsWith("["));
+    assertTrue(json.contains("\"benchmark\" : \"a\""));
+    assertTrue(json.contains("\"score\" : 2.000"));
+    assertTrue(json.contains("\"rawData\" : [ [ 10.000, 10.000, 10.000 ] ]"));
+
+    runner.setFormat("csv");
+    out = new ByteArrayOutputStream();
+    runner.write(results, out);
+    String [] lines = out.toString().split("\n");
+    assertEquals(3, lines.length);
+    assertEquals("a,1,3,2.000,1.000,1.000,3.000,ops/s", lines[1]);
+    assertEquals("b,4,3,10.000,0.000,10.000,10.000,ops/s", lines[2]);
+  }
+
+  @Test (expected=IllegalArgumentException.class)
+  public void testUnknownFormat() {
+    createRunner().setFormat("xml");
+  }
+}
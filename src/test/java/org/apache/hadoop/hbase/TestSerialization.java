@@ -337,6 +337,39 @@ public class TestSerialization {
     assertEquals(tr.getMin(), desTr.getMin());
   }
 
+  @Test public void testScanPrefetching() throws Exception {
+    Scan scan = new Scan();
+    byte[] sb = Writables.getBytes(scan);
+    // Scans that do not prefetch are still written as version 1.
+    assertEquals(1, sb[0]);
+    Scan desScan = (Scan)Writables.getWritable(sb, new Scan());
+    assertFalse(desScan.getPrefetching());
+
+    scan.setPrefetching(true);
+    sb = Writables.getBytes(scan);
+    assertEquals(2, sb[0]);
+    desScan = (Scan)Writables.getWritable(sb, new Scan());
+    assertTrue(desScan.getPrefetching());
+    assertTrue(new Scan(scan).getPrefetching());
+  }
+
+  @Test public void testScanMaxResultSize() throws Exception {
+    Scan scan = new Scan();
+    assertEquals(-1, scan.getMaxResultSize());
+    scan.setMaxResultSize(1024);
+    byte[] sb = Writables.getBytes(scan);
+    assertEquals(3, sb[0]);
+    Scan desScan = (Scan)Writables.getWritable(sb, new Scan());
+    assertEquals(1024, desScan.getMaxResultSize());
+    assertFalse(desScan.getPrefetching());
+    assertEquals(1024, new Scan(scan).getMaxResultSize());
+
+    scan.setPrefetching(true);
+    desScan = (Scan)Writables.getWritable(Writables.getBytes(scan), new Scan());
+    assertEquals(1024, desScan.getMaxResultSize());
+    assertTrue(desScan.getPrefetching());
+  }
+
   @Test public void testResultEmpty() throws Exception {
     List<KeyValue> keys = new ArrayList<KeyValue>();
     Result r = new Result(keys);
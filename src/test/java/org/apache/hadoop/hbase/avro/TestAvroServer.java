@@ -21,24 +21,35 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.net.URL;
 import java.nio.ByteBuffer;
+import java.util.Iterator;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericData;
+import org.apache.avro.ipc.HttpTransceiver;
+import org.apache.avro.specific.SpecificRequestor;
+import org.apache.avro.specific.SpecificResponder;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseTestingUtility;
 import org.apache.hadoop.hbase.avro.generated.AColumn;
 import org.apache.hadoop.hbase.avro.generated.AColumnValue;
 import org.apache.hadoop.hbase.avro.generated.AFamilyDescriptor;
 import org.apache.hadoop.hbase.avro.generated.AGet;
 import org.apache.hadoop.hbase.avro.generated.APut;
+import org.apache.hadoop.hbase.avro.generated.AResult;
+import org.apache.hadoop.hbase.avro.generated.AResultEntry;
+import org.apache.hadoop.hbase.avro.generated.AScan;
 import org.apache.hadoop.hbase.avro.generated.ATableDescriptor;
+import org.apache.hadoop.hbase.avro.generated.HBase;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mortbay.jetty.Server;
 
 /**
  * Unit testing for AvroServer.HBaseImpl, a part of the
@@ -215,4 +226,101 @@ public class TestAvroServer {
     impl.disableTable(tableAname);
     impl.deleteTable(tableAname);
   }
+
+  /**
+   * Tests for batched gets and one-shot scans, both in process and through
+   * the HTTP transport.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testMultiGetAndScan() throws Exception {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setInt("hbase.avro.port", 0);
+    AvroServer.HBaseImpl impl = new AvroServer.HBaseImpl(conf);
+
+    ATableDescriptor tableA = new ATableDescriptor();
+    tableA.name = tableAname;
+    AFamilyDescriptor familyA = new AFamilyDescriptor();
+    familyA.name = familyAname;
+    Schema familyArraySchema = Schema.createArray(AFamilyDescriptor.SCHEMA$);
+    GenericArray<AFamilyDescriptor> families = new GenericData.Array<AFamilyDescriptor>(1, familyArraySchema);
+    families.add(familyA);
+    tableA.families = families;
+    impl.createTable(tableA);
+
+    String[] rows = { "row1", "row2", "row3" };
+    for (String row : rows) {
+      APut put = new APut();
+      put.row = ByteBuffer.wrap(Bytes.toBytes(row));
+      Schema columnValuesSchema = Schema.createArray(AColumnValue.SCHEMA$);
+      GenericArray<AColumnValue> columnValues = new GenericData.Array<AColumnValue>(1, columnValuesSchema);
+      AColumnValue acv = new AColumnValue();
+      acv.family = familyAname;
+      acv.qualifier = qualifierAname;
+      acv.value = ByteBuffer.wrap(Bytes.toBytes("value-" + row));
+      columnValues.add(acv);
+      put.columnValues = columnValues;
+      impl.put(tableAname, put);
+    }
+
+    Schema getsSchema = Schema.createArray(AGet.SCHEMA$);
+    GenericArray<AGet> gets = new GenericData.Array<AGet>(3, getsSchema);
+    for (String row : new String[] { "row3", "missing", "row1" }) {
+      AGet get = new AGet();
+      get.row = ByteBuffer.wrap(Bytes.toBytes(row));
+      gets.add(get);
+    }
+
+    GenericArray<AResult> results = impl.multiGet(tableAname, gets);
+    assertEquals(3, results.size());
+    Iterator<AResult> it = results.iterator();
+    AResult result = it.next();
+    assertEquals("row3", toString(result.row));
+    assertEquals("value-row3", toString(result.entries.iterator().next().value));
+    result = it.next();
+    assertEquals("missing", toString(result.row));
+    assertEquals(0, result.entries.size());
+    result = it.next();
+    assertEquals("row1", toString(result.row));
+    assertEquals("value-row1", toString(result.entries.iterator().next().value));
+
+    AScan scan = new AScan();
+    scan.startRow = ByteBuffer.wrap(Bytes.toBytes("row2"));
+    results = impl.scan(tableAname, scan, 10);
+    assertEquals(2, results.size());
+
+    // Same calls through the Jetty transport
+    Server server = AvroServer.createServer(conf,
+      new SpecificResponder(HBase.class, impl));
+    server.start();
+    try {
+      int port = server.getConnectors()[0].getLocalPort();
+      HttpTransceiver transceiver =
+        new HttpTransceiver(new URL("http://localhost:" + port));
+      HBase client =
+        (HBase)SpecificRequestor.getClient(HBase.class, transceiver);
+      results = client.multiGet(tableAname, gets);
+      assertEquals(3, results.size());
+      result = results.iterator().next();
+      assertEquals("row3", toString(result.row));
+      AResultEntry entry = result.entries.iterator().next();
+      assertEquals("FamilyA", toString(entry.family));
+      assertEquals("QualifierA", toString(entry.qualifier));
+      assertEquals("value-row3", toString(entry.value));
+      results = client.scan(tableAname, scan, 1);
+      assertEquals(1, results.size());
+      assertEquals("row2", toString(results.iterator().next().row));
+    } finally {
+      server.stop();
+    }
+
+    impl.disableTable(tableAname);
+    impl.deleteTable(tableAname);
+  }
+
+  private static String toString(ByteBuffer buffer) {
+    return Bytes.toString(buffer.array(), buffer.arrayOffset() +
+      buffer.position(), buffer.remaining());
+  }
 }
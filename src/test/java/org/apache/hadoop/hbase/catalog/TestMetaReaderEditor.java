@@ -22,16 +22,20 @@ package org.apache.hadoop.hbase.catalog;
 import static org.junit.Assert.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.Abortable;
 import org.apache.hadoop.hbase.HBaseTestingUtility;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.HServerAddress;
+import org.apache.hadoop.hbase.HServerInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.ServerConnection;
 import org.apache.hadoop.hbase.client.ServerConnectionManager;
@@ -122,4 +126,109 @@ public class TestMetaReaderEditor {
     assertEquals(HRegionInfo.FIRST_META_REGIONINFO.getEncodedName(),
       pair.getFirst().getEncodedName());
   }
+
+  @Test public void testBatchedEdits() throws Exception {
+    final String name = "testBatchedEdits";
+    HTableDescriptor htd = new HTableDescriptor(name);
+    final List<HRegionInfo> regions = new ArrayList<HRegionInfo>();
+    for (int i = 0; i < 10; i++) {
+      regions.add(new HRegionInfo(htd, i == 0? null: Bytes.toBytes(i),
+        i == 9? null: Bytes.toBytes(i + 1)));
+    }
+    MetaEditor.addRegionsToMeta(CT, regions);
+    assertEquals(regions.size(), MetaReader.getTableRegions(CT,
+      Bytes.toBytes(name)).size());
+    for (Pair<HRegionInfo, HServerAddress> pair :
+        MetaReader.getTableRegionsAndLocations(CT, name)) {
+      assertNull(pair.getSecond());
+    }
+
+    // Concurrent location updates all make it, in whatever batches
+    Configuration conf = new Configuration(UTIL.getConfiguration());
+    conf.setLong("hbase.catalog.batch.interval", 100);
+    conf.setInt("hbase.catalog.batch.max", 4);
+    final MetaEditBatcher batcher = new MetaEditBatcher(CT, conf);
+    final HServerInfo server = new HServerInfo(
+      new HServerAddress("localhost", 1234), 1, 1234, "localhost");
+    final AtomicBoolean failed = new AtomicBoolean(false);
+    List<Thread> threads = new ArrayList<Thread>();
+    for (final HRegionInfo region : regions) {
+      Thread t = new Thread() {
+        @Override
+        public void run() {
+          try {
+            batcher.updateRegionLocation(region, server);
+          } catch (IOException e) {
+            LOG.error("Failed updating " + region, e);
+            failed.set(true);
+          }
+        }
+      };
+      t.start();
+      threads.add(t);
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertFalse(failed.get());
+    List<Pair<HRegionInfo, HServerAddress>> locations =
+      MetaReader.getTableRegionsAndLocations(CT, name);
+    assertEquals(regions.size(), locations.size());
+    for (Pair<HRegionInfo, HServerAddress> pair : locations) {
+      assertEquals(server.getServerAddress(), pair.getSecond());
+    }
+
+    MetaEditor.deleteRegions(CT, regions);
+    assertFalse(MetaReader.tableExists(CT, name));
+  }
+
+  /**
+   * The META location is only verified again once its lease is up or META
+   * is reassigned, and concurrent callers share verifications
+   * @throws Exception
+   */
+  @Test public void testMetaLocationLease() throws Exception {
+    final HServerAddress meta = CT.waitForMeta(0);
+    long verifications = CT.getMetaVerifications();
+    final AtomicBoolean failed = new AtomicBoolean(false);
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 10; i++) {
+      Thread t = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int j = 0; j < 10; j++) {
+              if (!meta.equals(CT.waitForMeta(0))) failed.set(true);
+            }
+          } catch (Exception e) {
+            LOG.error("Failed getting the META location", e);
+            failed.set(true);
+          }
+        }
+      };
+      t.start();
+      threads.add(t);
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertFalse(failed.get());
+    assertEquals(verifications, CT.getMetaVerifications());
+
+    // Verified on every use while META moves
+    CT.metaInTransition();
+    for (int i = 0; i < 3; i++) {
+      assertEquals(meta, CT.waitForMeta(0));
+    }
+    assertEquals(verifications + 3, CT.getMetaVerifications());
+
+    // Then once, in the background, when it's done
+    CT.refreshMetaLocation();
+    while (CT.getMetaVerifications() == verifications + 3) {
+      Thread.sleep(10);
+    }
+    assertEquals(meta, CT.waitForMeta(0));
+    assertEquals(meta, CT.getMetaLocation());
+    assertEquals(verifications + 4, CT.getMetaVerifications());
+  }
 }
@@ -21,6 +21,8 @@ package org.apache.hadoop.hbase.client;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -32,9 +34,13 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 
 import org.apache.commons.logging.Log;
@@ -3523,6 +3529,180 @@ public class TestFromClientSide {
     assertTrue(scan.getFamilyMap().get(FAMILY).size() == 0);
   }
 
+  @Test
+  public void testScanWithPrefetching() throws Exception {
+    byte [] TABLE = Bytes.toBytes("testScanWithPrefetching");
+    HTable table = TEST_UTIL.createTable(TABLE, FAMILY);
+    int rowCount = TEST_UTIL.loadTable(table, FAMILY);
+    Scan scan = new Scan();
+    scan.setCaching(100);
+    scan.setPrefetching(true);
+    ResultScanner scanner = table.getScanner(scan);
+    int count = 0;
+    byte [] lastRow = null;
+    for (Result r: scanner) {
+      if (lastRow != null) {
+        assertTrue(Bytes.compareTo(lastRow, r.getRow()) < 0);
+      }
+      lastRow = r.getRow();
+      count++;
+    }
+    scanner.close();
+    assertEquals(rowCount, count);
+
+    // Close a prefetching scanner part way through.
+    scanner = table.getScanner(scan);
+    for (int i = 0; i < 150; i++) {
+      assertNotNull(scanner.next());
+    }
+    scanner.close();
+  }
+
+  @Test
+  public void testAsyncBufferedMutator() throws Exception {
+    byte [] TABLE = Bytes.toBytes("testAsyncBufferedMutator");
+    HTable table = TEST_UTIL.createTable(TABLE, FAMILY);
+    TEST_UTIL.createMultiRegions(table, FAMILY);
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    // Small enough that puts go out in many batches and block.
+    conf.setLong("hbase.client.write.buffer", 4 * 1024);
+    conf.setLong(AsyncBufferedMutator.MAX_BUFFER_SIZE_KEY, 32 * 1024);
+    final List<Put> failed = Collections.synchronizedList(new ArrayList<Put>());
+    AsyncBufferedMutator mutator = new AsyncBufferedMutator(conf, TABLE,
+      new AsyncBufferedMutator.ExceptionListener() {
+        public void onException(Put put, Throwable cause) {
+          failed.add(put);
+        }
+      });
+    int rowCount = 0;
+    for (byte b1 = 'a'; b1 <= 'z'; b1++) {
+      for (byte b2 = 'a'; b2 <= 'z'; b2++) {
+        byte [] row = new byte [] {b1, b2, 'a'};
+        Put put = new Put(row);
+        put.add(FAMILY, null, row);
+        mutator.put(put);
+        rowCount++;
+      }
+    }
+    mutator.flush();
+    assertEquals(0, mutator.getBufferedSize());
+    assertTrue(failed.isEmpty());
+    assertEquals(rowCount, TEST_UTIL.countRows(table));
+
+    // Failures go to the listener, not to later puts.
+    Put bad = new Put(Bytes.toBytes("bad"));
+    bad.add(Bytes.toBytes("nosuchfamily"), null, VALUE);
+    mutator.put(bad);
+    mutator.flush();
+    assertEquals(1, failed.size());
+    assertTrue(Bytes.equals(bad.getRow(), failed.get(0).getRow()));
+    Put good = new Put(Bytes.toBytes("good"));
+    good.add(FAMILY, null, VALUE);
+    mutator.put(good);
+    mutator.close();
+    assertEquals(1, failed.size());
+    assertEquals(rowCount + 1, TEST_UTIL.countRows(table));
+  }
+
+  @Test
+  public void testScanMaxResultSize() throws Exception {
+    byte [] TABLE = Bytes.toBytes("testScanMaxResultSize");
+    HTable table = TEST_UTIL.createTable(TABLE, FAMILY);
+    int rowCount = TEST_UTIL.loadTable(table, FAMILY);
+    Scan scan = new Scan();
+    scan.setCaching(rowCount);
+    ResultScanner scanner = table.getScanner(scan);
+    long rowSize = scanner.next().raw()[0].heapSize();
+    scanner.close();
+
+    // Batches stop at ten rows' worth though caching would take all rows.
+    // Short batches must not be taken for the end of the region.
+    scan.setMaxResultSize(rowSize * 10);
+    scanner = table.getScanner(scan);
+    int count = 0;
+    byte [] lastRow = null;
+    for (Result r: scanner) {
+      if (lastRow != null) {
+        assertTrue(Bytes.compareTo(lastRow, r.getRow()) < 0);
+      }
+      lastRow = r.getRow();
+      count++;
+    }
+    scanner.close();
+    assertEquals(rowCount, count);
+
+    // A row larger than the limit still comes back whole.
+    scan.setMaxResultSize(1);
+    scan.setPrefetching(true);
+    scanner = table.getScanner(scan);
+    count = 0;
+    for (Result r: scanner) {
+      assertEquals(1, r.size());
+      count++;
+    }
+    scanner.close();
+    assertEquals(rowCount, count);
+  }
+
+  @Test
+  public void testParallelScanner() throws Exception {
+    byte [] TABLE = Bytes.toBytes("testParallelScanner");
+    HTable table = TEST_UTIL.createTable(TABLE, FAMILY);
+    int regionCount = TEST_UTIL.createMultiRegions(table, FAMILY);
+    int rowCount = TEST_UTIL.loadTable(table, FAMILY);
+    assertTrue(table.getStartKeys().length == regionCount);
+
+    // Ordered comes back just as a plain scan would.
+    Scan scan = new Scan();
+    scan.setCaching(10);
+    ResultScanner scanner = table.getParallelScanner(scan, 4, true);
+    int count = 0;
+    byte [] lastRow = null;
+    for (Result r: scanner) {
+      if (lastRow != null) {
+        assertTrue(Bytes.compareTo(lastRow, r.getRow()) < 0);
+      }
+      lastRow = r.getRow();
+      count++;
+    }
+    scanner.close();
+    assertEquals(rowCount, count);
+
+    // Unordered returns every row once.
+    Set<String> rows = new TreeSet<String>();
+    scanner = table.getParallelScanner(scan, 4, false);
+    for (Result r: scanner) {
+      assertTrue(rows.add(Bytes.toString(r.getRow())));
+    }
+    scanner.close();
+    assertEquals(rowCount, rows.size());
+
+    // Start and stop rows within regions.
+    scan = new Scan(Bytes.toBytes("bbm"), Bytes.toBytes("ddd"));
+    scanner = table.getParallelScanner(scan, 2, true);
+    count = 0;
+    for (Result r: scanner) {
+      assertTrue(Bytes.compareTo(r.getRow(), scan.getStartRow()) >= 0);
+      assertTrue(Bytes.compareTo(r.getRow(), scan.getStopRow()) < 0);
+      count++;
+    }
+    scanner.close();
+    int expected = 0;
+    scanner = table.getScanner(scan);
+    while (scanner.next() != null) expected++;
+    scanner.close();
+    assertTrue(expected > 0);
+    assertEquals(expected, count);
+
+    // Close part way through.
+    scanner = table.getParallelScanner(new Scan(), 4, false);
+    for (int i = 0; i < 100; i++) {
+      assertNotNull(scanner.next());
+    }
+    scanner.close();
+    assertNull(scanner.next());
+  }
+
   /**
    * HBASE-2468 use case 1 and 2: region info de/serialization
    */
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.HServerAddress;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableNotFoundException;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+/**
+ * Test the region location cache of the client connection
+ */
+public class TestRegionLocationCache {
+  private static final byte [] TABLE = Bytes.toBytes("table");
+  private static final HServerAddress SERVER =
+    new HServerAddress("localhost", 1234);
+
+  @Test
+  public void testLookups() {
+    RegionLocationCache cache = new RegionLocationCache(100, 1000);
+    HRegionLocation first = location(null, "b");
+    HRegionLocation last = location("c", null);
+    assertTrue(cache.put(TABLE, first));
+    assertFalse(cache.put(TABLE, first));
+    assertTrue(cache.put(TABLE, last));
+    assertEquals(2, cache.size(TABLE));
+    assertEquals(0, cache.size(Bytes.toBytes("other")));
+
+    assertSame(first, cache.get(TABLE, HConstants.EMPTY_START_ROW));
+    assertSame(first, cache.get(TABLE, Bytes.toBytes("a")));
+    // End keys are exclusive, and nothing is cached between b and c
+    assertNull(cache.get(TABLE, Bytes.toBytes("b")));
+    assertNull(cache.get(TABLE, Bytes.toBytes("bb")));
+    assertSame(last, cache.get(TABLE, Bytes.toBytes("c")));
+    assertSame(last, cache.get(TABLE, Bytes.toBytes("zzz")));
+    assertNull(cache.get(Bytes.toBytes("other"), Bytes.toBytes("a")));
+
+    assertSame(last, cache.remove(TABLE, Bytes.toBytes("d")));
+    assertNull(cache.get(TABLE, Bytes.toBytes("d")));
+    assertNull(cache.remove(TABLE, Bytes.toBytes("d")));
+    assertEquals(1, cache.size());
+    cache.clear(TABLE);
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testEviction() {
+    RegionLocationCache cache = new RegionLocationCache(10, 1000);
+    HRegionLocation [] locations = new HRegionLocation[10];
+    for (int i = 0; i < 10; i++) {
+      locations[i] = location(i == 0? null: Integer.toString(i),
+        i == 9? null: Integer.toString(i + 1));
+      cache.put(TABLE, locations[i]);
+    }
+    assertEquals(10, cache.size());
+    // The first one is the most recently used now
+    assertSame(locations[0], cache.get(TABLE, Bytes.toBytes("0")));
+    cache.put(Bytes.toBytes("other"), location(null, null));
+    assertEquals(9, cache.size());
+    assertEquals(2, cache.getEvictions());
+    assertSame(locations[0], cache.get(TABLE, Bytes.toBytes("0")));
+    assertNull(cache.get(TABLE, Bytes.toBytes("1")));
+    assertNull(cache.get(TABLE, Bytes.toBytes("2")));
+    assertSame(locations[3], cache.get(TABLE, Bytes.toBytes("3")));
+  }
+
+  @Test
+  public void testFailures() throws Exception {
+    RegionLocationCache cache = new RegionLocationCache(100, 200);
+    cache.putMissingTable(TABLE);
+    try {
+      cache.checkMissingTable(TABLE);
+      fail("Table should be missing");
+    } catch (TableNotFoundException e) {
+      // expected
+    }
+    cache.clear(TABLE);
+    cache.checkMissingTable(TABLE);
+
+    HRegionLocation location = location(null, "b");
+    cache.put(TABLE, location);
+    // The region moves, and is still being opened
+    cache.putFailed(TABLE, location.getRegionInfo());
+    assertNull(cache.get(TABLE, Bytes.toBytes("a")));
+    assertEquals(0, cache.size(TABLE));
+    try {
+      cache.checkFailedRegion(TABLE, Bytes.toBytes("a"));
+      fail("Region should be unassigned");
+    } catch (NoServerForRegionException e) {
+      // expected
+    }
+    cache.checkFailedRegion(TABLE, Bytes.toBytes("b"));
+
+    HRegionInfo offline = location("b", null).getRegionInfo();
+    offline.setOffline(true);
+    cache.putFailed(TABLE, offline);
+    try {
+      cache.checkFailedRegion(TABLE, Bytes.toBytes("c"));
+      fail("Region should be offline");
+    } catch (RegionOfflineException e) {
+      // expected
+    }
+
+    // Failures are forgotten after a while
+    cache.putMissingTable(TABLE);
+    Thread.sleep(300);
+    cache.checkMissingTable(TABLE);
+    cache.checkFailedRegion(TABLE, Bytes.toBytes("a"));
+    cache.checkFailedRegion(TABLE, Bytes.toBytes("c"));
+    assertEquals(0, cache.size());
+
+    // Or not remembered at all
+    cache = new RegionLocationCache(100, 0);
+    cache.putMissingTable(TABLE);
+    cache.putFailed(TABLE, offline);
+    cache.checkMissingTable(TABLE);
+    cache.checkFailedRegion(TABLE, Bytes.toBytes("c"));
+    assertEquals(0, cache.size());
+  }
+
+  private HRegionLocation location(final String start, final String end) {
+    HRegionInfo hri = new HRegionInfo(new HTableDescriptor(TABLE),
+      start == null? HConstants.EMPTY_START_ROW: Bytes.toBytes(start),
+      end == null? HConstants.EMPTY_END_ROW: Bytes.toBytes(end));
+    return new HRegionLocation(hri, SERVER);
+  }
+}
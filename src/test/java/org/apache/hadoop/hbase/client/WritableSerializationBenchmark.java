@@ -0,0 +1,110 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.MicroBenchmark;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+
+/**
+ * Measures a Writable round trip of the client types that make up most RPC
+ * payload: a {@link Put} written and read back, and a {@link Result} written,
+ * read back and decoded into KeyValues.  One operation is one round trip.
+ */
+public class WritableSerializationBenchmark {
+  private static final int COLUMNS = 10;
+  private static final byte [] ROW = Bytes.toBytes("0000000001");
+  private static final byte [] FAMILY = Bytes.toBytes("family");
+
+  static byte [] getQualifier(final int i) {
+    return Bytes.toBytes("qualifier" + i);
+  }
+
+  static byte [] getValue() {
+    return new byte[100];
+  }
+
+  /**
+   * Put write then readFields.
+   */
+  public static class PutWritable extends MicroBenchmark {
+    private final DataOutputBuffer out = new DataOutputBuffer();
+    private final DataInputBuffer in = new DataInputBuffer();
+    private Put put;
+
+    public PutWritable(final Configuration conf) {
+      super(conf);
+    }
+
+    @Override
+    public void setUp() {
+      this.put = new Put(ROW);
+      for (int i = 0; i < COLUMNS; i++) {
+        this.put.add(FAMILY, getQualifier(i), getValue());
+      }
+    }
+
+    @Override
+    public long operation(final int thread) throws Exception {
+      this.out.reset();
+      this.put.write(this.out);
+      this.in.reset(this.out.getData(), this.out.getLength());
+      Put copy = new Put();
+      copy.readFields(this.in);
+      return copy.size();
+    }
+  }
+
+  /**
+   * Result write then readFields, then materialize its KeyValues as a
+   * client would on first access.
+   */
+  public static class ResultWritable extends MicroBenchmark {
+    private final DataOutputBuffer out = new DataOutputBuffer();
+    private final DataInputBuffer in = new DataInputBuffer();
+    private Result result;
+
+    public ResultWritable(final Configuration conf) {
+      super(conf);
+    }
+
+    @Override
+    public void setUp() {
+      KeyValue [] kvs = new KeyValue[COLUMNS];
+      for (int i = 0; i < COLUMNS; i++) {
+        kvs[i] = new KeyValue(ROW, FAMILY, getQualifier(i), 1L, getValue());
+      }
+      this.result = new Result(kvs);
+    }
+
+    @Override
+    public long operation(final int thread) throws Exception {
+      this.out.reset();
+      this.result.write(this.out);
+      this.in.reset(this.out.getData(), this.out.getLength());
+      Result copy = new Result();
+      copy.readFields(this.in);
+      return copy.raw().length;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.MicroBenchmark;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * {@link HFile.Reader} scanner micro benchmarks.  An HFile is written to the
+ * local filesystem with the given compression and read back without a block
+ * cache, so every block fetched is read and decompressed.
+ */
+public abstract class HFileScannerBenchmark extends MicroBenchmark {
+  private static final int ROW_COUNT = 100000;
+  private static final int BLOCKSIZE = 64 * 1024;
+  private static final byte [] FAMILY = Bytes.toBytes("family");
+  private static final byte [] QUALIFIER = Bytes.toBytes("qualifier");
+
+  protected final Compression.Algorithm compression;
+  protected FileSystem fs;
+  protected Path path;
+  protected HFile.Reader reader;
+
+  protected HFileScannerBenchmark(final Configuration conf,
+      final Compression.Algorithm compression) {
+    super(conf);
+    this.compression = compression;
+  }
+
+  @Override
+  public String getName() {
+    return super.getName() + "[" + this.compression.getName() + "]";
+  }
+
+  static byte [] getRow(final int i) {
+    return Bytes.toBytes(String.format("%010d", i));
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    this.fs = FileSystem.getLocal(this.conf);
+    this.path = new Path(this.conf.get("hadoop.tmp.dir"),
+      getClass().getSimpleName() + "." + this.compression.getName());
+    Random random = new Random(ROW_COUNT);
+    byte [] value = new byte[100];
+    HFile.Writer writer = new HFile.Writer(this.fs, this.path, BLOCKSIZE,
+      this.compression, KeyValue.KEY_COMPARATOR);
+    try {
+      for (int i = 0; i < ROW_COUNT; i++) {
+        // Half random bytes so compressed blocks are not trivially small.
+        random.nextBytes(value);
+        for (int j = 0; j < value.length / 2; j++) value[j] = 'v';
+        writer.append(new KeyValue(getRow(i), FAMILY, QUALIFIER, 1L, value));
+      }
+    } finally {
+      writer.close();
+    }
+    this.reader = new HFile.Reader(this.fs, this.path, null, false);
+    this.reader.loadFileInfo();
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    this.reader.close();
+    this.fs.delete(this.path, false);
+  }
+
+  /**
+   * Measures {@link HFileScanner#seekTo(byte[])} to random keys, as a Get
+   * does.  One operation is one seek.
+   */
+  public static class SeekTo extends HFileScannerBenchmark {
+    private byte [][] keys;
+    private int index = 0;
+
+    public SeekTo(final Configuration conf,
+        final Compression.Algorithm compression) {
+      super(conf, compression);
+    }
+
+    @Override
+    public void setUp() throws Exception {
+      super.setUp();
+      Random random = new Random();
+      this.keys = new byte[1024][];
+      for (int i = 0; i < this.keys.length; i++) {
+        this.keys[i] = new KeyValue(getRow(random.nextInt(ROW_COUNT)),
+          FAMILY, QUALIFIER, 1L, (byte [])null).getKey();
+      }
+    }
+
+    @Override
+    public long operation(final int thread) throws Exception {
+      HFileScanner scanner = this.reader.getScanner(false, true);
+      int result = scanner.seekTo(this.keys[this.index++ % this.keys.length]);
+      return result + scanner.getValue().limit();
+    }
+  }
+
+  /**
+   * Measures {@link HFileScanner#next()} through the whole file, as a
+   * full scan does.  One operation is one KeyValue.
+   */
+  public static class Next extends HFileScannerBenchmark {
+    public Next(final Configuration conf,
+        final Compression.Algorithm compression) {
+      super(conf, compression);
+    }
+
+    @Override
+    public int getOperationsPerInvocation() {
+      return ROW_COUNT;
+    }
+
+    @Override
+    public long operation(final int thread) throws Exception {
+      HFileScanner scanner = this.reader.getScanner(false, false);
+      long result = 0;
+      if (scanner.seekTo()) {
+        do {
+          result += scanner.getValue().limit();
+        } while (scanner.next());
+      }
+      return result;
+    }
+  }
+}
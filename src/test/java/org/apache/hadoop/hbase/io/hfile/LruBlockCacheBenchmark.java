@@ -0,0 +1,94 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.MicroBenchmark;
+
+/**
+ * Measures {@link LruBlockCache} gets and puts from several threads at once.
+ * The working set is somewhat larger than the cache so a steady fraction of
+ * gets miss and are followed by a put, which in turn drives eviction.  One
+ * operation is one get, plus a put on a miss.
+ */
+public class LruBlockCacheBenchmark extends MicroBenchmark {
+  private static final long BLOCKSIZE = 64 * 1024;
+  private static final int CACHED_BLOCKS = 512;
+  private static final int WORKING_SET = CACHED_BLOCKS * 5 / 4;
+  private final int threads;
+  private LruBlockCache cache;
+  private String [] names;
+  private ByteBuffer [] blocks;
+  private Random [] randoms;
+
+  public LruBlockCacheBenchmark(final Configuration conf, final int threads) {
+    super(conf);
+    this.threads = threads;
+  }
+
+  @Override
+  public String getName() {
+    return super.getName() + "[threads=" + this.threads + "]";
+  }
+
+  @Override
+  public int getThreads() {
+    return this.threads;
+  }
+
+  @Override
+  public void setUp() {
+    this.cache = new LruBlockCache(BLOCKSIZE * CACHED_BLOCKS, BLOCKSIZE);
+    this.names = new String[WORKING_SET];
+    this.blocks = new ByteBuffer[WORKING_SET];
+    for (int i = 0; i < WORKING_SET; i++) {
+      this.names[i] = "block" + i;
+      this.blocks[i] = ByteBuffer.allocate((int)BLOCKSIZE);
+    }
+    // One Random per thread; a shared one would contend on its seed.
+    this.randoms = new Random[this.threads];
+    for (int i = 0; i < this.threads; i++) {
+      this.randoms[i] = new Random(i);
+    }
+  }
+
+  @Override
+  public long operation(final int thread) {
+    int i = this.randoms[thread].nextInt(WORKING_SET);
+    ByteBuffer buf = this.cache.getBlock(this.names[i]);
+    if (buf == null) {
+      try {
+        this.cache.cacheBlock(this.names[i], this.blocks[i]);
+      } catch (RuntimeException e) {
+        // Another thread missed on the same block and cached it first.
+      }
+      return 0;
+    }
+    return buf.capacity();
+  }
+
+  @Override
+  public void tearDown() {
+    this.cache.shutdown();
+  }
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.mapreduce;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.MicroBenchmark;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.RawComparator;
+
+/**
+ * Compares the two ImportTsv bulk output paths without a cluster.  Each
+ * operation parses a batch of lines as the mapper does, serializes the map
+ * output, sorts it with the job's raw comparator as the shuffle would, then
+ * reads it back as the reducer does.  {@link PutSort} is the Put and
+ * {@link PutSortReducer} path; {@link KeyValueSort} is the KeyValue key and
+ * {@link SortedKeyValueReducer} path.  Throughput is per line.
+ */
+public class ImportTsvBenchmark {
+  private static final int LINES = 1000;
+  private static final String COLUMNS =
+    "HBASE_ROW_KEY,d:c1,d:c2,d:c3,d:c4,d:c5,d:c6,d:c7,d:c8";
+  private static final int VALUE_LENGTH = 20;
+
+  /**
+   * Shared setup: the parser, the lines and the map output buffer.
+   */
+  abstract static class ImportBenchmark extends MicroBenchmark {
+    protected ImportTsv.TsvParser parser;
+    protected byte [][] lines;
+    protected final DataOutputBuffer out = new DataOutputBuffer();
+    protected final DataInputBuffer in = new DataInputBuffer();
+    // Start and key length of each map output record.
+    protected int [] starts = new int[LINES];
+    protected int [] keyLengths = new int[LINES];
+    protected int records;
+
+    ImportBenchmark(final Configuration conf) {
+      super(conf);
+    }
+
+    @Override
+    public int getOperationsPerInvocation() {
+      return LINES;
+    }
+
+    @Override
+    public void setUp() {
+      this.parser = new ImportTsv.TsvParser(COLUMNS, "\t");
+      List<Integer> rows = new ArrayList<Integer>(LINES);
+      for (int i = 0; i < LINES; i++) {
+        rows.add(i);
+      }
+      // Input is not in row order.
+      Collections.shuffle(rows, new Random(0));
+      int columns = COLUMNS.split(",").length - 1;
+      this.lines = new byte[LINES][];
+      for (int i = 0; i < LINES; i++) {
+        StringBuilder sb = new StringBuilder(String.format("row%08d",
+          rows.get(i)));
+        for (int c = 0; c < columns; c++) {
+          sb.append('\t');
+          for (int v = 0; v < VALUE_LENGTH; v++) {
+            sb.append((char)('a' + (i + c + v) % 26));
+          }
+        }
+        this.lines[i] = Bytes.toBytes(sb.toString());
+      }
+    }
+
+    protected void startRecord() {
+      if (this.records == this.starts.length) {
+        this.starts = Arrays.copyOf(this.starts, 2 * this.records);
+        this.keyLengths = Arrays.copyOf(this.keyLengths, 2 * this.records);
+      }
+      this.starts[this.records] = this.out.getLength();
+    }
+
+    protected void endKey() {
+      this.keyLengths[this.records] =
+        this.out.getLength() - this.starts[this.records];
+      this.records++;
+    }
+
+    /**
+     * @return Record indices in the order the comparator sorts their keys.
+     */
+    protected Integer [] sort(final RawComparator<?> comparator) {
+      final byte [] data = this.out.getData();
+      Integer [] order = new Integer[this.records];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, new Comparator<Integer>() {
+        public int compare(Integer a, Integer b) {
+          return comparator.compare(data, starts[a], keyLengths[a],
+            data, starts[b], keyLengths[b]);
+        }
+      });
+      return order;
+    }
+
+    protected void seek(final int record) throws IOException {
+      this.in.reset(this.out.getData(), this.starts[record],
+        this.out.getLength() - this.starts[record]);
+    }
+  }
+
+  /**
+   * Puts keyed by row, with each row sorted in memory by the reducer.
+   */
+  public static class PutSort extends ImportBenchmark {
+    public PutSort(final Configuration conf) {
+      super(conf);
+    }
+
+    @Override
+    public long operation(final int thread) throws Exception {
+      this.out.reset();
+      this.records = 0;
+      long ts = System.currentTimeMillis();
+      for (byte [] line : this.lines) {
+        ImportTsv.TsvParser.ParsedLine parsed =
+          this.parser.parse(line, line.length);
+        ImmutableBytesWritable rowKey = new ImmutableBytesWritable(line,
+          parsed.getRowKeyOffset(), parsed.getRowKeyLength());
+        Put put = new Put(rowKey.copyBytes());
+        for (int i = 0; i < parsed.getColumnCount(); i++) {
+          if (i == this.parser.getRowKeyColumnIndex()) continue;
+          put.add(new KeyValue(
+            line, parsed.getRowKeyOffset(), parsed.getRowKeyLength(),
+            this.parser.getFamily(i), 0, this.parser.getFamily(i).length,
+            this.parser.getQualifier(i), 0, this.parser.getQualifier(i).length,
+            ts, KeyValue.Type.Put,
+            line, parsed.getColumnOffset(i), parsed.getColumnLength(i)));
+        }
+        startRecord();
+        rowKey.write(this.out);
+        endKey();
+        put.write(this.out);
+      }
+
+      long written = 0;
+      ImmutableBytesWritable row = new ImmutableBytesWritable();
+      for (Integer record : sort(new ImmutableBytesWritable.Comparator())) {
+        seek(record);
+        row.readFields(this.in);
+        Put put = new Put();
+        put.readFields(this.in);
+        // One line per row here, so each reduce call gets one Put.
+        TreeSet<KeyValue> map = new TreeSet<KeyValue>(KeyValue.COMPARATOR);
+        for (List<KeyValue> kvs : put.getFamilyMap().values()) {
+          for (KeyValue kv : kvs) {
+            map.add(kv.clone());
+          }
+        }
+        for (KeyValue kv : map) {
+          written += kv.getLength();
+        }
+      }
+      return written;
+    }
+  }
+
+  /**
+   * KeyValues as keys, sorted in the shuffle and streamed by the reducer.
+   */
+  public static class KeyValueSort extends ImportBenchmark {
+    private byte [] buffer = new byte[1024];
+
+    public KeyValueSort(final Configuration conf) {
+      super(conf);
+    }
+
+    @Override
+    public long operation(final int thread) throws Exception {
+      this.out.reset();
+      this.records = 0;
+      long ts = System.currentTimeMillis();
+      for (byte [] line : this.lines) {
+        ImportTsv.TsvParser.ParsedLine parsed =
+          this.parser.parse(line, line.length);
+        for (int i = 0; i < parsed.getColumnCount(); i++) {
+          if (i == this.parser.getRowKeyColumnIndex()) continue;
+          int length = KeyValue.writeByteArray(this.buffer, 0,
+            line, parsed.getRowKeyOffset(), parsed.getRowKeyLength(),
+            this.parser.getFamily(i), 0, this.parser.getFamily(i).length,
+            this.parser.getQualifier(i), 0, this.parser.getQualifier(i).length,
+            ts, KeyValue.Type.Put,
+            line, parsed.getColumnOffset(i), parsed.getColumnLength(i));
+          startRecord();
+          new KeyValue(this.buffer, 0, length).write(this.out);
+          endKey();
+        }
+      }
+
+      long written = 0;
+      KeyValue kv = new KeyValue();
+      for (Integer record : sort(new KeyValueWritableComparator())) {
+        seek(record);
+        kv.readFields(this.in);
+        written += kv.getLength();
+      }
+      return written;
+    }
+  }
+}
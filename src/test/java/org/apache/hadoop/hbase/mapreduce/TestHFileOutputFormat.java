@@ -31,17 +31,23 @@ import java.util.Random;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.PerformanceEvaluation;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.io.hfile.Compression;
+import org.apache.hadoop.hbase.mapreduce.hadoopbackport.TotalOrderPartitioner;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Job;
@@ -49,6 +55,7 @@ import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.junit.Before;
 import org.junit.Test;
@@ -232,10 +239,131 @@ public class TestHFileOutputFormat  {
         Bytes.toBytes("zzz")
     };
     Mockito.doReturn(mockKeys).when(table).getStartKeys();
+    Mockito.doReturn(new HTableDescriptor("testJobConfiguration")).
+      when(table).getTableDescriptor();
     
     HFileOutputFormat.configureIncrementalLoad(job, table);
     assertEquals(job.getNumReduceTasks(), 4);
   }
+
+  /**
+   * Test that KeyValue map output keys get the KeyValue sort and partitions
+   * that send each row to the reducer of its region.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testJobConfigurationKeyValueKeys() throws Exception {
+    Job job = new Job();
+    job.setMapOutputKeyClass(KeyValue.class);
+    job.setMapOutputValueClass(NullWritable.class);
+    HTable table = Mockito.mock(HTable.class);
+    byte[][] mockKeys = new byte[][] {
+        HConstants.EMPTY_BYTE_ARRAY,
+        Bytes.toBytes("aaa"),
+        Bytes.toBytes("ggg"),
+        Bytes.toBytes("zzz")
+    };
+    Mockito.doReturn(mockKeys).when(table).getStartKeys();
+    Mockito.doReturn(new HTableDescriptor("testJobConfiguration")).
+      when(table).getTableDescriptor();
+
+    HFileOutputFormat.configureIncrementalLoad(job, table);
+    Configuration conf = job.getConfiguration();
+    assertEquals(SortedKeyValueReducer.class, job.getReducerClass());
+    assertEquals(KeyValueWritableComparator.class,
+      job.getSortComparator().getClass());
+
+    Path partitions =
+      new Path(DistributedCache.getCacheFiles(conf)[0].getPath());
+    try {
+      TotalOrderPartitioner.setPartitionFile(conf, partitions);
+      TotalOrderPartitioner partitioner = new TotalOrderPartitioner();
+      partitioner.setConf(conf);
+      String [] rows = {"", "a", "aaa", "abc", "ggg", "xyz", "zzz", "zzzz"};
+      int [] expected = {0, 0, 1, 1, 2, 2, 3, 3};
+      for (int i = 0; i < rows.length; i++) {
+        KeyValue kv = new KeyValue(Bytes.toBytes(rows[i]), Bytes.toBytes("f"),
+          Bytes.toBytes("q"), 1L, Bytes.toBytes("v"));
+        assertEquals(rows[i], expected[i],
+          partitioner.getPartition(kv, NullWritable.get(), 4));
+      }
+    } finally {
+      partitions.getFileSystem(conf).delete(partitions, false);
+    }
+  }
+
+  /**
+   * Test that the RecordWriter writes a directory of files per family, each
+   * with the family's compression and bloom filter settings.
+   */
+  @Test
+  public void testColumnFamilySettings() throws Exception {
+    Configuration conf = new Configuration(this.util.getConfiguration());
+    // Roll every few rows.
+    conf.setLong("hbase.hregion.max.filesize", 4 * 1024);
+    RecordWriter<ImmutableBytesWritable, KeyValue> writer = null;
+    TaskAttemptContext context = null;
+    Path dir = HBaseTestingUtility.getTestDir("testColumnFamilySettings");
+    FileSystem fs = dir.getFileSystem(conf);
+    byte [][] families = new byte [][] {Bytes.toBytes("a"), Bytes.toBytes("b")};
+    HTableDescriptor htd = new HTableDescriptor("testColumnFamilySettings");
+    HColumnDescriptor hcd = new HColumnDescriptor(families[0]);
+    hcd.setCompressionType(Compression.Algorithm.GZ);
+    hcd.setBloomFilterType(StoreFile.BloomType.ROW);
+    htd.addFamily(hcd);
+    htd.addFamily(new HColumnDescriptor(families[1]));
+    HTable table = Mockito.mock(HTable.class);
+    Mockito.doReturn(htd).when(table).getTableDescriptor();
+    try {
+      HFileOutputFormat.configureFamilies(table, conf);
+      Job job = new Job(conf);
+      FileOutputFormat.setOutputPath(job, dir);
+      context = new TaskAttemptContext(job.getConfiguration(),
+        new TaskAttemptID());
+      writer = new HFileOutputFormat().getRecordWriter(context);
+      byte [] value = new byte[100];
+      for (int i = 0; i < 200; i++) {
+        byte [] row = Bytes.toBytes(String.format("%05d", i));
+        for (byte [] family: families) {
+          writer.write(new ImmutableBytesWritable(row),
+            new KeyValue(row, family, family, value));
+        }
+      }
+      writer.close(context);
+      writer = null;
+
+      Path workDir = new FileOutputCommitter(dir, context).getWorkPath();
+      for (byte [] family: families) {
+        FileStatus [] files =
+          fs.listStatus(new Path(workDir, Bytes.toString(family)));
+        // Files of both families are rolled together.
+        assertTrue(files.length > 1);
+        for (FileStatus file: files) {
+          StoreFile.Reader reader =
+            new StoreFile.Reader(fs, file.getPath(), null, false);
+          reader.loadFileInfo();
+          if (Bytes.equals(family, families[0])) {
+            assertEquals(Compression.Algorithm.GZ,
+              reader.getCompressionAlgorithm());
+            assertEquals(StoreFile.BloomType.ROW,
+              reader.getBloomFilterType());
+          } else {
+            assertEquals(Compression.Algorithm.NONE,
+              reader.getCompressionAlgorithm());
+            assertEquals(StoreFile.BloomType.NONE,
+              reader.getBloomFilterType());
+          }
+          reader.close();
+        }
+      }
+      assertEquals(
+        fs.listStatus(new Path(workDir, Bytes.toString(families[0]))).length,
+        fs.listStatus(new Path(workDir, Bytes.toString(families[1]))).length);
+    } finally {
+      if (writer != null && context != null) writer.close(context);
+      fs.delete(dir, true);
+    }
+  }
   
   private byte [][] generateRandomStartKeys(int numKeys) {
     Random random = new Random();
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.mapreduce;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.mapreduce.Job;
+import org.junit.Test;
+
+public class TestImportExport {
+  private final HBaseTestingUtility util = new HBaseTestingUtility();
+
+  /**
+   * Test that an incremental export starts where the last one stopped and
+   * records its own end time once told it succeeded.
+   */
+  @Test
+  public void testIncrementalExportCheckpoint() throws Exception {
+    Configuration conf = util.getConfiguration();
+    Path dir = HBaseTestingUtility.getTestDir("testIncrementalExportCheckpoint");
+    FileSystem fs = dir.getFileSystem(conf);
+    Path checkpoint = new Path(dir, "checkpoint");
+    fs.delete(checkpoint, false);
+    conf.set(Export.CHECKPOINT_CONF_KEY, checkpoint.toString());
+    assertEquals(0L, Export.readCheckpoint(fs, checkpoint));
+
+    // First run exports everything up to now.
+    long before = System.currentTimeMillis();
+    Job job = Export.createSubmittableJob(conf,
+      new String[] {"testtable", new Path(dir, "out1").toString()});
+    Scan scan = getScan(job);
+    assertEquals(0L, scan.getTimeRange().getMin());
+    long firstEnd = scan.getTimeRange().getMax();
+    assertTrue(firstEnd >= before && firstEnd <= System.currentTimeMillis());
+    assertEquals(0L, Export.readCheckpoint(fs, checkpoint));
+    Export.writeCheckpoint(job);
+    assertEquals(firstEnd, Export.readCheckpoint(fs, checkpoint));
+
+    // Next run picks up from there, even over an explicit start time.
+    job = Export.createSubmittableJob(conf, new String[] {"testtable",
+      new Path(dir, "out2").toString(), "1", "0"});
+    scan = getScan(job);
+    assertEquals(firstEnd, scan.getTimeRange().getMin());
+    assertTrue(scan.getTimeRange().getMax() >= firstEnd);
+    Export.writeCheckpoint(job);
+    assertEquals(scan.getTimeRange().getMax(),
+      Export.readCheckpoint(fs, checkpoint));
+  }
+
+  /**
+   * Test that without a checkpoint the given time range is left alone.
+   */
+  @Test
+  public void testExportTimeRange() throws Exception {
+    Configuration conf = util.getConfiguration();
+    Path dir = HBaseTestingUtility.getTestDir("testExportTimeRange");
+    Job job = Export.createSubmittableJob(conf, new String[] {"testtable",
+      new Path(dir, "out").toString(), "3", "100"});
+    Scan scan = getScan(job);
+    assertEquals(3, scan.getMaxVersions());
+    assertEquals(100L, scan.getTimeRange().getMin());
+    assertEquals(Long.MAX_VALUE, scan.getTimeRange().getMax());
+  }
+
+  private Scan getScan(final Job job) throws Exception {
+    return TableMapReduceUtil.convertStringToScan(
+      job.getConfiguration().get(TableInputFormat.SCAN));
+  }
+}
@@ -19,13 +19,17 @@
  */
 package org.apache.hadoop.hbase.mapreduce;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.mapreduce.ImportTsv.TsvParser;
 import org.apache.hadoop.hbase.mapreduce.ImportTsv.TsvParser.BadTsvLineException;
 import org.apache.hadoop.hbase.mapreduce.ImportTsv.TsvParser.ParsedLine;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.DataOutputBuffer;
 import org.junit.Test;
 
 import com.google.common.base.Joiner;
@@ -51,6 +55,62 @@ public class TestImportTsv {
     assertEquals(2, parser.getRowKeyColumnIndex());
   }
 
+  @Test
+  public void testTsvParserBadLines() {
+    TsvParser parser = new TsvParser("HBASE_ROW_KEY,col_a,col_b", "\t");
+    assertBadLine(parser, "key\tval_a\tval_b\tval_c");
+    parser = new TsvParser("col_a,col_b,HBASE_ROW_KEY", "\t");
+    assertBadLine(parser, "val_a\tval_b");
+  }
+
+  private void assertBadLine(TsvParser parser, String line) {
+    byte[] bytes = Bytes.toBytes(line);
+    try {
+      parser.parse(bytes, bytes.length);
+      fail("Expected bad line: " + line);
+    } catch (BadTsvLineException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testKeyValueWritableComparator() throws IOException {
+    byte[] family = Bytes.toBytes("f");
+    List<KeyValue> kvs = new ArrayList<KeyValue>();
+    kvs.add(KeyValue.createFirstOnRow(Bytes.toBytes("a")));
+    kvs.add(new KeyValue(Bytes.toBytes("a"), family, Bytes.toBytes("q1"), 2L,
+      Bytes.toBytes("v")));
+    kvs.add(new KeyValue(Bytes.toBytes("a"), family, Bytes.toBytes("q1"), 1L,
+      Bytes.toBytes("v")));
+    kvs.add(new KeyValue(Bytes.toBytes("a"), family, Bytes.toBytes("q2"), 1L,
+      Bytes.toBytes("longer value")));
+    kvs.add(KeyValue.createFirstOnRow(Bytes.toBytes("ab")));
+    kvs.add(new KeyValue(Bytes.toBytes("ab"), family, null, 1L,
+      Bytes.toBytes("v")));
+    kvs.add(new KeyValue(Bytes.toBytes("b"), family, Bytes.toBytes("q1"), 1L,
+      HConstants.EMPTY_BYTE_ARRAY));
+
+    KeyValueWritableComparator comparator = new KeyValueWritableComparator();
+    DataOutputBuffer out = new DataOutputBuffer();
+    int[] offsets = new int[kvs.size() + 1];
+    for (int i = 0; i < kvs.size(); i++) {
+      offsets[i] = out.getLength();
+      kvs.get(i).write(out);
+    }
+    offsets[kvs.size()] = out.getLength();
+    byte[] data = out.getData();
+    for (int i = 0; i < kvs.size(); i++) {
+      for (int j = 0; j < kvs.size(); j++) {
+        int raw = comparator.compare(data, offsets[i],
+          offsets[i + 1] - offsets[i], data, offsets[j],
+          offsets[j + 1] - offsets[j]);
+        assertEquals(Integer.signum(i - j), Integer.signum(raw));
+        assertEquals(Integer.signum(i - j),
+          Integer.signum(comparator.compare(kvs.get(i), kvs.get(j))));
+      }
+    }
+  }
+
   private void checkParsing(ParsedLine parsed, Iterable<String> expected) {
     ArrayList<String> parsedCols = new ArrayList<String>();
     for (int i = 0; i < parsed.getColumnCount(); i++) {
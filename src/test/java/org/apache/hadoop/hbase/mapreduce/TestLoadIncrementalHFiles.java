@@ -88,6 +88,22 @@ public class TestLoadIncrementalHFiles {
     });
   }
 
+  /**
+   * Test case that loads several HFiles, one crossing every region
+   * boundary, with fewer threads than regions
+   */
+  @Test
+  public void testParallelRegionCrossingLoad() throws Exception {
+    util.getConfiguration().setInt(LoadIncrementalHFiles.THREADS_KEY, 2);
+    runTest("testParallelRegionCrossingLoad",
+        new byte[][][] {
+          new byte[][]{ Bytes.toBytes("000"), Bytes.toBytes("555") },
+          new byte[][]{ Bytes.toBytes("666"), Bytes.toBytes("999") },
+          new byte[][]{ Bytes.toBytes("aaaa"), Bytes.toBytes("qqq") },
+          new byte[][]{ Bytes.toBytes("qqqq"), Bytes.toBytes("zzz") },
+    });
+  }
+
   private void runTest(String testName, byte[][][] hfileRanges)
   throws Exception {
     Path dir = HBaseTestingUtility.getTestDir(testName);
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.mapreduce;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.FSUtils;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that {@link TableHFileInputFormat} reads the same rows from the store
+ * files as a scan through the regionservers returns.
+ */
+public class TestTableHFileInputFormat {
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  static final byte[] TABLE_NAME = Bytes.toBytes("hfileinputtest");
+  static final byte[] FAMILY_A = Bytes.toBytes("a");
+  static final byte[] FAMILY_B = Bytes.toBytes("b");
+  static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  private static Configuration conf;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    TEST_UTIL.startMiniCluster();
+    HTableDescriptor htd = new HTableDescriptor(TABLE_NAME);
+    htd.addFamily(new HColumnDescriptor(FAMILY_A));
+    htd.addFamily(new HColumnDescriptor(FAMILY_B));
+    new HBaseAdmin(TEST_UTIL.getConfiguration()).createTable(htd);
+    HTable table = new HTable(TEST_UTIL.getConfiguration(), TABLE_NAME);
+    TEST_UTIL.createMultiRegions(table, FAMILY_A);
+    TEST_UTIL.loadTable(table, FAMILY_A);
+    TEST_UTIL.loadTable(table, FAMILY_B);
+    TEST_UTIL.flush(TABLE_NAME);
+
+    // Newer versions and deletes go to a second set of store files, so
+    // reading has to merge files the way the region does.
+    List<Put> puts = new ArrayList<Put>();
+    List<Delete> deletes = new ArrayList<Delete>();
+    byte [] row = new byte[3];
+    for (byte b1 = 'a'; b1 <= 'z'; b1++) {
+      for (byte b2 = 'a'; b2 <= 'z'; b2 += 5) {
+        row[0] = b1;
+        row[1] = b2;
+        row[2] = 'c';
+        if (b2 == 'a') {
+          deletes.add(new Delete(row));
+        } else if (b2 == 'f') {
+          Delete d = new Delete(row);
+          d.deleteFamily(FAMILY_B);
+          deletes.add(d);
+        } else {
+          Put p = new Put(row);
+          p.add(FAMILY_A, QUALIFIER, Bytes.toBytes("newer"));
+          puts.add(p);
+        }
+      }
+    }
+    table.put(puts);
+    table.delete(deletes);
+    table.flushCommits();
+
+    conf = new Configuration(TEST_UTIL.getConfiguration());
+    TableHFileInputFormat.flushAndPin(conf, Bytes.toString(TABLE_NAME));
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  private List<Result> readSplits(final Scan scan) throws Exception {
+    Configuration c = new Configuration(conf);
+    c.set(TableInputFormat.INPUT_TABLE, Bytes.toString(TABLE_NAME));
+    c.set(TableInputFormat.SCAN, TableMapReduceUtil.convertScanToString(scan));
+    TableHFileInputFormat inputFormat = new TableHFileInputFormat();
+    inputFormat.setConf(c);
+    List<InputSplit> splits = inputFormat.getSplits(new JobContext(c,
+      new JobID()));
+    assertTrue(splits.size() > 1);
+    List<Result> results = new ArrayList<Result>();
+    for (InputSplit split : splits) {
+      TaskAttemptContext context = new TaskAttemptContext(c,
+        new TaskAttemptID());
+      RecordReader<?, Result> reader =
+        inputFormat.createRecordReader(split, context);
+      reader.initialize(split, context);
+      while (reader.nextKeyValue()) {
+        results.add(reader.getCurrentValue());
+      }
+      reader.close();
+    }
+    return results;
+  }
+
+  private void verify(final Scan scan) throws Exception {
+    List<Result> expected = new ArrayList<Result>();
+    HTable table = new HTable(TEST_UTIL.getConfiguration(), TABLE_NAME);
+    // The client scanner moves the start row of the scan it is given along.
+    ResultScanner scanner = table.getScanner(new Scan(scan));
+    for (Result r : scanner) {
+      expected.add(r);
+    }
+    scanner.close();
+    List<Result> actual = readSplits(scan);
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      KeyValue [] e = expected.get(i).raw();
+      KeyValue [] a = actual.get(i).raw();
+      assertEquals(e.length, a.length);
+      for (int j = 0; j < e.length; j++) {
+        assertEquals(e[j].toString(), a[j].toString());
+        assertTrue(Bytes.equals(e[j].getValue(), a[j].getValue()));
+      }
+    }
+  }
+
+  @Test
+  public void testFullScan() throws Exception {
+    verify(new Scan());
+  }
+
+  @Test
+  public void testAllVersions() throws Exception {
+    Scan scan = new Scan();
+    scan.setMaxVersions();
+    verify(scan);
+  }
+
+  @Test
+  public void testRangeAndFamily() throws Exception {
+    Scan scan = new Scan(Bytes.toBytes("fff"), Bytes.toBytes("ttt"));
+    scan.addFamily(FAMILY_B);
+    verify(scan);
+  }
+
+  @Test
+  public void testPin() throws IOException {
+    Path rootDir = FSUtils.getRootDir(conf);
+    FileSystem fs = rootDir.getFileSystem(conf);
+    Path tableDir = HTableDescriptor.getTableDir(rootDir, TABLE_NAME);
+    assertTrue(FSUtils.isCompactionPinned(fs, tableDir));
+
+    Configuration c = new Configuration(conf);
+    TableHFileInputFormat.releasePin(c);
+    assertFalse(FSUtils.isCompactionPinned(fs, tableDir));
+
+    // An expired pin does not hold off compactions.
+    Path expired = FSUtils.createCompactionPin(fs, tableDir, -1);
+    assertFalse(FSUtils.isCompactionPinned(fs, tableDir));
+    FSUtils.releaseCompactionPin(fs, expired);
+
+    // Put the pin back for the other tests.
+    TableHFileInputFormat.flushAndPin(conf, Bytes.toString(TABLE_NAME));
+  }
+}
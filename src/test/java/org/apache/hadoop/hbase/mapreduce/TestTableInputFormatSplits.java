@@ -0,0 +1,115 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.mapreduce;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.JobID;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests how {@link TableInputFormatBase} cuts large regions into several
+ * splits and puts small regions together.
+ */
+public class TestTableInputFormatSplits {
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  static final byte[] TABLE_NAME = Bytes.toBytes("splitstest");
+  static final byte[] INPUT_FAMILY = Bytes.toBytes("contents");
+
+  private static int regionCount;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    TEST_UTIL.startMiniCluster();
+    HTableDescriptor htd = new HTableDescriptor(TABLE_NAME);
+    HColumnDescriptor hcd = new HColumnDescriptor(INPUT_FAMILY);
+    // Small blocks so each region's store file has many.
+    hcd.setBlocksize(1024);
+    htd.addFamily(hcd);
+    new HBaseAdmin(TEST_UTIL.getConfiguration()).createTable(htd);
+    HTable table = new HTable(TEST_UTIL.getConfiguration(), TABLE_NAME);
+    regionCount = TEST_UTIL.createMultiRegions(table, INPUT_FAMILY);
+    TEST_UTIL.loadTable(table, INPUT_FAMILY);
+    TEST_UTIL.flush(TABLE_NAME);
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  private List<InputSplit> getSplits(final long maxSize, final long minSize)
+  throws IOException {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.set(TableInputFormat.INPUT_TABLE, Bytes.toString(TABLE_NAME));
+    conf.setLong(TableInputFormatBase.SPLIT_MAXSIZE, maxSize);
+    conf.setLong(TableInputFormatBase.SPLIT_MINSIZE, minSize);
+    TableInputFormat tif = new TableInputFormat();
+    tif.setConf(conf);
+    List<InputSplit> splits = tif.getSplits(new JobContext(conf, new JobID()));
+    // Splits must cover the table, in order, without gaps or overlaps.
+    byte [] expectedStart = HConstants.EMPTY_START_ROW;
+    for (InputSplit split: splits) {
+      TableSplit ts = (TableSplit)split;
+      assertTrue(Bytes.equals(expectedStart, ts.getStartRow()));
+      assertTrue(ts.getEndRow().length == 0 ||
+        Bytes.compareTo(ts.getStartRow(), ts.getEndRow()) < 0);
+      expectedStart = ts.getEndRow();
+    }
+    assertEquals(0, expectedStart.length);
+    return splits;
+  }
+
+  @Test
+  public void testOneSplitPerRegion() throws IOException {
+    assertEquals(regionCount, getSplits(0, 0).size());
+  }
+
+  @Test
+  public void testLargeRegionsSplit() throws IOException {
+    // Each region holds some tens of kilobytes.
+    assertTrue(getSplits(4 * 1024, 0).size() > 2 * regionCount);
+  }
+
+  @Test
+  public void testSmallRegionsCombined() throws IOException {
+    // All regions are on the one server.
+    assertEquals(1, getSplits(0, Long.MAX_VALUE / 2).size());
+    int splits = getSplits(0, 64 * 1024).size();
+    assertTrue(splits > 1 && splits < regionCount);
+  }
+}
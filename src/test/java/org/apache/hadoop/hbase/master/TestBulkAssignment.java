@@ -0,0 +1,125 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.master;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.catalog.MetaReader;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.regionserver.HRegionServer;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.zookeeper.ZKAssign;
+import org.apache.hadoop.hbase.zookeeper.ZKUtil;
+import org.apache.hadoop.hbase.zookeeper.ZooKeeperWatcher;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the bulk assignment of many regions to a server at once.
+ */
+public class TestBulkAssignment {
+  private static final Log LOG = LogFactory.getLog(TestBulkAssignment.class);
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final byte [] FAMILY = Bytes.toBytes("f");
+
+  @BeforeClass public static void beforeAllTests() throws Exception {
+    TEST_UTIL.getConfiguration().setInt("hbase.regionserver.info.port", -1);
+    TEST_UTIL.startMiniCluster(2);
+  }
+
+  @AfterClass public static void afterAllTests() throws Exception {
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  @Test (timeout=300000) public void testBulkAssign() throws Exception {
+    List<HRegionInfo> regions = createOfflineTable("testBulkAssign");
+    bulkAssignAndVerify(regions);
+  }
+
+  /**
+   * A region whose OFFLINE node is left over can't have it created again, it
+   * goes through the one by one assignment and still ends up on the server.
+   */
+  @Test (timeout=300000) public void testBulkAssignWithLeftoverNode()
+  throws Exception {
+    List<HRegionInfo> regions =
+      createOfflineTable("testBulkAssignWithLeftoverNode");
+    HMaster master = TEST_UTIL.getHBaseCluster().getMaster();
+    ZKAssign.createNodeOffline(master.getZooKeeper(), regions.get(0),
+      master.getServerName());
+    bulkAssignAndVerify(regions);
+  }
+
+  /**
+   * Creates a multi-region table, disables it and clears the disabled flag
+   * so its regions are offline but may be opened again.
+   * @return the regions of the table
+   */
+  private List<HRegionInfo> createOfflineTable(final String name)
+  throws Exception {
+    byte [] tableName = Bytes.toBytes(name);
+    HTable table = TEST_UTIL.createTable(tableName, FAMILY);
+    int count = TEST_UTIL.createMultiRegions(table, FAMILY);
+    HMaster master = TEST_UTIL.getHBaseCluster().getMaster();
+    // Regions still opening would be missed by the disable
+    master.getAssignmentManager().waitUntilNoRegionsInTransition();
+    HBaseAdmin admin = new HBaseAdmin(TEST_UTIL.getConfiguration());
+    admin.disableTable(tableName);
+    master.getAssignmentManager().waitUntilNoRegionsInTransition();
+    master.getAssignmentManager().undisableTable(name);
+    List<HRegionInfo> regions =
+      MetaReader.getTableRegions(master.getCatalogTracker(), tableName);
+    assertEquals(count, regions.size());
+    LOG.info("Created " + regions.size() + " offline regions of " + name);
+    return regions;
+  }
+
+  private void bulkAssignAndVerify(final List<HRegionInfo> regions)
+  throws Exception {
+    HMaster master = TEST_UTIL.getHBaseCluster().getMaster();
+    HRegionServer server = TEST_UTIL.getHBaseCluster().getRegionServer(0);
+    AssignmentManager am = master.getAssignmentManager();
+    am.assign(server.getServerInfo(), regions);
+    am.waitUntilNoRegionsInTransition();
+
+    for (HRegionInfo region: regions) {
+      // Out of transition a little before it is marked assigned
+      am.waitForAssignment(region);
+      assertNotNull(region.getRegionNameAsString() + " not online",
+        server.getOnlineRegion(region.getRegionName()));
+      assertEquals(server.getServerInfo(), am.getAssignment(
+        Bytes.toBytes(region.getEncodedName())).getSecond());
+    }
+    ZooKeeperWatcher zkw = master.getZooKeeper();
+    List<String> nodes = ZKUtil.listChildrenNoWatch(zkw, zkw.assignmentZNode);
+    assertTrue("Leftover unassigned nodes " + nodes,
+      nodes == null || nodes.isEmpty());
+  }
+}
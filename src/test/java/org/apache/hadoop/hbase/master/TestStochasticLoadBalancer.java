@@ -0,0 +1,303 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.master;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HServerAddress;
+import org.apache.hadoop.hbase.HServerInfo;
+import org.apache.hadoop.hbase.HServerLoad;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.master.LoadBalancer.RegionPlan;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the cost based balancer and the locality aware bulk assignment
+ */
+public class TestStochasticLoadBalancer {
+  // Local filesystems put all the blocks on this host
+  private static final String LOCAL_HOST = "localhost";
+
+  private static FileSystem fs;
+  private static Path rootdir;
+  private int nextPort = 1;
+  private int nextRegion = 0;
+
+  @BeforeClass
+  public static void beforeAllTests() throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    fs = FileSystem.getLocal(conf);
+    rootdir = new Path(HBaseTestingUtility.getTestDir(),
+      "TestStochasticLoadBalancer");
+    fs.delete(rootdir, true);
+  }
+
+  @Test
+  public void testSkew() {
+    assertEquals(0, StochasticLoadBalancer.skew(new double [] {5, 5}, 10), 0);
+    assertEquals(1, StochasticLoadBalancer.skew(new double [] {0, 10}, 10), 0);
+    assertEquals(1,
+      StochasticLoadBalancer.skew(new double [] {0, 0, 0, 7}, 7), 0.0001);
+    assertEquals(0, StochasticLoadBalancer.skew(new double [] {7}, 7), 0);
+    assertEquals(0, StochasticLoadBalancer.skew(new double [] {0, 0}, 0), 0);
+  }
+
+  /**
+   * Region counts end up even, all servers holding floor(avg) or ceiling(avg)
+   */
+  @Test
+  public void testBalanceCluster() throws IOException {
+    LoadBalancer balancer = createBalancer(new Configuration(false));
+    int [][] mocks = new int [][] {
+      new int [] { 0, 0, 0, 10 },
+      new int [] { 6, 6, 0, 0 },
+      new int [] { 20, 20, 0 },
+      new int [] { 1, 1, 1, 1, 1, 1, 1, 1, 1, 123 },
+      new int [] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 }
+    };
+    for (int [] mock : mocks) {
+      Map<HServerInfo,List<HRegionInfo>> cluster =
+        mockCluster(mock, "table", LOCAL_HOST);
+      int numRegions = 0;
+      for (int regions : mock) {
+        numRegions += regions;
+      }
+      int min = numRegions / mock.length;
+      int max = numRegions % mock.length == 0 ? min : min + 1;
+      applyPlans(cluster, balancer.balanceCluster(cluster));
+      for (List<HRegionInfo> regions : cluster.values()) {
+        assertTrue(regions.size() >= min && regions.size() <= max);
+      }
+      // Nothing left to do
+      assertNull(balancer.balanceCluster(cluster));
+    }
+  }
+
+  @Test
+  public void testMaxMoves() throws IOException {
+    Configuration conf = new Configuration(false);
+    conf.setInt("hbase.master.balancer.maxMoves", 3);
+    LoadBalancer balancer = createBalancer(conf);
+    Map<HServerInfo,List<HRegionInfo>> cluster =
+      mockCluster(new int [] {0, 0, 0, 30}, "table", LOCAL_HOST);
+    List<RegionPlan> plans = balancer.balanceCluster(cluster);
+    assertEquals(3, plans.size());
+  }
+
+  /**
+   * Busy regions are spread even if region counts already are
+   */
+  @Test
+  public void testRequests() throws IOException {
+    LoadBalancer balancer = createBalancer(new Configuration(false));
+    Map<HServerInfo,List<HRegionInfo>> cluster =
+      mockCluster(new int [] {4, 4}, "table", LOCAL_HOST);
+    // The regions of the first server are the busy ones
+    Set<HRegionInfo> busy = new HashSet<HRegionInfo>();
+    for (Map.Entry<HServerInfo,List<HRegionInfo>> e : cluster.entrySet()) {
+      for (HRegionInfo region : e.getValue()) {
+        long requests = busy.size() < 4 ? 1000 : 0;
+        if (requests > 0) {
+          busy.add(region);
+        }
+        e.getKey().getLoad().addRegionInfo(new HServerLoad.RegionLoad(
+          region.getRegionName(), 1, 1, 0, 0, 0, requests));
+      }
+    }
+    applyPlans(cluster, balancer.balanceCluster(cluster));
+    for (List<HRegionInfo> regions : cluster.values()) {
+      assertEquals(4, regions.size());
+      int busyRegions = 0;
+      for (HRegionInfo region : regions) {
+        if (busy.contains(region)) busyRegions++;
+      }
+      assertEquals(2, busyRegions);
+    }
+  }
+
+  /**
+   * Regions with data go to the host holding their blocks
+   */
+  @Test
+  public void testLocality() throws IOException {
+    Configuration conf = HBaseConfiguration.create();
+    conf.set("hbase.rootdir", fs.makeQualified(rootdir).toString());
+    LoadBalancer balancer = createBalancer(conf);
+    Map<HServerInfo,List<HRegionInfo>> cluster =
+      new TreeMap<HServerInfo,List<HRegionInfo>>();
+    List<HRegionInfo> withData = createRegions(3, "locality", true);
+    List<HRegionInfo> withoutData = createRegions(3, "locality", false);
+    HServerInfo local = mockServer(LOCAL_HOST);
+    cluster.put(local, new ArrayList<HRegionInfo>(withoutData));
+    cluster.put(mockServer("otherhost"), new ArrayList<HRegionInfo>(withData));
+    applyPlans(cluster, balancer.balanceCluster(cluster));
+    assertEquals(3, cluster.get(local).size());
+    assertTrue(cluster.get(local).containsAll(withData));
+  }
+
+  /**
+   * Block weights are remembered until the store files of the region change
+   */
+  @Test
+  public void testLocalityCache() throws IOException {
+    Configuration conf = HBaseConfiguration.create();
+    conf.set("hbase.rootdir", fs.makeQualified(rootdir).toString());
+    LoadBalancer balancer = createBalancer(conf);
+    Map<HServerInfo,List<HRegionInfo>> cluster =
+      new TreeMap<HServerInfo,List<HRegionInfo>>();
+    List<HRegionInfo> withData = createRegions(3, "cache", true);
+    List<HRegionInfo> withoutData = createRegions(3, "cache", false);
+    HServerInfo local = mockServer(LOCAL_HOST);
+    HServerInfo other = mockServer("otherhost");
+    cluster.put(local, new ArrayList<HRegionInfo>(withoutData));
+    cluster.put(other, new ArrayList<HRegionInfo>(withData));
+    applyPlans(cluster, balancer.balanceCluster(cluster));
+    assertTrue(cluster.get(local).containsAll(withData));
+
+    // The blocks are gone but the balancer still goes by what it saw
+    for (HRegionInfo region : withData) {
+      fs.delete(HRegion.getRegionDir(rootdir, region), true);
+    }
+    cluster.put(local, new ArrayList<HRegionInfo>(withoutData));
+    cluster.put(other, new ArrayList<HRegionInfo>(withData));
+    applyPlans(cluster, balancer.balanceCluster(cluster));
+    assertTrue(cluster.get(local).containsAll(withData));
+
+    // Once the servers report other store file sizes it looks again
+    cluster.put(local, new ArrayList<HRegionInfo>(withoutData));
+    cluster.put(other, new ArrayList<HRegionInfo>(withData));
+    for (Map.Entry<HServerInfo,List<HRegionInfo>> e : cluster.entrySet()) {
+      for (HRegionInfo region : e.getValue()) {
+        e.getKey().getLoad().addRegionInfo(new HServerLoad.RegionLoad(
+          region.getRegionName(), 1, 1, 1, 0, 0));
+      }
+    }
+    assertNull(balancer.balanceCluster(cluster));
+  }
+
+  @Test
+  public void testBulkAssignmentLocality() throws IOException {
+    List<HServerInfo> servers = new ArrayList<HServerInfo>();
+    servers.add(mockServer("otherhost"));
+    servers.add(mockServer(LOCAL_HOST));
+    servers.add(mockServer(LOCAL_HOST));
+    servers.add(mockServer("yetanotherhost"));
+    List<HRegionInfo> regions = new ArrayList<HRegionInfo>();
+    List<HRegionInfo> withData = createRegions(4, "bulk", true);
+    regions.addAll(createRegions(5, "bulk", false));
+    regions.addAll(withData);
+    Map<HServerInfo,List<HRegionInfo>> assignments =
+      LoadBalancer.bulkAssignment(regions, servers, fs, rootdir);
+    int assigned = 0;
+    for (Map.Entry<HServerInfo,List<HRegionInfo>> e : assignments.entrySet()) {
+      assigned += e.getValue().size();
+      assertTrue(e.getValue().size() == 2 || e.getValue().size() == 3);
+      if (e.getKey().getHostname().equals(LOCAL_HOST)) {
+        assertEquals(2, e.getValue().size());
+        assertTrue(withData.containsAll(e.getValue()));
+      }
+    }
+    assertEquals(regions.size(), assigned);
+  }
+
+  private LoadBalancer createBalancer(final Configuration conf) {
+    if (conf.get("hbase.rootdir") == null) {
+      conf.setFloat("hbase.master.balancer.stochastic.localityCost", 0);
+    }
+    conf.setClass(LoadBalancer.BALANCER_CLASS_KEY,
+      StochasticLoadBalancer.class, LoadBalancer.class);
+    LoadBalancer balancer = LoadBalancer.getLoadBalancer(conf);
+    assertTrue(balancer instanceof StochasticLoadBalancer);
+    return balancer;
+  }
+
+  private void applyPlans(final Map<HServerInfo,List<HRegionInfo>> cluster,
+      final List<RegionPlan> plans) {
+    if (plans == null) {
+      return;
+    }
+    for (RegionPlan plan : plans) {
+      assertTrue(cluster.get(plan.getSource()).remove(plan.getRegionInfo()));
+      cluster.get(plan.getDestination()).add(plan.getRegionInfo());
+    }
+  }
+
+  private Map<HServerInfo,List<HRegionInfo>> mockCluster(final int [] mock,
+      final String table, final String host)
+  throws IOException {
+    Map<HServerInfo,List<HRegionInfo>> cluster =
+      new HashMap<HServerInfo,List<HRegionInfo>>();
+    for (int regions : mock) {
+      cluster.put(mockServer(host), createRegions(regions, table, false));
+    }
+    return cluster;
+  }
+
+  private HServerInfo mockServer(final String host) {
+    int port = this.nextPort++;
+    // The address has to resolve, the balancer only looks at the host name
+    return new HServerInfo(new HServerAddress(LOCAL_HOST, port), port, port,
+      host);
+  }
+
+  /**
+   * @param withData true to write a store file for each region
+   */
+  private List<HRegionInfo> createRegions(final int numRegions,
+      final String table, final boolean withData)
+  throws IOException {
+    HTableDescriptor htd = new HTableDescriptor(Bytes.toBytes(table));
+    List<HRegionInfo> regions = new ArrayList<HRegionInfo>(numRegions);
+    for (int i = 0; i < numRegions; i++) {
+      int index = this.nextRegion++;
+      HRegionInfo hri = new HRegionInfo(htd, Bytes.toBytes(index),
+        Bytes.toBytes(index + 1));
+      if (withData) {
+        Path family = new Path(HRegion.getRegionDir(rootdir, hri), "family");
+        FSDataOutputStream out = fs.create(new Path(family, "storefile"));
+        out.write(new byte[1024]);
+        out.close();
+      }
+      regions.add(hri);
+    }
+    return regions;
+  }
+}
@@ -99,6 +99,8 @@ public class TestZKBasedOpenCloseRegion {
     HRegionServer regionServer =
       TEST_UTIL.getHBaseCluster().getRegionServer(rsIdx);
     HRegionInfo hri = getNonMetaRegion(regionServer.getOnlineRegions());
+    // The region could still be opening, if reassigned by a previous test
+    cluster.getMaster().assignmentManager.waitForAssignment(hri);
     LOG.debug("Asking RS to close region " + hri.getRegionNameAsString());
 
     AtomicBoolean closeEventProcessed = new AtomicBoolean(false);
@@ -194,6 +196,8 @@ public class TestZKBasedOpenCloseRegion {
     int rsIdx = 0;
     HRegionServer regionServer = TEST_UTIL.getHBaseCluster().getRegionServer(rsIdx);
     HRegionInfo hri = getNonMetaRegion(regionServer.getOnlineRegions());
+    // The region could still be opening, if reassigned by a previous test
+    cluster.getMaster().assignmentManager.waitForAssignment(hri);
     LOG.debug("Asking RS to close region " + hri.getRegionNameAsString());
 
     AtomicBoolean closeEventProcessed = new AtomicBoolean(false);
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.MicroBenchmark;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Measures merging N sorted scanners through a {@link KeyValueHeap}, as a
+ * StoreScanner does over a memstore and its store files.  Keys are dealt out
+ * round-robin so the heap has to switch scanners on every next.  One
+ * operation is one KeyValue out of the heap.
+ */
+public class KeyValueHeapBenchmark extends MicroBenchmark {
+  private static final int COUNT = 10000;
+  private static final byte [] FAMILY = Bytes.toBytes("family");
+  private static final byte [] QUALIFIER = Bytes.toBytes("qualifier");
+  private final int scannerCount;
+  private ArrayScanner [] scanners;
+
+  public KeyValueHeapBenchmark(final Configuration conf,
+      final int scannerCount) {
+    super(conf);
+    this.scannerCount = scannerCount;
+  }
+
+  @Override
+  public String getName() {
+    return super.getName() + "[scanners=" + this.scannerCount + "]";
+  }
+
+  @Override
+  public int getOperationsPerInvocation() {
+    return COUNT;
+  }
+
+  @Override
+  public void setUp() {
+    List<List<KeyValue>> lists = new ArrayList<List<KeyValue>>();
+    for (int i = 0; i < this.scannerCount; i++) {
+      lists.add(new ArrayList<KeyValue>());
+    }
+    for (int i = 0; i < COUNT; i++) {
+      lists.get(i % this.scannerCount).add(new KeyValue(
+        Bytes.toBytes(String.format("%010d", i)), FAMILY, QUALIFIER, 1L,
+        Bytes.toBytes(i)));
+    }
+    this.scanners = new ArrayScanner[this.scannerCount];
+    for (int i = 0; i < this.scannerCount; i++) {
+      this.scanners[i] = new ArrayScanner(
+        lists.get(i).toArray(new KeyValue[0]));
+    }
+  }
+
+  @Override
+  public long operation(final int thread) throws Exception {
+    for (ArrayScanner scanner: this.scanners) {
+      scanner.seek(KeyValue.LOWESTKEY);
+    }
+    KeyValueHeap heap = new KeyValueHeap(Arrays.asList(this.scanners),
+      KeyValue.COMPARATOR);
+    long result = 0;
+    for (KeyValue kv = heap.next(); kv != null; kv = heap.next()) {
+      result += kv.getLength();
+    }
+    heap.close();
+    return result;
+  }
+
+  /*
+   * Scanner over a sorted array that can be rewound with a seek.  Unlike
+   * KeyValueScanFixture it does no copying or sorting per seek.
+   */
+  static class ArrayScanner implements KeyValueScanner {
+    private final KeyValue [] kvs;
+    private int index = 0;
+
+    ArrayScanner(final KeyValue [] kvs) {
+      this.kvs = kvs;
+    }
+
+    public KeyValue peek() {
+      return this.index < this.kvs.length? this.kvs[this.index]: null;
+    }
+
+    public KeyValue next() {
+      return this.index < this.kvs.length? this.kvs[this.index++]: null;
+    }
+
+    public boolean seek(final KeyValue key) {
+      this.index = 0;
+      return reseek(key);
+    }
+
+    public boolean reseek(final KeyValue key) {
+      while (this.index < this.kvs.length &&
+          KeyValue.COMPARATOR.compare(this.kvs[this.index], key) < 0) {
+        this.index++;
+      }
+      return this.index < this.kvs.length;
+    }
+
+    public void close() {
+      // noop
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.MicroBenchmark;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * {@link MemStore} micro benchmarks.  One operation is one KeyValue added
+ * or scanned.
+ */
+public class MemStoreBenchmark {
+  private static final int COUNT = 10000;
+  private static final byte [] FAMILY = Bytes.toBytes("family");
+  private static final byte [] QUALIFIER = Bytes.toBytes("qualifier");
+
+  /*
+   * @return COUNT KeyValues with randomly ordered rows.
+   */
+  static KeyValue [] generate() {
+    Random random = new Random(COUNT);
+    byte [] value = new byte[100];
+    KeyValue [] kvs = new KeyValue[COUNT];
+    for (int i = 0; i < kvs.length; i++) {
+      random.nextBytes(value);
+      kvs[i] = new KeyValue(Bytes.toBytes(String.format("%010d",
+        random.nextInt(Integer.MAX_VALUE))), FAMILY, QUALIFIER,
+        System.currentTimeMillis(), value);
+    }
+    return kvs;
+  }
+
+  /**
+   * Measures {@link MemStore#add(KeyValue)} into an empty MemStore.
+   */
+  public static class Add extends MicroBenchmark {
+    private KeyValue [] kvs;
+
+    public Add(final Configuration conf) {
+      super(conf);
+    }
+
+    @Override
+    public int getOperationsPerInvocation() {
+      return COUNT;
+    }
+
+    @Override
+    public void setUp() {
+      this.kvs = generate();
+    }
+
+    @Override
+    public long operation(final int thread) {
+      MemStore memstore = new MemStore();
+      long size = 0;
+      for (KeyValue kv: this.kvs) {
+        size += memstore.add(kv);
+      }
+      return size;
+    }
+  }
+
+  /**
+   * Measures a full pass of a MemStoreScanner over a populated MemStore.
+   */
+  public static class Scan extends MicroBenchmark {
+    private final ReadWriteConsistencyControl rwcc =
+      new ReadWriteConsistencyControl();
+    private MemStore memstore;
+
+    public Scan(final Configuration conf) {
+      super(conf);
+    }
+
+    @Override
+    public int getOperationsPerInvocation() {
+      return COUNT;
+    }
+
+    @Override
+    public void setUp() {
+      this.memstore = new MemStore();
+      for (KeyValue kv: generate()) {
+        this.memstore.add(kv);
+      }
+    }
+
+    @Override
+    public long operation(final int thread) throws Exception {
+      // As HRegion.RegionScanner does before each batch.
+      ReadWriteConsistencyControl.resetThreadReadPoint(this.rwcc);
+      List<KeyValueScanner> scanners = this.memstore.getScanners();
+      long result = 0;
+      for (KeyValueScanner scanner: scanners) {
+        scanner.seek(KeyValue.LOWESTKEY);
+        for (KeyValue kv = scanner.next(); kv != null; kv = scanner.next()) {
+          result += kv.getLength();
+        }
+        scanner.close();
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.MicroBenchmark;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Measures {@link ScanQueryMatcher#match(KeyValue)} for a wildcard, single
+ * version scan over rows with several columns and versions, some of them
+ * covered by column deletes.  One operation is one KeyValue matched.
+ */
+public class ScanQueryMatcherBenchmark extends MicroBenchmark {
+  private static final int ROWS = 1000;
+  private static final int COLUMNS = 10;
+  private static final int VERSIONS = 3;
+  private static final byte [] FAMILY = Bytes.toBytes("family");
+  private KeyValue [] kvs;
+  // Row of each KeyValue when it starts a new row, else null.
+  private byte [][] rowStarts;
+
+  public ScanQueryMatcherBenchmark(final Configuration conf) {
+    super(conf);
+  }
+
+  @Override
+  public int getOperationsPerInvocation() {
+    return this.kvs.length;
+  }
+
+  @Override
+  public void setUp() {
+    List<KeyValue> list = new ArrayList<KeyValue>();
+    List<byte []> starts = new ArrayList<byte []>();
+    for (int r = 0; r < ROWS; r++) {
+      byte [] row = Bytes.toBytes(String.format("%010d", r));
+      int first = list.size();
+      for (int c = 0; c < COLUMNS; c++) {
+        byte [] qualifier = Bytes.toBytes("q" + c);
+        if (c % 5 == 0) {
+          list.add(new KeyValue(row, FAMILY, qualifier, VERSIONS,
+            KeyValue.Type.DeleteColumn));
+        }
+        for (int v = VERSIONS; v > 0; v--) {
+          list.add(new KeyValue(row, FAMILY, qualifier, v, row));
+        }
+      }
+      while (starts.size() < list.size()) {
+        starts.add(starts.size() == first? row: null);
+      }
+    }
+    this.kvs = list.toArray(new KeyValue[list.size()]);
+    this.rowStarts = starts.toArray(new byte[starts.size()][]);
+  }
+
+  @Override
+  public long operation(final int thread) {
+    ScanQueryMatcher matcher = new ScanQueryMatcher(new Scan(), FAMILY, null,
+      Long.MAX_VALUE, KeyValue.KEY_COMPARATOR, 1);
+    long included = 0;
+    for (int i = 0; i < this.kvs.length; i++) {
+      if (this.rowStarts[i] != null) {
+        matcher.setRow(this.rowStarts[i]);
+      }
+      if (matcher.match(this.kvs[i]) == ScanQueryMatcher.MatchCode.INCLUDE) {
+        included++;
+      }
+    }
+    return included;
+  }
+}
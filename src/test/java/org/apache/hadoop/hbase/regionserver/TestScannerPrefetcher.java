@@ -0,0 +1,254 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link ScannerPrefetcher} outside of a regionserver.
+ */
+public class TestScannerPrefetcher {
+  private static final String SCANNER = "1234";
+  private ScannerPrefetcher prefetcher;
+
+  @Before
+  public void setUp() {
+    this.prefetcher = createPrefetcher(HBaseConfiguration.create());
+  }
+
+  @After
+  public void tearDown() {
+    this.prefetcher.shutdown();
+  }
+
+  private ScannerPrefetcher createPrefetcher(final Configuration conf) {
+    return new ScannerPrefetcher(conf, "test");
+  }
+
+  private static Result [] batch() {
+    KeyValue kv = new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("f"),
+      Bytes.toBytes("q"), Bytes.toBytes("value"));
+    return new Result [] {new Result(new KeyValue [] {kv})};
+  }
+
+  private static Callable<Result []> returning(final Result [] results) {
+    return new Callable<Result []>() {
+      public Result [] call() {
+        return results;
+      }
+    };
+  }
+
+  @Test
+  public void testNotRegistered() {
+    assertFalse(this.prefetcher.isRegistered(SCANNER));
+    this.prefetcher.prefetch(SCANNER, returning(batch()), batch());
+    assertFalse(this.prefetcher.hasPrefetched(SCANNER));
+  }
+
+  @Test
+  public void testTake() throws Exception {
+    Result [] results = batch();
+    this.prefetcher.register(SCANNER);
+    assertFalse(this.prefetcher.hasPrefetched(SCANNER));
+    this.prefetcher.prefetch(SCANNER, returning(results), batch());
+    assertTrue(this.prefetcher.hasPrefetched(SCANNER));
+    assertSame(results, this.prefetcher.take(SCANNER));
+    assertFalse(this.prefetcher.hasPrefetched(SCANNER));
+    assertEquals(0, this.prefetcher.getBufferedSize());
+  }
+
+  @Test
+  public void testNullBatch() throws Exception {
+    this.prefetcher.register(SCANNER);
+    this.prefetcher.prefetch(SCANNER, returning(null), batch());
+    assertNull(this.prefetcher.take(SCANNER));
+  }
+
+  @Test
+  public void testOneOutstandingPerScanner() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicInteger calls = new AtomicInteger();
+    Callable<Result []> next = new Callable<Result []>() {
+      public Result [] call() throws Exception {
+        calls.incrementAndGet();
+        latch.await();
+        return batch();
+      }
+    };
+    this.prefetcher.register(SCANNER);
+    this.prefetcher.prefetch(SCANNER, next, batch());
+    this.prefetcher.prefetch(SCANNER, next, batch());
+    latch.countDown();
+    assertEquals(1, this.prefetcher.take(SCANNER).length);
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void testBufferedSizeLimit() throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setLong(ScannerPrefetcher.MAX_SIZE_KEY, 1);
+    ScannerPrefetcher limited = createPrefetcher(conf);
+    try {
+      final CountDownLatch latch = new CountDownLatch(1);
+      limited.register("a");
+      limited.register("b");
+      limited.prefetch("a", new Callable<Result []>() {
+        public Result [] call() throws Exception {
+          latch.await();
+          return batch();
+        }
+      }, batch());
+      // Room for the first batch is reserved before it is computed.
+      assertTrue(limited.getBufferedSize() > 0);
+      limited.prefetch("b", returning(batch()), batch());
+      assertFalse(limited.hasPrefetched("b"));
+      latch.countDown();
+      limited.take("a");
+      assertEquals(0, limited.getBufferedSize());
+      limited.prefetch("b", returning(batch()), batch());
+      assertTrue(limited.hasPrefetched("b"));
+    } finally {
+      limited.shutdown();
+    }
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    final IOException ioe = new IOException("boom");
+    this.prefetcher.register(SCANNER);
+    this.prefetcher.prefetch(SCANNER, new Callable<Result []>() {
+      public Result [] call() throws IOException {
+        throw ioe;
+      }
+    }, batch());
+    try {
+      this.prefetcher.take(SCANNER);
+      fail("Expected the prefetch failure");
+    } catch (IOException e) {
+      assertSame(ioe, e);
+    }
+  }
+
+  @Test
+  public void testFailureReleasesReservation() throws Exception {
+    this.prefetcher.register(SCANNER);
+    this.prefetcher.prefetch(SCANNER, new Callable<Result []>() {
+      public Result [] call() throws IOException {
+        throw new IOException("boom");
+      }
+    }, batch());
+    try {
+      this.prefetcher.take(SCANNER);
+      fail("Expected the prefetch failure");
+    } catch (IOException e) {
+      // expected
+    }
+    assertEquals(0, this.prefetcher.getBufferedSize());
+  }
+
+  @Test
+  public void testCancelQueued() throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setInt(ScannerPrefetcher.THREADS_KEY, 1);
+    ScannerPrefetcher single = createPrefetcher(conf);
+    try {
+      final CountDownLatch started = new CountDownLatch(1);
+      final CountDownLatch latch = new CountDownLatch(1);
+      final AtomicInteger calls = new AtomicInteger();
+      single.register("a");
+      single.register("b");
+      single.prefetch("a", new Callable<Result []>() {
+        public Result [] call() throws Exception {
+          started.countDown();
+          latch.await();
+          return batch();
+        }
+      }, batch());
+      started.await();
+      single.prefetch("b", new Callable<Result []>() {
+        public Result [] call() {
+          calls.incrementAndGet();
+          return batch();
+        }
+      }, batch());
+      // b is queued behind a; cancelling it must not wait for a.
+      single.cancel("b");
+      latch.countDown();
+      single.take("a");
+      assertEquals(0, calls.get());
+      assertEquals(0, single.getBufferedSize());
+    } finally {
+      single.shutdown();
+    }
+  }
+
+  @Test
+  public void testCancelAfterShutdown() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    this.prefetcher.register(SCANNER);
+    this.prefetcher.prefetch(SCANNER, new Callable<Result []>() {
+      public Result [] call() throws Exception {
+        latch.await();
+        return batch();
+      }
+    }, batch());
+    this.prefetcher.shutdown();
+    latch.countDown();
+    // Returns once the running prefetch is done
+    this.prefetcher.cancel(SCANNER);
+    assertEquals(0, this.prefetcher.getBufferedSize());
+    this.prefetcher.register(SCANNER);
+    this.prefetcher.prefetch(SCANNER, returning(batch()), batch());
+    assertFalse(this.prefetcher.hasPrefetched(SCANNER));
+    assertEquals(0, this.prefetcher.getBufferedSize());
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    this.prefetcher.register(SCANNER);
+    this.prefetcher.prefetch(SCANNER, returning(batch()), batch());
+    this.prefetcher.cancel(SCANNER);
+    assertFalse(this.prefetcher.isRegistered(SCANNER));
+    assertFalse(this.prefetcher.hasPrefetched(SCANNER));
+    assertEquals(0, this.prefetcher.getBufferedSize());
+    this.prefetcher.prefetch(SCANNER, returning(batch()), batch());
+    assertFalse(this.prefetcher.hasPrefetched(SCANNER));
+  }
+}
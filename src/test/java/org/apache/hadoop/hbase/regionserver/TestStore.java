@@ -169,6 +169,41 @@ public class TestStore extends TestCase {
     assertEquals(1, result.size());
   }
 
+  /**
+   * Store files are opened and closed in parallel, make sure none is lost
+   * and they come back in flush order.
+   * @throws IOException
+   */
+  public void testOpenAndCloseStoreFiles() throws IOException {
+    init(this.getName());
+    byte [][] qfs = {qf1, qf2, qf3, qf4, qf5, qf6};
+    for (int i = 0; i < qfs.length; i++) {
+      this.store.add(new KeyValue(row, family, qfs[i], 1, (byte[])null));
+      flush(i + 1);
+    }
+    List<StoreFile> files = this.store.close();
+    assertEquals(qfs.length, files.size());
+    for (StoreFile f : files) {
+      assertNull(f.getReader());
+    }
+
+    // Reopen it, files should be in the same order
+    this.store = new Store(files.get(0).getPath().getParent().getParent()
+      .getParent(), this.store.getHRegion(), this.store.getFamily(),
+      FileSystem.get(HBaseConfiguration.create()), HBaseConfiguration.create());
+    List<StoreFile> reopened = this.store.getStorefiles();
+    assertEquals(files.size(), reopened.size());
+    for (int i = 0; i < files.size(); i++) {
+      assertEquals(files.get(i).getPath().getName(),
+        reopened.get(i).getPath().getName());
+      assertNotNull(reopened.get(i).getReader());
+    }
+    result = HBaseTestingUtility.getFromStoreFile(store,
+        get.getRow(), qualifiers);
+    Collections.sort(result, KeyValue.COMPARATOR);
+    assertCheck();
+  }
+
   /**
    * Getting data from memstore only
    * @throws IOException
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.wal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.HbaseObjectWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test writing and reading logs and log entries with dictionary compression
+ */
+public class TestWALCompression {
+  private final static HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final byte [] TABLE = Bytes.toBytes("table");
+  private static final byte [] REGION = Bytes.toBytes("0123456789abcdef");
+  private static final byte [] FAMILY = Bytes.toBytes("family");
+  private static final int NB_ENTRIES = 100;
+
+  private static FileSystem fs;
+  private static Path dir;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    fs = FileSystem.getLocal(TEST_UTIL.getConfiguration());
+    dir = new Path(HBaseTestingUtility.getTestDir(), "TestWALCompression");
+    fs.delete(dir, true);
+  }
+
+  @Test
+  public void testDictionary() throws IOException {
+    LRUDictionary writeDict = new LRUDictionary(2);
+    LRUDictionary readDict = new LRUDictionary(2);
+    byte [][] data = { Bytes.toBytes("a"), Bytes.toBytes("b"),
+      Bytes.toBytes("a"), Bytes.toBytes("c"), Bytes.toBytes("b"),
+      Bytes.toBytes("a"), Bytes.toBytes("c") };
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(baos);
+    for (byte [] d : data) {
+      writeDict.write(out, d);
+    }
+    DataInputStream in =
+      new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+    for (byte [] d : data) {
+      assertTrue(Bytes.equals(d, readDict.read(in)));
+    }
+    assertEquals(0, in.available());
+  }
+
+  @Test
+  public void testCompressedLog() throws IOException {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    long plainLength = writeLog(new Path(dir, "plain"), conf);
+
+    conf.setBoolean("hbase.regionserver.wal.enablecompression", true);
+    Path path = new Path(dir, "compressed");
+    long compressedLength = writeLog(path, conf);
+    assertTrue("Compressed log of " + compressedLength +
+      " bytes isn't smaller than " + plainLength,
+      compressedLength < plainLength);
+
+    // Read the entries, remembering where the last quarter starts
+    HLog.Reader reader = HLog.getReader(fs, path, conf);
+    long position = 0;
+    for (int i = 0; i < NB_ENTRIES; i++) {
+      checkEntry(i, reader.next());
+      if (i == NB_ENTRIES * 3 / 4 - 1) {
+        position = reader.getPosition();
+      }
+    }
+    assertNull(reader.next());
+    // Reopening where we are keeps the dictionaries
+    reader.reset();
+    assertNull(reader.next());
+    // Going back rebuilds them
+    reader.seek(position);
+    checkEntry(NB_ENTRIES * 3 / 4, reader.next());
+    reader.close();
+
+    // So does a new reader
+    reader = HLog.getReader(fs, path, conf);
+    reader.seek(position);
+    for (int i = NB_ENTRIES * 3 / 4; i < NB_ENTRIES; i++) {
+      checkEntry(i, reader.next());
+    }
+    reader.close();
+
+    conf.setClass("hbase.regionserver.wal.compression.codec",
+      DefaultCodec.class, Object.class);
+    path = new Path(dir, "codec");
+    writeLog(path, conf);
+    reader = HLog.getReader(fs, path, conf);
+    for (int i = 0; i < NB_ENTRIES; i++) {
+      checkEntry(i, reader.next());
+    }
+    reader.close();
+  }
+
+  @Test
+  public void testEntryArray() throws IOException {
+    HLog.Entry [] entries = new HLog.Entry[NB_ENTRIES];
+    int plainLength = 0;
+    for (int i = 0; i < NB_ENTRIES; i++) {
+      entries[i] = createEntry(i);
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      entries[i].write(new DataOutputStream(baos));
+      plainLength += baos.size();
+    }
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    HbaseObjectWritable.writeObject(new DataOutputStream(baos), entries,
+      HLog.Entry[].class, null);
+    assertTrue(baos.size() < plainLength);
+    HLog.Entry [] read = (HLog.Entry [])HbaseObjectWritable.readObject(
+      new DataInputStream(new ByteArrayInputStream(baos.toByteArray())),
+      null);
+    assertEquals(NB_ENTRIES, read.length);
+    for (int i = 0; i < NB_ENTRIES; i++) {
+      checkEntry(i, read[i]);
+    }
+    // The entries can still be written the usual way
+    entries[0].write(new DataOutputStream(new ByteArrayOutputStream()));
+  }
+
+  private long writeLog(Path path, Configuration conf) throws IOException {
+    HLog.Writer writer = HLog.createWriter(fs, path, conf);
+    for (int i = 0; i < NB_ENTRIES; i++) {
+      writer.append(createEntry(i));
+    }
+    writer.close();
+    return fs.getFileStatus(path).getLen();
+  }
+
+  private HLog.Entry createEntry(int i) {
+    byte [] row = Bytes.toBytes("row" + (i % 10));
+    WALEdit edit = new WALEdit();
+    for (int j = 0; j < 5; j++) {
+      edit.add(new KeyValue(row, FAMILY, Bytes.toBytes("qualifier" + j),
+        i, KeyValue.Type.Put, Bytes.toBytes("value" + i)));
+    }
+    edit.add(new KeyValue(row, FAMILY, Bytes.toBytes("qualifier0"), i,
+      KeyValue.Type.Delete));
+    return new HLog.Entry(new HLogKey(REGION, TABLE, i, i), edit);
+  }
+
+  private void checkEntry(int i, HLog.Entry entry) {
+    HLog.Entry expected = createEntry(i);
+    assertTrue(Bytes.equals(REGION, entry.getKey().getEncodedRegionName()));
+    assertTrue(Bytes.equals(TABLE, entry.getKey().getTablename()));
+    assertEquals(i, entry.getKey().getLogSeqNum());
+    assertEquals(i, entry.getKey().getWriteTime());
+    assertEquals(expected.getEdit().size(), entry.getEdit().size());
+    for (int j = 0; j < expected.getEdit().size(); j++) {
+      assertTrue(expected.getEdit().getKeyValues().get(j).equals(
+        entry.getEdit().getKeyValues().get(j)));
+      assertTrue(Bytes.equals(
+        expected.getEdit().getKeyValues().get(j).getValue(),
+        entry.getEdit().getKeyValues().get(j).getValue()));
+    }
+  }
+}
@@ -52,6 +52,11 @@ public class ReplicationSourceDummy implements ReplicationSourceInterface {
     this.currentPath = log;
   }
 
+  @Override
+  public void logEntriesAppended() {
+
+  }
+
   @Override
   public Path getCurrentPath() {
     return this.currentPath;
@@ -21,10 +21,7 @@ package org.apache.hadoop.hbase.replication.regionserver;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.HBaseTestingUtility;
-import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.Stoppable;
 import org.apache.hadoop.hbase.client.Get;
@@ -39,10 +36,10 @@ import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
-import org.junit.Ignore;
 import org.junit.Test;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -56,8 +53,6 @@ public class TestReplicationSink {
 
   private static final long SLEEP_TIME = 500;
 
-  private final static Configuration conf = HBaseConfiguration.create();
-
   private final static HBaseTestingUtility TEST_UTIL =
       new HBaseTestingUtility();
 
@@ -96,11 +91,8 @@ public class TestReplicationSink {
   @BeforeClass
   public static void setUpBeforeClass() throws Exception {
     TEST_UTIL.getConfiguration().setBoolean("dfs.support.append", true);
-    TEST_UTIL.getConfiguration().setBoolean(
-        HConstants.REPLICATION_ENABLE_KEY, true);
     TEST_UTIL.startMiniCluster(3);
-    conf.setBoolean("dfs.support.append", true);
-    SINK = new ReplicationSink(conf, STOPPABLE);
+    SINK = new ReplicationSink(TEST_UTIL.getConfiguration(), STOPPABLE);
     table1 = TEST_UTIL.createTable(TABLE_NAME1, FAM_NAME1);
     table2 = TEST_UTIL.createTable(TABLE_NAME2, FAM_NAME2);
   }
@@ -128,7 +120,7 @@ public class TestReplicationSink {
    * Insert a whole batch of entries
    * @throws Exception
    */
-  @Ignore @Test
+  @Test
   public void testBatchSink() throws Exception {
     HLog.Entry[] entries = new HLog.Entry[BATCH_SIZE];
     for(int i = 0; i < BATCH_SIZE; i++) {
@@ -144,7 +136,7 @@ public class TestReplicationSink {
    * Insert a mix of puts and deletes
    * @throws Exception
    */
-  @Ignore @Test
+  @Test
   public void testMixedPutDelete() throws Exception {
     HLog.Entry[] entries = new HLog.Entry[BATCH_SIZE/2];
     for(int i = 0; i < BATCH_SIZE/2; i++) {
@@ -168,7 +160,7 @@ public class TestReplicationSink {
    * Insert to 2 different tables
    * @throws Exception
    */
-  @Ignore @Test
+  @Test
   public void testMixedPutTables() throws Exception {
     HLog.Entry[] entries = new HLog.Entry[BATCH_SIZE];
     for(int i = 0; i < BATCH_SIZE; i++) {
@@ -189,7 +181,7 @@ public class TestReplicationSink {
    * Insert then do different types of deletes
    * @throws Exception
    */
-  @Ignore @Test
+  @Test
   public void testMixedDeletes() throws Exception {
     HLog.Entry[] entries = new HLog.Entry[3];
     for(int i = 0; i < 3; i++) {
@@ -214,7 +206,7 @@ public class TestReplicationSink {
    * before the actual Put that creates it.
    * @throws Exception
    */
-  @Ignore @Test
+  @Test
   public void testApplyDeleteBeforePut() throws Exception {
     HLog.Entry[] entries = new HLog.Entry[5];
     for(int i = 0; i < 2; i++) {
@@ -230,6 +222,85 @@ public class TestReplicationSink {
     assertEquals(0, res.size());
   }
 
+  /**
+   * Write the same cell of a row three times with the same timestamp in one
+   * batch, with another table in between.  Only the order the sink applies
+   * them in decides which value is read back, it has to be the last one.
+   * @throws Exception
+   */
+  @Test
+  public void testSameRowOrdering() throws Exception {
+    long ts = System.currentTimeMillis();
+    HLog.Entry[] entries = new HLog.Entry[5];
+    entries[0] = createEntry(TABLE_NAME1, 0, ts, Bytes.toBytes("first"));
+    entries[1] = createEntry(TABLE_NAME2, 0, KeyValue.Type.Put);
+    entries[2] = createEntry(TABLE_NAME1, 0, ts, Bytes.toBytes("second"));
+    entries[3] = createEntry(TABLE_NAME1, 1, KeyValue.Type.Put);
+    entries[4] = createEntry(TABLE_NAME1, 0, ts, Bytes.toBytes("last"));
+    SINK.replicateEntries(entries);
+    Get get = new Get(Bytes.toBytes(0));
+    Result res = table1.get(get);
+    assertEquals("last", Bytes.toString(res.getValue(FAM_NAME1, FAM_NAME1)));
+    assertEquals(1, table1.get(new Get(Bytes.toBytes(1))).size());
+    assertEquals(1, table2.get(get).size());
+  }
+
+  /**
+   * Ship batches from several threads at once, as several sources would.
+   * @throws Exception
+   */
+  @Test
+  public void testConcurrentBatches() throws Exception {
+    final int sources = 5;
+    final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+    Thread[] threads = new Thread[sources];
+    for (int t = 0; t < sources; t++) {
+      final int first = t * BATCH_SIZE;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          HLog.Entry[] entries = new HLog.Entry[BATCH_SIZE];
+          for (int i = 0; i < BATCH_SIZE; i++) {
+            entries[i] = createEntry(i % 2 == 0 ? TABLE_NAME1 : TABLE_NAME2,
+                first + i, KeyValue.Type.Put);
+          }
+          try {
+            SINK.replicateEntries(entries);
+          } catch (Exception e) {
+            failure.set(e);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+    ResultScanner scanRes = table1.getScanner(new Scan());
+    assertEquals(sources * BATCH_SIZE / 2,
+        scanRes.next(sources * BATCH_SIZE).length);
+    scanRes = table2.getScanner(new Scan());
+    assertEquals(sources * BATCH_SIZE / 2,
+        scanRes.next(sources * BATCH_SIZE).length);
+  }
+
+  /**
+   * Put of the given value at the given timestamp
+   */
+  private HLog.Entry createEntry(byte [] table, int row, long ts,
+      byte [] value) {
+    byte[] fam = Bytes.equals(table, TABLE_NAME1) ? FAM_NAME1 : FAM_NAME2;
+    KeyValue kv = new KeyValue(Bytes.toBytes(row), fam, fam, ts,
+        KeyValue.Type.Put, value);
+    HLogKey key = new HLogKey(table, table, ts, ts);
+    WALEdit edit = new WALEdit();
+    edit.add(kv);
+    return new HLog.Entry(key, edit);
+  }
+
   private HLog.Entry createEntry(byte [] table, int row,  KeyValue.Type type) {
     byte[] fam = Bytes.equals(table, TABLE_NAME1) ? FAM_NAME1 : FAM_NAME2;
     byte[] rowBytes = Bytes.toBytes(row);
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.replication.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HServerAddress;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.Stoppable;
+import org.apache.hadoop.hbase.regionserver.wal.HLog;
+import org.apache.hadoop.hbase.regionserver.wal.HLogKey;
+import org.apache.hadoop.hbase.regionserver.wal.WALEdit;
+import org.apache.hadoop.hbase.replication.ReplicationZookeeper;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Test {@link ReplicationSource} shipping a log with several shipper threads.
+ * Nothing is sent to a peer cluster, the edits handed to each shipper are
+ * recorded instead, and the source manager only records the positions.
+ */
+public class TestReplicationSourceShippers {
+
+  private static final Log LOG =
+      LogFactory.getLog(TestReplicationSourceShippers.class);
+
+  private final static HBaseTestingUtility TEST_UTIL =
+      new HBaseTestingUtility();
+
+  private static final int NB_SHIPPERS = 3;
+
+  private static final byte[] TABLE = Bytes.toBytes("test");
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+
+  private static FileSystem fs;
+
+  private static Path logDir;
+
+  // One region for each shipper
+  private static byte[][] regions;
+
+  private Configuration conf;
+
+  private ReplicationSourceManager manager;
+
+  // Positions recorded by the source, in order
+  private final List<Long> positions =
+      Collections.synchronizedList(new ArrayList<Long>());
+
+  private ShippingSource source;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    // The source gets a connection to the peer cluster, which needs a quorum
+    TEST_UTIL.startMiniZKCluster();
+    fs = FileSystem.getLocal(TEST_UTIL.getConfiguration());
+    logDir = new Path(HBaseTestingUtility.getTestDir(),
+        HConstants.HREGION_LOGDIR_NAME);
+    regions = new byte[NB_SHIPPERS][];
+    int found = 0;
+    for (int i = 0; found < NB_SHIPPERS; i++) {
+      byte[] region = Bytes.toBytes("region" + i);
+      int index = (Bytes.hashCode(region) & Integer.MAX_VALUE) % NB_SHIPPERS;
+      if (regions[index] == null) {
+        regions[index] = region;
+        found++;
+      }
+    }
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    TEST_UTIL.shutdownMiniZKCluster();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    fs.delete(logDir, true);
+    this.conf = new Configuration(TEST_UTIL.getConfiguration());
+    this.conf.setInt("replication.source.shipper.threads", NB_SHIPPERS);
+    this.conf.setInt("replication.source.nb.capacity", 2);
+    this.conf.setLong("replication.source.sleepforretries", 100);
+
+    ReplicationZookeeper zkHelper = mock(ReplicationZookeeper.class);
+    when(zkHelper.getClusterId()).thenReturn("1");
+    List<HServerAddress> peers = new ArrayList<HServerAddress>();
+    peers.add(new HServerAddress("localhost", 60020));
+    when(zkHelper.getPeersAddresses(anyString())).thenReturn(peers);
+    this.manager = mock(ReplicationSourceManager.class);
+    when(this.manager.getRepZkWrapper()).thenReturn(zkHelper);
+    doAnswer(new Answer<Object>() {
+      public Object answer(InvocationOnMock invocation) {
+        positions.add((Long)invocation.getArguments()[2]);
+        return null;
+      }
+    }).when(this.manager).logPositionAndCleanOldLogs(any(Path.class),
+        anyString(), anyLong(), anyBoolean());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (this.source != null) {
+      this.source.terminate();
+    }
+    fs.delete(logDir, true);
+  }
+
+  /**
+   * Edits of a region reach the peer in the order they were written, and
+   * the position ends up at the end of the log once everything is shipped.
+   */
+  @Test(timeout=60000)
+  public void testOrderingAcrossShippers() throws Exception {
+    final Random random = new Random();
+    startSource(new ShippingSource() {
+      @Override
+      protected void ship(int index, List<HLog.Entry> entries)
+          throws InterruptedException {
+        // Shuffle the pace of the shippers
+        Thread.sleep(random.nextInt(10));
+      }
+    });
+    long end = writeLog(60);
+
+    waitForShipped(60);
+    waitForPosition(end);
+
+    for (byte[] region : regions) {
+      List<Long> seqNums = this.source.getShipped(region);
+      assertEquals(20, seqNums.size());
+      for (int i = 1; i < seqNums.size(); i++) {
+        assertTrue("Edits of " + Bytes.toString(region) + " out of order: " +
+            seqNums, seqNums.get(i - 1) < seqNums.get(i));
+      }
+    }
+    List<Long> recorded = new ArrayList<Long>(this.positions);
+    for (int i = 1; i < recorded.size(); i++) {
+      assertTrue("Position went back: " + recorded,
+          recorded.get(i - 1) < recorded.get(i));
+    }
+  }
+
+  /**
+   * While a shipper is stuck on the first batch, the others go on shipping
+   * their part of the following batches, but no position is recorded until
+   * the first batch is completely shipped.
+   */
+  @Test(timeout=60000)
+  public void testPositionOnlyPastShippedBatches() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final byte[] stuck = regions[0];
+    startSource(new ShippingSource() {
+      @Override
+      protected void ship(int index, List<HLog.Entry> entries)
+          throws InterruptedException {
+        if (Bytes.equals(stuck, entries.get(0).getKey().getEncodedRegionName())) {
+          latch.await();
+        }
+      }
+    });
+    long end = writeLog(30);
+
+    // Everything but the edits of the stuck region gets shipped
+    waitForShipped(20);
+    Thread.sleep(500);
+    assertEquals(0, this.source.getShipped(stuck).size());
+    assertTrue("Recorded " + this.positions, this.positions.isEmpty());
+
+    latch.countDown();
+    waitForShipped(30);
+    waitForPosition(end);
+  }
+
+  /**
+   * A shipper dying stops the whole source, even though the reader is
+   * waiting for the batches it already read to be shipped.
+   */
+  @Test(timeout=60000)
+  public void testStopOnShipperFailure() throws Exception {
+    // Only ever let one batch wait to be shipped
+    this.conf.setLong("replication.source.size.capacity", 1);
+    final byte[] failing = regions[0];
+    startSource(new ShippingSource() {
+      @Override
+      protected void ship(int index, List<HLog.Entry> entries) {
+        if (Bytes.equals(failing, entries.get(0).getKey().getEncodedRegionName())) {
+          throw new RuntimeException("Injected shipper failure");
+        }
+      }
+    });
+    writeLog(30);
+
+    long timeout = System.currentTimeMillis() + 30000;
+    while (this.source.isAlive() && System.currentTimeMillis() < timeout) {
+      Thread.sleep(100);
+    }
+    assertFalse("Source still running", this.source.isAlive());
+    for (Thread t : Thread.getAllStackTraces().keySet()) {
+      if (t.getName().contains(".replicationSource.shipper")) {
+        t.join(30000);
+        assertFalse(t.getName() + " still running", t.isAlive());
+      }
+    }
+    assertTrue("Recorded " + this.positions, this.positions.isEmpty());
+  }
+
+  private void startSource(ShippingSource source) throws Exception {
+    Stoppable stopper = new Stoppable() {
+      private volatile boolean stopped = false;
+      public void stop(String why) {
+        this.stopped = true;
+      }
+      public boolean isStopped() {
+        return this.stopped;
+      }
+    };
+    source.init(this.conf, fs, this.manager, stopper,
+        new AtomicBoolean(true), "1");
+    this.source = source;
+    this.source.startup();
+  }
+
+  /**
+   * Write a log with edits to the regions in turn and hand it to the source
+   * @param nbEntries number of edits
+   * @return position right after the last edit
+   */
+  private long writeLog(int nbEntries) throws Exception {
+    Path log = new Path(logDir, "log." + System.currentTimeMillis());
+    HLog.Writer writer = HLog.createWriter(fs, log, this.conf);
+    for (int i = 0; i < nbEntries; i++) {
+      byte[] region = regions[i % regions.length];
+      byte[] row = Bytes.toBytes("row" + i);
+      WALEdit edit = new WALEdit();
+      edit.add(new KeyValue(row, FAMILY, FAMILY, row));
+      NavigableMap<byte[], Integer> scopes =
+          new TreeMap<byte[], Integer>(Bytes.BYTES_COMPARATOR);
+      scopes.put(FAMILY, HConstants.REPLICATION_SCOPE_GLOBAL);
+      edit.setScopes(scopes);
+      HLogKey key = new HLogKey(region, TABLE, i, System.currentTimeMillis());
+      writer.append(new HLog.Entry(key, edit));
+    }
+    long end = writer.getLength();
+    writer.sync();
+    writer.close();
+    this.source.enqueueLog(log);
+    return end;
+  }
+
+  private void waitForShipped(int nbEntries) throws InterruptedException {
+    while (this.source.getNbShipped() < nbEntries) {
+      Thread.sleep(50);
+    }
+  }
+
+  private void waitForPosition(long position) throws InterruptedException {
+    while (this.positions.isEmpty() ||
+        this.positions.get(this.positions.size() - 1) != position) {
+      LOG.debug("Waiting for position " + position + ", got " + this.positions);
+      Thread.sleep(50);
+    }
+  }
+
+  /**
+   * Source recording what each shipper would have sent to the peer
+   */
+  private static abstract class ShippingSource extends ReplicationSource {
+    private final Map<String, List<Long>> shipped =
+        new HashMap<String, List<Long>>();
+    private final AtomicInteger nbShipped = new AtomicInteger();
+
+    protected abstract void ship(int index, List<HLog.Entry> entries)
+        throws InterruptedException;
+
+    @Override
+    protected void shipEdits(int index, List<HLog.Entry> entries) {
+      try {
+        ship(index, entries);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      synchronized (this.shipped) {
+        for (HLog.Entry entry : entries) {
+          String region = Bytes.toString(entry.getKey().getEncodedRegionName());
+          List<Long> seqNums = this.shipped.get(region);
+          if (seqNums == null) {
+            seqNums = new ArrayList<Long>();
+            this.shipped.put(region, seqNums);
+          }
+          seqNums.add(entry.getKey().getLogSeqNum());
+        }
+      }
+      this.nbShipped.addAndGet(entries.size());
+    }
+
+    List<Long> getShipped(byte[] region) {
+      synchronized (this.shipped) {
+        List<Long> seqNums = this.shipped.get(Bytes.toString(region));
+        return seqNums == null ?
+            new ArrayList<Long>() : new ArrayList<Long>(seqNums);
+      }
+    }
+
+    int getNbShipped() {
+      return this.nbShipped.get();
+    }
+  }
+}
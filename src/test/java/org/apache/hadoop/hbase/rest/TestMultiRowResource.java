@@ -0,0 +1,196 @@
+/*
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.rest.client.Client;
+import org.apache.hadoop.hbase.rest.client.Cluster;
+import org.apache.hadoop.hbase.rest.client.Response;
+import org.apache.hadoop.hbase.rest.model.CellModel;
+import org.apache.hadoop.hbase.rest.model.CellSetModel;
+import org.apache.hadoop.hbase.rest.model.RowModel;
+import org.apache.hadoop.hbase.util.Bytes;
+
+public class TestMultiRowResource extends HBaseRESTClusterTestBase {
+  static final String TABLE = "TestMultiRowResource";
+  static final String CFA = "a";
+  static final String CFB = "b";
+  static final String COLUMN_1 = CFA + ":1";
+  static final String COLUMN_2 = CFB + ":2";
+  static final String PATH = "/" + TABLE + "/multi";
+  static final int ROWS = 50;
+
+  Client client;
+  JAXBContext context;
+  Marshaller marshaller;
+  Unmarshaller unmarshaller;
+  HBaseAdmin admin;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    context = JAXBContext.newInstance(
+        CellModel.class,
+        CellSetModel.class,
+        RowModel.class);
+    marshaller = context.createMarshaller();
+    unmarshaller = context.createUnmarshaller();
+    client = new Client(new Cluster().add("localhost", testServletPort));
+    admin = new HBaseAdmin(conf);
+    if (admin.tableExists(TABLE)) {
+      return;
+    }
+    HTableDescriptor htd = new HTableDescriptor(TABLE);
+    htd.addFamily(new HColumnDescriptor(CFA));
+    htd.addFamily(new HColumnDescriptor(CFB));
+    admin.createTable(htd);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    client.shutdown();
+    super.tearDown();
+  }
+
+  static String row(int i) {
+    return String.format("row%03d", i);
+  }
+
+  void doTestMultiPutPB() throws IOException {
+    CellSetModel cellSetModel = new CellSetModel();
+    for (int i = 0; i < ROWS; i++) {
+      RowModel rowModel = new RowModel(row(i));
+      rowModel.addCell(new CellModel(Bytes.toBytes(COLUMN_1),
+        Bytes.toBytes("a" + i)));
+      rowModel.addCell(new CellModel(Bytes.toBytes(COLUMN_2),
+        Bytes.toBytes("b" + i)));
+      cellSetModel.addRow(rowModel);
+    }
+    Response response = client.put(PATH, MIMETYPE_PROTOBUF,
+      cellSetModel.createProtobufOutput());
+    assertEquals(200, response.getCode());
+
+    // every row was written and can be read back one at a time
+    for (int i = 0; i < ROWS; i++) {
+      response = client.get("/" + TABLE + "/" + row(i) + "/" + COLUMN_2,
+        MIMETYPE_BINARY);
+      assertEquals(200, response.getCode());
+      assertEquals("b" + i, Bytes.toString(response.getBody()));
+    }
+  }
+
+  void doTestMultiPutXML() throws IOException, JAXBException {
+    CellSetModel cellSetModel = new CellSetModel();
+    RowModel rowModel = new RowModel(row(ROWS));
+    rowModel.addCell(new CellModel(Bytes.toBytes(COLUMN_1),
+      Bytes.toBytes("xml")));
+    cellSetModel.addRow(rowModel);
+    StringWriter writer = new StringWriter();
+    marshaller.marshal(cellSetModel, writer);
+    Response response = client.post(PATH, MIMETYPE_XML,
+      Bytes.toBytes(writer.toString()));
+    assertEquals(200, response.getCode());
+    response = client.get("/" + TABLE + "/" + row(ROWS) + "/" + COLUMN_1,
+      MIMETYPE_BINARY);
+    assertEquals(200, response.getCode());
+    assertEquals("xml", Bytes.toString(response.getBody()));
+  }
+
+  void doTestMultiGetPB() throws IOException {
+    // rows come back in the order asked for, missing rows are left out
+    Response response = client.get(PATH + "?row=" + row(7) + "&row=nosuchrow" +
+      "&row=" + row(3) + "&row=" + row(42), MIMETYPE_PROTOBUF);
+    assertEquals(200, response.getCode());
+    CellSetModel model = new CellSetModel();
+    model.getObjectFromMessage(response.getBody());
+    assertEquals(3, model.getRows().size());
+    int[] expected = { 7, 3, 42 };
+    for (int i = 0; i < expected.length; i++) {
+      RowModel rowModel = model.getRows().get(i);
+      assertEquals(row(expected[i]), Bytes.toString(rowModel.getKey()));
+      assertEquals(2, rowModel.getCells().size());
+      assertEquals("a" + expected[i],
+        Bytes.toString(rowModel.getCells().get(0).getValue()));
+      assertEquals("b" + expected[i],
+        Bytes.toString(rowModel.getCells().get(1).getValue()));
+    }
+
+    // a column restricts every row
+    response = client.get(PATH + "?row=" + row(1) + "&row=" + row(2) +
+      "&column=" + CFB, MIMETYPE_PROTOBUF);
+    assertEquals(200, response.getCode());
+    model = new CellSetModel();
+    model.getObjectFromMessage(response.getBody());
+    assertEquals(2, model.getRows().size());
+    for (RowModel rowModel: model.getRows()) {
+      assertEquals(1, rowModel.getCells().size());
+      assertEquals(COLUMN_2,
+        Bytes.toString(rowModel.getCells().get(0).getColumn()));
+    }
+  }
+
+  void doTestMultiGetXML() throws IOException, JAXBException {
+    Response response = client.get(PATH + "?row=" + row(0) + "&row=" +
+      row(ROWS - 1), MIMETYPE_XML);
+    assertEquals(200, response.getCode());
+    CellSetModel model = (CellSetModel)
+      unmarshaller.unmarshal(new ByteArrayInputStream(response.getBody()));
+    assertEquals(2, model.getRows().size());
+    assertEquals(row(0), Bytes.toString(model.getRows().get(0).getKey()));
+    assertEquals(row(ROWS - 1),
+      Bytes.toString(model.getRows().get(1).getKey()));
+  }
+
+  void doTestMultiGetJSON() throws IOException {
+    Response response = client.get(PATH + "?row=" + row(0) + "&row=" +
+      row(1), MIMETYPE_JSON);
+    assertEquals(200, response.getCode());
+    assertTrue(response.getBody().length > 0);
+  }
+
+  void doTestMultiGetErrors() throws IOException {
+    Response response = client.get(PATH + "?row=nosuchrow&row=norow",
+      MIMETYPE_PROTOBUF);
+    assertEquals(404, response.getCode());
+    response = client.get(PATH, MIMETYPE_PROTOBUF);
+    assertEquals(400, response.getCode());
+  }
+
+  public void testMultiRowResource() throws Exception {
+    doTestMultiPutPB();
+    doTestMultiPutXML();
+    doTestMultiGetPB();
+    doTestMultiGetXML();
+    doTestMultiGetJSON();
+    doTestMultiGetErrors();
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.filter.PrefixFilter;
+import org.apache.hadoop.hbase.rest.model.ScannerModel;
+import org.apache.hadoop.hbase.rest.protobuf.generated.CellSetMessage.CellSet;
+import org.apache.hadoop.hbase.util.Bytes;
+
+public class TestStreamingScannerResource extends HBaseRESTClusterTestBase {
+  static final String TABLE = "TestStreamingScannerResource";
+  static final String CFA = "a";
+  static final String CFB = "b";
+  static final String COLUMN_1 = CFA + ":1";
+  static final String COLUMN_2 = CFB + ":2";
+  static final int ROWS_PER_MESSAGE = 7;
+
+  static int expectedRows;
+
+  HBaseAdmin admin;
+
+  /**
+   * Puts the row key into a:1 of every three letter row
+   * from "aaa" to "yyy", and into b:2 of every
+   * other row.
+   */
+  int insertData(String tableName) throws IOException {
+    int count = 0;
+    HTable table = new HTable(conf, tableName);
+    byte[] k = new byte[3];
+    for (byte b1 = 'a'; b1 < 'z'; b1++) {
+      for (byte b2 = 'a'; b2 < 'z'; b2++) {
+        for (byte b3 = 'a'; b3 < 'z'; b3++) {
+          k[0] = b1;
+          k[1] = b2;
+          k[2] = b3;
+          Put put = new Put(k);
+          put.add(Bytes.toBytes(CFA), Bytes.toBytes("1"), k);
+          if (count % 2 == 0) {
+            put.add(Bytes.toBytes(CFB), Bytes.toBytes("2"), k);
+          }
+          table.put(put);
+          count++;
+        }
+      }
+    }
+    table.flushCommits();
+    return count;
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    RESTServlet.getInstance().getConfiguration().setInt(
+      StreamingScannerResource.ROWS_PER_MESSAGE_KEY, ROWS_PER_MESSAGE);
+    admin = new HBaseAdmin(conf);
+    if (admin.tableExists(TABLE)) {
+      return;
+    }
+    HTableDescriptor htd = new HTableDescriptor(TABLE);
+    htd.addFamily(new HColumnDescriptor(CFA));
+    htd.addFamily(new HColumnDescriptor(CFB));
+    admin.createTable(htd);
+    expectedRows = insertData(TABLE);
+  }
+
+  HttpURLConnection open(String query) throws IOException {
+    URL url = new URL("http://localhost:" + testServletPort + "/" + TABLE +
+      "/stream" + query);
+    HttpURLConnection conn = (HttpURLConnection)url.openConnection();
+    conn.setRequestProperty("Accept", MIMETYPE_PROTOBUF);
+    return conn;
+  }
+
+  /**
+   * Reads the response a message at a time, as a client would.
+   * @return the number of rows and cells in the streamed response, and the
+   * number of messages it was sent in
+   */
+  int[] countStream(String query) throws IOException {
+    HttpURLConnection conn = open(query);
+    assertEquals(200, conn.getResponseCode());
+    assertEquals("chunked", conn.getHeaderField("Transfer-Encoding"));
+    int[] counts = new int[3];
+    byte[] lastRow = null;
+    InputStream in = conn.getInputStream();
+    try {
+      CellSet cellSet;
+      while ((cellSet = CellSet.parseDelimitedFrom(in)) != null) {
+        assertTrue(cellSet.getRowsCount() <= ROWS_PER_MESSAGE);
+        for (CellSet.Row row: cellSet.getRowsList()) {
+          byte[] key = row.getKey().toByteArray();
+          if (lastRow != null) {
+            assertTrue(Bytes.compareTo(lastRow, key) < 0);
+          }
+          lastRow = key;
+          counts[0]++;
+          counts[1] += row.getValuesCount();
+        }
+        counts[2]++;
+      }
+    } finally {
+      in.close();
+    }
+    return counts;
+  }
+
+  void doTestFullTableScan() throws IOException {
+    int[] counts = countStream("");
+    assertEquals(expectedRows, counts[0]);
+    assertEquals(expectedRows + (expectedRows + 1) / 2, counts[1]);
+    assertEquals((expectedRows + ROWS_PER_MESSAGE - 1) / ROWS_PER_MESSAGE,
+      counts[2]);
+  }
+
+  void doTestColumnsAndRange() throws IOException {
+    int[] counts = countStream("?column=" +
+      URLEncoder.encode(COLUMN_2, HConstants.UTF8_ENCODING));
+    assertEquals((expectedRows + 1) / 2, counts[0]);
+    assertEquals(counts[0], counts[1]);
+
+    // rows "baa" up to but not including "caa"
+    counts = countStream("?startrow=baa&endrow=caa&column=" + CFA);
+    assertEquals(25 * 25, counts[0]);
+    assertEquals(counts[0], counts[1]);
+
+    counts = countStream("?column=" + CFA + "&limit=10");
+    assertEquals(10, counts[0]);
+    assertEquals(2, counts[2]);
+  }
+
+  void doTestFilter() throws Exception {
+    String filter = ScannerModel.stringifyFilter(
+      new PrefixFilter(Bytes.toBytes("ab")));
+    int[] counts = countStream("?filter=" +
+      URLEncoder.encode(filter, HConstants.UTF8_ENCODING));
+    assertEquals(25, counts[0]);
+
+    assertEquals(400, open("?filter=garbage").getResponseCode());
+  }
+
+  public void testStreamingScannerResource() throws Exception {
+    doTestFullTableScan();
+    doTestColumnsAndRange();
+    doTestFilter();
+  }
+}
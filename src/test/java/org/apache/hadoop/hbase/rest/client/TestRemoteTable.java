@@ -248,6 +248,54 @@ public class TestRemoteTable extends HBaseRESTClusterTestBase {
     assertTrue(Bytes.equals(VALUE_2, value));
   }
 
+  /**
+   * A gateway without the multi endpoint still takes batched puts, sent to
+   * a nonexistent row instead.
+   */
+  public void testMultiPutFallback() throws IOException {
+    final List<String> paths = new ArrayList<String>();
+    Client oldClient =
+        new Client(new Cluster().add("localhost", testServletPort)) {
+      @Override
+      public Response put(String path, String contentType, byte[] content)
+          throws IOException {
+        paths.add(path);
+        if (path.endsWith("/multi")) {
+          return new Response(404);
+        }
+        return super.put(path, contentType, content);
+      }
+    };
+    RemoteHTable oldTable = new RemoteHTable(oldClient, conf, TABLE, null);
+    try {
+      List<Put> puts = new ArrayList<Put>();
+      Put put = new Put(ROW_3);
+      put.add(COLUMN_3, QUALIFIER_3, VALUE_3);
+      puts.add(put);
+      put = new Put(ROW_4);
+      put.add(COLUMN_3, QUALIFIER_3, VALUE_3);
+      puts.add(put);
+      oldTable.put(puts);
+      assertEquals(2, paths.size());
+      assertTrue(paths.get(1).endsWith("/$multiput"));
+
+      // the fallback sticks, the multi endpoint is not tried again
+      oldTable.put(puts);
+      assertEquals(3, paths.size());
+      assertTrue(paths.get(2).endsWith("/$multiput"));
+    } finally {
+      oldTable.close();
+    }
+
+    for (byte[] row: new byte[][] { ROW_3, ROW_4 }) {
+      Get get = new Get(row);
+      get.addFamily(COLUMN_3);
+      byte[] value = remoteTable.get(get).getValue(COLUMN_3, QUALIFIER_3);
+      assertNotNull(value);
+      assertTrue(Bytes.equals(VALUE_3, value));
+    }
+  }
+
   public void testDelete() throws IOException {
     Put put = new Put(ROW_3);
     put.add(COLUMN_1, QUALIFIER_1, VALUE_1);
@@ -43,6 +43,7 @@ public class TestThriftServer extends HBaseClusterTestCase {
   private static byte[] columnBname = Bytes.toBytes("columnB:");
   private static byte[] rowAname = Bytes.toBytes("rowA");
   private static byte[] rowBname = Bytes.toBytes("rowB");
+  private static byte[] rowCname = Bytes.toBytes("rowC");
   private static byte[] valueAname = Bytes.toBytes("valueA");
   private static byte[] valueBname = Bytes.toBytes("valueB");
   private static byte[] valueCname = Bytes.toBytes("valueC");
@@ -61,6 +62,8 @@ public class TestThriftServer extends HBaseClusterTestCase {
     doTestTableCreateDrop();
     doTestTableMutations();
     doTestTableTimestampsAndColumns();
+    doTestTableMultiGets();
+    doTestMutateRowsDeleteAndPut();
     doTestTableScanners();
   }
 
@@ -237,6 +240,126 @@ public class TestThriftServer extends HBaseClusterTestCase {
     handler.deleteTable(tableAname);
   }
 
+  /**
+   * Tests the multi-row gets.  Rows that do not exist are left out of the
+   * results, which come back in the order the rows were asked for, and
+   * the column and timestamp variants filter the same way as their
+   * single-row counterparts.
+   *
+   * @throws Exception
+   */
+  public void doTestTableMultiGets() throws Exception {
+    // Setup
+    ThriftServer.HBaseHandler handler = new ThriftServer.HBaseHandler(this.conf);
+    handler.createTable(tableAname, getColumnDescriptors());
+
+    // Apply timestamped Mutations to rowA
+    long time1 = System.currentTimeMillis();
+    handler.mutateRowTs(tableAname, rowAname, getMutations(), time1);
+
+    Thread.sleep(1000);
+
+    // Apply timestamped BatchMutations for rowA and rowB
+    long time2 = System.currentTimeMillis();
+    handler.mutateRowsTs(tableAname, getBatchMutations(), time2);
+
+    // the time range upper bound is exclusive so you need to increment one.
+    time1 += 1;
+
+    // rowC was never written
+    List<byte[]> rows = new ArrayList<byte[]>();
+    rows.add(rowBname);
+    rows.add(rowCname);
+    rows.add(rowAname);
+
+    List<TRowResult> results = handler.getRows(tableAname, rows);
+    assertEquals(2, results.size());
+    assertTrue(Bytes.equals(rowBname, results.get(0).row));
+    assertEquals(2, results.get(0).columns.size());
+    assertTrue(Bytes.equals(valueCname, results.get(0).columns.get(columnAname).value));
+    assertTrue(Bytes.equals(valueDname, results.get(0).columns.get(columnBname).value));
+    assertTrue(Bytes.equals(rowAname, results.get(1).row));
+    assertEquals(1, results.get(1).columns.size());
+    assertTrue(Bytes.equals(valueCname, results.get(1).columns.get(columnBname).value));
+
+    // Only the asked for column comes back
+    List<byte[]> columns = getColumnList(true, false);
+    results = handler.getRowsWithColumns(tableAname, rows, columns);
+    assertEquals(1, results.size());
+    assertTrue(Bytes.equals(rowBname, results.get(0).row));
+    assertEquals(1, results.get(0).columns.size());
+    assertTrue(Bytes.equals(valueCname, results.get(0).columns.get(columnAname).value));
+
+    // At time1 rowB did not exist yet and rowA still had valueB
+    results = handler.getRowsTs(tableAname, rows, time1);
+    assertEquals(1, results.size());
+    assertTrue(Bytes.equals(rowAname, results.get(0).row));
+    assertTrue(Bytes.equals(valueBname, results.get(0).columns.get(columnBname).value));
+    // columnA was deleted at time2, which covers the older version too
+    assertFalse(results.get(0).columns.containsKey(columnAname));
+
+    columns = getColumnList(false, true);
+    results = handler.getRowsWithColumnsTs(tableAname, rows, columns, time2 + 1);
+    assertEquals(2, results.size());
+    assertTrue(Bytes.equals(rowBname, results.get(0).row));
+    assertEquals(1, results.get(0).columns.size());
+    assertTrue(Bytes.equals(valueDname, results.get(0).columns.get(columnBname).value));
+    assertTrue(Bytes.equals(rowAname, results.get(1).row));
+    assertTrue(Bytes.equals(valueCname, results.get(1).columns.get(columnBname).value));
+
+    results = handler.getRowsWithColumnsTs(tableAname, rows, columns, time1);
+    assertEquals(1, results.size());
+    assertTrue(Bytes.equals(valueBname, results.get(0).columns.get(columnBname).value));
+
+    // Asking only for missing rows gives back nothing
+    rows = new ArrayList<byte[]>();
+    rows.add(rowCname);
+    assertEquals(0, handler.getRows(tableAname, rows).size());
+
+    // Teardown
+    handler.disableTable(tableAname);
+    handler.deleteTable(tableAname);
+  }
+
+  /**
+   * Tests mutateRows with a delete and a put of the same column of one
+   * row.  All puts are applied before any delete, so the column is left
+   * deleted while other columns of the row keep the new values.
+   *
+   * @throws Exception
+   */
+  public void doTestMutateRowsDeleteAndPut() throws Exception {
+    // Setup
+    ThriftServer.HBaseHandler handler = new ThriftServer.HBaseHandler(this.conf);
+    handler.createTable(tableAname, getColumnDescriptors());
+    handler.mutateRow(tableAname, rowAname, getMutations());
+
+    // (rowA, columnA): delete and place valueC
+    // (rowA, columnB): place valueD
+    // (rowB, columnA): place valueC
+    List<BatchMutation> batchMutations = new ArrayList<BatchMutation>();
+    List<Mutation> rowAmutations = new ArrayList<Mutation>();
+    rowAmutations.add(new Mutation(true, columnAname, null));
+    rowAmutations.add(new Mutation(false, columnAname, valueCname));
+    rowAmutations.add(new Mutation(false, columnBname, valueDname));
+    batchMutations.add(new BatchMutation(rowAname, rowAmutations));
+    List<Mutation> rowBmutations = new ArrayList<Mutation>();
+    rowBmutations.add(new Mutation(false, columnAname, valueCname));
+    batchMutations.add(new BatchMutation(rowBname, rowBmutations));
+    handler.mutateRows(tableAname, batchMutations);
+
+    // The delete went after the put, so no version of columnA is left
+    assertEquals(0, handler.get(tableAname, rowAname, columnAname).size());
+    assertTrue(Bytes.equals(valueDname,
+      handler.get(tableAname, rowAname, columnBname).get(0).value));
+    assertTrue(Bytes.equals(valueCname,
+      handler.get(tableAname, rowBname, columnAname).get(0).value));
+
+    // Teardown
+    handler.disableTable(tableAname);
+    handler.deleteTable(tableAname);
+  }
+
   /**
    * Tests the four different scanner-opening methods (with and without
    * a stoprow, with and without a timestamp).
@@ -0,0 +1,246 @@
+/**
+ * Copyright 2010 The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.zookeeper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.executor.RegionTransitionData;
+import org.apache.hadoop.hbase.executor.EventHandler.EventType;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.zookeeper.TestZooKeeperNodeTracker.StubAbortable;
+import org.apache.hadoop.hbase.zookeeper.ZKUtil.NodeAndData;
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the asynchronous and pipelined operations on unassigned nodes
+ */
+public class TestZKAssign {
+  private final static HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final String SERVER = "server,60020,1";
+
+  private static ZooKeeperWatcher zkw;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    TEST_UTIL.startMiniZKCluster();
+    zkw = new ZooKeeperWatcher(TEST_UTIL.getConfiguration(), "TestZKAssign",
+        new StubAbortable());
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    zkw.close();
+    TEST_UTIL.shutdownMiniZKCluster();
+  }
+
+  @Test (timeout=60000)
+  public void testPipelinedReadsAndDeletes() throws Exception {
+    String base = ZKUtil.joinZNode(zkw.baseZNode, "testPipelined");
+    ZKUtil.createAndFailSilent(zkw, base);
+    List<String> nodes = new ArrayList<String>();
+    for (int i = 0; i < 10; i++) {
+      String node = ZKUtil.joinZNode(base, "node" + i);
+      ZKUtil.createAndFailSilent(zkw, node);
+      ZKUtil.setData(zkw, node, Bytes.toBytes(i));
+      // Give some of them children, and grandchildren
+      if (i % 3 == 0) {
+        String child = ZKUtil.joinZNode(node, "child");
+        ZKUtil.createAndFailSilent(zkw, child);
+        ZKUtil.createAndFailSilent(zkw, ZKUtil.joinZNode(child, "grandchild"));
+      }
+      nodes.add(node);
+    }
+    nodes.add(ZKUtil.joinZNode(base, "missing"));
+
+    List<byte []> datas = ZKUtil.getDataNoWatch(zkw, nodes);
+    assertEquals(nodes.size(), datas.size());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i, Bytes.toInt(datas.get(i)));
+    }
+    assertNull(datas.get(10));
+
+    ZKUtil.deleteChildrenRecursively(zkw, base);
+    assertEquals(0, ZKUtil.getNumberOfChildren(zkw, base));
+    ZKUtil.deleteNode(zkw, base);
+  }
+
+  @Test (timeout=60000)
+  public void testAsyncTransitions() throws Exception {
+    HRegionInfo region = createRegion("testAsyncTransitions");
+    ZKAssign.createNodeOffline(zkw, region, SERVER);
+    int version = ZKAssign.transitionNodeOpening(zkw, region, SERVER);
+    assertTrue(version != -1);
+
+    TransitionResult result = new TransitionResult();
+    ZKAssign.asyncRetransitionNodeOpening(zkw, region, SERVER, version, result);
+    assertEquals(version + 1, result.waitForVersion());
+
+    // A stale version fails the transition
+    ZKAssign.asyncRetransitionNodeOpening(zkw, region, SERVER, version, result);
+    assertEquals(-1, result.waitForVersion());
+
+    // So does the wrong state
+    ZKAssign.asyncTransitionNodeClosed(zkw, region, SERVER, version + 1,
+        result);
+    assertEquals(-1, result.waitForVersion());
+
+    ZKAssign.deleteAllNodes(zkw);
+    // And a missing node
+    ZKAssign.asyncRetransitionNodeOpening(zkw, region, SERVER, version + 1,
+        result);
+    assertEquals(-1, result.waitForVersion());
+  }
+
+  @Test (timeout=60000)
+  public void testAsyncTransitionWithoutZooKeeper() throws Exception {
+    HRegionInfo region = createRegion("testAsyncTransitionWithoutZooKeeper");
+    ZooKeeperWatcher closed = mock(ZooKeeperWatcher.class);
+    when(closed.getZooKeeper()).thenReturn(null);
+    final List<Integer> results = new ArrayList<Integer>();
+    ZKAssign.asyncRetransitionNodeOpening(closed, region, SERVER, 0,
+        new ZKAssign.TransitionCallback() {
+      @Override
+      public void processResult(int rc, HRegionInfo region, int version) {
+        results.add(Integer.valueOf(rc));
+        results.add(Integer.valueOf(version));
+      }
+    });
+    // Failed right away on the calling thread rather than throwing
+    assertEquals(2, results.size());
+    assertEquals(KeeperException.Code.CONNECTIONLOSS.intValue(),
+        results.get(0).intValue());
+    assertEquals(-1, results.get(1).intValue());
+  }
+
+  @Test (timeout=60000)
+  public void testAsyncWatchAndGetNewChildren() throws Exception {
+    HRegionInfo first = createRegion("first");
+    HRegionInfo second = createRegion("second");
+    ZKAssign.createNodeClosing(zkw, first, SERVER);
+    final BlockingQueue<RegionTransitionData> datas =
+      new ArrayBlockingQueue<RegionTransitionData>(10);
+    AsyncCallback.DataCallback cb = new AsyncCallback.DataCallback() {
+      @Override
+      public void processResult(int rc, String path, Object ctx, byte[] data,
+          Stat stat) {
+        assertEquals(KeeperException.Code.OK.intValue(), rc);
+        datas.add(RegionTransitionData.fromBytes(data));
+      }
+    };
+    // Nodes created with ZKAssign are already watched
+    ZKUtil.asyncWatchAndGetNewChildren(zkw, zkw.assignmentZNode, cb);
+    synchronized (zkw.getNodes()) {
+      zkw.getNodes().clear();
+    }
+    ZKUtil.asyncWatchAndGetNewChildren(zkw, zkw.assignmentZNode, cb);
+    RegionTransitionData data = datas.take();
+    assertTrue(Bytes.equals(first.getRegionName(), data.getRegionName()));
+    assertEquals(EventType.RS2ZK_REGION_CLOSING, data.getEventType());
+
+    // Only the new ones come back
+    ZKAssign.createNodeClosing(zkw, second, SERVER);
+    synchronized (zkw.getNodes()) {
+      zkw.getNodes().remove(ZKUtil.joinZNode(zkw.assignmentZNode,
+          second.getEncodedName()));
+    }
+    ZKUtil.asyncWatchAndGetNewChildren(zkw, zkw.assignmentZNode, cb);
+    data = datas.take();
+    assertTrue(Bytes.equals(second.getRegionName(), data.getRegionName()));
+    assertNull(datas.poll(1, TimeUnit.SECONDS));
+    ZKAssign.deleteAllNodes(zkw);
+  }
+
+  /**
+   * The pipelined helpers can't wait on callbacks from the event thread, they
+   * must fall back to plain calls there
+   */
+  @Test (timeout=60000)
+  public void testPipelinedReadsFromEventThread() throws Exception {
+    final BlockingQueue<List<NodeAndData>> results =
+      new ArrayBlockingQueue<List<NodeAndData>>(10);
+    ZooKeeperWatcher zkw = new ZooKeeperWatcher(TEST_UTIL.getConfiguration(),
+        "testPipelinedReadsFromEventThread", new StubAbortable());
+    zkw.registerListener(new ZooKeeperListener(zkw) {
+      @Override
+      public void nodeChildrenChanged(String path) {
+        if (path.equals(watcher.assignmentZNode)) {
+          try {
+            results.add(ZKUtil.watchAndGetNewChildren(watcher,
+                watcher.assignmentZNode));
+          } catch (KeeperException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      }
+    });
+    ZKUtil.listChildrenAndWatchForNewChildren(zkw, zkw.assignmentZNode);
+    HRegionInfo region = createRegion("testPipelinedReadsFromEventThread");
+    // Create it behind the watcher's back so it's new to it
+    ZooKeeperWatcher other = new ZooKeeperWatcher(TEST_UTIL.getConfiguration(),
+        "other", new StubAbortable());
+    ZKAssign.createNodeOffline(other, region, SERVER);
+    List<NodeAndData> newNodes = results.take();
+    assertEquals(1, newNodes.size());
+    assertTrue(Bytes.equals(region.getRegionName(),
+        RegionTransitionData.fromBytes(newNodes.get(0).getData())
+          .getRegionName()));
+    ZKAssign.deleteAllNodes(other);
+    other.close();
+    zkw.close();
+  }
+
+  private HRegionInfo createRegion(final String table) {
+    return new HRegionInfo(new HTableDescriptor(table), null, null);
+  }
+
+  private static class TransitionResult
+  implements ZKAssign.TransitionCallback {
+    private final BlockingQueue<Integer> versions =
+      new ArrayBlockingQueue<Integer>(1);
+
+    @Override
+    public void processResult(int rc, HRegionInfo region, int version) {
+      assertEquals(KeeperException.Code.OK.intValue(), rc);
+      this.versions.add(Integer.valueOf(version));
+    }
+
+    int waitForVersion() throws InterruptedException {
+      return this.versions.take().intValue();
+    }
+  }
+}